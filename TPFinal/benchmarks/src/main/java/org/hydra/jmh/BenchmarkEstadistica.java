@@ -0,0 +1,100 @@
+package org.hydra.jmh;
+
+import org.hydra.Estadistica;
+import org.hydra.Main;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark de {@link Estadistica#incrementarContador} con los t-invariantes de la fábrica. Cada hilo recorre en
+ * ciclo las transiciones de un t-invariante, repartidos entre los hilos, de modo que con varios hilos los dos
+ * t-invariantes que comparten T1 y T8 se completan desde hilos distintos. Cada operación es un disparo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkEstadistica {
+
+    private Estadistica estadistica;
+    private final AtomicInteger invariantesAsignados = new AtomicInteger();
+
+    /**
+     * Estado de cada hilo: las transiciones de su t-invariante y la siguiente a contar.
+     */
+    @State(Scope.Thread)
+    public static class Hilo {
+
+        private int[] transiciones;
+        private int siguiente;
+
+        /**
+         * Asigna al hilo el siguiente t-invariante de la fábrica.
+         *
+         * @param benchmark estado compartido del benchmark
+         */
+        @Setup
+        public void asignar(BenchmarkEstadistica benchmark) {
+            List<List<Integer>> invariantes = Main.getTInvariantes();
+            int invariante = benchmark.invariantesAsignados.getAndIncrement() % invariantes.size();
+            this.transiciones = invariantes.get(invariante).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Crea la estadística con los t-invariantes de la fábrica.
+     */
+    @Setup
+    public void preparar() {
+        Redes.silenciarConsola();
+        this.estadistica = new Estadistica(Main.getTInvariantes());
+    }
+
+    /**
+     * Cuenta disparos desde un solo hilo.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(1)
+    public void hilos1(Hilo hilo) {
+        contar(hilo);
+    }
+
+    /**
+     * Cuenta disparos desde 4 hilos.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(4)
+    public void hilos4(Hilo hilo) {
+        contar(hilo);
+    }
+
+    /**
+     * Cuenta el disparo de la siguiente transición del t-invariante del hilo.
+     *
+     * @param hilo estado del hilo
+     */
+    private void contar(Hilo hilo) {
+        this.estadistica.incrementarContador(hilo.transiciones[hilo.siguiente]);
+        hilo.siguiente = hilo.siguiente + 1 == hilo.transiciones.length ? 0 : hilo.siguiente + 1;
+    }
+}
@@ -0,0 +1,72 @@
+package org.hydra.jmh;
+
+import org.hydra.Monitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del costo de la guarda del marcado. Usa la red de líneas independientes de
+ * {@link BenchmarkMonitorContendido} con el monitor con semáforo global, donde la guarda corre dentro de la sección
+ * crítica, y compara la tasa de disparos sin guarda ({@code periodo} 0) y con verificación completa cada 1, 16 y 256
+ * disparos, a 1 y 4 hilos. Cada operación es un disparo; la sobrecarga se obtiene comparando cada periodo con el 0.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkGuardia {
+
+    @Param({"0", "1", "16", "256"})
+    public int periodo;
+
+    private Monitor monitor;
+
+    /**
+     * Arma la red de líneas y activa la guarda con el periodo indicado.
+     */
+    @Setup
+    public void preparar() {
+        Redes.Red red = Redes.crear("lineas:" + HiloLinea.LINEAS, "mutex");
+        if (this.periodo > 0) {
+            red.rdp.activarGuardia(this.periodo);
+        }
+        this.monitor = red.monitor;
+    }
+
+    /**
+     * Dispara con un solo hilo.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(1)
+    public void hilos1(HiloLinea hilo) {
+        hilo.disparar(this.monitor);
+    }
+
+    /**
+     * Dispara con 4 hilos.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(4)
+    public void hilos4(HiloLinea hilo) {
+        hilo.disparar(this.monitor);
+    }
+}
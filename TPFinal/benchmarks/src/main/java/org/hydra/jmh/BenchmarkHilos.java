@@ -0,0 +1,260 @@
+package org.hydra.jmh;
+
+import org.hydra.FabricaHilos;
+import org.hydra.Main;
+import org.hydra.Monitor;
+import org.hydra.ProcesosModelados;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de escalado en cantidad de disparadores sobre la red de la fábrica, sin transiciones temporizadas. Los
+ * disparadores se reparten entre los segmentos de {@link Main} en la misma proporción (2, 4, 4, 1 y 4 hilos) y se
+ * escala desde 15 hasta 100.000. {@code arranque} mide el tiempo de crear y lanzar todos los disparadores, y
+ * {@code disparos} la tasa de disparos de los disparadores ya lanzados, informada como el contador auxiliar
+ * "disparos" en disparos por segundo; la tasa principal de {@code disparos} solo cuenta las consultas del hilo de
+ * JMH, que duerme entre una y otra para no competir con los disparadores.
+ * <p>
+ * El monitor y el tipo de hilo se eligen con los parámetros {@code monitor} y {@code hilos}, ej.
+ * {@code -p monitor=franjas,cas -p hilos=virtuales}. Si la JVM no puede crear tantos hilos de plataforma, falla
+ * solo esa cantidad.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BenchmarkHilos {
+
+    private static final int[][] SECUENCIAS = {{0}, {1, 3, 5}, {2, 4, 6}, {7}, {8, 9, 10, 11}};
+    private static final int[] HILOS_BASE = {2, 4, 4, 1, 4};
+    private static final int TOTAL_BASE = 15;
+    private static final long CONSULTA_MS = 10;
+
+    /**
+     * Parámetros comunes a los dos benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class Configuracion {
+
+        @Param({"15", "150", "1500", "15000", "100000"})
+        public int disparadores;
+
+        @Param({"mutex"})
+        public String monitor;
+
+        @Param({"plataforma"})
+        public String hilos;
+    }
+
+    /**
+     * Disparadores lanzados una vez por medición, que disparan durante todas las iteraciones.
+     */
+    @State(Scope.Benchmark)
+    public static class Carga {
+
+        private final LongAdder disparos = new LongAdder();
+        private List<Thread> lanzados;
+
+        /**
+         * Arma la red y lanza los disparadores.
+         *
+         * @param configuracion parámetros del benchmark
+         */
+        @Setup(Level.Trial)
+        public void lanzar(Configuracion configuracion) {
+            this.lanzados = BenchmarkHilos.lanzar(Redes.crear("fabrica", configuracion.monitor),
+                    FabricaHilos.crear(configuracion.hilos), configuracion.disparadores, this.disparos);
+        }
+
+        /**
+         * Detiene los disparadores.
+         *
+         * @throws InterruptedException si se interrumpe la espera de los hilos
+         */
+        @TearDown(Level.Trial)
+        public void detener() throws InterruptedException {
+            BenchmarkHilos.detener(this.lanzados);
+        }
+    }
+
+    /**
+     * Disparos contados en cada iteración; JMH los informa divididos por la duración de la iteración.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Contadores {
+
+        public long disparos;
+        private long anterior;
+
+        /**
+         * Reinicia la cuenta al comenzar cada iteración.
+         *
+         * @param carga disparadores lanzados
+         */
+        @Setup(Level.Iteration)
+        public void reiniciar(Carga carga) {
+            this.disparos = 0;
+            this.anterior = carga.disparos.sum();
+        }
+    }
+
+    /**
+     * Red armada antes de cada medición de arranque y disparadores que se detienen al terminarla.
+     */
+    @State(Scope.Benchmark)
+    public static class Arranque {
+
+        private Redes.Red red;
+        private ThreadFactory fabrica;
+        private int cantidad;
+        private List<Thread> lanzados = new ArrayList<>();
+
+        /**
+         * Arma la red sin disparadores.
+         *
+         * @param configuracion parámetros del benchmark
+         */
+        @Setup(Level.Iteration)
+        public void armar(Configuracion configuracion) {
+            this.red = Redes.crear("fabrica", configuracion.monitor);
+            this.fabrica = FabricaHilos.crear(configuracion.hilos);
+            this.cantidad = configuracion.disparadores;
+        }
+
+        /**
+         * Detiene los disparadores lanzados en la medición.
+         *
+         * @throws InterruptedException si se interrumpe la espera de los hilos
+         */
+        @TearDown(Level.Iteration)
+        public void detener() throws InterruptedException {
+            BenchmarkHilos.detener(this.lanzados);
+            this.lanzados = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Crea y lanza todos los disparadores sobre una red recién armada.
+     *
+     * @param arranque red y fábrica de hilos
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void arranque(Arranque arranque) {
+        arranque.lanzados = lanzar(arranque.red, arranque.fabrica, arranque.cantidad, new LongAdder());
+    }
+
+    /**
+     * Espera un intervalo y suma los disparos realizados entretanto por los disparadores.
+     *
+     * @param carga disparadores lanzados
+     * @param contadores disparos de la iteración
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    @Benchmark
+    public void disparos(Carga carga, Contadores contadores) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(CONSULTA_MS);
+        long total = carga.disparos.sum();
+        contadores.disparos += total - contadores.anterior;
+        contadores.anterior = total;
+    }
+
+    /**
+     * Crea y lanza los disparadores repartidos entre los segmentos. Si la JVM no puede crear más hilos, detiene los
+     * ya creados antes de propagar el error.
+     *
+     * @param red red armada
+     * @param fabrica fábrica de los hilos disparadores
+     * @param cantidad cantidad total de disparadores
+     * @param disparos contador de disparos
+     * @return hilos lanzados
+     */
+    private static List<Thread> lanzar(Redes.Red red, ThreadFactory fabrica, int cantidad, LongAdder disparos) {
+        List<Thread> disparadores = new ArrayList<>(cantidad);
+        try {
+            for (int segmento = 0; segmento < SECUENCIAS.length; segmento++) {
+                int[] secuencia = SECUENCIAS[segmento];
+                int hilos = Math.max(1, (int) Math.round((double) cantidad * HILOS_BASE[segmento] / TOTAL_BASE));
+                for (int i = 0; i < hilos; i++) {
+                    Thread hilo = fabrica.newThread(() -> disparar(red.monitor, red.procesoModelado, secuencia,
+                            disparos));
+                    hilo.setName("S" + segmento + "N" + i);
+                    disparadores.add(hilo);
+                    hilo.start();
+                }
+            }
+        }
+        catch (OutOfMemoryError e) {
+            // Se detienen los hilos ya creados antes de informar el error
+            try {
+                detener(disparadores);
+            }
+            catch (InterruptedException interrupcion) {
+                Thread.currentThread().interrupt();
+            }
+            throw e;
+        }
+        return disparadores;
+    }
+
+    /**
+     * Ciclo de un disparador: dispara en orden la secuencia de su segmento hasta ser interrumpido.
+     *
+     * @param monitor monitor de la red
+     * @param procesoModelado proceso modelado de la red
+     * @param secuencia transiciones del segmento
+     * @param disparos contador de disparos
+     */
+    private static void disparar(Monitor monitor, ProcesosModelados procesoModelado, int[] secuencia,
+                                 LongAdder disparos) {
+        try {
+            for (int i = 0; !Thread.currentThread().isInterrupted(); i = (i + 1) % secuencia.length) {
+                monitor.disparoTransicion(secuencia[i]);
+                procesoModelado.realizarTarea(secuencia[i]);
+                disparos.increment();
+            }
+        }
+        catch (RuntimeException e) {
+            // El disparador fue interrumpido mientras esperaba en el monitor
+        }
+    }
+
+    /**
+     * Interrumpe los disparadores y espera a que terminen.
+     *
+     * @param disparadores hilos a detener
+     * @throws InterruptedException si se interrumpe la espera de los hilos
+     */
+    private static void detener(List<Thread> disparadores) throws InterruptedException {
+        for (Thread hilo : disparadores) {
+            hilo.interrupt();
+        }
+        for (Thread hilo : disparadores) {
+            hilo.join();
+        }
+    }
+}
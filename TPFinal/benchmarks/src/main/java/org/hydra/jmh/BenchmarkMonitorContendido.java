@@ -0,0 +1,102 @@
+package org.hydra.jmh;
+
+import org.hydra.Monitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de {@link Monitor#disparoTransicion} disputado por 1, 2, 4, 8 y 16 hilos, con el monitor con semáforo
+ * global ({@code mutex}), con locks por franja de plazas ({@code franjas}) y sin lock global ({@code cas}). La red
+ * tiene {@value HiloLinea#LINEAS} líneas independientes y cada hilo dispara alternadamente las dos transiciones de su
+ * propia línea, por lo que los hilos solo compiten por la sincronización del monitor y nunca esperan tokens. Cada
+ * operación es un disparo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkMonitorContendido {
+
+    @Param({"mutex", "franjas", "cas"})
+    public String monitor;
+
+    private Monitor armado;
+
+    /**
+     * Arma la red de líneas con el monitor indicado.
+     */
+    @Setup
+    public void preparar() {
+        this.armado = Redes.crear("lineas:" + HiloLinea.LINEAS, this.monitor).monitor;
+    }
+
+    /**
+     * Dispara con un solo hilo, sin disputa.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(1)
+    public void hilos1(HiloLinea hilo) {
+        hilo.disparar(this.armado);
+    }
+
+    /**
+     * Dispara con 2 hilos.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(2)
+    public void hilos2(HiloLinea hilo) {
+        hilo.disparar(this.armado);
+    }
+
+    /**
+     * Dispara con 4 hilos.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(4)
+    public void hilos4(HiloLinea hilo) {
+        hilo.disparar(this.armado);
+    }
+
+    /**
+     * Dispara con 8 hilos.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(8)
+    public void hilos8(HiloLinea hilo) {
+        hilo.disparar(this.armado);
+    }
+
+    /**
+     * Dispara con 16 hilos, uno por línea.
+     *
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(HiloLinea.LINEAS)
+    public void hilos16(HiloLinea hilo) {
+        hilo.disparar(this.armado);
+    }
+}
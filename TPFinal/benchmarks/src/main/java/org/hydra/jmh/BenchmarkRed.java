@@ -0,0 +1,94 @@
+package org.hydra.jmh;
+
+import org.hydra.RDP;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del motor de disparo sin monitor: {@link RDP#disparo} recorriendo en ciclo los t-invariantes de la red y
+ * {@link RDP#getSensibilizadas} seguido del recorrido del bitset que hacen los monitores. Se mide sobre la red de la
+ * fábrica, sobre redes de líneas independientes de 128 y 2048 transiciones y sobre 4096 líneas de cuatro etapas que
+ * comparten 64 recursos, de 16384 transiciones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkRed {
+
+    @Param({"fabrica", "lineas:64", "lineas:1024", "generar:lineas:4096,64,4"})
+    public String red;
+
+    private RDP rdp;
+    private int[] secuencia;
+    private int siguiente;
+
+    /**
+     * Arma la red indicada por el parámetro.
+     */
+    @Setup
+    public void preparar() {
+        Redes.Red armada = Redes.crear(this.red, "mutex");
+        this.rdp = armada.rdp;
+        this.secuencia = armada.secuencia;
+    }
+
+    /**
+     * Dispara la siguiente transición de la secuencia por el camino del monitor, que verifica la ventana temporal.
+     *
+     * @return true si se disparó
+     */
+    @Benchmark
+    public boolean disparo() {
+        return this.rdp.disparo(proxima(), false);
+    }
+
+    /**
+     * Dispara la siguiente transición de la secuencia como disparo final, sin verificar la ventana temporal.
+     *
+     * @return true si se disparó
+     */
+    @Benchmark
+    public boolean disparoSinVentana() {
+        return this.rdp.disparo(proxima(), true);
+    }
+
+    /**
+     * Obtiene el bitset de sensibilizadas y cuenta sus transiciones.
+     *
+     * @return cantidad de transiciones sensibilizadas
+     */
+    @Benchmark
+    public int sensibilizadas() {
+        int cantidad = 0;
+        for (long palabra : this.rdp.getSensibilizadas()) {
+            cantidad += Long.bitCount(palabra);
+        }
+        return cantidad;
+    }
+
+    /**
+     * Devuelve la siguiente transición de la secuencia cíclica.
+     *
+     * @return transición a disparar
+     */
+    private int proxima() {
+        int transicion = this.secuencia[this.siguiente];
+        this.siguiente = this.siguiente + 1 == this.secuencia.length ? 0 : this.siguiente + 1;
+        return transicion;
+    }
+}
@@ -0,0 +1,187 @@
+package org.hydra.jmh;
+
+import org.hydra.EscritorTrazaBinaria;
+import org.hydra.LectorTraza;
+import org.hydra.Main;
+import org.hydra.RegistroDisparos;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del costo del registro de disparos dentro del monitor: sin registro ({@code ninguno}), con el registro
+ * síncrono de log4j ({@code log4j}) y con el diario asíncrono con traza de texto ({@code diario}) o binaria
+ * ({@code binario}), a 1, 4 y 16 hilos sobre la red de líneas independientes de {@link BenchmarkMonitorContendido}.
+ * Cada operación es un disparo; se informan la tasa y el tiempo medio por disparo, y al terminar cada medición se
+ * imprimen en la salida de errores los bytes que ocupa cada disparo en el archivo. {@code releer} mide la lectura de
+ * una traza binaria con {@link LectorTraza}, en disparos leídos.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkRegistro {
+
+    // Se declara la cantidad de disparos de la traza que se relee
+    private static final int DISPAROS_TRAZA = 1 << 20;
+
+    /**
+     * Red de líneas con el registro indicado, escrito en un archivo temporal.
+     */
+    @State(Scope.Benchmark)
+    public static class Red {
+
+        @Param({"ninguno", "log4j", "diario", "binario"})
+        public String registro;
+
+        @Param({"mutex"})
+        public String monitor;
+
+        private Redes.Red red;
+        private RegistroDisparos registroDisparos;
+        private Path archivo;
+
+        /**
+         * Arma la red y le asigna el registro.
+         *
+         * @throws IOException si no se puede crear el archivo temporal
+         */
+        @Setup(Level.Trial)
+        public void preparar() throws IOException {
+            this.red = Redes.crear("lineas:" + HiloLinea.LINEAS, this.monitor);
+            this.archivo = Files.createTempFile("disparos", ".txt");
+            this.registroDisparos = this.registro.equals("ninguno") ? null
+                    : Main.crearRegistro(this.registro, this.archivo, this.red.rdp, null);
+            this.red.rdp.setRegistroDisparos(this.registroDisparos);
+        }
+
+        /**
+         * Cierra el registro, informa los bytes por disparo del archivo y lo borra.
+         *
+         * @throws IOException si no se puede medir o borrar el archivo
+         */
+        @TearDown(Level.Trial)
+        public void cerrar() throws IOException {
+            if (this.registroDisparos != null) {
+                this.registroDisparos.cerrar();
+                // Se cuentan dos disparos por t-invariante completado, uno por cada transicion de la linea
+                long disparos = 2 * this.red.estadistica.getTotalCompletados();
+                System.err.printf("registro=%s: %.1f bytes por disparo\n", this.registro,
+                        (double) Files.size(this.archivo) / Math.max(1, disparos));
+            }
+            Files.delete(this.archivo);
+        }
+    }
+
+    /**
+     * Traza binaria de disparos alternados de las líneas, escrita una sola vez para releerla.
+     */
+    @State(Scope.Benchmark)
+    public static class Traza {
+
+        private Path archivo;
+
+        /**
+         * Escribe la traza con un disparo por microsegundo.
+         *
+         * @throws IOException si no se puede escribir la traza
+         */
+        @Setup(Level.Trial)
+        public void escribir() throws IOException {
+            this.archivo = Files.createTempFile("traza", ".bin");
+            EscritorTrazaBinaria escritor = new EscritorTrazaBinaria(this.archivo, 2 * HiloLinea.LINEAS,
+                    2 * HiloLinea.LINEAS);
+            long instante = System.nanoTime();
+            for (int i = 0; i < DISPAROS_TRAZA; i++) {
+                int hilo = i % HiloLinea.LINEAS;
+                escritor.escribir(instante += 1_000, hilo, "BENCH" + hilo, 2 * hilo + (i / HiloLinea.LINEAS & 1));
+            }
+            escritor.cerrar();
+        }
+
+        /**
+         * Borra la traza.
+         *
+         * @throws IOException si no se puede borrar el archivo
+         */
+        @TearDown(Level.Trial)
+        public void borrar() throws IOException {
+            Files.delete(this.archivo);
+        }
+    }
+
+    /**
+     * Dispara con un solo hilo.
+     *
+     * @param red red con el registro
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(1)
+    public void hilos1(Red red, HiloLinea hilo) {
+        hilo.disparar(red.red.monitor);
+    }
+
+    /**
+     * Dispara con 4 hilos.
+     *
+     * @param red red con el registro
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(4)
+    public void hilos4(Red red, HiloLinea hilo) {
+        hilo.disparar(red.red.monitor);
+    }
+
+    /**
+     * Dispara con 16 hilos, uno por línea.
+     *
+     * @param red red con el registro
+     * @param hilo estado del hilo
+     */
+    @Benchmark
+    @Threads(HiloLinea.LINEAS)
+    public void hilos16(Red red, HiloLinea hilo) {
+        hilo.disparar(red.red.monitor);
+    }
+
+    /**
+     * Lee todos los disparos de la traza binaria.
+     *
+     * @param traza traza escrita
+     * @return suma de las transiciones leídas
+     * @throws IOException si no se puede leer la traza
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(DISPAROS_TRAZA)
+    public long releer(Traza traza) throws IOException {
+        long suma = 0;
+        try (LectorTraza lector = new LectorTraza(traza.archivo)) {
+            while (lector.siguiente()) {
+                suma += lector.getTransicion();
+            }
+        }
+        return suma;
+    }
+}
@@ -0,0 +1,85 @@
+package org.hydra.jmh;
+
+import org.hydra.Main;
+import org.hydra.PoliticaDisparo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de {@link PoliticaDisparo#getDisparoPrioritario} de cada política, seguido de la notificación del
+ * disparo elegido para que la política evolucione como en el monitor. Las candidatas se toman de
+ * {@value #CONJUNTOS} conjuntos aleatorios precalculados, con hasta {@value #CANDIDATAS} transiciones cada uno. Las
+ * redes de líneas escalan la cantidad de t-invariantes que recorren las políticas balanceada y de reparto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkSeleccionPolitica {
+
+    private static final int CANDIDATAS = 8;
+    private static final int CONJUNTOS = 1024;
+
+    @Param({"balanceada", "plazos", "reparto"})
+    public String politica;
+
+    @Param({"fabrica", "lineas:4", "lineas:64", "lineas:512"})
+    public String red;
+
+    private PoliticaDisparo seleccion;
+    private long[][] conjuntos;
+    private int siguiente;
+
+    /**
+     * Arma la red y la política, con pesos iguales para el reparto, y precalcula las candidatas.
+     */
+    @Setup
+    public void preparar() {
+        // Se arma la red y la politica indicada
+        Redes.Red armada = Redes.crear(this.red, "mutex");
+        String tipo = this.politica.equals("reparto")
+                ? "reparto:" + String.join(",", Collections.nCopies(armada.invariantes.size(), "1"))
+                : this.politica;
+        this.seleccion = Main.crearPolitica(tipo, armada.procesoModelado);
+
+        // Se precalculan conjuntos aleatorios de transiciones candidatas
+        int transiciones = armada.rdp.getTotaltransiciones();
+        Random aleatorio = new Random(42);
+        this.conjuntos = new long[CONJUNTOS][(transiciones + 63) >>> 6];
+        for (long[] conjunto : this.conjuntos) {
+            for (int i = 0; i < CANDIDATAS; i++) {
+                int transicion = aleatorio.nextInt(transiciones);
+                conjunto[transicion >>> 6] |= 1L << transicion;
+            }
+        }
+    }
+
+    /**
+     * Selecciona una transición entre las candidatas del siguiente conjunto y notifica su disparo.
+     *
+     * @return transición elegida
+     */
+    @Benchmark
+    public int seleccionar() {
+        int elegida = this.seleccion.getDisparoPrioritario(this.conjuntos[this.siguiente]);
+        this.seleccion.notificarDisparo(elegida);
+        this.siguiente = (this.siguiente + 1) & (CONJUNTOS - 1);
+        return elegida;
+    }
+}
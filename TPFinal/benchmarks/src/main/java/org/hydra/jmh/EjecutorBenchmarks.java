@@ -0,0 +1,54 @@
+package org.hydra.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Punto de entrada del jar de benchmarks. Acepta las mismas opciones que el lanzador de JMH y, si no se indica
+ * otro formato o archivo de resultados, los guarda en JSON en {@value #RESULTADOS} para comparar entre versiones.
+ */
+public class EjecutorBenchmarks {
+
+    private static final String RESULTADOS = "resultados-jmh.json";
+
+    /**
+     * Ejecuta los benchmarks seleccionados por la línea de comandos, o todos si no se selecciona ninguno.
+     *
+     * @param args opciones de JMH, ej. "BenchmarkRed -f 2"
+     * @throws CommandLineOptionException si las opciones no son válidas
+     * @throws IOException si no se puede mostrar la ayuda
+     * @throws RunnerException si falla la ejecución de un benchmark
+     */
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        // Se interpretan las opciones de la linea de comandos
+        CommandLineOptions linea = new CommandLineOptions(args);
+        if (linea.shouldHelp()) {
+            linea.showHelp();
+            return;
+        }
+
+        // Se completan el formato y el archivo de resultados si no se indicaron
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(linea);
+        if (!linea.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linea.getResult().hasValue()) {
+            opciones.result(RESULTADOS);
+        }
+
+        // Se listan o se ejecutan los benchmarks
+        Runner ejecutor = new Runner(opciones.build());
+        if (linea.shouldList()) {
+            ejecutor.list();
+            return;
+        }
+        ejecutor.run();
+    }
+}
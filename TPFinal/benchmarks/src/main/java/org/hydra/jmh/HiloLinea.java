@@ -0,0 +1,42 @@
+package org.hydra.jmh;
+
+import org.hydra.Monitor;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Estado de cada hilo de los benchmarks sobre redes de líneas: la línea propia del hilo, distinta a la de los demás
+ * mientras haya tantas líneas como hilos, y la transición que le toca disparar en ella.
+ */
+@State(Scope.Thread)
+public class HiloLinea {
+
+    // Se declara la cantidad de lineas de la red que usan los benchmarks de monitores
+    static final int LINEAS = 16;
+
+    private int primera;
+    private int paso;
+
+    /**
+     * Asigna al hilo la línea de su índice entre los hilos del benchmark.
+     *
+     * @param parametros parámetros del hilo en JMH
+     */
+    @Setup
+    public void asignar(ThreadParams parametros) {
+        this.primera = 2 * (parametros.getThreadIndex() % LINEAS);
+    }
+
+    /**
+     * Dispara en el monitor la transición que le toca al hilo en su línea.
+     *
+     * @param monitor monitor de la red de líneas
+     */
+    void disparar(Monitor monitor) {
+        monitor.disparoTransicion(this.primera + this.paso);
+        this.paso ^= 1;
+    }
+}
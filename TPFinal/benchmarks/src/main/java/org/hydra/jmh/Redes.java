@@ -0,0 +1,133 @@
+package org.hydra.jmh;
+
+import org.hydra.DefinicionRed;
+import org.hydra.Estadistica;
+import org.hydra.GeneradorRedes;
+import org.hydra.Main;
+import org.hydra.Monitor;
+import org.hydra.ProcesosModelados;
+import org.hydra.RDP;
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Construcción de las redes que usan los benchmarks. Una red se describe con un texto: "fabrica" es la red de
+ * {@link Main}, "lineas:N" son N líneas independientes de dos plazas y dos transiciones con un token cada una, que
+ * usan los benchmarks de monitores, "generar:descripcion" es una red de {@link GeneradorRedes}
+ * (con ';' o ',' entre los parámetros) y "archivo:ruta" es una red en formato {@code .red} o PNML cuyos
+ * t-invariantes puedan dispararse uno tras otro. Las ventanas temporales se anulan para medir solo el motor.
+ */
+final class Redes {
+
+    private Redes() {
+    }
+
+    /**
+     * Red armada con su monitor y una secuencia cíclica de disparos que la red puede disparar en orden.
+     */
+    static final class Red {
+
+        final RDP rdp;
+        final ProcesosModelados procesoModelado;
+        final Monitor monitor;
+        final Estadistica estadistica;
+        final List<List<Integer>> invariantes;
+        final int[] secuencia;
+
+        private Red(RDP rdp, ProcesosModelados procesoModelado, Monitor monitor, Estadistica estadistica,
+                    List<List<Integer>> invariantes, int[] secuencia) {
+            this.rdp = rdp;
+            this.procesoModelado = procesoModelado;
+            this.monitor = monitor;
+            this.estadistica = estadistica;
+            this.invariantes = invariantes;
+            this.secuencia = secuencia;
+        }
+    }
+
+    /**
+     * Crea una red con el monitor indicado, sin ventanas temporales y con su estadística.
+     *
+     * @param descripcion "fabrica", "lineas:N", "generar:descripcion" o "archivo:ruta"
+     * @param tipoMonitor tipo de monitor según {@link Main#crearMonitor(String, ProcesosModelados)}
+     * @return red armada
+     * @throws IllegalStateException si la secuencia de disparos no puede dispararse en orden
+     */
+    static Red crear(String descripcion, String tipoMonitor) {
+        // Se descarta la salida de consola de la construccion de la red
+        silenciarConsola();
+
+        // Se construye la matriz y los t-invariantes segun la descripcion
+        RDP rdp;
+        List<List<Integer>> invariantes;
+        if (descripcion.equals("fabrica")) {
+            rdp = Main.crearRed();
+            invariantes = Main.getTInvariantes();
+        }
+        else if (descripcion.startsWith("lineas:")) {
+            int lineas = Integer.parseInt(descripcion.substring("lineas:".length()));
+            int[][] matriz = new int[2 * lineas][2 * lineas];
+            int[] marcado = new int[2 * lineas];
+            invariantes = new ArrayList<>();
+            for (int linea = 0; linea < lineas; linea++) {
+                int t0 = 2 * linea;
+                int t1 = 2 * linea + 1;
+                matriz[t0][t0] = -1;
+                matriz[t0][t1] = 1;
+                matriz[t1][t0] = 1;
+                matriz[t1][t1] = -1;
+                marcado[t0] = 1;
+                invariantes.add(Arrays.asList(t0, t1));
+            }
+            rdp = new RDP(matriz, marcado);
+        }
+        else if (descripcion.startsWith("generar:")) {
+            // Se aceptan ';' en lugar de ',' porque JMH separa por comas los valores de -p
+            DefinicionRed red = GeneradorRedes.generar(descripcion.substring("generar:".length()).replace(';', ','));
+            rdp = red.crearRed();
+            invariantes = red.getTInvariantes();
+        }
+        else if (descripcion.startsWith("archivo:")) {
+            DefinicionRed red = Main.cargarRed(descripcion.substring("archivo:".length()));
+            rdp = red.crearRed();
+            invariantes = red.getTInvariantes();
+        }
+        else {
+            throw new IllegalArgumentException("Red desconocida: " + descripcion);
+        }
+
+        // Se arma el monitor, el vector de sensibilizado sin ventanas y la estadistica
+        ProcesosModelados procesoModelado = new ProcesosModelados(rdp, invariantes);
+        Monitor monitor = Main.crearMonitor(tipoMonitor, procesoModelado);
+        rdp.setVectorSensibilizado(new VectorSensibilizado(monitor, new long[rdp.getTotaltransiciones()]));
+        Estadistica estadistica = rdp.crearEstadistica(invariantes);
+
+        // Se arma la secuencia con los t-invariantes uno tras otro y se verifica que la red la dispare
+        int[] secuencia = invariantes.stream().flatMap(List::stream).mapToInt(Integer::intValue).toArray();
+        for (int transicion : secuencia) {
+            if (!rdp.disparo(transicion, true)) {
+                throw new IllegalStateException("La red " + descripcion + " no puede disparar T" + (transicion + 1)
+                        + " en la secuencia " + Arrays.toString(secuencia));
+            }
+        }
+        return new Red(rdp, procesoModelado, monitor, estadistica, invariantes, secuencia);
+    }
+
+    /**
+     * Reemplaza la salida estándar por un flujo que descarta todo. Solo afecta a la JVM del benchmark, no a la que
+     * informa los resultados.
+     */
+    static void silenciarConsola() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+}
@@ -1,16 +1,24 @@
 package org.hydra;
 
-import java.util.List;
+import org.hydra.beans.VectorSensibilizado;
+
 import java.util.concurrent.Semaphore;
 
 /**
  * Clase que implementa un monitor de concurrencia para el disparo de transiciones en una Red de Petri.
+ * <p>
+ * El monitor mide con {@link MetricasMonitor} la latencia de cada fase del disparo y cuenta las adquisiciones y los
+ * traspasos del mutex. El disparo se mide como el tiempo con el mutex tomado, incluida la elección del hilo a
+ * despertar. Dentro de la sección crítica solo se lee el reloj al entrar y antes de dormir en una cola; el resto
+ * de las lecturas y los registros se hacen después de liberar o ceder el mutex.
  */
-public class AdminMonitor {
+public class AdminMonitor implements Monitor {
     private final Semaphore mutex = new Semaphore(1);
     private final RDP rdp;
-    private final Politicas politicas;
+    private final PoliticaDisparo politicas;
     private final Colas colaTransicion;
+    private final long[] candidatas;
+    private final MetricasMonitor metricas;
 
     /**
      * Constructor de la clase.
@@ -26,6 +34,12 @@ public class AdminMonitor {
 
         // Se crea un nuevo elemento de la clase Colas con el total de las transiciones de laa red
         this.colaTransicion = new Colas(rdp.getTotaltransiciones());
+
+        // Se reserva una unica vez el bitset de transiciones candidatas a despertar
+        this.candidatas = new long[(rdp.getTotaltransiciones() + 63) >>> 6];
+
+        // Se crean las metricas de contencion del monitor
+        this.metricas = new MetricasMonitor(rdp.getTotaltransiciones());
     }
 
     /**
@@ -34,16 +48,27 @@ public class AdminMonitor {
      * @param transicion Transición a disparar
      * @throws RuntimeException Excepción manejada en shooter
      */
+    @Override
     public void disparoTransicion(int transicion) throws RuntimeException {
+        // Se intenta tomar el mutex sin esperar, para contar las adquisiciones que lo encuentran tomado
+        long inicio = System.nanoTime();
+        boolean conEspera = !this.mutex.tryAcquire();
         try {
             // Se intenta tomar el mutex del monitor para poder ingresar
-            this.mutex.acquire();
+            if (conEspera) {
+                this.mutex.acquire();
+            }
         }
         catch (InterruptedException e) {
             // Se lanza una excepcion que se resuelve en el run del disparador
             throw new RuntimeException(e);
         }
 
+        // Se toma el instante de entrada, desde el que se mide la posesion del mutex
+        long desde = System.nanoTime();
+        long esperaMutex = desde - inicio;
+        boolean despertado = false;
+
         // Se declara la variable en true
         boolean k = true;
 
@@ -58,25 +83,26 @@ public class AdminMonitor {
             // Se realiza el disparo de la transicion en la RdP y retorna si fue exitosa o no
             k = rdp.disparo(transicion, false);
 
+            // Se registra el resultado del traspaso que desperto al hilo
+            if (despertado) {
+                this.metricas.contarResultadoTraspaso(k);
+                despertado = false;
+            }
+
             // Se verifica si se pudo disparar la transicion
             if(k) {
-                // Se obtienen las transiciones sensibilizadas
-                List<Integer> sensibilizado = rdp.getSensibilizadas();
-
-                // Se obtienen las transiciones en espera
-                List<Integer> hilosListos = colaTransicion.getTransicionesEspera();
-
-                // Se filtran las transiciones sensibilizadas que tienen hilos esperando
-                sensibilizado.retainAll(hilosListos);
-
-                // Se verifica que el listado de hilos sensibilizados no este vacio
-                if (!sensibilizado.isEmpty()) {
+                // Se filtran, palabra a palabra, las transiciones sensibilizadas que tienen hilos esperando
+                if (calcularCandidatas()) {
                     // Se determina cual es la siguiente transicion a despertar
-                    int siguienteTransicion = politicas.getDisparoPrioritario(sensibilizado);
+                    int siguienteTransicion = politicas.getDisparoPrioritario(this.candidatas);
 
                     // Se despierta el hilo correspondiente
                     colaTransicion.release(siguienteTransicion);
 
+                    // Se registran las metricas, ya con el mutex cedido
+                    this.metricas.contarTraspaso();
+                    registrarPaso(transicion, conEspera, esperaMutex, System.nanoTime() - desde);
+
                     // Se sale del monitor sin liberar el mutex del monitor
                     return;
 
@@ -88,11 +114,19 @@ public class AdminMonitor {
 
             }
             else {
-                // Se libera el mutex del monitor
-                mutex.release();
+                // Se distingue si el hilo espera tokens o la apertura de la ventana temporal
+                MetricasMonitor.Fase fase = rdp.estaSensibilizada(transicion)
+                        ? MetricasMonitor.Fase.VENTANA : MetricasMonitor.Fase.COLA;
 
-                // Se ingresa a la cola de transiciones la transicion y se bloquea el hilo
-                colaTransicion.acquire(transicion);
+                // Se ingresa a la cola de transiciones la transicion, se libera el mutex y se bloquea el hilo
+                this.metricas.contarLiberacion();
+                long hasta = System.nanoTime();
+                colaTransicion.acquire(transicion, mutex);
+
+                // Se registra la espera, ya con el mutex cedido por quien desperto al hilo
+                desde = System.nanoTime();
+                this.metricas.registrar(fase, transicion, desde - hasta);
+                despertado = true;
 
                 // Se continua el loop despues de ser despertado
                 k = true;
@@ -101,6 +135,116 @@ public class AdminMonitor {
 
         // Se libera el mutex del monitor al salir del loop
         mutex.release();
+
+        // Se registran las metricas fuera de la seccion critica
+        this.metricas.contarLiberacion();
+        registrarPaso(transicion, conEspera, esperaMutex, System.nanoTime() - desde);
+    }
+
+    /**
+     * Registra en las métricas la adquisición del mutex y el disparo de un paso por el monitor. Se llama después de
+     * liberar o ceder el mutex, para no alargar la sección crítica.
+     *
+     * @param transicion Transición disparada
+     * @param conEspera true si el mutex estaba tomado al entrar
+     * @param esperaMutex Espera del mutex en nanosegundos
+     * @param posesion Tiempo con el mutex tomado para disparar, desde la entrada o el despertar hasta la salida
+     */
+    private void registrarPaso(int transicion, boolean conEspera, long esperaMutex, long posesion) {
+        this.metricas.contarAdquisicion(conEspera);
+        this.metricas.registrar(MetricasMonitor.Fase.MUTEX, transicion, esperaMutex);
+        this.metricas.registrar(MetricasMonitor.Fase.DISPARO, transicion, posesion);
+    }
+
+    /**
+     * Calcula en el bitset de candidatas las transiciones sensibilizadas que tienen hilos esperando, mediante un
+     * AND palabra a palabra, sin reservar memoria. Debe llamarse mientras se posee el mutex.
+     *
+     * @return true si hay al menos una transición candidata, false de lo contrario
+     */
+    private boolean calcularCandidatas() {
+        // Se obtienen los bitsets de sensibilizadas y de transiciones en espera
+        long[] sensibilizadas = rdp.getSensibilizadas();
+        long[] enEspera = colaTransicion.getTransicionesEspera();
+
+        // Se intersectan palabra a palabra
+        long hay = 0;
+        for (int i = 0; i < this.candidatas.length; i++) {
+            this.candidatas[i] = sensibilizadas[i] & enEspera[i];
+            hay |= this.candidatas[i];
+        }
+
+        // Se descartan las temporizadas fuera de su ventana, y las inmediatas que les quitarian los tokens si la
+        // politica prefiere a las temporizadas; el planificador despertara las que se abran
+        VectorSensibilizado vectorSensibilizado = rdp.getVectorSensibilizado();
+        if (hay != 0 && vectorSensibilizado != null) {
+            return vectorSensibilizado.filtrarFueraDeVentana(this.candidatas, this.politicas);
+        }
+
+        // Se indica si quedo alguna transicion candidata
+        return hay != 0;
+    }
+
+    /**
+     * Atiende la apertura de la ventana de una transición, desde el hilo del planificador. Toma el mutex y, si hay
+     * transiciones sensibilizadas con hilos esperando y dentro de su ventana, le cede el mutex a un hilo de la que
+     * elige la política, como en el traspaso tras un disparo: las ventanas de transiciones sensibilizadas por el
+     * mismo disparo se abren a la vez, y despertar siempre a la primera que se abre favorecería a un t-invariante.
+     * Si la ventana se corrió por una nueva sensibilización, se reprograma su apertura.
+     *
+     * @param transicion Transición cuya ventana se abrió
+     */
+    @Override
+    public void ventanaAbierta(int transicion) {
+        // Se toma el mutex del monitor
+        this.mutex.acquireUninterruptibly();
+
+        // Se despierta el hilo de la transicion que elige la politica cediendole el mutex
+        if (calcularCandidatas()) {
+            int siguienteTransicion = politicas.getDisparoPrioritario(this.candidatas);
+            this.metricas.contarTraspaso();
+            colaTransicion.release(siguienteTransicion);
+            return;
+        }
+
+        // Se reprograma la apertura si la transicion tiene hilos esperando, sigue sensibilizada por tokens y
+        // todavia no alcanzo la cota inferior
+        boolean enEspera = (colaTransicion.getTransicionesEspera()[transicion >>> 6] & (1L << transicion)) != 0;
+        VectorSensibilizado vectorSensibilizado = rdp.getVectorSensibilizado();
+        if (enEspera && vectorSensibilizado != null && rdp.estaSensibilizada(transicion)) {
+            long restante = vectorSensibilizado.tiempoHastaVentana(transicion);
+            if (restante > 0) {
+                vectorSensibilizado.programarApertura(transicion, restante);
+            }
+        }
+
+        // Se libera el mutex del monitor
+        this.metricas.contarLiberacion();
+        mutex.release();
+    }
+
+    /**
+     * Atiende el cierre de la ventana de una transición, desde el hilo del planificador, deshabilitándola con la
+     * exclusión del mutex si superó su beta.
+     *
+     * @param transicion Transición cuya ventana se cerró
+     */
+    @Override
+    public void ventanaCerrada(int transicion) {
+        // Se toma el mutex del monitor
+        this.mutex.acquireUninterruptibly();
+        try {
+            // Se deshabilita la transicion si corresponde
+            VectorSensibilizado vectorSensibilizado = rdp.getVectorSensibilizado();
+            if (vectorSensibilizado != null) {
+                vectorSensibilizado.cerrarVentana(transicion);
+            }
+        }
+        finally {
+            // Se libera el mutex del monitor
+            this.metricas.contarLiberacion();
+            mutex.release();
+        }
     }
 
     /**
@@ -108,11 +252,22 @@ public class AdminMonitor {
      *
      * @return Instancia de RDP del monitor
      */
+    @Override
     public RDP getRDP() {
         // Retorna la instancia de la RdP asociada al monitor
         return rdp;
     }
 
+    /**
+     * Retorna las métricas de contención del monitor.
+     *
+     * @return Métricas del monitor
+     */
+    public MetricasMonitor getMetricas() {
+        // Retorna las metricas del monitor
+        return this.metricas;
+    }
+
     /**
      * Retorna el semáforo del monitor.
      *
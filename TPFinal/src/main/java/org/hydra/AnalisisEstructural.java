@@ -0,0 +1,745 @@
+package org.hydra;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Análisis estructural de una RdP al cargarla: los t-invariantes y p-invariantes mínimos por el algoritmo de
+ * {@link Farkas}, los sifones mínimos con la trampa máxima de cada uno ({@link Sifones}) y, si los p-invariantes no
+ * cubren todas las plazas, el grafo de {@link Cubrimiento} para saber cuáles no están acotadas. Con los
+ * t-invariantes mínimos se validan los declarados en la definición de la red, que usa la {@link Estadistica}.
+ * <p>
+ * Los cálculos estructurales pueden ser exponenciales, por lo que se guardan en un directorio de cache con el hash
+ * de los arcos de la red como nombre; el grafo de cubrimiento se guarda junto con el hash del marcado inicial. Así
+ * los arranques repetidos de una misma red leen el resultado en lugar de recalcularlo. Cada cálculo se abandona al
+ * superar su límite y se informa como incompleto, y esa condición también se guarda.
+ */
+public final class AnalisisEstructural {
+
+    private static final Logger LOG = Logger.getLogger(AnalisisEstructural.class);
+
+    // Se declaran los limites de cada calculo
+    private static final int LIMITEVECTORES = 20_000;
+    private static final int LIMITERAMAS = 1_000_000;
+    private static final int LIMITESIFONES = 10_000;
+    private static final int LIMITENODOS = 100_000;
+
+    // Se declara el encabezado de los archivos de cache
+    private static final int MAGIA = 0x48594441;
+    private static final int VERSION = 1;
+
+    // Se declara la cantidad de elementos que se nombran en el informe
+    private static final int MAXIMONOMBRES = 10;
+
+    private final List<VectorDisperso> tInvariantes;
+    private final String motivoT;
+    private final List<VectorDisperso> pInvariantes;
+    private final String motivoP;
+    private final List<int[]> sifones;
+    private final String motivoSifones;
+    private final int[] cotas;
+    private final String motivoCubrimiento;
+    private final List<int[]> sifonesVaciables = new ArrayList<>();
+    private final List<String> advertencias = new ArrayList<>();
+    private final boolean ordinaria;
+    private final boolean desdeCache;
+    private final long milisegundos;
+
+    /**
+     * Constructor de la clase, con los resultados ya calculados o leídos.
+     */
+    private AnalisisEstructural(Calculo calculo, boolean ordinaria, boolean desdeCache, long milisegundos) {
+        this.tInvariantes = calculo.tInvariantes;
+        this.motivoT = calculo.motivoT;
+        this.pInvariantes = calculo.pInvariantes;
+        this.motivoP = calculo.motivoP;
+        this.sifones = calculo.sifones;
+        this.motivoSifones = calculo.motivoSifones;
+        this.cotas = calculo.cotas;
+        this.motivoCubrimiento = calculo.motivoCubrimiento;
+        this.ordinaria = ordinaria;
+        this.desdeCache = desdeCache;
+        this.milisegundos = milisegundos;
+    }
+
+    /**
+     * Resultados que se guardan en la cache.
+     */
+    private static final class Calculo {
+
+        private List<VectorDisperso> tInvariantes;
+        private String motivoT;
+        private List<VectorDisperso> pInvariantes;
+        private String motivoP;
+        private List<int[]> sifones;
+        private String motivoSifones;
+        private String claveMarcado;
+        private int[] cotas;
+        private String motivoCubrimiento;
+    }
+
+    /**
+     * Analiza una red, leyendo de la cache lo que ya se calculó para su estructura, y valida sus t-invariantes
+     * declarados.
+     *
+     * @param red definición de la red
+     * @param directorioCache directorio de la cache, o null para no usarla
+     * @return Resultado del análisis
+     * @throws IllegalArgumentException si algún t-invariante declarado no es un t-invariante de la red
+     */
+    public static AnalisisEstructural analizar(DefinicionRed red, Path directorioCache) {
+        long inicio = System.nanoTime();
+        MotorDisparo motor = red.crearRed().getMotor();
+
+        // Se leen de la cache los resultados de la misma estructura, si existen
+        String clave = hashEstructura(motor);
+        String claveMarcado = hashMarcado(motor.getMarcado());
+        Path archivo = directorioCache == null ? null : directorioCache.resolve(clave + ".analisis");
+        Calculo calculo = archivo == null ? null : leer(archivo, clave);
+        boolean desdeCache = calculo != null;
+        boolean modificado = false;
+
+        // Se calculan los invariantes y sifones minimos si no estaban
+        if (calculo == null) {
+            calculo = new Calculo();
+            int[][][] porPlaza = filas(motor, true);
+            Farkas.Resultado pInvariantes = Farkas.calcular(porPlaza[0], porPlaza[1], LIMITEVECTORES);
+            calculo.pInvariantes = pInvariantes.invariantes;
+            calculo.motivoP = pInvariantes.motivo;
+            int[][][] porTransicion = filas(motor, false);
+            Farkas.Resultado tInvariantes = Farkas.calcular(porTransicion[0], porTransicion[1], LIMITEVECTORES);
+            calculo.tInvariantes = tInvariantes.invariantes;
+            calculo.motivoT = tInvariantes.motivo;
+            Sifones.Resultado sifones = new Sifones(motor).enumerar(LIMITERAMAS, LIMITESIFONES);
+            calculo.sifones = sifones.sifones;
+            calculo.motivoSifones = sifones.motivo;
+            modificado = true;
+        }
+
+        // Se construye el grafo de cubrimiento si los p-invariantes no acotan todas las plazas y no estaba
+        boolean acotada = calculo.pInvariantes != null && cubiertas(calculo.pInvariantes, motor.getTotalPlazas());
+        if (!acotada && !claveMarcado.equals(calculo.claveMarcado)) {
+            Cubrimiento.Resultado cubrimiento = Cubrimiento.calcular(motor, LIMITENODOS);
+            calculo.claveMarcado = claveMarcado;
+            calculo.cotas = cubrimiento.cotas;
+            calculo.motivoCubrimiento = cubrimiento.motivo;
+            desdeCache = false;
+            modificado = true;
+        }
+        else if (acotada) {
+            calculo.cotas = null;
+        }
+
+        // Se guarda la cache si se calculo algo
+        if (archivo != null && modificado) {
+            escribir(archivo, clave, calculo);
+        }
+
+        // Se verifica si la red es ordinaria, condicion de Commoner para los sifones
+        boolean ordinaria = true;
+        for (int t = 0; t < motor.getTotalTransiciones(); t++) {
+            for (int peso : motor.getPesosEntrada(t)) {
+                ordinaria &= peso == 1;
+            }
+        }
+        AnalisisEstructural analisis = new AnalisisEstructural(calculo, ordinaria, desdeCache,
+                (System.nanoTime() - inicio) / 1_000_000);
+
+        // Se buscan los sifones que pueden vaciarse: sin una trampa marcada ni el soporte de un p-invariante marcado
+        Sifones trampas = new Sifones(motor);
+        int[] marcado = motor.getMarcado();
+        for (int[] sifon : calculo.sifones) {
+            BitSet trampa = trampas.trampaMaxima(sifon);
+            if (trampa.stream().noneMatch(p -> marcado[p] > 0) && !contieneInvarianteMarcado(sifon,
+                    calculo.pInvariantes, marcado)) {
+                analisis.sifonesVaciables.add(sifon);
+            }
+        }
+
+        // Se validan los t-invariantes declarados
+        analisis.validar(red, motor);
+        return analisis;
+    }
+
+    /**
+     * Valida los t-invariantes declarados: cada uno debe dejar el marcado igual al dispararse completo. Se advierte
+     * si alguno no es mínimo o si hay transiciones de t-invariantes mínimos que ninguno declarado cubre.
+     *
+     * @param red definición de la red, para los nombres
+     * @param motor motor con los arcos de la red
+     * @throws IllegalArgumentException si algún t-invariante declarado no es un t-invariante
+     */
+    private void validar(DefinicionRed red, MotorDisparo motor) {
+        List<List<Integer>> declarados = red.getTInvariantes();
+        BitSet cubiertas = new BitSet(motor.getTotalTransiciones());
+        long[] cambio = new long[motor.getTotalPlazas()];
+        for (int i = 0; i < declarados.size(); i++) {
+            // Se acumula el cambio de marcado del t-invariante
+            List<Integer> declarado = declarados.get(i);
+            for (int t : declarado) {
+                cubiertas.set(t);
+                int[] entrada = motor.getPlazasEntrada(t);
+                int[] pesosEntrada = motor.getPesosEntrada(t);
+                for (int k = 0; k < entrada.length; k++) {
+                    cambio[entrada[k]] -= pesosEntrada[k];
+                }
+                int[] salida = motor.getPlazasSalida(t);
+                int[] pesosSalida = motor.getPesosSalida(t);
+                for (int k = 0; k < salida.length; k++) {
+                    cambio[salida[k]] += pesosSalida[k];
+                }
+            }
+
+            // Se informa la primera plaza que cambia y se limpia el acumulado
+            for (int t : declarado) {
+                for (int plaza : motor.getPlazasEntrada(t)) {
+                    verificarCambio(cambio, plaza, red, declarado);
+                }
+                for (int plaza : motor.getPlazasSalida(t)) {
+                    verificarCambio(cambio, plaza, red, declarado);
+                }
+            }
+
+            // Se advierte si el soporte no es el de un t-invariante minimo
+            int[] soporte = declarado.stream().mapToInt(Integer::intValue).distinct().sorted().toArray();
+            if (this.tInvariantes != null && this.tInvariantes.stream()
+                    .noneMatch(minimo -> Arrays.equals(minimo.getIndices(), soporte))) {
+                this.advertencias.add("El t-invariante declarado " + nombres(declarado, red::getNombreTransicion)
+                        + " no es minimo");
+            }
+        }
+
+        // Se advierte de las transiciones de t-invariantes minimos que no cubre ningun declarado
+        if (this.tInvariantes != null) {
+            List<Integer> faltantes = new ArrayList<>();
+            for (VectorDisperso minimo : this.tInvariantes) {
+                for (int k = 0; k < minimo.getTamanio(); k++) {
+                    if (!cubiertas.get(minimo.getIndice(k)) && !faltantes.contains(minimo.getIndice(k))) {
+                        faltantes.add(minimo.getIndice(k));
+                    }
+                }
+            }
+            if (!faltantes.isEmpty()) {
+                this.advertencias.add("Transiciones de t-invariantes minimos que no cubre ningun t-invariante "
+                        + "declarado: " + nombres(faltantes, red::getNombreTransicion));
+            }
+        }
+    }
+
+    /**
+     * Verifica que un t-invariante declarado no cambie una plaza y limpia el acumulado de la plaza.
+     *
+     * @param cambio cambio acumulado de cada plaza
+     * @param plaza plaza a verificar
+     * @param red definición de la red, para los nombres
+     * @param declarado t-invariante declarado
+     * @throws IllegalArgumentException si la plaza cambia
+     */
+    private static void verificarCambio(long[] cambio, int plaza, DefinicionRed red, List<Integer> declarado) {
+        if (cambio[plaza] != 0) {
+            throw new IllegalArgumentException("El t-invariante declarado " + nombres(declarado,
+                    red::getNombreTransicion) + " no es un t-invariante: cambia " + red.getNombrePlaza(plaza)
+                    + " en " + cambio[plaza]);
+        }
+    }
+
+    /**
+     * Indica si un sifón contiene el soporte de un p-invariante con tokens en el marcado inicial: la suma ponderada
+     * de sus plazas es constante y positiva, por lo que el sifón nunca se vacía.
+     *
+     * @param sifon plazas del sifón, en orden creciente
+     * @param invariantes p-invariantes semipositivos, o null si no se calcularon
+     * @param marcado marcado inicial
+     * @return true si contiene alguno
+     */
+    private static boolean contieneInvarianteMarcado(int[] sifon, List<VectorDisperso> invariantes, int[] marcado) {
+        if (invariantes == null) {
+            return false;
+        }
+        for (VectorDisperso invariante : invariantes) {
+            // Se verifica que el soporte este en el sifon y que tenga algun token
+            boolean incluido = true;
+            boolean marcada = false;
+            for (int k = 0; k < invariante.getTamanio() && incluido; k++) {
+                incluido = Arrays.binarySearch(sifon, invariante.getIndice(k)) >= 0;
+                marcada |= marcado[invariante.getIndice(k)] > 0;
+            }
+            if (incluido && marcada) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si los p-invariantes cubren todas las plazas, lo que acota la red para cualquier marcado inicial.
+     *
+     * @param invariantes p-invariantes semipositivos
+     * @param plazas cantidad de plazas
+     * @return true si toda plaza está en el soporte de alguno
+     */
+    private static boolean cubiertas(List<VectorDisperso> invariantes, int plazas) {
+        BitSet cubiertas = new BitSet(plazas);
+        for (VectorDisperso invariante : invariantes) {
+            for (int k = 0; k < invariante.getTamanio(); k++) {
+                cubiertas.set(invariante.getIndice(k));
+            }
+        }
+        return cubiertas.cardinality() == plazas;
+    }
+
+    /**
+     * Arma la matriz de incidencia dispersa por filas, sumando los arcos de entrada y salida de cada par.
+     *
+     * @param motor motor con los arcos de la red
+     * @param porPlaza true para una fila por plaza, false para una por transición
+     * @return Columnas y valores de cada fila
+     */
+    private static int[][][] filas(MotorDisparo motor, boolean porPlaza) {
+        int plazas = motor.getTotalPlazas();
+        int transiciones = motor.getTotalTransiciones();
+        int cantidad = porPlaza ? plazas : transiciones;
+
+        // Se acumula cada arco en un mapa ordenado por fila
+        List<TreeMap<Integer, Integer>> mapas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            mapas.add(new TreeMap<>());
+        }
+        for (int t = 0; t < transiciones; t++) {
+            int[] entrada = motor.getPlazasEntrada(t);
+            int[] pesosEntrada = motor.getPesosEntrada(t);
+            for (int k = 0; k < entrada.length; k++) {
+                mapas.get(porPlaza ? entrada[k] : t).merge(porPlaza ? t : entrada[k], -pesosEntrada[k], Integer::sum);
+            }
+            int[] salida = motor.getPlazasSalida(t);
+            int[] pesosSalida = motor.getPesosSalida(t);
+            for (int k = 0; k < salida.length; k++) {
+                mapas.get(porPlaza ? salida[k] : t).merge(porPlaza ? t : salida[k], pesosSalida[k], Integer::sum);
+            }
+        }
+
+        // Se convierten los mapas en arreglos, sin los valores que se anulan por bucles
+        int[][] columnas = new int[cantidad][];
+        int[][] valores = new int[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            mapas.get(i).values().removeIf(valor -> valor == 0);
+            columnas[i] = mapas.get(i).keySet().stream().mapToInt(Integer::intValue).toArray();
+            valores[i] = mapas.get(i).values().stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new int[][][]{columnas, valores};
+    }
+
+    /**
+     * Calcula el hash de la estructura de la red: la cantidad de plazas y transiciones y los arcos de cada
+     * transición con sus pesos.
+     *
+     * @param motor motor con los arcos de la red
+     * @return Hash SHA-256 en hexadecimal
+     */
+    private static String hashEstructura(MotorDisparo motor) {
+        // Se agregan al hash los tamaños y los arcos de cada transicion
+        MessageDigest digest = sha256();
+        actualizar(digest, motor.getTotalPlazas());
+        actualizar(digest, motor.getTotalTransiciones());
+        for (int t = 0; t < motor.getTotalTransiciones(); t++) {
+            actualizar(digest, motor.getPlazasEntrada(t).length);
+            for (int k = 0; k < motor.getPlazasEntrada(t).length; k++) {
+                actualizar(digest, motor.getPlazasEntrada(t)[k]);
+                actualizar(digest, motor.getPesosEntrada(t)[k]);
+            }
+            actualizar(digest, motor.getPlazasSalida(t).length);
+            for (int k = 0; k < motor.getPlazasSalida(t).length; k++) {
+                actualizar(digest, motor.getPlazasSalida(t)[k]);
+                actualizar(digest, motor.getPesosSalida(t)[k]);
+            }
+        }
+        return hexadecimal(digest.digest());
+    }
+
+    /**
+     * Calcula el hash de un marcado.
+     *
+     * @param marcado tokens de cada plaza
+     * @return Hash SHA-256 en hexadecimal
+     */
+    private static String hashMarcado(int[] marcado) {
+        MessageDigest digest = sha256();
+        for (int tokens : marcado) {
+            actualizar(digest, tokens);
+        }
+        return hexadecimal(digest.digest());
+    }
+
+    /**
+     * Crea un digest SHA-256, que toda JVM debe proveer.
+     *
+     * @return Digest nuevo
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("La JVM no provee SHA-256", e);
+        }
+    }
+
+    /**
+     * Agrega un entero al digest.
+     *
+     * @param digest digest a actualizar
+     * @param valor entero a agregar
+     */
+    private static void actualizar(MessageDigest digest, int valor) {
+        digest.update((byte) (valor >>> 24));
+        digest.update((byte) (valor >>> 16));
+        digest.update((byte) (valor >>> 8));
+        digest.update((byte) valor);
+    }
+
+    /**
+     * Convierte bytes a hexadecimal.
+     *
+     * @param bytes bytes a convertir
+     * @return Texto hexadecimal
+     */
+    private static String hexadecimal(byte[] bytes) {
+        StringBuilder texto = new StringBuilder();
+        for (byte b : bytes) {
+            texto.append(String.format("%02x", b));
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Lee los resultados guardados para una estructura.
+     *
+     * @param archivo archivo de la cache
+     * @param clave hash de la estructura
+     * @return Resultados leídos, o null si no existen o no son válidos
+     */
+    private static Calculo leer(Path archivo, String clave) {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            // Se verifica el encabezado y la clave
+            if (entrada.readInt() != MAGIA || entrada.readInt() != VERSION || !entrada.readUTF().equals(clave)) {
+                return null;
+            }
+
+            // Se leen los invariantes, los sifones y el cubrimiento
+            Calculo calculo = new Calculo();
+            calculo.motivoT = leerMotivo(entrada);
+            calculo.tInvariantes = leerVectores(entrada);
+            calculo.motivoP = leerMotivo(entrada);
+            calculo.pInvariantes = leerVectores(entrada);
+            calculo.motivoSifones = leerMotivo(entrada);
+            calculo.sifones = new ArrayList<>();
+            for (VectorDisperso sifon : leerVectores(entrada)) {
+                calculo.sifones.add(sifon.getIndices());
+            }
+            if (entrada.readBoolean()) {
+                calculo.claveMarcado = entrada.readUTF();
+                calculo.motivoCubrimiento = leerMotivo(entrada);
+                calculo.cotas = new int[entrada.readInt()];
+                for (int p = 0; p < calculo.cotas.length; p++) {
+                    calculo.cotas[p] = entrada.readInt();
+                }
+            }
+            if (calculo.motivoT == null && calculo.tInvariantes == null
+                    || calculo.motivoP == null && calculo.pInvariantes == null) {
+                return null;
+            }
+            return calculo;
+        }
+        catch (NoSuchFileException e) {
+            // Se calcula si no esta en la cache
+            return null;
+        }
+        catch (IOException | RuntimeException e) {
+            // Se ignora la cache danada y se recalcula
+            LOG.warn("Se ignora la cache de analisis " + archivo + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Lee el motivo de abandono de un cálculo.
+     *
+     * @param entrada flujo de la cache
+     * @return Motivo, o null si el cálculo se completó
+     * @throws IOException si no se puede leer
+     */
+    private static String leerMotivo(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    /**
+     * Lee una lista de vectores dispersos.
+     *
+     * @param entrada flujo de la cache
+     * @return Vectores, o null si no se guardaron
+     * @throws IOException si no se puede leer
+     */
+    private static List<VectorDisperso> leerVectores(DataInputStream entrada) throws IOException {
+        int cantidad = entrada.readInt();
+        if (cantidad < 0) {
+            return null;
+        }
+        List<VectorDisperso> vectores = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int[] indices = new int[entrada.readInt()];
+            int[] valores = new int[indices.length];
+            for (int k = 0; k < indices.length; k++) {
+                indices[k] = entrada.readInt();
+                valores[k] = entrada.readInt();
+            }
+            vectores.add(new VectorDisperso(indices, valores));
+        }
+        return vectores;
+    }
+
+    /**
+     * Guarda los resultados de una estructura, escribiendo un archivo temporal y reemplazando el anterior de una
+     * vez para que un arranque concurrente no lea un archivo a medias.
+     *
+     * @param archivo archivo de la cache
+     * @param clave hash de la estructura
+     * @param calculo resultados a guardar
+     */
+    private static void escribir(Path archivo, String clave, Calculo calculo) {
+        try {
+            Files.createDirectories(archivo.getParent());
+            Path temporal = Files.createTempFile(archivo.getParent(), clave, ".tmp");
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporal)))) {
+                // Se escriben el encabezado, los invariantes, los sifones y el cubrimiento
+                salida.writeInt(MAGIA);
+                salida.writeInt(VERSION);
+                salida.writeUTF(clave);
+                escribirMotivo(salida, calculo.motivoT);
+                escribirVectores(salida, calculo.tInvariantes);
+                escribirMotivo(salida, calculo.motivoP);
+                escribirVectores(salida, calculo.pInvariantes);
+                escribirMotivo(salida, calculo.motivoSifones);
+                escribirVectores(salida, calculo.sifones.stream()
+                        .map(sifon -> new VectorDisperso(sifon, new int[sifon.length])).collect(Collectors.toList()));
+                salida.writeBoolean(calculo.claveMarcado != null);
+                if (calculo.claveMarcado != null) {
+                    salida.writeUTF(calculo.claveMarcado);
+                    escribirMotivo(salida, calculo.motivoCubrimiento);
+                    salida.writeInt(calculo.cotas.length);
+                    for (int cota : calculo.cotas) {
+                        salida.writeInt(cota);
+                    }
+                }
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            // Se sigue sin cache si no se puede escribir
+            LOG.warn("No se pudo guardar la cache de analisis " + archivo + ": " + e);
+        }
+    }
+
+    /**
+     * Escribe el motivo de abandono de un cálculo.
+     *
+     * @param salida flujo de la cache
+     * @param motivo motivo, o null si se completó
+     * @throws IOException si no se puede escribir
+     */
+    private static void escribirMotivo(DataOutputStream salida, String motivo) throws IOException {
+        salida.writeBoolean(motivo != null);
+        if (motivo != null) {
+            salida.writeUTF(motivo);
+        }
+    }
+
+    /**
+     * Escribe una lista de vectores dispersos.
+     *
+     * @param salida flujo de la cache
+     * @param vectores vectores, o null
+     * @throws IOException si no se puede escribir
+     */
+    private static void escribirVectores(DataOutputStream salida, List<VectorDisperso> vectores) throws IOException {
+        salida.writeInt(vectores == null ? -1 : vectores.size());
+        if (vectores == null) {
+            return;
+        }
+        for (VectorDisperso vector : vectores) {
+            salida.writeInt(vector.getTamanio());
+            for (int k = 0; k < vector.getTamanio(); k++) {
+                salida.writeInt(vector.getIndice(k));
+                salida.writeInt(vector.getValor(k));
+            }
+        }
+    }
+
+    /**
+     * Retorna los t-invariantes mínimos.
+     *
+     * @return T-invariantes mínimos, o null si no se completó su cálculo
+     */
+    public List<VectorDisperso> getTInvariantesMinimos() {
+        return this.tInvariantes == null ? null : Collections.unmodifiableList(this.tInvariantes);
+    }
+
+    /**
+     * Retorna los p-invariantes mínimos.
+     *
+     * @return P-invariantes mínimos, o null si no se completó su cálculo
+     */
+    public List<VectorDisperso> getPInvariantesMinimos() {
+        return this.pInvariantes == null ? null : Collections.unmodifiableList(this.pInvariantes);
+    }
+
+    /**
+     * Retorna los sifones mínimos encontrados.
+     *
+     * @return Plazas de cada sifón mínimo
+     */
+    public List<int[]> getSifonesMinimos() {
+        return Collections.unmodifiableList(this.sifones);
+    }
+
+    /**
+     * Retorna los sifones mínimos que no contienen una trampa marcada ni el soporte de un p-invariante marcado, por lo
+     * que la estructura no asegura que no se vacíen y bloqueen la red.
+     *
+     * @return Plazas de cada sifón que puede vaciarse
+     */
+    public List<int[]> getSifonesVaciables() {
+        return Collections.unmodifiableList(this.sifonesVaciables);
+    }
+
+    /**
+     * Retorna la cota de cada plaza según el grafo de cubrimiento.
+     *
+     * @return Cota de cada plaza, con Integer.MAX_VALUE si no está acotada, o null si los p-invariantes cubren
+     *         todas las plazas y no hizo falta el grafo
+     */
+    public int[] getCotas() {
+        return this.cotas == null ? null : this.cotas.clone();
+    }
+
+    /**
+     * Retorna las advertencias de la validación de los t-invariantes declarados.
+     *
+     * @return Advertencias
+     */
+    public List<String> getAdvertencias() {
+        return Collections.unmodifiableList(this.advertencias);
+    }
+
+    /**
+     * Indica si todos los resultados se leyeron de la cache.
+     *
+     * @return true si no se calculó nada
+     */
+    public boolean isDesdeCache() {
+        return this.desdeCache;
+    }
+
+    /**
+     * Informa el resultado del análisis.
+     *
+     * @param salida flujo donde se escribe el informe
+     * @param nombrePlaza nombre de cada plaza
+     * @param nombreTransicion nombre de cada transición
+     */
+    public void informar(PrintStream salida, IntFunction<String> nombrePlaza, IntFunction<String> nombreTransicion) {
+        // Se informan las cantidades de invariantes y sifones
+        salida.printf("Analisis estructural (%s en %d ms): %s t-invariantes minimos, %s p-invariantes minimos, "
+                        + "%s sifones minimos\n", this.desdeCache ? "leido de cache" : "calculado", this.milisegundos,
+                cantidad(this.tInvariantes, this.motivoT), cantidad(this.pInvariantes, this.motivoP),
+                cantidad(this.sifones, this.motivoSifones));
+
+        // Se informa la acotacion
+        if (this.cotas == null) {
+            salida.println("Red acotada: los p-invariantes cubren todas las plazas");
+        }
+        else {
+            List<Integer> noAcotadas = new ArrayList<>();
+            int cota = 0;
+            for (int p = 0; p < this.cotas.length; p++) {
+                if (this.cotas[p] == Cubrimiento.OMEGA) {
+                    noAcotadas.add(p);
+                }
+                else {
+                    cota = Math.max(cota, this.cotas[p]);
+                }
+            }
+            salida.println((this.motivoCubrimiento != null ? "Cubrimiento incompleto (" + this.motivoCubrimiento
+                    + "). " : "") + (noAcotadas.isEmpty() ? "Red acotada con cota " + cota
+                    : "Plazas no acotadas: " + nombres(noAcotadas, nombrePlaza)));
+        }
+
+        // Se informan los sifones que pueden vaciarse
+        if (this.sifonesVaciables.isEmpty()) {
+            salida.println("Ningun sifon minimo puede vaciarse" + (this.motivoSifones != null ? ""
+                    : this.ordinaria ? ": la red no puede bloquearse" : " (la red no es ordinaria)"));
+        }
+        else {
+            salida.println("Sifones sin trampa ni p-invariante marcados, que la estructura no impide vaciar (el "
+                    + "explorador de alcanzabilidad decide si la red se bloquea): " + this.sifonesVaciables.size());
+            for (int[] sifon : this.sifonesVaciables.subList(0, Math.min(MAXIMONOMBRES, this.sifonesVaciables.size()))) {
+                salida.println("  {" + nombres(Arrays.stream(sifon).boxed().collect(Collectors.toList()),
+                        nombrePlaza) + "}");
+            }
+        }
+
+        // Se informan las advertencias
+        for (String advertencia : this.advertencias) {
+            salida.println("Advertencia: " + advertencia);
+        }
+    }
+
+    /**
+     * Arma el texto de una cantidad de resultados, indicando si el cálculo quedó incompleto.
+     *
+     * @param resultados resultados, o null si no se completó
+     * @param motivo motivo por el que se abandonó, o null
+     * @return Cantidad o motivo
+     */
+    private static String cantidad(List<?> resultados, String motivo) {
+        if (motivo == null) {
+            return String.valueOf(resultados.size());
+        }
+        return (resultados == null ? "sin calcular" : "al menos " + resultados.size()) + " (" + motivo + ")";
+    }
+
+    /**
+     * Arma la lista de nombres, abreviada si es larga.
+     *
+     * @param indices índices a nombrar
+     * @param nombre nombre de cada índice
+     * @return Nombres separados por espacios
+     */
+    private static String nombres(List<Integer> indices, IntFunction<String> nombre) {
+        String texto = indices.stream().limit(4L * MAXIMONOMBRES).map(nombre::apply).collect(Collectors.joining(" "));
+        return indices.size() > 4 * MAXIMONOMBRES ? texto + " ... (" + indices.size() + ")" : texto;
+    }
+}
@@ -0,0 +1,291 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cargador de definiciones de RdP desde archivos de texto ({@code .red}) o PNML ({@code .pnml}). El formato de
+ * texto tiene una declaración por línea; lo que sigue a {@code #} es un comentario:
+ * <pre>
+ * red fabrica                      nombre de la red
+ * plaza P7 4                       plaza con su marcado inicial (0 si se omite)
+ * transicion T2 10ms               transición con su alpha y, opcionalmente, su beta ("inf" si no tiene)
+ * arco P7 T1                       arco de entrada (plaza -&gt; transición) o de salida, con peso opcional
+ * segmento B 4 T2 T4 T6            segmento con su cantidad de hilos y su ciclo de transiciones
+ * tinvariante T1 T2 T4 T6 T8       t-invariante como secuencia ordenada de transiciones
+ * pinvariante P1 P2 P12*2          p-invariante con peso opcional por plaza
+ * finales T2 T3 T4                 transiciones que vacían la red al terminar
+ * pnml estructura.pnml             importa plazas, transiciones y arcos de un PNML relativo al archivo
+ * </pre>
+ * Los tiempos llevan sufijo {@code us}, {@code ms} o {@code s}, y sin sufijo se toman en microsegundos. Los
+ * nombres deben declararse antes de usarse. La lectura es de una sola pasada, sin expresiones regulares ni
+ * estructuras intermedias por línea más allá de la lista de palabras.
+ */
+public final class CargadorRed {
+
+    private CargadorRed() {
+    }
+
+    /**
+     * Carga una definición de RdP, eligiendo el formato por la extensión del archivo.
+     *
+     * @param archivo archivo {@code .pnml} o {@code .xml} en PNML, o de texto en cualquier otro caso
+     * @return Definición de la red
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no es una red válida
+     */
+    public static DefinicionRed cargar(Path archivo) throws IOException {
+        // Se importa el PNML o se lee el formato de texto segun la extension
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".pnml") || nombre.endsWith(".xml")) {
+            return ImportadorPnml.cargar(archivo);
+        }
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return leer(lector, archivo.toString(), archivo.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Carga una definición de RdP en formato de texto desde un recurso del classpath.
+     *
+     * @param recurso ruta absoluta del recurso
+     * @return Definición de la red
+     * @throws IOException si no existe o no se puede leer el recurso
+     * @throws IllegalArgumentException si el recurso no es una red válida
+     */
+    public static DefinicionRed cargarRecurso(String recurso) throws IOException {
+        // Se abre el recurso desde el classpath
+        InputStream entrada = CargadorRed.class.getResourceAsStream(recurso);
+        if (entrada == null) {
+            throw new IOException("No se encontro el recurso " + recurso);
+        }
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            return leer(lector, recurso, null);
+        }
+    }
+
+    /**
+     * Lee una definición de RdP en formato de texto.
+     *
+     * @param lector lector del texto
+     * @param origen nombre del origen, para los mensajes de error y como nombre por defecto de la red
+     * @param directorio directorio contra el que se resuelven los PNML importados, o null si no se permiten
+     * @return Definición de la red
+     * @throws IOException si no se puede leer el texto o un PNML importado
+     * @throws IllegalArgumentException si el texto no es una red válida, indicando la línea
+     */
+    public static DefinicionRed leer(BufferedReader lector, String origen, Path directorio) throws IOException {
+        DefinicionRed.Armado armado = new DefinicionRed.Armado(origen);
+        List<String> palabras = new ArrayList<>();
+        int numero = 0;
+        String linea;
+
+        // Se procesa cada linea a medida que se lee
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            separar(linea, palabras);
+            if (palabras.isEmpty()) {
+                continue;
+            }
+            try {
+                interpretar(palabras, armado, directorio);
+            }
+            catch (IllegalArgumentException e) {
+                // Se agrega al error la ubicacion de la linea
+                throw new IllegalArgumentException(origen + ":" + numero + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Se construye la definicion
+        try {
+            return armado.construir();
+        }
+        catch (IllegalArgumentException e) {
+            // Se agrega al error el origen
+            throw new IllegalArgumentException(origen + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Interpreta las palabras de una declaración.
+     *
+     * @param palabras palabras de la línea, la primera es la palabra clave
+     * @param armado armado de la red
+     * @param directorio directorio de los PNML importados, o null
+     * @throws IOException si no se puede leer un PNML importado
+     * @throws IllegalArgumentException si la declaración es inválida
+     */
+    private static void interpretar(List<String> palabras, DefinicionRed.Armado armado, Path directorio)
+            throws IOException {
+        // Se interpreta la declaracion segun su palabra clave
+        List<String> argumentos = palabras.subList(1, palabras.size());
+        switch (palabras.get(0)) {
+            case "red":
+                exigir(argumentos, 1, 1);
+                armado.setNombre(argumentos.get(0));
+                break;
+            case "plaza":
+                exigir(argumentos, 1, 2);
+                armado.agregarPlaza(argumentos.get(0), argumentos.size() > 1 ? leerEntero(argumentos.get(1)) : 0);
+                break;
+            case "transicion":
+                exigir(argumentos, 1, 3);
+                armado.agregarTransicion(argumentos.get(0), argumentos.size() > 1 ? leerTiempo(argumentos.get(1)) : 0,
+                        argumentos.size() > 2 ? leerTiempo(argumentos.get(2)) : VectorSensibilizado.SIN_LIMITE);
+                break;
+            case "arco":
+                exigir(argumentos, 2, 3);
+                armado.agregarArco(argumentos.get(0), argumentos.get(1),
+                        argumentos.size() > 2 ? leerEntero(argumentos.get(2)) : 1);
+                break;
+            case "segmento":
+                exigir(argumentos, 3, Integer.MAX_VALUE);
+                armado.agregarSegmento(argumentos.get(0), leerEntero(argumentos.get(1)),
+                        argumentos.subList(2, argumentos.size()));
+                break;
+            case "tinvariante":
+                exigir(argumentos, 1, Integer.MAX_VALUE);
+                armado.agregarTInvariante(argumentos);
+                break;
+            case "pinvariante":
+                exigir(argumentos, 1, Integer.MAX_VALUE);
+                agregarPInvariante(argumentos, armado);
+                break;
+            case "finales":
+                armado.setTransicionesFinales(argumentos);
+                break;
+            case "pnml":
+                exigir(argumentos, 1, 1);
+                if (directorio == null) {
+                    throw new IllegalArgumentException("No se puede importar PNML desde este origen");
+                }
+                ImportadorPnml.importar(directorio.resolve(argumentos.get(0)), armado);
+                break;
+            default:
+                throw new IllegalArgumentException("Declaracion desconocida: " + palabras.get(0));
+        }
+    }
+
+    /**
+     * Agrega un p-invariante escrito como plazas con peso opcional, por ejemplo {@code P1 P12*2}.
+     *
+     * @param argumentos plazas del p-invariante
+     * @param armado armado de la red
+     */
+    private static void agregarPInvariante(List<String> argumentos, DefinicionRed.Armado armado) {
+        // Se separa cada plaza de su peso
+        String[] plazas = new String[argumentos.size()];
+        int[] pesos = new int[argumentos.size()];
+        for (int i = 0; i < plazas.length; i++) {
+            String argumento = argumentos.get(i);
+            int asterisco = argumento.indexOf('*');
+            plazas[i] = asterisco < 0 ? argumento : argumento.substring(0, asterisco);
+            pesos[i] = asterisco < 0 ? 1 : leerEntero(argumento.substring(asterisco + 1));
+        }
+        armado.agregarPInvariante(plazas, pesos);
+    }
+
+    /**
+     * Separa una línea en palabras delimitadas por espacios, descartando el comentario.
+     *
+     * @param linea línea leída
+     * @param palabras lista que se vacía y se completa con las palabras
+     */
+    private static void separar(String linea, List<String> palabras) {
+        // Se recorre la linea hasta el fin o hasta el comentario
+        palabras.clear();
+        int inicio = -1;
+        for (int i = 0; i <= linea.length(); i++) {
+            char c = i < linea.length() ? linea.charAt(i) : '#';
+            boolean separador = c == '#' || Character.isWhitespace(c);
+            if (separador && inicio >= 0) {
+                palabras.add(linea.substring(inicio, i));
+                inicio = -1;
+            }
+            else if (!separador && inicio < 0) {
+                inicio = i;
+            }
+            if (c == '#') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Verifica la cantidad de argumentos de una declaración.
+     *
+     * @param argumentos argumentos de la declaración
+     * @param minimo cantidad mínima
+     * @param maximo cantidad máxima
+     * @throws IllegalArgumentException si la cantidad está fuera del rango
+     */
+    private static void exigir(List<String> argumentos, int minimo, int maximo) {
+        if (argumentos.size() < minimo || argumentos.size() > maximo) {
+            throw new IllegalArgumentException("Cantidad de argumentos invalida: " + argumentos.size());
+        }
+    }
+
+    /**
+     * Interpreta un entero.
+     *
+     * @param texto texto del entero
+     * @return Valor leído
+     * @throws IllegalArgumentException si no es un entero
+     */
+    static int leerEntero(String texto) {
+        try {
+            return Integer.parseInt(texto);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Entero invalido: " + texto);
+        }
+    }
+
+    /**
+     * Interpreta un tiempo con sufijo {@code us}, {@code ms} o {@code s}; sin sufijo se toma en microsegundos.
+     * "inf" o "-" indican que no hay límite.
+     *
+     * @param texto texto del tiempo
+     * @return Tiempo en microsegundos, o {@link VectorSensibilizado#SIN_LIMITE}
+     * @throws IllegalArgumentException si no es un tiempo válido
+     */
+    static long leerTiempo(String texto) {
+        // Se reconoce la ausencia de limite
+        if (texto.equals("inf") || texto.equals("-")) {
+            return VectorSensibilizado.SIN_LIMITE;
+        }
+
+        // Se separa el valor de su unidad
+        long factor = 1;
+        String valor = texto;
+        if (texto.endsWith("us")) {
+            valor = texto.substring(0, texto.length() - 2);
+        }
+        else if (texto.endsWith("ms")) {
+            factor = 1_000;
+            valor = texto.substring(0, texto.length() - 2);
+        }
+        else if (texto.endsWith("s")) {
+            factor = 1_000_000;
+            valor = texto.substring(0, texto.length() - 1);
+        }
+        try {
+            return Math.multiplyExact(Long.parseLong(valor), factor);
+        }
+        catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Tiempo invalido: " + texto);
+        }
+    }
+}
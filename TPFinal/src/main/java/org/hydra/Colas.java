@@ -3,16 +3,19 @@ package org.hydra;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
- * Clase que gestiona las colas de espera para las transiciones.
+ * Clase que gestiona las colas de espera para las transiciones. Además de las colas mantiene un bitset con las
+ * transiciones que tienen hilos esperando, que se actualiza al encolar y al despertar hilos. Ambas operaciones se
+ * realizan mientras se posee el mutex del monitor, por lo que el bitset no necesita sincronización propia.
  */
 
 public class Colas {
 
     private final List<ColaTransiciones> listaSemaforosTransiciones = new ArrayList<>();
+    private final int[] hilosEsperando;
+    private final long[] transicionesEspera;
 
     /**
      * Constructor de la clase. Crea las listas de transiciones particulares.
@@ -23,48 +26,65 @@ public class Colas {
         // Se inicializan las colas de espera para cada transición
         IntStream.range(0, totalTransiciones)
                 .forEach(i -> this.listaSemaforosTransiciones.add(new ColaTransiciones(i, 0)));
+
+        // Se inicializan los contadores y el bitset de transiciones con hilos en espera
+        this.hilosEsperando = new int[totalTransiciones];
+        this.transicionesEspera = new long[(totalTransiciones + 63) >>> 6];
     }
 
     /**
-     * Ejecuta el acquire de una lista de transiciones particular que es pasada como
-     * parámetro.
+     * Registra al hilo en la cola de la transición mientras todavía posee el mutex del monitor, libera el mutex y
+     * ejecuta el acquire de la cola. Como el registro ocurre antes de liberar el mutex, un hilo que dispare a
+     * continuación ya ve la transición en espera; si lo despierta antes de que llegue a bloquearse, el permiso
+     * queda disponible en el semáforo y el acquire retorna de inmediato.
      *
      * @param transicion indica en qué cola se debe colocar el hilo en espera
+     * @param mutex mutex del monitor, tomado por el hilo actual
      */
-    public void acquire(int transicion) {
+    public void acquire(int transicion, Semaphore mutex) {
+        // Se registra el hilo en el bitset de transiciones en espera
+        if (this.hilosEsperando[transicion]++ == 0) {
+            this.transicionesEspera[transicion >>> 6] |= 1L << transicion;
+        }
+
+        // Se libera el mutex del monitor
+        mutex.release();
+
         try {
             // Se ejecuta el acquire en la cola de espera específica para la transición indicada
             this.listaSemaforosTransiciones.get(transicion).acquire();
         }
         catch (InterruptedException e) {
-            // Se lanza una RuntimeException si se produce una interrupción durante la espera
+            // Se lanza una RuntimeException si se produce una interrupción durante la espera. El registro queda
+            // pendiente, ya que solo puede modificarse con el mutex; la interrupción solo ocurre al finalizar
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Ejecuta el release de una lista de transiciones particular que es pasada como
-     * parámetro.
+     * Quita un hilo del registro de la transición y ejecuta el release de su cola. Debe llamarse mientras se posee
+     * el mutex del monitor, que se cede al hilo despertado.
      *
      * @param transicion indica de que cola se debe despertar un hilo
      */
     public void release(int transicion) {
+        // Se quita el hilo del bitset de transiciones en espera
+        if (--this.hilosEsperando[transicion] == 0) {
+            this.transicionesEspera[transicion >>> 6] &= ~(1L << transicion);
+        }
+
         // Se ejecuta el release en la cola de espera específica para la transición indicada
         this.listaSemaforosTransiciones.get(transicion).release();
     }
 
     /**
-     * Devuelve un listado con las transiciones que tienen hilos esperando por ella.
-     * Es decir, hilos que realizaron el acquire de la lista y fueron bloqueados.
+     * Devuelve el bitset de transiciones que tienen hilos registrados en su cola. El bit i de la palabra i / 64
+     * corresponde a la transición i. El arreglo es el estado interno de la clase y no debe modificarse.
      *
-     * @return Lista de transiciones con hilos en espera
+     * @return Bitset de transiciones con hilos en espera
      */
-
-    public List<Integer> getTransicionesEspera() {
-        // Se filtran las colas de espera para obtener aquellas que tienen hilos en espera
-        return this.listaSemaforosTransiciones.stream()
-                .filter(Semaphore::hasQueuedThreads)
-                .map(ColaTransiciones::getTransicion)
-                .collect(Collectors.toList());
+    public long[] getTransicionesEspera() {
+        // Se retorna el bitset mantenido al encolar y despertar hilos
+        return this.transicionesEspera;
     }
 }
@@ -0,0 +1,26 @@
+package org.hydra;
+
+/**
+ * Interfaz de las condiciones que terminan una ejecución. La condición se elige al inicio y el hilo principal la
+ * espera con {@link Estadistica#esperarFin()} una vez terminado el calentamiento, por lo que solo cuentan los
+ * t-invariantes completados después de él.
+ */
+public interface CondicionParada {
+
+    /**
+     * Devuelve la cantidad de t-invariantes medidos con la que la estadística libera {@link Estadistica#esperarObjetivo()}.
+     *
+     * @return Cantidad de t-invariantes, o Long.MAX_VALUE si la condición no depende de ella
+     */
+    default long getObjetivo() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Bloquea al hilo llamador hasta que se cumpla la condición.
+     *
+     * @param estadistica Estadística de la ejecución, con la medición ya iniciada
+     * @throws InterruptedException Si se interrumpe al hilo mientras espera
+     */
+    void esperar(Estadistica estadistica) throws InterruptedException;
+}
@@ -0,0 +1,343 @@
+package org.hydra;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Conjunto concurrente de marcados para la exploración del espacio de estados. Cada marcado se empaqueta en
+ * palabras de 64 bits con un campo por plaza del ancho justo para su cota, y se guarda en una tabla de
+ * direccionamiento abierto de capacidad fija, sin redimensionar: la posición donde queda un marcado es su
+ * identificador durante toda la exploración.
+ * <p>
+ * La inserción no usa cerrojos. Cada posición tiene una etiqueta: vacía, en escritura, o un resumen del hash del
+ * marcado ya publicado. Un hilo reserva una posición vacía con CAS, escribe el marcado, su padre y la transición
+ * que lo alcanzó, y recién entonces publica la etiqueta, de modo que quien la lee ve el marcado completo. Como no
+ * se borran marcados, encontrar una posición vacía prueba que el marcado no está en el conjunto.
+ */
+final class ConjuntoMarcados {
+
+    /**
+     * Resultado de {@link #agregar} cuando se alcanzó la cantidad máxima de estados.
+     */
+    static final int LLENO = Integer.MIN_VALUE;
+
+    private static final int VACIA = 0;
+    private static final int ESCRIBIENDO = 1;
+
+    private final int[] capacidades;
+    private final int[] palabraPlaza;
+    private final int[] desplazamientos;
+    private final int palabras;
+    private final int maximoEstados;
+    private final int mascara;
+    private final AtomicIntegerArray etiquetas;
+    private final long[] datos;
+    private final int[] padres;
+    private final int[] transiciones;
+    private final AtomicInteger estados = new AtomicInteger();
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param capacidades máximo de tokens que puede representar cada plaza
+     * @param maximoEstados cantidad máxima de marcados que se guardan
+     * @throws IllegalArgumentException si la tabla no entra en un arreglo
+     */
+    ConjuntoMarcados(int[] capacidades, int maximoEstados) {
+        this.capacidades = capacidades.clone();
+        this.palabraPlaza = new int[capacidades.length];
+        this.desplazamientos = new int[capacidades.length];
+        this.maximoEstados = maximoEstados;
+
+        // Se ubica el campo de cada plaza sin que cruce el limite de una palabra
+        int palabra = 0;
+        int usados = 0;
+        for (int p = 0; p < capacidades.length; p++) {
+            int bits = bits(capacidades[p]);
+            if (usados + bits > Long.SIZE) {
+                palabra++;
+                usados = 0;
+            }
+            this.palabraPlaza[p] = palabra;
+            this.desplazamientos[p] = usados;
+            usados += bits;
+        }
+        this.palabras = palabra + 1;
+
+        // Se dimensiona la tabla en potencia de dos con al menos el doble de posiciones que estados, para acotar
+        // los sondeos
+        int capacidad = Integer.highestOneBit(Math.max(2, maximoEstados - 1)) << 2;
+        if (maximoEstados <= 0 || capacidad <= 0 || (long) capacidad * this.palabras > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("No se pueden guardar " + maximoEstados + " marcados de "
+                    + this.palabras + " palabras");
+        }
+        this.mascara = capacidad - 1;
+        this.etiquetas = new AtomicIntegerArray(capacidad);
+        this.datos = new long[capacidad * this.palabras];
+        this.padres = new int[capacidad];
+        this.transiciones = new int[capacidad];
+    }
+
+    /**
+     * Calcula la cantidad de palabras que ocupa un marcado con las capacidades dadas.
+     *
+     * @param capacidades máximo de tokens de cada plaza
+     * @return Palabras de 64 bits por marcado
+     */
+    static int contarPalabras(int[] capacidades) {
+        // Se repite la ubicacion de los campos del constructor
+        int palabra = 0;
+        int usados = 0;
+        for (int capacidad : capacidades) {
+            int bits = bits(capacidad);
+            if (usados + bits > Long.SIZE) {
+                palabra++;
+                usados = 0;
+            }
+            usados += bits;
+        }
+        return palabra + 1;
+    }
+
+    /**
+     * Calcula los bits necesarios para representar valores de 0 a la capacidad.
+     *
+     * @param capacidad valor máximo
+     * @return Cantidad de bits
+     */
+    private static int bits(int capacidad) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(capacidad);
+    }
+
+    /**
+     * Empaqueta un marcado.
+     *
+     * @param marcado tokens de cada plaza
+     * @param codigo arreglo de {@link #getPalabras()} palabras donde se escribe el marcado
+     * @return false si alguna plaza supera su capacidad
+     */
+    boolean codificar(int[] marcado, long[] codigo) {
+        // Se limpia el codigo y se escribe el campo de cada plaza
+        Arrays.fill(codigo, 0L);
+        for (int p = 0; p < marcado.length; p++) {
+            if (marcado[p] > this.capacidades[p]) {
+                return false;
+            }
+            codigo[this.palabraPlaza[p]] |= (long) marcado[p] << this.desplazamientos[p];
+        }
+        return true;
+    }
+
+    /**
+     * Reemplaza el campo de una plaza en un marcado empaquetado.
+     *
+     * @param codigo marcado empaquetado
+     * @param plaza plaza a modificar
+     * @param tokens nuevo valor de la plaza
+     * @return false si el valor supera la capacidad de la plaza, en cuyo caso el código no se modifica
+     */
+    boolean escribir(long[] codigo, int plaza, int tokens) {
+        // Se verifica la capacidad y se reemplaza el campo
+        if (tokens > this.capacidades[plaza]) {
+            return false;
+        }
+        int desplazamiento = this.desplazamientos[plaza];
+        long campo = ((1L << bits(this.capacidades[plaza])) - 1) << desplazamiento;
+        codigo[this.palabraPlaza[plaza]] = (codigo[this.palabraPlaza[plaza]] & ~campo)
+                | ((long) tokens << desplazamiento);
+        return true;
+    }
+
+    /**
+     * Desempaqueta un marcado guardado.
+     *
+     * @param id identificador del marcado
+     * @param marcado arreglo donde se escriben los tokens de cada plaza
+     */
+    void decodificar(int id, int[] marcado) {
+        // Se lee el campo de cada plaza desde la posicion del marcado
+        int base = id * this.palabras;
+        for (int p = 0; p < marcado.length; p++) {
+            long mascaraCampo = (1L << bits(this.capacidades[p])) - 1;
+            marcado[p] = (int) ((this.datos[base + this.palabraPlaza[p]] >>> this.desplazamientos[p]) & mascaraCampo);
+        }
+    }
+
+    /**
+     * Copia un marcado guardado en su forma empaquetada.
+     *
+     * @param id identificador del marcado
+     * @param codigo arreglo donde se copia
+     */
+    void copiar(int id, long[] codigo) {
+        System.arraycopy(this.datos, id * this.palabras, codigo, 0, this.palabras);
+    }
+
+    /**
+     * Agrega un marcado si no estaba.
+     *
+     * @param codigo marcado empaquetado
+     * @param padre identificador del marcado desde el que se alcanzó, o -1 para el inicial
+     * @param transicion transición que lo alcanzó, o -1 para el inicial
+     * @return El identificador si el marcado es nuevo, -(identificador + 1) si ya estaba, o {@link #LLENO} si
+     *         es nuevo pero ya se guardó la cantidad máxima de estados
+     */
+    int agregar(long[] codigo, int padre, int transicion) {
+        return sondear(codigo, padre, transicion, true);
+    }
+
+    /**
+     * Busca un marcado.
+     *
+     * @param codigo marcado empaquetado
+     * @return Identificador del marcado, o -1 si no está
+     */
+    int buscar(long[] codigo) {
+        int resultado = sondear(codigo, -1, -1, false);
+        return resultado == LLENO ? -1 : -resultado - 1;
+    }
+
+    /**
+     * Recorre la secuencia de sondeo del marcado hasta encontrarlo o hasta una posición vacía, que se reserva si
+     * se está agregando.
+     *
+     * @param codigo marcado empaquetado
+     * @param padre padre del marcado, si se agrega
+     * @param transicion transición que lo alcanzó, si se agrega
+     * @param agregar true para agregarlo si no está
+     * @return Como {@link #agregar}, o {@link #LLENO} si no está y no se agrega
+     */
+    private int sondear(long[] codigo, int padre, int transicion, boolean agregar) {
+        // Se calcula el hash y la etiqueta, que nunca coincide con vacia ni con escribiendo
+        long hash = hash(codigo);
+        int etiqueta = ((int) (hash >>> 32) << 2) | 2;
+        int posicion = (int) hash & this.mascara;
+
+        while (true) {
+            int actual = this.etiquetas.get(posicion);
+
+            // Se reserva la posicion vacia y se publica el marcado, salvo que se haya alcanzado el maximo
+            if (actual == VACIA) {
+                if (!agregar) {
+                    return LLENO;
+                }
+                if (!this.etiquetas.compareAndSet(posicion, VACIA, ESCRIBIENDO)) {
+                    continue;
+                }
+                if (this.estados.getAndIncrement() >= this.maximoEstados) {
+                    this.estados.decrementAndGet();
+                    this.etiquetas.set(posicion, VACIA);
+                    return LLENO;
+                }
+                System.arraycopy(codigo, 0, this.datos, posicion * this.palabras, this.palabras);
+                this.padres[posicion] = padre;
+                this.transiciones[posicion] = transicion;
+                this.etiquetas.set(posicion, etiqueta);
+                return posicion;
+            }
+
+            // Se espera a que otro hilo termine de escribir la posicion, cediendo el procesador
+            if (actual == ESCRIBIENDO) {
+                Thread.yield();
+                continue;
+            }
+
+            // Se compara el marcado si coincide la etiqueta y se sigue sondeando si no
+            if (actual == etiqueta && igual(codigo, posicion)) {
+                return -posicion - 1;
+            }
+            posicion = (posicion + 1) & this.mascara;
+        }
+    }
+
+    /**
+     * Compara un marcado empaquetado con el guardado en una posición.
+     *
+     * @param codigo marcado empaquetado
+     * @param posicion posición de la tabla
+     * @return true si son iguales
+     */
+    private boolean igual(long[] codigo, int posicion) {
+        int base = posicion * this.palabras;
+        for (int i = 0; i < this.palabras; i++) {
+            if (this.datos[base + i] != codigo[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula el hash de un marcado empaquetado, mezclando cada palabra.
+     *
+     * @param codigo marcado empaquetado
+     * @return Hash de 64 bits
+     */
+    private static long hash(long[] codigo) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (long palabra : codigo) {
+            hash = (hash ^ palabra) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash * 0x94D049BB133111EBL ^ (hash >>> 29);
+    }
+
+    /**
+     * Indica si una posición de la tabla tiene un marcado publicado.
+     *
+     * @param posicion posición de la tabla
+     * @return true si tiene un marcado
+     */
+    boolean ocupada(int posicion) {
+        int etiqueta = this.etiquetas.get(posicion);
+        return etiqueta != VACIA && etiqueta != ESCRIBIENDO;
+    }
+
+    /**
+     * Retorna el marcado desde el que se alcanzó uno guardado.
+     *
+     * @param id identificador del marcado
+     * @return Identificador del padre, o -1 para el marcado inicial
+     */
+    int getPadre(int id) {
+        return this.padres[id];
+    }
+
+    /**
+     * Retorna la transición con la que se alcanzó un marcado guardado.
+     *
+     * @param id identificador del marcado
+     * @return Transición, o -1 para el marcado inicial
+     */
+    int getTransicion(int id) {
+        return this.transiciones[id];
+    }
+
+    /**
+     * Retorna la cantidad de marcados guardados.
+     *
+     * @return Cantidad de marcados
+     */
+    int getEstados() {
+        return this.estados.get();
+    }
+
+    /**
+     * Retorna la cantidad de posiciones de la tabla, que acota los identificadores.
+     *
+     * @return Capacidad de la tabla
+     */
+    int getCapacidad() {
+        return this.mascara + 1;
+    }
+
+    /**
+     * Retorna la cantidad de palabras de 64 bits de cada marcado empaquetado.
+     *
+     * @return Palabras por marcado
+     */
+    int getPalabras() {
+        return this.palabras;
+    }
+}
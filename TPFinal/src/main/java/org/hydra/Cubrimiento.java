@@ -0,0 +1,165 @@
+package org.hydra;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Grafo de cubrimiento de Karp-Miller de una RdP, para saber qué plazas no están acotadas sin depender de una cota
+ * de exploración. Se recorren los marcados en anchura y, cuando un marcado nuevo cubre estrictamente a un ancestro,
+ * las plazas que crecieron pueden crecer sin límite y pasan a valer ω. Los marcados repetidos no se vuelven a
+ * expandir, lo que conserva las plazas ω que se alcanzan y asegura que el recorrido termina.
+ */
+final class Cubrimiento {
+
+    /**
+     * Valor de una plaza no acotada.
+     */
+    static final int OMEGA = Integer.MAX_VALUE;
+
+    private Cubrimiento() {
+    }
+
+    /**
+     * Resultado del grafo: la cota de cada plaza, con {@link #OMEGA} si no está acotada, y si se abandonó, el motivo.
+     */
+    static final class Resultado {
+
+        final int[] cotas;
+        final String motivo;
+
+        private Resultado(int[] cotas, String motivo) {
+            this.cotas = cotas;
+            this.motivo = motivo;
+        }
+    }
+
+    /**
+     * Marcado con ω de un nodo del grafo y su padre.
+     */
+    private static final class Nodo {
+
+        private final int[] marcado;
+        private final Nodo padre;
+
+        private Nodo(int[] marcado, Nodo padre) {
+            this.marcado = marcado;
+            this.padre = padre;
+        }
+    }
+
+    /**
+     * Construye el grafo de cubrimiento desde el marcado actual del motor.
+     *
+     * @param motor motor con la estructura y el marcado inicial de la red
+     * @param limiteNodos cantidad máxima de nodos
+     * @return Cota de cada plaza en los nodos recorridos
+     */
+    static Resultado calcular(MotorDisparo motor, int limiteNodos) {
+        int plazas = motor.getTotalPlazas();
+        int[] cotas = motor.getMarcado();
+        Set<List<Integer>> vistos = new HashSet<>();
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        Nodo raiz = new Nodo(motor.getMarcado(), null);
+        vistos.add(clave(raiz.marcado));
+        pendientes.add(raiz);
+
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.poll();
+            for (int t = 0; t < motor.getTotalTransiciones(); t++) {
+                // Se dispara la transicion si esta sensibilizada, sin modificar las plazas ω
+                int[] marcado = disparar(motor, nodo.marcado, t);
+                if (marcado == null) {
+                    continue;
+                }
+
+                // Se acelera contra cada ancestro cubierto estrictamente
+                for (Nodo ancestro = nodo; ancestro != null; ancestro = ancestro.padre) {
+                    if (cubre(marcado, ancestro.marcado)) {
+                        for (int p = 0; p < plazas; p++) {
+                            if (marcado[p] > ancestro.marcado[p]) {
+                                marcado[p] = OMEGA;
+                            }
+                        }
+                    }
+                }
+
+                // Se agrega el nodo si el marcado es nuevo
+                if (!vistos.add(clave(marcado))) {
+                    continue;
+                }
+                for (int p = 0; p < plazas; p++) {
+                    cotas[p] = Math.max(cotas[p], marcado[p]);
+                }
+                if (vistos.size() > limiteNodos) {
+                    return new Resultado(cotas, "se superaron " + limiteNodos + " nodos");
+                }
+                pendientes.add(new Nodo(marcado, nodo));
+            }
+        }
+        return new Resultado(cotas, null);
+    }
+
+    /**
+     * Dispara una transición sobre un marcado con ω.
+     *
+     * @param motor motor con los arcos de la red
+     * @param marcado marcado de partida
+     * @param transicion transición a disparar
+     * @return Marcado resultante, o null si la transición no está sensibilizada
+     */
+    private static int[] disparar(MotorDisparo motor, int[] marcado, int transicion) {
+        int[] entrada = motor.getPlazasEntrada(transicion);
+        int[] pesosEntrada = motor.getPesosEntrada(transicion);
+        for (int i = 0; i < entrada.length; i++) {
+            if (marcado[entrada[i]] < pesosEntrada[i]) {
+                return null;
+            }
+        }
+        int[] resultado = marcado.clone();
+        for (int i = 0; i < entrada.length; i++) {
+            if (resultado[entrada[i]] != OMEGA) {
+                resultado[entrada[i]] -= pesosEntrada[i];
+            }
+        }
+        int[] salida = motor.getPlazasSalida(transicion);
+        int[] pesosSalida = motor.getPesosSalida(transicion);
+        for (int i = 0; i < salida.length; i++) {
+            if (resultado[salida[i]] != OMEGA) {
+                resultado[salida[i]] = (int) Math.min(OMEGA - 1L, (long) resultado[salida[i]] + pesosSalida[i]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Indica si un marcado cubre estrictamente a otro: es mayor o igual en todas las plazas y distinto.
+     *
+     * @param mayor marcado que cubre
+     * @param menor marcado cubierto
+     * @return true si lo cubre estrictamente
+     */
+    private static boolean cubre(int[] mayor, int[] menor) {
+        boolean estricto = false;
+        for (int p = 0; p < mayor.length; p++) {
+            if (mayor[p] < menor[p]) {
+                return false;
+            }
+            estricto |= mayor[p] > menor[p];
+        }
+        return estricto;
+    }
+
+    /**
+     * Arma la clave de un marcado para el conjunto de vistos.
+     *
+     * @param marcado marcado con ω
+     * @return Lista con los valores
+     */
+    private static List<Integer> clave(int[] marcado) {
+        return Arrays.asList(Arrays.stream(marcado).boxed().toArray(Integer[]::new));
+    }
+}
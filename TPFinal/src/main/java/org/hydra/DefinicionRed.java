@@ -0,0 +1,805 @@
+package org.hydra;
+
+import org.hydra.beans.Segmento;
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Definición declarativa de una RdP: plazas con su marcado inicial, transiciones con su ventana temporal, arcos
+ * con peso, segmentos con su cantidad de hilos y su ciclo de transiciones, t-invariantes, p-invariantes opcionales
+ * y las transiciones que se disparan al terminar para vaciar la red. Se obtiene con {@link CargadorRed} o
+ * {@link ImportadorPnml} y construye las estructuras del motor sin pasar por la matriz de incidencia densa.
+ * <p>
+ * Las plazas y transiciones se numeran en el orden en que se declaran; los tiempos de las ventanas se guardan en
+ * microsegundos.
+ */
+public final class DefinicionRed {
+
+    private final String nombre;
+    private final String[] nombresPlazas;
+    private final String[] nombresTransiciones;
+    private final int[] marcadoInicial;
+    private final int[][] plazasEntrada;
+    private final int[][] pesosEntrada;
+    private final int[][] plazasSalida;
+    private final int[][] pesosSalida;
+    private final long[] alpha;
+    private final long[] beta;
+    private final String[] nombresSegmentos;
+    private final int[] hilosSegmentos;
+    private final int[][] transicionesSegmentos;
+    private final List<List<Integer>> invariantesT;
+    private final int[][] invariantesP;
+    private final int[] transicionesFinales;
+
+    /**
+     * Constructor de la clase, que solo usa {@link Armado}.
+     *
+     * @param armado armado con los elementos de la red ya resueltos
+     * @param arcos arcos de la red, como plazas y pesos de entrada y de salida por transición
+     */
+    private DefinicionRed(Armado armado, int[][][] arcos) {
+        // Se copian los elementos declarados
+        this.nombre = armado.nombre;
+        this.nombresPlazas = armado.plazas.toArray(new String[0]);
+        this.nombresTransiciones = armado.transiciones.toArray(new String[0]);
+        this.marcadoInicial = Arrays.copyOf(armado.tokens, this.nombresPlazas.length);
+        this.alpha = Arrays.copyOf(armado.alpha, this.nombresTransiciones.length);
+        this.beta = Arrays.copyOf(armado.beta, this.nombresTransiciones.length);
+
+        // Se almacenan los arcos dispersos
+        this.plazasEntrada = arcos[0];
+        this.pesosEntrada = arcos[1];
+        this.plazasSalida = arcos[2];
+        this.pesosSalida = arcos[3];
+
+        // Se usa un segmento de un hilo por transicion si no se declararon segmentos
+        if (armado.nombresSegmentos.isEmpty()) {
+            for (int t = 0; t < this.nombresTransiciones.length; t++) {
+                armado.nombresSegmentos.add(this.nombresTransiciones[t]);
+                armado.hilosSegmentos.add(1);
+                armado.transicionesSegmentos.add(new int[]{t});
+            }
+        }
+        this.nombresSegmentos = armado.nombresSegmentos.toArray(new String[0]);
+        this.hilosSegmentos = armado.hilosSegmentos.stream().mapToInt(Integer::intValue).toArray();
+        this.transicionesSegmentos = armado.transicionesSegmentos.toArray(new int[0][]);
+
+        // Se fijan los invariantes y las transiciones finales, calculandolas si no se declararon
+        this.invariantesT = Collections.unmodifiableList(armado.invariantesT);
+        this.invariantesP = armado.invariantesP.isEmpty() ? null : armado.invariantesP.toArray(new int[0][]);
+        this.transicionesFinales = armado.finales != null ? armado.finales
+                : calcularTransicionesFinales(this.invariantesT, this.nombresTransiciones.length);
+    }
+
+    /**
+     * Crea una RdP nueva con el marcado inicial de la definición. Cada llamada devuelve una red independiente.
+     *
+     * @return RdP de la definición
+     */
+    public RDP crearRed() {
+        // Se copian los arcos, que pasan a ser el estado interno del motor
+        MotorDisparo motor = new MotorDisparo(this.nombresPlazas.length, copiar(this.plazasEntrada),
+                copiar(this.pesosEntrada), copiar(this.plazasSalida), copiar(this.pesosSalida), this.marcadoInicial);
+
+        // Se crea la red con los p-invariantes declarados, que solo se leen y pueden compartirse entre redes, o sin
+        // ellos para calcularlos al pedirlos
+        return new RDP(motor, this.invariantesP);
+    }
+
+    /**
+     * Crea los segmentos de la definición. Cada llamada devuelve segmentos nuevos, ya que los hilos de un segmento
+     * comparten el iterador de su ciclo de transiciones.
+     *
+     * @return Segmentos de la red
+     */
+    public Segmento[] crearSegmentos() {
+        return crearSegmentos(this.hilosSegmentos);
+    }
+
+    /**
+     * Crea los segmentos de la definición con otra cantidad de hilos por segmento.
+     *
+     * @param hilos cantidad de hilos de cada segmento, en el orden en que se declararon
+     * @return Segmentos de la red
+     * @throws IllegalArgumentException si no se indica una cantidad positiva por segmento
+     */
+    public Segmento[] crearSegmentos(int[] hilos) {
+        // Se verifica que haya una cantidad de hilos por segmento
+        if (hilos.length != this.nombresSegmentos.length || Arrays.stream(hilos).anyMatch(h -> h < 1)) {
+            throw new IllegalArgumentException("Se esperaban " + this.nombresSegmentos.length
+                    + " cantidades positivas de hilos, una por segmento: " + Arrays.toString(hilos));
+        }
+
+        // Se crea un segmento con ciclo fijo por cada segmento declarado
+        Segmento[] segmentos = new Segmento[this.nombresSegmentos.length];
+        for (int i = 0; i < segmentos.length; i++) {
+            segmentos[i] = new Segmento(hilos[i], this.nombresSegmentos[i], this.transicionesSegmentos[i]);
+        }
+        return segmentos;
+    }
+
+    /**
+     * Calcula las transiciones que se disparan al terminar para vaciar la red: todas salvo la primera de cada
+     * t-invariante, que es la que inicia un nuevo ciclo. Sin t-invariantes no se dispara ninguna, ya que no se
+     * puede asegurar que el vaciado termine.
+     *
+     * @param invariantesT t-invariantes de la red
+     * @param totalTransiciones cantidad de transiciones de la red
+     * @return Transiciones finales en orden creciente
+     */
+    public static int[] calcularTransicionesFinales(List<List<Integer>> invariantesT, int totalTransiciones) {
+        // Se descartan las transiciones que inician un t-invariante
+        boolean[] iniciales = new boolean[totalTransiciones];
+        for (List<Integer> invariante : invariantesT) {
+            if (!invariante.isEmpty()) {
+                iniciales[invariante.get(0)] = true;
+            }
+        }
+
+        // Se retornan las demas transiciones, si hay t-invariantes
+        int[] finales = new int[invariantesT.isEmpty() ? 0 : totalTransiciones];
+        int cantidad = 0;
+        for (int t = 0; t < finales.length; t++) {
+            if (!iniciales[t]) {
+                finales[cantidad++] = t;
+            }
+        }
+        return Arrays.copyOf(finales, cantidad);
+    }
+
+    /**
+     * Retorna el nombre de la red.
+     *
+     * @return Nombre declarado, o el del archivo del que se leyó
+     */
+    public String getNombre() {
+        return this.nombre;
+    }
+
+    /**
+     * Retorna la cantidad de plazas de la red.
+     *
+     * @return Número de plazas
+     */
+    public int getTotalPlazas() {
+        return this.nombresPlazas.length;
+    }
+
+    /**
+     * Retorna la cantidad de transiciones de la red.
+     *
+     * @return Número de transiciones
+     */
+    public int getTotalTransiciones() {
+        return this.nombresTransiciones.length;
+    }
+
+    /**
+     * Retorna la cantidad de arcos de la red.
+     *
+     * @return Número de arcos de entrada y de salida
+     */
+    public int getTotalArcos() {
+        // Se suman los arcos de entrada y de salida de cada transicion
+        int arcos = 0;
+        for (int t = 0; t < this.nombresTransiciones.length; t++) {
+            arcos += this.plazasEntrada[t].length + this.plazasSalida[t].length;
+        }
+        return arcos;
+    }
+
+    /**
+     * Retorna el nombre de una plaza.
+     *
+     * @param plaza Índice de la plaza
+     * @return Nombre de la plaza
+     */
+    public String getNombrePlaza(int plaza) {
+        return this.nombresPlazas[plaza];
+    }
+
+    /**
+     * Retorna el nombre de una transición.
+     *
+     * @param transicion Índice de la transición
+     * @return Nombre de la transición
+     */
+    public String getNombreTransicion(int transicion) {
+        return this.nombresTransiciones[transicion];
+    }
+
+    /**
+     * Retorna una copia del marcado inicial.
+     *
+     * @return Tokens iniciales de cada plaza
+     */
+    public int[] getMarcadoInicial() {
+        return this.marcadoInicial.clone();
+    }
+
+    /**
+     * Retorna una copia de los límites inferiores de las ventanas.
+     *
+     * @return Alpha de cada transición en microsegundos (0 si no es temporizada)
+     */
+    public long[] getAlpha() {
+        return this.alpha.clone();
+    }
+
+    /**
+     * Retorna una copia de los límites superiores de las ventanas.
+     *
+     * @return Beta de cada transición en microsegundos ({@link VectorSensibilizado#SIN_LIMITE} si no tiene)
+     */
+    public long[] getBeta() {
+        return this.beta.clone();
+    }
+
+    /**
+     * Retorna los t-invariantes de la red.
+     *
+     * @return T-invariantes, cada uno como la secuencia ordenada de sus transiciones
+     */
+    public List<List<Integer>> getTInvariantes() {
+        return this.invariantesT;
+    }
+
+    /**
+     * Retorna una copia de las transiciones que se disparan al terminar para vaciar la red.
+     *
+     * @return Transiciones finales
+     */
+    public int[] getTransicionesFinales() {
+        return this.transicionesFinales.clone();
+    }
+
+    /**
+     * Escribe la definición en el formato de texto de {@link CargadorRed}, de modo que al cargarla se obtenga la
+     * misma red. Sirve para guardar redes generadas o importadas de PNML.
+     *
+     * @param salida escritor de destino
+     * @throws IOException si no se puede escribir
+     * @throws IllegalArgumentException si algún nombre tiene espacios o {@code #}, que el formato no admite
+     */
+    public void escribir(Writer salida) throws IOException {
+        // Se escribe el nombre y las plazas con su marcado
+        salida.write("red " + palabra(this.nombre) + "\n");
+        for (int p = 0; p < this.nombresPlazas.length; p++) {
+            salida.write("plaza " + palabra(this.nombresPlazas[p])
+                    + (this.marcadoInicial[p] != 0 ? " " + this.marcadoInicial[p] : "") + "\n");
+        }
+
+        // Se escriben las transiciones con su ventana, si la tienen
+        for (int t = 0; t < this.nombresTransiciones.length; t++) {
+            boolean conBeta = this.beta[t] != VectorSensibilizado.SIN_LIMITE;
+            salida.write("transicion " + palabra(this.nombresTransiciones[t])
+                    + (this.alpha[t] != 0 || conBeta ? " " + this.alpha[t] + "us" : "")
+                    + (conBeta ? " " + this.beta[t] + "us" : "") + "\n");
+        }
+
+        // Se escriben los arcos de entrada y de salida de cada transicion
+        for (int t = 0; t < this.nombresTransiciones.length; t++) {
+            for (int i = 0; i < this.plazasEntrada[t].length; i++) {
+                salida.write("arco " + this.nombresPlazas[this.plazasEntrada[t][i]] + " " + this.nombresTransiciones[t]
+                        + (this.pesosEntrada[t][i] != 1 ? " " + this.pesosEntrada[t][i] : "") + "\n");
+            }
+            for (int i = 0; i < this.plazasSalida[t].length; i++) {
+                salida.write("arco " + this.nombresTransiciones[t] + " " + this.nombresPlazas[this.plazasSalida[t][i]]
+                        + (this.pesosSalida[t][i] != 1 ? " " + this.pesosSalida[t][i] : "") + "\n");
+            }
+        }
+
+        // Se escriben los segmentos y los invariantes
+        for (int i = 0; i < this.nombresSegmentos.length; i++) {
+            salida.write("segmento " + palabra(this.nombresSegmentos[i]) + " " + this.hilosSegmentos[i]
+                    + nombres(Arrays.stream(this.transicionesSegmentos[i]).boxed().collect(Collectors.toList())) + "\n");
+        }
+        for (List<Integer> invariante : this.invariantesT) {
+            salida.write("tinvariante" + nombres(invariante) + "\n");
+        }
+        for (int[] invariante : this.invariantesP == null ? new int[0][] : this.invariantesP) {
+            StringBuilder linea = new StringBuilder("pinvariante");
+            for (int p = 0; p < invariante.length; p++) {
+                if (invariante[p] != 0) {
+                    linea.append(' ').append(this.nombresPlazas[p]).append(invariante[p] != 1 ? "*" + invariante[p] : "");
+                }
+            }
+            salida.write(linea.append('\n').toString());
+        }
+
+        // Se escriben las transiciones finales
+        salida.write("finales" + nombres(Arrays.stream(this.transicionesFinales).boxed().collect(Collectors.toList()))
+                + "\n");
+    }
+
+    /**
+     * Arma la lista de nombres de transiciones, cada uno precedido por un espacio.
+     *
+     * @param transiciones índices de las transiciones
+     * @return Nombres separados por espacios
+     */
+    private String nombres(List<Integer> transiciones) {
+        // Se concatenan los nombres
+        StringBuilder texto = new StringBuilder();
+        for (int transicion : transiciones) {
+            texto.append(' ').append(this.nombresTransiciones[transicion]);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Verifica que un nombre pueda escribirse como una palabra del formato de texto.
+     *
+     * @param nombre nombre a escribir
+     * @return El mismo nombre
+     * @throws IllegalArgumentException si tiene espacios o {@code #}
+     */
+    private static String palabra(String nombre) {
+        for (int i = 0; i < nombre.length(); i++) {
+            if (Character.isWhitespace(nombre.charAt(i)) || nombre.charAt(i) == '#') {
+                throw new IllegalArgumentException("El nombre \"" + nombre + "\" no puede escribirse en formato de texto");
+            }
+        }
+        return nombre;
+    }
+
+    /**
+     * Copia un arreglo de arreglos de enteros.
+     *
+     * @param original arreglo a copiar
+     * @return Copia profunda
+     */
+    private static int[][] copiar(int[][] original) {
+        // Se copia cada fila
+        int[][] copia = new int[original.length][];
+        for (int i = 0; i < original.length; i++) {
+            copia[i] = original[i].clone();
+        }
+        return copia;
+    }
+
+    /**
+     * Acumula los elementos de una red a medida que se leen, resolviendo los nombres de plazas y transiciones, y
+     * construye la {@link DefinicionRed} al terminar. Los arcos se guardan en arreglos planos y se agrupan por
+     * transición recién al construir, sumando los pesos de los arcos repetidos.
+     * <p>
+     * Plazas y transiciones comparten el espacio de nombres, como los identificadores de PNML.
+     */
+    public static final class Armado {
+
+        private String nombre;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> plazas = new ArrayList<>();
+        private final List<String> transiciones = new ArrayList<>();
+        private int[] tokens = new int[16];
+        private long[] alpha = new long[16];
+        private long[] beta = new long[16];
+        private int[] arcoTransicion = new int[64];
+        private int[] arcoPlaza = new int[64];
+        private int[] arcoPeso = new int[64];
+        private int arcos;
+        private final List<String> nombresSegmentos = new ArrayList<>();
+        private final List<Integer> hilosSegmentos = new ArrayList<>();
+        private final List<int[]> transicionesSegmentos = new ArrayList<>();
+        private final List<List<Integer>> invariantesT = new ArrayList<>();
+        private final List<int[]> invariantesP = new ArrayList<>();
+        private final List<String[]> pInvariantesPendientes = new ArrayList<>();
+        private final List<int[]> pesosPendientes = new ArrayList<>();
+        private int[] finales;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param nombre nombre inicial de la red
+         */
+        public Armado(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Reemplaza el nombre de la red.
+         *
+         * @param nombre nombre de la red
+         */
+        public void setNombre(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * Agrega una plaza.
+         *
+         * @param nombre nombre único de la plaza
+         * @param tokens marcado inicial de la plaza
+         * @return Índice de la plaza
+         * @throws IllegalArgumentException si el nombre ya existe o los tokens son negativos
+         */
+        public int agregarPlaza(String nombre, int tokens) {
+            // Se verifican el nombre y el marcado
+            registrarNombre(nombre, this.plazas.size());
+            if (tokens < 0) {
+                throw new IllegalArgumentException("La plaza " + nombre + " tiene tokens negativos");
+            }
+
+            // Se agrega la plaza con su marcado
+            if (this.plazas.size() == this.tokens.length) {
+                this.tokens = Arrays.copyOf(this.tokens, 2 * this.tokens.length);
+            }
+            this.tokens[this.plazas.size()] = tokens;
+            this.plazas.add(nombre);
+            return this.plazas.size() - 1;
+        }
+
+        /**
+         * Agrega una transición.
+         *
+         * @param nombre nombre único de la transición
+         * @param alpha límite inferior de la ventana en microsegundos (0 si no es temporizada)
+         * @param beta límite superior de la ventana en microsegundos ({@link VectorSensibilizado#SIN_LIMITE} si
+         *             no tiene)
+         * @return Índice de la transición
+         * @throws IllegalArgumentException si el nombre ya existe o la ventana es inválida
+         */
+        public int agregarTransicion(String nombre, long alpha, long beta) {
+            // Se verifican el nombre y la ventana
+            registrarNombre(nombre, -this.transiciones.size() - 1);
+            if (alpha < 0 || alpha > beta) {
+                throw new IllegalArgumentException("La ventana de " + nombre + " es invalida");
+            }
+
+            // Se agrega la transicion con su ventana
+            if (this.transiciones.size() == this.alpha.length) {
+                this.alpha = Arrays.copyOf(this.alpha, 2 * this.alpha.length);
+                this.beta = Arrays.copyOf(this.beta, 2 * this.beta.length);
+            }
+            this.alpha[this.transiciones.size()] = alpha;
+            this.beta[this.transiciones.size()] = beta;
+            this.transiciones.add(nombre);
+            return this.transiciones.size() - 1;
+        }
+
+        /**
+         * Agrega un arco entre una plaza y una transición, en cualquiera de los dos sentidos.
+         *
+         * @param origen nombre de la plaza o transición de origen
+         * @param destino nombre de la transición o plaza de destino
+         * @param peso peso del arco
+         * @throws IllegalArgumentException si algún nombre no existe, ambos son del mismo tipo o el peso no es
+         *                                  positivo
+         */
+        public void agregarArco(String origen, String destino, int peso) {
+            // Se resuelven los extremos del arco
+            int desde = indice(origen);
+            int hasta = indice(destino);
+            if ((desde >= 0) == (hasta >= 0)) {
+                throw new IllegalArgumentException("El arco " + origen + " -> " + destino
+                        + " debe unir una plaza con una transicion");
+            }
+            if (peso <= 0) {
+                throw new IllegalArgumentException("El arco " + origen + " -> " + destino + " tiene peso " + peso);
+            }
+
+            // Se guarda el arco con peso negativo si es de entrada y positivo si es de salida
+            if (this.arcos == this.arcoPeso.length) {
+                this.arcoTransicion = Arrays.copyOf(this.arcoTransicion, 2 * this.arcos);
+                this.arcoPlaza = Arrays.copyOf(this.arcoPlaza, 2 * this.arcos);
+                this.arcoPeso = Arrays.copyOf(this.arcoPeso, 2 * this.arcos);
+            }
+            boolean entrada = desde >= 0;
+            this.arcoTransicion[this.arcos] = entrada ? -hasta - 1 : -desde - 1;
+            this.arcoPlaza[this.arcos] = entrada ? desde : hasta;
+            this.arcoPeso[this.arcos++] = entrada ? -peso : peso;
+        }
+
+        /**
+         * Agrega un segmento.
+         *
+         * @param nombre nombre del segmento
+         * @param hilos cantidad de hilos del segmento
+         * @param transiciones nombres de las transiciones del segmento, en el orden en que se disparan
+         * @throws IllegalArgumentException si alguna transición no existe o no hay hilos o transiciones
+         */
+        public void agregarSegmento(String nombre, int hilos, List<String> transiciones) {
+            // Se verifican los hilos y las transiciones
+            if (hilos <= 0 || transiciones.isEmpty()) {
+                throw new IllegalArgumentException("El segmento " + nombre + " necesita hilos y transiciones");
+            }
+
+            // Se agrega el segmento con sus transiciones resueltas
+            this.nombresSegmentos.add(nombre);
+            this.hilosSegmentos.add(hilos);
+            this.transicionesSegmentos.add(transiciones.stream().mapToInt(this::indiceTransicion).toArray());
+        }
+
+        /**
+         * Agrega un t-invariante.
+         *
+         * @param transiciones nombres de las transiciones del t-invariante, en orden
+         * @throws IllegalArgumentException si alguna transición no existe o está vacío
+         */
+        public void agregarTInvariante(List<String> transiciones) {
+            // Se verifica que no este vacio y se resuelven las transiciones
+            if (transiciones.isEmpty()) {
+                throw new IllegalArgumentException("El t-invariante esta vacio");
+            }
+            this.invariantesT.add(Collections.unmodifiableList(transiciones.stream()
+                    .map(this::indiceTransicion).collect(Collectors.toList())));
+        }
+
+        /**
+         * Agrega un p-invariante. Se verifica al construir que se conserve con el disparo de cada transición.
+         *
+         * @param plazas nombres de las plazas del soporte
+         * @param pesos peso de cada plaza
+         * @throws IllegalArgumentException si los largos no coinciden
+         */
+        public void agregarPInvariante(String[] plazas, int[] pesos) {
+            // Se guarda para resolverlo al construir, cuando se conocen todas las plazas
+            if (plazas.length != pesos.length || plazas.length == 0) {
+                throw new IllegalArgumentException("El p-invariante necesita un peso por plaza");
+            }
+            this.pInvariantesPendientes.add(plazas.clone());
+            this.pesosPendientes.add(pesos.clone());
+        }
+
+        /**
+         * Define las transiciones que se disparan al terminar para vaciar la red, en lugar de las calculadas con
+         * {@link DefinicionRed#calcularTransicionesFinales(List, int)}.
+         *
+         * @param transiciones nombres de las transiciones finales
+         * @throws IllegalArgumentException si alguna transición no existe
+         */
+        public void setTransicionesFinales(List<String> transiciones) {
+            this.finales = transiciones.stream().mapToInt(this::indiceTransicion).toArray();
+        }
+
+        /**
+         * Indica si existe una plaza o transición con el nombre dado.
+         *
+         * @param nombre nombre buscado
+         * @return true si el nombre está en uso
+         */
+        public boolean existe(String nombre) {
+            return this.indices.containsKey(nombre);
+        }
+
+        /**
+         * Construye la definición: agrupa los arcos por transición sumando los repetidos y verifica los
+         * p-invariantes declarados.
+         *
+         * @return Definición de la red
+         * @throws IllegalArgumentException si algún p-invariante no se conserva
+         */
+        public DefinicionRed construir() {
+            // Se agrupan los arcos y se resuelven los p-invariantes
+            int[][][] agrupados = agruparArcos();
+            int[][] vecinas = this.pInvariantesPendientes.isEmpty() ? null : calcularVecinas(agrupados);
+            int[] marca = new int[this.transiciones.size()];
+            for (int i = 0; i < this.pInvariantesPendientes.size(); i++) {
+                int[] invariante = new int[this.plazas.size()];
+                String[] soporte = this.pInvariantesPendientes.get(i);
+                int[] indices = new int[soporte.length];
+                for (int j = 0; j < soporte.length; j++) {
+                    indices[j] = indicePlaza(soporte[j]);
+                    invariante[indices[j]] += this.pesosPendientes.get(i)[j];
+                }
+                verificarPInvariante(invariante, indices, agrupados, vecinas, marca, i + 1);
+                this.invariantesP.add(invariante);
+            }
+            this.pInvariantesPendientes.clear();
+            this.pesosPendientes.clear();
+            return new DefinicionRed(this, agrupados);
+        }
+
+        /**
+         * Agrupa los arcos por transición con un ordenamiento por conteo y suma los pesos de los arcos repetidos
+         * entre la misma plaza y transición, en tiempo proporcional a la cantidad de arcos.
+         *
+         * @return Plazas y pesos de entrada y plazas y pesos de salida por transición
+         */
+        private int[][][] agruparArcos() {
+            // Se calcula el comienzo de los arcos de cada transicion
+            int totalTransiciones = this.transiciones.size();
+            int[] inicio = new int[totalTransiciones + 1];
+            for (int a = 0; a < this.arcos; a++) {
+                inicio[this.arcoTransicion[a] + 1]++;
+            }
+            for (int t = 0; t < totalTransiciones; t++) {
+                inicio[t + 1] += inicio[t];
+            }
+
+            // Se ubica cada arco en el tramo de su transicion
+            int[] orden = new int[this.arcos];
+            int[] siguiente = Arrays.copyOf(inicio, totalTransiciones);
+            for (int a = 0; a < this.arcos; a++) {
+                orden[siguiente[this.arcoTransicion[a]]++] = a;
+            }
+
+            // Se suman los pesos por plaza en cada sentido, marcando las plazas vistas con la transicion + 1
+            int[][][] resultado = new int[4][totalTransiciones][];
+            int[] marcaEntrada = new int[this.plazas.size()];
+            int[] marcaSalida = new int[this.plazas.size()];
+            int[] suma = new int[2 * this.plazas.size()];
+            int[] vistas = new int[this.arcos];
+            for (int t = 0; t < totalTransiciones; t++) {
+                int cantidad = 0;
+                for (int i = inicio[t]; i < inicio[t + 1]; i++) {
+                    int a = orden[i];
+                    int plaza = this.arcoPlaza[a];
+                    int[] marca = this.arcoPeso[a] < 0 ? marcaEntrada : marcaSalida;
+                    int posicion = this.arcoPeso[a] < 0 ? plaza : plaza + this.plazas.size();
+                    if (marca[plaza] != t + 1) {
+                        marca[plaza] = t + 1;
+                        suma[posicion] = 0;
+                        vistas[cantidad++] = posicion;
+                    }
+                    suma[posicion] += Math.abs(this.arcoPeso[a]);
+                }
+
+                // Se separan las plazas vistas en entradas y salidas
+                int entradas = 0;
+                for (int i = 0; i < cantidad; i++) {
+                    if (vistas[i] < this.plazas.size()) {
+                        entradas++;
+                    }
+                }
+                resultado[0][t] = new int[entradas];
+                resultado[1][t] = new int[entradas];
+                resultado[2][t] = new int[cantidad - entradas];
+                resultado[3][t] = new int[cantidad - entradas];
+                int e = 0;
+                int s = 0;
+                for (int i = 0; i < cantidad; i++) {
+                    int posicion = vistas[i];
+                    if (posicion < this.plazas.size()) {
+                        resultado[0][t][e] = posicion;
+                        resultado[1][t][e++] = suma[posicion];
+                    }
+                    else {
+                        resultado[2][t][s] = posicion - this.plazas.size();
+                        resultado[3][t][s++] = suma[posicion];
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * Construye el índice plaza -&gt; transiciones que tienen un arco con ella, en cualquier sentido.
+         *
+         * @param arcos arcos agrupados por transición
+         * @return Transiciones vecinas de cada plaza
+         */
+        private int[][] calcularVecinas(int[][][] arcos) {
+            // Se cuentan los arcos de cada plaza
+            int[] cantidad = new int[this.plazas.size()];
+            for (int[][] plazas : new int[][][]{arcos[0], arcos[2]}) {
+                for (int[] porTransicion : plazas) {
+                    for (int plaza : porTransicion) {
+                        cantidad[plaza]++;
+                    }
+                }
+            }
+
+            // Se completan las transiciones de cada plaza
+            int[][] vecinas = new int[this.plazas.size()][];
+            for (int p = 0; p < vecinas.length; p++) {
+                vecinas[p] = new int[cantidad[p]];
+                cantidad[p] = 0;
+            }
+            for (int[][] plazas : new int[][][]{arcos[0], arcos[2]}) {
+                for (int t = 0; t < plazas.length; t++) {
+                    for (int plaza : plazas[t]) {
+                        vecinas[plaza][cantidad[plaza]++] = t;
+                    }
+                }
+            }
+            return vecinas;
+        }
+
+        /**
+         * Verifica que un p-invariante se conserve con el disparo de cada transición, es decir, que la suma
+         * ponderada de los pesos de salida menos los de entrada sea nula. Solo se recorren las transiciones vecinas
+         * de su soporte, ya que las demás no lo modifican.
+         *
+         * @param invariante peso de cada plaza
+         * @param soporte plazas declaradas del p-invariante
+         * @param arcos arcos agrupados por transición
+         * @param vecinas transiciones vecinas de cada plaza
+         * @param marca marcas de transiciones ya verificadas, con el número de p-invariante
+         * @param numero número del p-invariante, para el mensaje de error
+         * @throws IllegalArgumentException si no se conserva
+         */
+        private void verificarPInvariante(int[] invariante, int[] soporte, int[][][] arcos, int[][] vecinas,
+                                          int[] marca, int numero) {
+            // Se calcula el cambio de la suma ponderada con cada transicion vecina del soporte, una sola vez
+            for (int plaza : soporte) {
+                for (int t : vecinas[plaza]) {
+                    if (marca[t] == numero) {
+                        continue;
+                    }
+                    marca[t] = numero;
+                    long cambio = 0;
+                    for (int i = 0; i < arcos[0][t].length; i++) {
+                        cambio -= (long) invariante[arcos[0][t][i]] * arcos[1][t][i];
+                    }
+                    for (int i = 0; i < arcos[2][t].length; i++) {
+                        cambio += (long) invariante[arcos[2][t][i]] * arcos[3][t][i];
+                    }
+                    if (cambio != 0) {
+                        throw new IllegalArgumentException("El p-invariante " + numero + " no se conserva al disparar "
+                                + this.transiciones.get(t));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Registra un nombre nuevo con su índice codificado: no negativo para plazas y negativo para transiciones.
+         *
+         * @param nombre nombre a registrar
+         * @param codigo índice codificado
+         * @throws IllegalArgumentException si el nombre ya existe
+         */
+        private void registrarNombre(String nombre, int codigo) {
+            if (this.indices.putIfAbsent(nombre, codigo) != null) {
+                throw new IllegalArgumentException("El nombre " + nombre + " ya esta definido");
+            }
+        }
+
+        /**
+         * Resuelve un nombre a su índice codificado.
+         *
+         * @param nombre nombre de una plaza o transición
+         * @return Índice de la plaza, o -(índice de la transición + 1)
+         * @throws IllegalArgumentException si el nombre no existe
+         */
+        private int indice(String nombre) {
+            Integer codigo = this.indices.get(nombre);
+            if (codigo == null) {
+                throw new IllegalArgumentException("No existe la plaza o transicion " + nombre);
+            }
+            return codigo;
+        }
+
+        /**
+         * Resuelve el nombre de una plaza.
+         *
+         * @param nombre nombre de la plaza
+         * @return Índice de la plaza
+         * @throws IllegalArgumentException si no es una plaza
+         */
+        private int indicePlaza(String nombre) {
+            int codigo = indice(nombre);
+            if (codigo < 0) {
+                throw new IllegalArgumentException(nombre + " no es una plaza");
+            }
+            return codigo;
+        }
+
+        /**
+         * Resuelve el nombre de una transición.
+         *
+         * @param nombre nombre de la transición
+         * @return Índice de la transición
+         * @throws IllegalArgumentException si no es una transición
+         */
+        private int indiceTransicion(String nombre) {
+            int codigo = indice(nombre);
+            if (codigo >= 0) {
+                throw new IllegalArgumentException(nombre + " no es una transicion");
+            }
+            return -codigo - 1;
+        }
+    }
+}
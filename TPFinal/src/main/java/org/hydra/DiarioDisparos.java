@@ -0,0 +1,203 @@
+package org.hydra;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Diario asíncrono de disparos. El hilo que dispara solo escribe tres primitivos (instante de {@link System#nanoTime()},
+ * índice del hilo y transición) en un buffer circular preasignado; un hilo escritor los vuelca por lotes a un
+ * {@link EscritorTraza}, fuera de la sección crítica del monitor.
+ * <p>
+ * Cada productor reserva una posición con un contador atómico y la publica al terminar de escribirla, por lo que
+ * el escritor respeta el orden de reserva aunque los productores escriban en paralelo. Si el buffer se llena, el
+ * productor espera a que el escritor libere lugar: no se descartan eventos. {@link #cerrar()} vuelca todo lo
+ * reservado antes de cerrar el archivo.
+ */
+public class DiarioDisparos implements RegistroDisparos {
+
+    private static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+    private static final long ESPERA_ESCRITOR_NS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long ESPERA_PRODUCTOR_NS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final long[] tiempos;
+    private final int[] hilos;
+    private final int[] transiciones;
+    private final AtomicLongArray publicados;
+    private final int mascara;
+    private final AtomicLong siguiente = new AtomicLong();
+    private volatile long consumido;
+    private volatile boolean cerrado;
+
+    private final AtomicInteger cantidadHilos = new AtomicInteger();
+    private final Map<Integer, String> nombresHilos = new ConcurrentHashMap<>();
+    private final ThreadLocal<Integer> indiceHilo = ThreadLocal.withInitial(this::registrarHilo);
+
+    private final EscritorTraza salida;
+    private final Thread escritor;
+    private volatile IOException error;
+
+    /**
+     * Constructor de la clase con la capacidad por defecto.
+     *
+     * @param salida formato en el que se vuelcan los disparos
+     */
+    public DiarioDisparos(EscritorTraza salida) {
+        this(salida, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de la clase. Reserva el buffer circular e inicia el hilo escritor.
+     *
+     * @param salida formato en el que se vuelcan los disparos; el diario lo cierra al cerrarse
+     * @param capacidad cantidad de eventos del buffer, potencia de dos
+     */
+    public DiarioDisparos(EscritorTraza salida, int capacidad) {
+        // Se verifica que la capacidad sea una potencia de dos
+        if (capacidad <= 0 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacidad);
+        }
+
+        // Se reserva el buffer circular
+        this.tiempos = new long[capacidad];
+        this.hilos = new int[capacidad];
+        this.transiciones = new int[capacidad];
+        this.publicados = new AtomicLongArray(capacidad);
+        this.mascara = capacidad - 1;
+
+        // Se guarda la salida y se inicia el hilo escritor
+        this.salida = salida;
+        this.escritor = new Thread(this::escribir, "Diario de disparos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Registra el disparo en el buffer circular. No reserva memoria salvo la primera vez que dispara cada hilo.
+     *
+     * @param transicion Índice de la transición disparada
+     */
+    @Override
+    public void registrar(int transicion) {
+        // Se toman el instante y el indice del hilo antes de reservar la posicion
+        long ahora = System.nanoTime();
+        int hilo = this.indiceHilo.get();
+
+        // Se reserva la posicion y se espera si el buffer esta lleno
+        long secuencia = this.siguiente.getAndIncrement();
+        while (secuencia - this.consumido >= this.tiempos.length) {
+            LockSupport.unpark(this.escritor);
+            LockSupport.parkNanos(ESPERA_PRODUCTOR_NS);
+        }
+
+        // Se escribe el evento y se publica la posicion
+        int posicion = (int) (secuencia & this.mascara);
+        this.tiempos[posicion] = ahora;
+        this.hilos[posicion] = hilo;
+        this.transiciones[posicion] = transicion;
+        this.publicados.lazySet(posicion, secuencia + 1);
+    }
+
+    /**
+     * Vuelca todos los eventos reservados, cierra el archivo y detiene el hilo escritor.
+     *
+     * @throws UncheckedIOException si el escritor no pudo escribir el archivo
+     */
+    @Override
+    public void cerrar() {
+        // Se indica el cierre y se despierta al escritor
+        this.cerrado = true;
+        LockSupport.unpark(this.escritor);
+
+        // Se espera a que el escritor vuelque lo pendiente
+        boolean interrumpido = false;
+        while (this.escritor.isAlive()) {
+            try {
+                this.escritor.join();
+            }
+            catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Se informa un error de escritura, si lo hubo
+        if (this.error != null) {
+            throw new UncheckedIOException(this.error);
+        }
+    }
+
+    /**
+     * Ciclo del hilo escritor: vuelca por lotes los eventos publicados y, al cerrarse el diario, todos los
+     * reservados hasta ese momento.
+     */
+    private void escribir() {
+        try {
+            while (true) {
+                // Se lee el estado de cierre antes de volcar, para no perder eventos reservados antes del cierre
+                boolean cerrando = this.cerrado;
+                long hasta = this.siguiente.get();
+
+                // Se vuelcan los eventos publicados en orden
+                long posicion = this.consumido;
+                while (posicion < hasta) {
+                    int indice = (int) (posicion & this.mascara);
+                    if (this.publicados.get(indice) != posicion + 1) {
+                        // El productor reservo la posicion pero aun no la publico
+                        if (!cerrando) {
+                            break;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    int hilo = this.hilos[indice];
+                    this.salida.escribir(this.tiempos[indice], hilo, this.nombresHilos.get(hilo), this.transiciones[indice]);
+                    posicion++;
+                    this.consumido = posicion;
+                }
+                this.salida.vaciar();
+
+                // Se termina si se cerro el diario y se volco todo lo reservado
+                if (cerrando && posicion == hasta) {
+                    break;
+                }
+
+                // Se espera a que se acumule un nuevo lote
+                LockSupport.parkNanos(ESPERA_ESCRITOR_NS);
+            }
+        }
+        catch (IOException e) {
+            this.error = e;
+            this.consumido = Long.MAX_VALUE;
+        }
+        finally {
+            try {
+                this.salida.cerrar();
+            }
+            catch (IOException e) {
+                if (this.error == null) {
+                    this.error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Asigna un índice al hilo actual y guarda su nombre. Se invoca una única vez por hilo.
+     *
+     * @return índice del hilo
+     */
+    private Integer registrarHilo() {
+        int indice = this.cantidadHilos.getAndIncrement();
+        this.nombresHilos.put(indice, Thread.currentThread().getName());
+        return indice;
+    }
+}
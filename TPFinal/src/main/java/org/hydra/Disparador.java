@@ -7,7 +7,7 @@ import java.util.Iterator;
  * en la simulación de una Red de Petri.
  */
 public class Disparador implements Runnable {
-    private final AdminMonitor monitor;
+    private final Monitor monitor;
     private final Iterator<Integer> transiciones;
     private final ProcesosModelados procesoModelado;
     private boolean estaInterrumpido = false;
@@ -19,7 +19,7 @@ public class Disparador implements Runnable {
      * @param transiciones Transiciones de la RdP
      * @param procesoModelado Proceso modelado de la RdP
      */
-    public Disparador(AdminMonitor monitor, Iterator<Integer> transiciones, ProcesosModelados procesoModelado) {
+    public Disparador(Monitor monitor, Iterator<Integer> transiciones, ProcesosModelados procesoModelado) {
         // Se almacena el monitor pasado como parametro en la variable global
         this.monitor = monitor;
 
@@ -41,8 +41,8 @@ public class Disparador implements Runnable {
         // Se obtiene la siguiente transicion de la lista
         int currentTransition = this.transiciones.next();
 
-        // Se itera siempre que no se haya interrumpido el hilo
-        while(!(this.estaInterrumpido)) {
+        // Se itera siempre que no se haya interrumpido el hilo, aunque nunca llegue a bloquearse en el monitor
+        while(!(this.estaInterrumpido) && !Thread.currentThread().isInterrupted()) {
             try {
                 // Se realiza el disparo de la transicion en el monitor
                 this.monitor.disparoTransicion(currentTransition);
@@ -0,0 +1,390 @@
+package org.hydra;
+
+import org.apache.log4j.Logger;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ejecuta las tareas de las transiciones fuera del monitor, según el modo elegido al inicio: {@code inline} en el
+ * mismo hilo que disparó, como hasta ahora; {@code pool:N[,cola]} en un pool de N hilos con una cola de a lo sumo
+ * cola tareas (por defecto N); o {@code virtuales[:max]} en un hilo virtual por tarea, con a lo sumo max en curso.
+ * <p>
+ * La contrapresión se logra con semáforos: el hilo que disparó reserva un lugar en el límite de la transición y en
+ * la capacidad del ejecutor antes de entregar la tarea, y espera si alguno está completo. Así el pool nunca rechaza
+ * tareas y una etapa lenta frena a los disparadores que la alimentan, en lugar de acumular tareas sin límite. La
+ * espera ocurre después de salir del monitor, por lo que no retiene a los demás hilos.
+ * <p>
+ * Una tarea con transición de salida conserva sus lugares hasta que la salida se dispara, ya que los tokens de la
+ * tarea siguen en la red hasta entonces: si la salida espera en el monitor, los lugares retenidos frenan a los
+ * disparadores de la transición igual que una tarea lenta. Con un pool, la salida no se dispara en el hilo que
+ * realizó la tarea sino en un hilo de salidas, para que los hilos del pool nunca esperen en el monitor; las salidas
+ * de una misma transición se disparan en paralelo. Hay a lo sumo tantas salidas pendientes como lugares de la
+ * capacidad, por lo que los hilos de salidas no necesitan cola. Con los demás modos la salida se dispara en el mismo
+ * hilo que realizó la tarea, que no se comparte con otras tareas.
+ * <p>
+ * Los lugares se liberan después de disparar la salida y antes de entregar la tarea de la salida, que reserva los
+ * suyos: reservarlos sin liberar los anteriores podría dejar a todas las salidas esperando lugares que solo ellas
+ * liberan.
+ */
+public final class EjecutorTareas {
+
+    private static final Logger LOG = Logger.getLogger(EjecutorTareas.class);
+
+    private final String tipo;
+    private final Executor ejecutor;
+    private final Semaphore capacidad;
+    private final ExecutorService salidas;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicInteger ocupadas = new AtomicInteger();
+    private final AtomicInteger maximoOcupadas = new AtomicInteger();
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder esperas = new LongAdder();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition terminadas = this.lock.newCondition();
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param tipo nombre del modo, para informarlo
+     * @param ejecutor ejecutor de las tareas
+     * @param capacidad máximo de tareas en curso, o 0 si no hay límite
+     * @param salidas ejecutor de las salidas, o null para dispararlas en el hilo que realizó la tarea
+     */
+    private EjecutorTareas(String tipo, Executor ejecutor, int capacidad, ExecutorService salidas) {
+        this.tipo = tipo;
+        this.ejecutor = ejecutor;
+        this.capacidad = capacidad > 0 ? new Semaphore(capacidad) : null;
+        this.salidas = salidas;
+    }
+
+    /**
+     * Crea el ejecutor del modo indicado.
+     *
+     * @param tipo "inline", "pool:N[,cola]" o "virtuales[:max]"
+     * @return Ejecutor creado
+     * @throws IllegalArgumentException si el modo es desconocido o sus parámetros no son válidos
+     * @throws IllegalStateException si se piden hilos virtuales y la JVM no los soporta
+     */
+    public static EjecutorTareas crear(String tipo) {
+        // Se separa el nombre del modo de sus parametros
+        String[] partes = tipo.split(":", 2);
+
+        // Se crea el ejecutor segun el nombre indicado
+        switch (partes[0]) {
+            case "inline":
+                return new EjecutorTareas(tipo, Runnable::run, 0, null);
+            case "pool":
+                if (partes.length < 2) {
+                    throw new IllegalArgumentException("El pool de tareas requiere la cantidad de hilos, ej. pool:8,64");
+                }
+                String[] parametros = partes[1].split(",");
+                int hilos = Integer.parseInt(parametros[0].trim());
+                int cola = parametros.length > 1 ? Integer.parseInt(parametros[1].trim()) : hilos;
+                if (hilos < 1 || cola < 0) {
+                    throw new IllegalArgumentException("El pool de tareas requiere hilos positivos y una cola no "
+                            + "negativa: " + tipo);
+                }
+                // Se dimensiona la cola con toda la capacidad, ya que una tarea libera su lugar despues de dejar
+                // el hilo del pool; el limite real lo impone el semaforo de capacidad
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(hilos + cola), fabricaNombrada("Tarea"));
+                // Las salidas pendientes retienen un lugar de la capacidad, por lo que se crean hilos a demanda
+                // sin cola; los que esperan lugar para la tarea de su salida ya liberaron el suyo
+                ExecutorService salidas = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                        new SynchronousQueue<>(), fabricaNombrada("Salida"));
+                return new EjecutorTareas(tipo, pool, hilos + cola, salidas);
+            case "virtuales":
+                int maximo = partes.length > 1 ? Integer.parseInt(partes[1].trim()) : 0;
+                ThreadFactory virtuales = FabricaHilos.crear("virtuales");
+                return new EjecutorTareas(tipo, tarea -> virtuales.newThread(tarea).start(), maximo, null);
+            default:
+                throw new IllegalArgumentException("Ejecutor de tareas desconocido: " + tipo);
+        }
+    }
+
+    /**
+     * Crea una fábrica de hilos de plataforma daemon numerados con el prefijo indicado.
+     *
+     * @param prefijo prefijo del nombre de los hilos
+     * @return Fábrica de hilos
+     */
+    private static ThreadFactory fabricaNombrada(String prefijo) {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, prefijo + numero.getAndIncrement());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    /**
+     * Crea una tarea que solo espera la duración indicada, para modelar trabajo limitado por entrada y salida.
+     *
+     * @param duracion duración de la tarea
+     * @param unidad unidad de la duración
+     * @return Tarea creada
+     */
+    public static TareaTransicion espera(long duracion, TimeUnit unidad) {
+        return transicion -> unidad.sleep(duracion);
+    }
+
+    /**
+     * Entrega la tarea de una transición al ejecutor, esperando a que haya lugar en el límite de la transición y en
+     * la capacidad del ejecutor. Al terminar la tarea, aunque falle, se dispara su salida, si la tiene, y recién
+     * entonces se liberan los lugares reservados y se ejecuta la acción posterior a la salida.
+     *
+     * @param transicion transición disparada
+     * @param tarea tarea de la transición
+     * @param limite límite de tareas en curso de la transición, o null si no tiene
+     * @param salida disparo de la transición de salida al terminar la tarea, o null
+     * @param trasSalida acción a ejecutar después de la salida, con los lugares ya liberados, o null
+     * @throws RuntimeException si el hilo se interrumpe mientras espera lugar
+     */
+    void ejecutar(int transicion, TareaTransicion tarea, Semaphore limite, Runnable salida, Runnable trasSalida)
+            throws RuntimeException {
+        // Se reserva un lugar en el limite de la transicion y en la capacidad del ejecutor
+        adquirir(limite);
+        try {
+            adquirir(this.capacidad);
+        }
+        catch (RuntimeException e) {
+            liberar(limite);
+            throw e;
+        }
+        this.maximoOcupadas.accumulateAndGet(this.ocupadas.incrementAndGet(), Math::max);
+        this.enCurso.incrementAndGet();
+
+        try {
+            // Se entrega la tarea, que conserva los lugares hasta disparar su salida
+            this.ejecutor.execute(() -> {
+                boolean entregada = false;
+                try {
+                    realizar(transicion, tarea);
+                    entregada = salida != null && entregarSalida(transicion, limite, salida, trasSalida);
+                }
+                finally {
+                    // Si la salida se entrego, ella libera los lugares y descuenta la tarea
+                    if (!entregada) {
+                        liberarLugares(limite);
+                        terminar();
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // Se liberan los lugares si el ejecutor ya se cerro
+            liberarLugares(limite);
+            terminar();
+            throw e;
+        }
+    }
+
+    /**
+     * Realiza una tarea, registrando los errores sin propagarlos.
+     *
+     * @param transicion transición disparada
+     * @param tarea tarea de la transición
+     */
+    private void realizar(int transicion, TareaTransicion tarea) {
+        try {
+            tarea.realizar(transicion);
+            this.ejecutadas.increment();
+        }
+        catch (InterruptedException e) {
+            // Se conserva la interrupcion sin contarla como falla, ya que asi se cancelan las tareas al terminar
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e) {
+            // Se registra la falla
+            this.fallidas.increment();
+            LOG.warn(String.format("La tarea de T%d fallo", transicion + 1), e);
+        }
+    }
+
+    /**
+     * Entrega el disparo de la salida de una tarea a los hilos de salidas, o lo realiza en el hilo actual si el modo
+     * no los tiene. Los lugares de la tarea se liberan después de disparar la salida, y la tarea se descuenta después
+     * de la acción posterior.
+     *
+     * @param transicion transición disparada
+     * @param limite límite de tareas en curso de la transición, o null si no tiene
+     * @param salida disparo de la transición de salida
+     * @param trasSalida acción a ejecutar después de la salida, o null
+     * @return true si se entregó, false si el ejecutor de salidas ya se cerró
+     */
+    private boolean entregarSalida(int transicion, Semaphore limite, Runnable salida, Runnable trasSalida) {
+        Runnable completar = () -> {
+            try {
+                // Se dispara la salida reteniendo los lugares y se los libera antes de la accion posterior
+                try {
+                    continuar(transicion, salida);
+                }
+                finally {
+                    liberarLugares(limite);
+                }
+                if (trasSalida != null) {
+                    continuar(transicion, trasSalida);
+                }
+            }
+            finally {
+                terminar();
+            }
+        };
+        if (this.salidas == null) {
+            completar.run();
+            return true;
+        }
+        try {
+            this.salidas.execute(completar);
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            LOG.warn(String.format("No se pudo completar la tarea de T%d: el ejecutor esta cerrado", transicion + 1));
+            return false;
+        }
+    }
+
+    /**
+     * Ejecuta una acción posterior a una tarea, aunque la tarea haya fallado para no retener los tokens de la
+     * transición, registrando los errores sin propagarlos.
+     *
+     * @param transicion transición disparada
+     * @param continuacion acción a ejecutar
+     */
+    private static void continuar(int transicion, Runnable continuacion) {
+        try {
+            continuacion.run();
+        }
+        catch (RuntimeException e) {
+            LOG.warn(String.format("No se pudo completar la tarea de T%d", transicion + 1), e);
+        }
+    }
+
+    /**
+     * Reserva un lugar en un semáforo, contando si hubo que esperar.
+     *
+     * @param semaforo semáforo a adquirir, o null si no hay límite
+     * @throws RuntimeException si el hilo se interrumpe mientras espera
+     */
+    private void adquirir(Semaphore semaforo) throws RuntimeException {
+        if (semaforo == null || semaforo.tryAcquire()) {
+            return;
+        }
+        this.esperas.increment();
+        try {
+            semaforo.acquire();
+        }
+        catch (InterruptedException e) {
+            // Se conserva la interrupcion y se informa como en el monitor
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Se interrumpio la espera de lugar para una tarea", e);
+        }
+    }
+
+    /**
+     * Libera los lugares reservados por una tarea en la capacidad del ejecutor y en el límite de su transición.
+     *
+     * @param limite límite de tareas en curso de la transición, o null si no tiene
+     */
+    private void liberarLugares(Semaphore limite) {
+        this.ocupadas.decrementAndGet();
+        liberar(this.capacidad);
+        liberar(limite);
+    }
+
+    /**
+     * Libera un lugar de un semáforo.
+     *
+     * @param semaforo semáforo a liberar, o null si no hay límite
+     */
+    private static void liberar(Semaphore semaforo) {
+        if (semaforo != null) {
+            semaforo.release();
+        }
+    }
+
+    /**
+     * Descuenta una tarea en curso y avisa si no queda ninguna.
+     */
+    private void terminar() {
+        if (this.enCurso.decrementAndGet() == 0) {
+            this.lock.lock();
+            try {
+                this.terminadas.signalAll();
+            }
+            finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Espera a que terminen las tareas en curso, incluidas las salidas que entreguen.
+     *
+     * @param tiempo tiempo máximo de espera
+     * @param unidad unidad del tiempo
+     * @return true si terminaron todas, false si se agotó el tiempo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public boolean esperar(long tiempo, TimeUnit unidad) throws InterruptedException {
+        long resto = unidad.toNanos(tiempo);
+        this.lock.lock();
+        try {
+            while (this.enCurso.get() > 0) {
+                if (resto <= 0) {
+                    return false;
+                }
+                resto = this.terminadas.awaitNanos(resto);
+            }
+            return true;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Cierra el ejecutor y los hilos de salidas; las tareas y las salidas en curso se interrumpen si usan un pool.
+     */
+    public void cerrar() {
+        if (this.ejecutor instanceof ExecutorService) {
+            ((ExecutorService) this.ejecutor).shutdownNow();
+        }
+        if (this.salidas != null) {
+            this.salidas.shutdownNow();
+        }
+    }
+
+    /**
+     * Retorna la cantidad de tareas en curso.
+     *
+     * @return Tareas entregadas que no terminaron
+     */
+    public int getEnCurso() {
+        return this.enCurso.get();
+    }
+
+    /**
+     * Imprime las métricas del ejecutor.
+     *
+     * @param salida flujo de salida
+     */
+    public void imprimir(PrintStream salida) {
+        salida.printf("Tareas (%s): %d realizadas, %d fallidas, %d esperas por contrapresion, maximo %d en curso\n",
+                this.tipo, this.ejecutadas.sum(), this.fallidas.sum(), this.esperas.sum(), this.maximoOcupadas.get());
+    }
+}
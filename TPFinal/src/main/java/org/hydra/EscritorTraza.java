@@ -0,0 +1,35 @@
+package org.hydra;
+
+import java.io.IOException;
+
+/**
+ * Formato de salida del {@link DiarioDisparos}. El hilo escritor del diario le entrega los disparos en el orden en
+ * que fueron reservados, siempre desde el mismo hilo, por lo que las implementaciones no necesitan sincronización.
+ */
+public interface EscritorTraza {
+
+    /**
+     * Escribe un disparo.
+     *
+     * @param nanosegundos instante del disparo según {@link System#nanoTime()}
+     * @param hilo índice del hilo que disparó, asignado por el diario en orden de aparición
+     * @param nombreHilo nombre del hilo que disparó
+     * @param transicion índice de la transición disparada
+     * @throws IOException si no se puede escribir la salida
+     */
+    void escribir(long nanosegundos, int hilo, String nombreHilo, int transicion) throws IOException;
+
+    /**
+     * Hace visibles los disparos escritos hasta el momento. Se invoca al terminar cada lote.
+     *
+     * @throws IOException si no se puede escribir la salida
+     */
+    void vaciar() throws IOException;
+
+    /**
+     * Completa la salida y libera sus recursos.
+     *
+     * @throws IOException si no se puede escribir la salida
+     */
+    void cerrar() throws IOException;
+}
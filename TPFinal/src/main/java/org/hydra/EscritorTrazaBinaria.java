@@ -0,0 +1,159 @@
+package org.hydra;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escribe la traza de disparos en el formato binario de {@link TrazaBinaria}. Los disparos se escriben sobre
+ * regiones del archivo mapeadas en memoria, de modo que escribir un disparo solo copia unos pocos bytes; al agotarse
+ * una región se mapea la siguiente. Al cerrar se escriben la tabla de nombres y la cabecera definitiva y se recorta
+ * el archivo a su tamaño real.
+ */
+public class EscritorTrazaBinaria implements EscritorTraza {
+
+    private static final int TAMANIO_REGION = 16 << 20;
+
+    private final FileChannel canal;
+    private final int tamanioRegion;
+    private final long baseNanosegundos = System.nanoTime();
+    private final long baseMilisegundos = System.currentTimeMillis();
+    private final int plazas;
+    private final int transiciones;
+    private final List<String> nombresHilos = new ArrayList<>();
+    private MappedByteBuffer region;
+    private long inicioRegion;
+    private long anterior = this.baseNanosegundos;
+    private long cantidadDisparos;
+
+    /**
+     * Constructor de la clase. Crea el archivo y mapea la primera región.
+     *
+     * @param archivo archivo de la traza; se sobrescribe
+     * @param plazas cantidad de plazas de la red
+     * @param transiciones cantidad de transiciones de la red
+     * @throws IOException si no se puede crear el archivo
+     */
+    public EscritorTrazaBinaria(Path archivo, int plazas, int transiciones) throws IOException {
+        this(archivo, plazas, transiciones, TAMANIO_REGION);
+    }
+
+    /**
+     * Constructor con el tamaño de las regiones mapeadas, para probar el paso de una región a la siguiente.
+     *
+     * @param archivo archivo de la traza; se sobrescribe
+     * @param plazas cantidad de plazas de la red
+     * @param transiciones cantidad de transiciones de la red
+     * @param tamanioRegion tamaño de cada región, mayor que la cabecera más un disparo
+     * @throws IOException si no se puede crear el archivo
+     */
+    EscritorTrazaBinaria(Path archivo, int plazas, int transiciones, int tamanioRegion) throws IOException {
+        // Se guardan las dimensiones de la red para la cabecera
+        this.plazas = plazas;
+        this.transiciones = transiciones;
+        this.tamanioRegion = tamanioRegion;
+
+        // Se crea el archivo y se mapea la primera region, dejando lugar para la cabecera
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.inicioRegion = 0;
+        this.region = this.canal.map(FileChannel.MapMode.READ_WRITE, 0, this.tamanioRegion);
+        this.region.position(TrazaBinaria.TAMANIO_CABECERA);
+    }
+
+    /**
+     * Escribe el disparo como la diferencia de tiempo con el anterior, el hilo y la transición.
+     */
+    @Override
+    public void escribir(long nanosegundos, int hilo, String nombreHilo, int transicion) throws IOException {
+        // Se guarda el nombre la primera vez que aparece el hilo
+        while (this.nombresHilos.size() <= hilo) {
+            this.nombresHilos.add(null);
+        }
+        if (this.nombresHilos.get(hilo) == null) {
+            this.nombresHilos.set(hilo, nombreHilo);
+        }
+
+        // Se mapea la region siguiente si no hay lugar para el disparo
+        if (this.region.remaining() < TrazaBinaria.MAXIMO_DISPARO) {
+            this.inicioRegion += this.region.position();
+            this.region = this.canal.map(FileChannel.MapMode.READ_WRITE, this.inicioRegion, this.tamanioRegion);
+        }
+
+        // Se escribe el disparo; la diferencia puede ser negativa porque el instante se toma antes de reservar
+        TrazaBinaria.escribirVariable(this.region, TrazaBinaria.zigzag(nanosegundos - this.anterior));
+        TrazaBinaria.escribirVariable(this.region, hilo);
+        TrazaBinaria.escribirVariable(this.region, transicion);
+        this.anterior = nanosegundos;
+        this.cantidadDisparos++;
+    }
+
+    @Override
+    public void vaciar() {
+        // Los disparos escritos en la region mapeada ya son visibles para otros lectores del archivo
+    }
+
+    /**
+     * Escribe la tabla de nombres y la cabecera y recorta el archivo.
+     */
+    @Override
+    public void cerrar() throws IOException {
+        try {
+            // Se escribe la tabla de nombres a continuacion del ultimo disparo
+            long finDisparos = this.inicioRegion + this.region.position();
+            ByteBuffer nombres = ByteBuffer.allocate(1024);
+            for (String nombre : this.nombresHilos) {
+                byte[] bytes = (nombre == null ? "" : nombre).getBytes(StandardCharsets.UTF_8);
+                if (nombres.remaining() < bytes.length + 5) {
+                    ByteBuffer mayor = ByteBuffer.allocate(Math.max(2 * nombres.capacity(), nombres.position() + bytes.length + 5));
+                    nombres.flip();
+                    nombres = mayor.put(nombres);
+                }
+                TrazaBinaria.escribirVariable(nombres, bytes.length);
+                nombres.put(bytes);
+            }
+            nombres.flip();
+            long tamanio = finDisparos + nombres.remaining();
+            escribirCompleto(nombres, finDisparos);
+
+            // Se escribe la cabecera con las cantidades finales
+            ByteBuffer cabecera = ByteBuffer.allocate(TrazaBinaria.TAMANIO_CABECERA);
+            cabecera.put(TrazaBinaria.MAGIA).putInt(TrazaBinaria.VERSION).putInt(this.plazas).putInt(this.transiciones)
+                    .putInt(this.nombresHilos.size()).putLong(this.baseMilisegundos).putLong(this.baseNanosegundos)
+                    .putLong(this.cantidadDisparos).putLong(finDisparos).putLong(tamanio);
+            cabecera.flip();
+            escribirCompleto(cabecera, 0);
+
+            // Se descarta la parte mapeada sin usar y se persiste el archivo
+            this.region.force();
+            this.canal.truncate(tamanio);
+            this.canal.force(false);
+        }
+        finally {
+            // Se cierra el canal; la region mapeada se libera cuando deja de estar referenciada
+            this.region = null;
+            this.canal.close();
+        }
+    }
+
+    /**
+     * Escribe todo el contenido del buffer a partir de la posición indicada del archivo.
+     *
+     * @param buffer datos a escribir
+     * @param posicion posición del archivo
+     * @throws IOException si no se puede escribir el archivo
+     */
+    private void escribirCompleto(ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            posicion += this.canal.write(buffer, posicion);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.hydra;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Escribe la traza de disparos como texto, una línea por disparo con el formato
+ * "milisegundos. Disparador NOMBRE disparo Tn" que lee el analizador de invariantes.
+ */
+public class EscritorTrazaTexto implements EscritorTraza {
+
+    private final long baseMilisegundos = System.currentTimeMillis();
+    private final long baseNanosegundos = System.nanoTime();
+    private final StringBuilder linea = new StringBuilder(64);
+    private final Writer salida;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param archivo archivo de texto de la traza; se sobrescribe
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public EscritorTrazaTexto(Path archivo) throws IOException {
+        // Se abre el archivo con un buffer amplio, que se vuelca al terminar cada lote
+        this.salida = new BufferedWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Escribe la línea del disparo, convirtiendo el instante a milisegundos de época.
+     */
+    @Override
+    public void escribir(long nanosegundos, int hilo, String nombreHilo, int transicion) throws IOException {
+        // Se arma la linea reutilizando el buffer y se la escribe
+        this.linea.setLength(0);
+        this.linea.append(this.baseMilisegundos + (nanosegundos - this.baseNanosegundos) / 1_000_000)
+                .append(". Disparador ").append(nombreHilo)
+                .append(" disparo T").append(transicion + 1).append('\n');
+        this.salida.append(this.linea);
+    }
+
+    @Override
+    public void vaciar() throws IOException {
+        // Se vuelca el buffer al archivo
+        this.salida.flush();
+    }
+
+    @Override
+    public void cerrar() throws IOException {
+        // Se cierra el archivo
+        this.salida.close();
+    }
+}
@@ -1,40 +1,127 @@
 package org.hydra;
 
-import org.apache.log4j.Logger;
-
-import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
+/**
+ * Cuenta los t-invariantes completados durante la ejecución. Los disparos de cada transición se acumulan en un
+ * contador de pendientes y un t-invariante se completa cuando hay pendientes de todas sus transiciones, que entonces
+ * se consumen; el orden de los disparos no se tiene en cuenta (para eso está {@link VerificadorTInvariantes}).
+ * <p>
+ * Los t-invariantes que comparten transiciones forman un grupo. Los pendientes de un grupo solo los consume un hilo a
+ * la vez: cada disparo deja un pedido en el contador del grupo y el hilo que lo encuentra en cero procesa los pedidos
+ * hasta agotarlos, mientras que los demás siguen sin esperar. Como los pendientes solo los descuenta ese hilo y los
+ * demás solo los incrementan, cada completado se detecta exactamente una vez sin locks, con costo proporcional al
+ * largo de los t-invariantes del grupo. Cada {@value #MAXIMORONDAS} pasadas el hilo cede el grupo y, si quedó trabajo,
+ * lo vuelve a pedir, para que otro hilo que haya dejado un pedido entretanto pueda tomarlo. Las consultas de los
+ * contadores procesan antes los pedidos de cada grupo.
+ * <p>
+ * La ejecución se mide después de un calentamiento de {@code calentamiento} t-invariantes: al completarse se toma un
+ * corte de los contadores y las estadísticas medidas se informan como diferencia respecto de él. El fin de la medición
+ * lo decide una {@link CondicionParada}; los avisos entre los hilos portadores y el hilo principal se hacen con
+ * {@link CountDownLatch}, que no pierden avisos previos a la espera ni despiertan en falso.
+ */
 public class Estadistica {
+
+    private static final int LIMITE = 1000;
+    private static final int MAXIMORONDAS = 64;
+
     private long timeStart;
     private long timeStop;
     private final List<List<Integer>> tInvariantes;
-    private final List<Integer> tInvarianteIncompleto = new ArrayList<Integer>();
-    private final Map<List<Integer>, Integer> tInvariantesContador = new HashMap<>();
-    private final Object notificador = new Object();
+    private final int[][] transiciones;
+    private final int[][] multiplicidades;
+    private final int[] grupoDeTransicion;
+    private final int[][] invariantesDeGrupo;
+    private final AtomicIntegerArray pendientes;
+    private final AtomicInteger[] pedidos;
+    private final LongAdder[] completados;
+    private final LongAdder totalCompletados = new LongAdder();
+    private final LongAdder disparos = new LongAdder();
+    private final long calentamiento;
+    private final CondicionParada condicion;
+    private final long objetivo;
+    private final AtomicBoolean medicionIniciada = new AtomicBoolean();
+    private final CountDownLatch calentamientoTerminado = new CountDownLatch(1);
+    private final CountDownLatch objetivoAlcanzado = new CountDownLatch(1);
+    private volatile Corte inicio;
+    private volatile Corte fin;
 
     /**
-     * Constructor de la clase Estadistica.
+     * Constructor de la clase Estadistica, que mide sin calentamiento hasta completar 1000 t-invariantes.
      *
      * @param plazasTransiciones Lista de listas de enteros que representan los t-invariantes de la red.
      */
     public Estadistica(List<List<Integer>> plazasTransiciones) {
+        this(plazasTransiciones, 0, new ParadaPorInvariantes(LIMITE));
+    }
+
+    /**
+     * Constructor de la clase Estadistica.
+     *
+     * @param plazasTransiciones Lista de listas de enteros que representan los t-invariantes de la red.
+     * @param calentamiento Cantidad de t-invariantes que se excluyen de la medición
+     * @param condicion Condición que termina la medición
+     */
+    public Estadistica(List<List<Integer>> plazasTransiciones, long calentamiento, CondicionParada condicion) {
+        // Se verifica el calentamiento
+        if (calentamiento < 0) {
+            throw new IllegalArgumentException("El calentamiento no puede ser negativo: " + calentamiento);
+        }
+        this.calentamiento = calentamiento;
+        this.condicion = condicion;
+        this.objetivo = condicion.getObjetivo();
+
         // Se asigna la listas de listas de enteros a la variable tInvariantes
         this.tInvariantes = plazasTransiciones;
 
-        // Se imprime cada lista de enteros en la lista de listas
-        for (List<Integer> lista : tInvariantes) {
-            System.out.print("[ ");
-            for (Integer elemento : lista) {
-                System.out.print(elemento + " ");
+        // Se calculan las transiciones distintas de cada t-invariante y cuantas veces aparece cada una
+        int cantidad = this.tInvariantes.size();
+        int totalTransiciones = this.tInvariantes.stream().flatMap(List::stream).mapToInt(t -> t + 1).max().orElse(0);
+        this.transiciones = new int[cantidad][];
+        this.multiplicidades = new int[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            int[] veces = new int[totalTransiciones];
+            this.tInvariantes.get(i).forEach(t -> veces[t]++);
+            this.transiciones[i] = IntStream.range(0, totalTransiciones).filter(t -> veces[t] > 0).toArray();
+            this.multiplicidades[i] = Arrays.stream(this.transiciones[i]).map(t -> veces[t]).toArray();
+        }
+
+        // Se agrupan los t-invariantes que comparten transiciones
+        int[] grupoDeInvariante = agrupar(totalTransiciones);
+        int grupos = Arrays.stream(grupoDeInvariante).max().orElse(-1) + 1;
+        this.grupoDeTransicion = new int[totalTransiciones];
+        Arrays.fill(this.grupoDeTransicion, -1);
+        List<List<Integer>> miembros = new ArrayList<>();
+        for (int g = 0; g < grupos; g++) {
+            miembros.add(new ArrayList<>());
+        }
+        for (int i = 0; i < cantidad; i++) {
+            miembros.get(grupoDeInvariante[i]).add(i);
+            for (int t : this.transiciones[i]) {
+                this.grupoDeTransicion[t] = grupoDeInvariante[i];
             }
-            System.out.println("]");
         }
+        this.invariantesDeGrupo = miembros.stream().map(l -> l.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
 
-        // Se inicializa el mapa tInvariatesContador con los t-invariantes y un contador inicial de 0 para cada uno
-        this.tInvariantes.forEach(tInvariante -> this.tInvariantesContador.put(tInvariante, 0));
+        // Se crean los pendientes, los pedidos de cada grupo y los contadores de completados
+        this.pendientes = new AtomicIntegerArray(totalTransiciones);
+        this.pedidos = new AtomicInteger[grupos];
+        for (int g = 0; g < grupos; g++) {
+            this.pedidos[g] = new AtomicInteger();
+        }
+        this.completados = new LongAdder[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.completados[i] = new LongAdder();
+        }
     }
 
     /**
@@ -43,6 +130,11 @@ public class Estadistica {
     public void setTimeStart() {
         // Se almacena la hora actual del sistema en milisegundos
         this.timeStart = System.currentTimeMillis();
+
+        // Sin calentamiento, la medicion empieza con la ejecucion
+        if (this.calentamiento == 0) {
+            iniciarMedicion();
+        }
     }
 
     /**
@@ -57,44 +149,101 @@ public class Estadistica {
      * Imprime por pantalla diferentes estadísticas relacionadas con la ejecución del programa.
      */
     public void imprimirEstadisticas() {
+        // Se procesan los pedidos que hayan quedado pendientes
+        drenar();
+
         // Se imprime por pantalla el tiempo total que se demoro la ejecucion en milisegundos y segundos
         System.out.printf("Tiempo total de ejecucion: %d ms\n", this.timeStop - this.timeStart);
         System.out.printf("Tiempo total de ejecucion: %d s\n", (this.timeStop - this.timeStart) / 1000);
 
         // Se imprime el contador de cada t-invariante
-        this.tInvariantesContador.forEach((tInvariante, contador) -> {
-            System.out.printf("Invariante %s: %d\n", tInvariante, contador);
-        });
+        for (int i = 0; i < this.tInvariantes.size(); i++) {
+            System.out.printf("Invariante %s: %d\n", this.tInvariantes.get(i), this.completados[i].sum());
+        }
+
+        // Se imprime la cantidad total de t-invariantes completados y de transiciones disparadas
+        System.out.printf("Cantidad total de disparos: %d\n", this.totalCompletados.sum());
+        System.out.printf("Cantidad total de transiciones disparadas: %d\n", this.disparos.sum());
 
-        // Se calcula e imprime la cantidad total de disparos
-        System.out.printf("Cantidad total de disparos: %d\n", this.tInvariantesContador.values().stream().mapToInt(x -> x.intValue()).sum());
+        // Se imprime lo medido entre el fin del calentamiento y el fin de la medicion
+        Corte desde = this.inicio;
+        if (desde == null) {
+            return;
+        }
+        Corte hasta = this.fin != null ? this.fin : tomarCorte();
+        double segundos = (hasta.nanos - desde.nanos) / 1e9;
+        System.out.printf("Calentamiento: %d t-invariantes\n", desde.total);
+        System.out.printf("Tiempo medido: %d ms\n", (hasta.nanos - desde.nanos) / 1_000_000);
+        for (int i = 0; i < this.tInvariantes.size(); i++) {
+            System.out.printf("Invariante %s medido: %d\n", this.tInvariantes.get(i),
+                    hasta.completados[i] - desde.completados[i]);
+        }
+        System.out.printf("Tasa medida: %.1f t-invariantes/s, %.1f disparos/s\n",
+                (hasta.total - desde.total) / segundos, (hasta.disparos - desde.disparos) / segundos);
     }
 
     /**
-     * Incrementa el contador asociado al t-invariante incompleto especificado.
+     * Imprime las transiciones de cada t-invariante que se cuenta.
+     */
+    public void imprimirInvariantes() {
+        // Se imprime cada lista de enteros en la lista de listas
+        for (List<Integer> lista : tInvariantes) {
+            System.out.print("[ ");
+            for (Integer elemento : lista) {
+                System.out.print(elemento + " ");
+            }
+            System.out.println("]");
+        }
+    }
+
+    /**
+     * Registra el disparo de una transición y cuenta los t-invariantes que completa. Puede llamarse desde varios
+     * hilos a la vez, sin sincronización externa.
      *
-     * @param transicion La transición incompleta que se agrega al t-invariante.
+     * @param transicion La transición disparada.
      */
-    public void incrementarContador(Integer transicion) {
-        // Se agrega la transicion a la lista tInvarianteIncompleto
-        this.tInvarianteIncompleto.add(transicion);
+    public void incrementarContador(int transicion) {
+        // Se cuenta el disparo
+        this.disparos.increment();
 
-        // Se itera sobre los t-invariantes para encontrar si alguno se ha completado
-        for (List<Integer> lista : tInvariantes) {
-            // Se verifica si la la lista tInvarianteIncompleto contiene todos los t-invariantes de ese momento
-            if (this.tInvarianteIncompleto.containsAll(lista)) {
-                // Se remueven los elementos de la lista incompleta
-                lista.forEach(elemento -> this.tInvarianteIncompleto.remove(this.tInvarianteIncompleto.indexOf(elemento)));
-
-                // Se incrementa el contador del t-invariante completo
-                this.tInvariantesContador.merge(lista, 1, Integer::sum);
-
-                // Se verifica si se alcanzo el limite de transiciones
-                if (llegoTInvarianteLimite()) {
-                    // Se sincroniza en el objeto notificador para realizar una notificación
-                    synchronized (this.notificador) {
-                        // Se notifica al objeto notificador
-                        this.notificador.notify();
+        // Se ignoran las transiciones que no pertenecen a ningun t-invariante
+        if (transicion >= this.grupoDeTransicion.length || this.grupoDeTransicion[transicion] < 0) {
+            return;
+        }
+
+        // Se agrega el disparo a los pendientes y se atienden los pedidos de su grupo
+        int grupo = this.grupoDeTransicion[transicion];
+        this.pendientes.incrementAndGet(transicion);
+        atenderPedidos(grupo);
+    }
+
+    /**
+     * Deja un pedido en el grupo y, si ningún otro hilo lo está procesando, procesa los pedidos hasta que no queden
+     * nuevos. Cada {@value #MAXIMORONDAS} pasadas el grupo se cede tomando los pedidos con getAndSet: si quedaron
+     * pedidos sin procesar se deja uno nuevo, que procesa quien haya tomado el grupo entretanto o, si nadie lo tomó,
+     * este mismo hilo, de modo que ningún pedido se pierde.
+     *
+     * @param grupo Grupo de t-invariantes
+     */
+    private void atenderPedidos(int grupo) {
+        // Se procesa el grupo solo si ningun otro hilo lo esta procesando; ese hilo vera el pedido antes de terminar
+        while (this.pedidos[grupo].getAndIncrement() == 0) {
+            // Se repiten las pasadas mientras completen t-invariantes o lleguen pedidos nuevos
+            int atendidos = 1;
+            for (int rondas = 1; ; rondas++) {
+                boolean completo = completarInvariantes(grupo);
+                if (rondas == MAXIMORONDAS) {
+                    // Se cede el grupo; si no quedaron pedidos ni trabajo sin procesar se termina, y si no se vuelve
+                    // a pedir
+                    if (this.pedidos[grupo].getAndSet(0) == atendidos && !completo) {
+                        return;
+                    }
+                    break;
+                }
+                if (!completo) {
+                    atendidos = this.pedidos[grupo].addAndGet(-atendidos);
+                    if (atendidos == 0) {
+                        return;
                     }
                 }
             }
@@ -102,32 +251,253 @@ public class Estadistica {
     }
 
     /**
-     * Verifica si se ha alcanzado el límite del t-invariante (1000 disparos).
+     * Procesa los pedidos de todos los grupos, para que las lecturas incluyan lo que un hilo dejó pendiente al ceder
+     * su grupo.
+     */
+    private void drenar() {
+        for (int grupo = 0; grupo < this.pedidos.length; grupo++) {
+            atenderPedidos(grupo);
+        }
+    }
+
+    /**
+     * Hace una pasada por los t-invariantes del grupo, en el orden de la lista, consumiendo los pendientes de los que
+     * estén completos. Solo lo ejecuta el hilo que procesa los pedidos del grupo.
+     *
+     * @param grupo Grupo de t-invariantes
+     * @return true si se completó algún t-invariante
+     */
+    private boolean completarInvariantes(int grupo) {
+        boolean completo = false;
+        for (int invariante : this.invariantesDeGrupo[grupo]) {
+            if (estaCompleto(invariante)) {
+                // Se consumen las transiciones del t-invariante y se lo cuenta
+                int[] transicionesInvariante = this.transiciones[invariante];
+                for (int j = 0; j < transicionesInvariante.length; j++) {
+                    this.pendientes.addAndGet(transicionesInvariante[j], -this.multiplicidades[invariante][j]);
+                }
+                this.completados[invariante].increment();
+                this.totalCompletados.increment();
+                completo = true;
+
+                // Se inicia la medicion al terminar el calentamiento y se verifica si se alcanzo el objetivo
+                long total = this.totalCompletados.sum();
+                if (this.inicio == null && total >= this.calentamiento) {
+                    iniciarMedicion();
+                }
+                if (llegoTInvarianteLimite(total)) {
+                    // Se libera al hilo que espera el objetivo, sin bloques synchronized que retengan hilos portadores
+                    this.objetivoAlcanzado.countDown();
+                }
+            }
+        }
+        return completo;
+    }
+
+    /**
+     * Verifica si hay pendientes suficientes de todas las transiciones del t-invariante.
+     *
+     * @param invariante Índice del t-invariante
+     * @return true si el t-invariante puede completarse
+     */
+    private boolean estaCompleto(int invariante) {
+        int[] transicionesInvariante = this.transiciones[invariante];
+        for (int j = 0; j < transicionesInvariante.length; j++) {
+            if (this.pendientes.get(transicionesInvariante[j]) < this.multiplicidades[invariante][j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifica si se ha alcanzado el objetivo de t-invariantes medidos de la condición de parada.
      *
-     * @return true si se alcanzó el límite, false de lo contrario.
+     * @param total Cantidad total de t-invariantes completados
+     * @return true si se alcanzó el objetivo, false de lo contrario.
      */
-    private boolean llegoTInvarianteLimite() {
-        // Se calcula y almacena la cantidad total de disparos
-        int contador = this.tInvariantesContador.values().stream().mapToInt(x -> x.intValue()).sum();
+    private boolean llegoTInvarianteLimite(long total) {
+        // Se retorna si los completados desde el fin del calentamiento alcanzaron el objetivo
+        Corte desde = this.inicio;
+        return desde != null && total - desde.total >= this.objetivo;
+    }
 
-        // Se retorna si el contador alcanzo el valor de 1000
-        return contador == 1000;
+    /**
+     * Inicia la medición tomando el corte de los contadores. Solo el primer llamado tiene efecto.
+     */
+    private void iniciarMedicion() {
+        // Se toma el corte una unica vez y se libera al hilo que espera el calentamiento
+        if (this.medicionIniciada.compareAndSet(false, true)) {
+            this.inicio = tomarCorte();
+            this.calentamientoTerminado.countDown();
+        }
     }
 
     /**
-     * Funcion que espera a que se tengan los 1000 invariantes
+     * Toma un corte de los contadores. Con disparos en curso, cada contador se lee en un instante distinto.
+     *
+     * @return Corte de los contadores
      */
-    public void esperar1000TInvariantes() throws InterruptedException {
-        // Bloque de codigo que espera a que se reciba una notificacion
-        synchronized (notificador) {
-            try {
-                // Se espera hasta que otro hilo llame a notificador para salir de aca
-                notificador.wait();
+    private Corte tomarCorte() {
+        long[] porInvariante = Arrays.stream(this.completados).mapToLong(LongAdder::sum).toArray();
+        return new Corte(System.nanoTime(), porInvariante, this.totalCompletados.sum(), this.disparos.sum());
+    }
+
+    /**
+     * Devuelve la cantidad de veces que se completó un t-invariante.
+     *
+     * @param invariante Índice del t-invariante
+     * @return Cantidad de completados
+     */
+    public long getCompletados(int invariante) {
+        drenar();
+        return this.completados[invariante].sum();
+    }
+
+    /**
+     * Devuelve la cantidad total de t-invariantes completados.
+     *
+     * @return Cantidad de completados
+     */
+    public long getTotalCompletados() {
+        drenar();
+        return this.totalCompletados.sum();
+    }
+
+    /**
+     * Devuelve la cantidad de t-invariantes completados desde el fin del calentamiento.
+     *
+     * @return Cantidad de completados medidos, 0 si la medición no empezó
+     */
+    public long getCompletadosMedidos() {
+        drenar();
+        Corte desde = this.inicio;
+        return desde == null ? 0 : this.totalCompletados.sum() - desde.total;
+    }
+
+    /**
+     * Devuelve la cantidad de veces que se completó un t-invariante desde el fin del calentamiento.
+     *
+     * @param invariante Índice del t-invariante
+     * @return Cantidad de completados medidos, 0 si la medición no empezó
+     */
+    public long getCompletadosMedidos(int invariante) {
+        drenar();
+        Corte desde = this.inicio;
+        return desde == null ? 0 : this.completados[invariante].sum() - desde.completados[invariante];
+    }
+
+    /**
+     * Indica si terminó el calentamiento y empezó la medición, sin esperar.
+     *
+     * @return true si la medición empezó
+     */
+    public boolean isMedicionIniciada() {
+        return this.calentamientoTerminado.getCount() == 0;
+    }
+
+    /**
+     * Indica si se completó el objetivo de t-invariantes medidos de la condición de parada, sin esperar. Lo consulta
+     * el simulador de eventos discretos, que no tiene un hilo que espere la condición.
+     *
+     * @return true si se alcanzó el objetivo
+     */
+    public boolean isObjetivoAlcanzado() {
+        return this.objetivoAlcanzado.getCount() == 0;
+    }
+
+    /**
+     * Espera a que termine el calentamiento y luego a que se cumpla la condición de parada, y cierra la medición.
+     *
+     * @throws InterruptedException Si se interrumpe al hilo mientras espera
+     */
+    public void esperarFin() throws InterruptedException {
+        // Se espera el fin del calentamiento; si ya termino, se retorna de inmediato
+        this.calentamientoTerminado.await();
+
+        // Se espera la condicion de parada y se toma el corte final
+        this.condicion.esperar(this);
+        drenar();
+        this.fin = tomarCorte();
+    }
+
+    /**
+     * Espera a que se complete el objetivo de t-invariantes medidos de la condición de parada.
+     *
+     * @throws InterruptedException Si se interrumpe al hilo mientras espera
+     */
+    public void esperarObjetivo() throws InterruptedException {
+        // Se espera hasta que se alcance el objetivo; si ya se alcanzo, se retorna de inmediato
+        this.objetivoAlcanzado.await();
+    }
+
+    /**
+     * Agrupa los t-invariantes que comparten alguna transición, directa o indirectamente.
+     *
+     * @param totalTransiciones cantidad de transiciones consideradas
+     * @return grupo de cada t-invariante, numerados desde 0
+     */
+    private int[] agrupar(int totalTransiciones) {
+        // Se une cada t-invariante con el primero que uso cada una de sus transiciones
+        int cantidad = this.transiciones.length;
+        int[] padre = IntStream.range(0, cantidad).toArray();
+        int[] primero = new int[totalTransiciones];
+        Arrays.fill(primero, -1);
+        for (int i = 0; i < cantidad; i++) {
+            for (int t : this.transiciones[i]) {
+                if (primero[t] < 0) {
+                    primero[t] = i;
+                }
+                else {
+                    padre[raiz(padre, i)] = raiz(padre, primero[t]);
+                }
             }
-            catch (InterruptedException e) {
-                // Se imprime la interrupcion
-                e.printStackTrace();
+        }
+
+        // Se numeran los grupos en orden de aparicion
+        int[] grupo = new int[cantidad];
+        int[] numero = new int[cantidad];
+        Arrays.fill(numero, -1);
+        int grupos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int r = raiz(padre, i);
+            if (numero[r] < 0) {
+                numero[r] = grupos++;
             }
+            grupo[i] = numero[r];
+        }
+        return grupo;
+    }
+
+    /**
+     * Busca la raíz de un elemento en el bosque de uniones.
+     *
+     * @param padre padre de cada elemento
+     * @param elemento elemento buscado
+     * @return raíz del elemento
+     */
+    private static int raiz(int[] padre, int elemento) {
+        while (padre[elemento] != elemento) {
+            elemento = padre[elemento];
+        }
+        return elemento;
+    }
+
+    /**
+     * Valores de los contadores en un instante de la ejecución.
+     */
+    private static final class Corte {
+
+        private final long nanos;
+        private final long[] completados;
+        private final long total;
+        private final long disparos;
+
+        private Corte(long nanos, long[] completados, long total, long disparos) {
+            this.nanos = nanos;
+            this.completados = completados;
+            this.total = total;
+            this.disparos = disparos;
         }
     }
 }
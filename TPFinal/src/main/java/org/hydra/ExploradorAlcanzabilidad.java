@@ -0,0 +1,901 @@
+package org.hydra;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Explorador fuera de línea del grafo de alcanzabilidad de una RdP. Recorre los marcados alcanzables en anchura,
+ * por niveles, repartiendo cada nivel entre los hilos de un {@link ForkJoinPool} que se roban el trabajo. Los
+ * marcados se guardan empaquetados en un {@link ConjuntoMarcados} sin cerrojos y la frontera de cada nivel en una
+ * {@link FronteraExploracion} que se vuelca a disco cuando excede su límite.
+ * <p>
+ * Cada plaza se representa con los bits justos para su cota: la que imponen los p-invariantes si la cubren, o la
+ * cota de exploración indicada si no. Un marcado que supera la cota de exploración no se guarda y la plaza se
+ * informa como posiblemente no acotada. Al terminar se informan los bloqueos, con el camino más corto a cada uno,
+ * la cota observada de cada plaza y las transiciones que nunca se sensibilizan. Si la exploración es completa se
+ * analiza además la vivacidad con las componentes fuertemente conexas terminales del grafo: una transición es viva
+ * si aparece en todas, y la red es reversible si la única contiene al marcado inicial. Este análisis es la única
+ * fase secuencial.
+ */
+public final class ExploradorAlcanzabilidad {
+
+    // Se declaran los estados por tarea hoja y los identificadores por bloque leido de la frontera
+    private static final int UMBRALTAREA = 128;
+    private static final int BLOQUEFRONTERA = 1 << 16;
+
+    // Se declaran los bloqueos de los que se guarda el marcado y el camino
+    private static final int MUESTRABLOQUEOS = 5;
+
+    // Se declaran los valores por defecto de las propiedades del main
+    private static final int COTAEXPLORACION = 255;
+    private static final int MAXIMOESTADOS = 1 << 21;
+    private static final int PRESUPUESTOPALABRAS = 1 << 25;
+    private static final int LIMITEFRONTERA = 1 << 22;
+
+    private final MotorDisparo motor;
+    private final int[] marcadoInicial;
+    private final int totalPlazas;
+    private final int totalTransiciones;
+    private final int[] capacidades;
+    private final int[][] salientes;
+    private final int[] fuentes;
+    private final int limiteFrontera;
+    private final int paralelismo;
+    private final ConjuntoMarcados conjunto;
+    private final AtomicIntegerArray cotas;
+    private final AtomicLongArray sensibilizadas;
+    private final AtomicLongArray desbordadas;
+    private final LongAdder arcos = new LongAdder();
+    private final LongAdder bloqueos = new LongAdder();
+    private final ConcurrentLinkedQueue<Integer> muestraBloqueos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tamanioMuestra = new AtomicInteger();
+    private volatile boolean truncada;
+    private boolean explorada;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param rdp red a explorar, desde su marcado actual
+     * @param cotaExploracion máximo de tokens de las plazas que no cubre ningún p-invariante
+     * @param maximoEstados cantidad máxima de marcados a guardar, o 0 para elegirla según el tamaño del marcado
+     * @param limiteFrontera identificadores de la frontera que se guardan en memoria antes de volcar a disco
+     * @param paralelismo cantidad de hilos de la exploración
+     * @throws IllegalArgumentException si algún parámetro es inválido
+     */
+    public ExploradorAlcanzabilidad(RDP rdp, int cotaExploracion, int maximoEstados, int limiteFrontera,
+                                    int paralelismo) {
+        // Se verifican los parametros
+        if (cotaExploracion < 1 || maximoEstados < 0 || limiteFrontera < 1 || paralelismo < 1) {
+            throw new IllegalArgumentException("Parametros invalidos para la exploracion");
+        }
+        this.motor = rdp.getMotor();
+        this.marcadoInicial = this.motor.getMarcado();
+        this.totalPlazas = this.motor.getTotalPlazas();
+        this.totalTransiciones = this.motor.getTotalTransiciones();
+        this.limiteFrontera = limiteFrontera;
+        this.paralelismo = paralelismo;
+
+        // Se arman las transiciones que consume cada plaza y las que no tienen entradas, para evaluar en cada
+        // marcado solo las transiciones que pueden estar sensibilizadas
+        int[] cantidades = new int[this.totalPlazas];
+        for (int t = 0; t < this.totalTransiciones; t++) {
+            for (int plaza : this.motor.getPlazasEntrada(t)) {
+                cantidades[plaza]++;
+            }
+        }
+        this.salientes = new int[this.totalPlazas][];
+        for (int p = 0; p < this.totalPlazas; p++) {
+            this.salientes[p] = new int[cantidades[p]];
+            cantidades[p] = 0;
+        }
+        for (int t = 0; t < this.totalTransiciones; t++) {
+            for (int plaza : this.motor.getPlazasEntrada(t)) {
+                this.salientes[plaza][cantidades[plaza]++] = t;
+            }
+        }
+        this.fuentes = IntStream.range(0, this.totalTransiciones)
+                .filter(t -> this.motor.getPlazasEntrada(t).length == 0).toArray();
+
+        // Se toma como capacidad de cada plaza la cota de los p-invariantes o, si no la hay, la de exploracion
+        int[] cotasInvariantes = InvariantesP.calcularCotas(rdp.getInvariantesP(), this.marcadoInicial);
+        this.capacidades = new int[this.totalPlazas];
+        for (int p = 0; p < this.totalPlazas; p++) {
+            this.capacidades[p] = cotasInvariantes[p] != Integer.MAX_VALUE ? cotasInvariantes[p]
+                    : Math.max(cotaExploracion, this.marcadoInicial[p]);
+            this.capacidades[p] = Math.min(this.capacidades[p], Integer.MAX_VALUE >>> 1);
+        }
+
+        // Se elige la cantidad de estados para que la tabla no exceda el presupuesto de memoria
+        if (maximoEstados == 0) {
+            maximoEstados = Math.max(1, Math.min(MAXIMOESTADOS,
+                    PRESUPUESTOPALABRAS / 4 / ConjuntoMarcados.contarPalabras(this.capacidades)));
+        }
+        this.conjunto = new ConjuntoMarcados(this.capacidades, maximoEstados);
+        this.cotas = new AtomicIntegerArray(this.totalPlazas);
+        this.sensibilizadas = new AtomicLongArray((this.totalTransiciones + 63) >>> 6);
+        this.desbordadas = new AtomicLongArray((this.totalPlazas + 63) >>> 6);
+    }
+
+    /**
+     * Explora el espacio de estados y, si es completo, analiza la vivacidad. Cada explorador explora una sola vez.
+     *
+     * @return Resultado de la exploración
+     * @throws IllegalStateException si ya se exploró
+     * @throws UncheckedIOException si falla el volcado de la frontera a disco
+     */
+    public Resultado explorar() {
+        if (this.explorada) {
+            throw new IllegalStateException("El explorador ya se uso");
+        }
+        this.explorada = true;
+        long inicio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(this.paralelismo);
+        try {
+            // Se agrega el marcado inicial como primera frontera
+            long[] codigo = new long[this.conjunto.getPalabras()];
+            this.conjunto.codificar(this.marcadoInicial, codigo);
+            int raiz = this.conjunto.agregar(codigo, -1, -1);
+            FronteraExploracion actual = new FronteraExploracion(this.limiteFrontera);
+            actual.agregar(new int[]{raiz}, 1);
+
+            // Se expande un nivel por vez, leyendo la frontera por bloques y repartiendo cada bloque en el pool
+            int niveles = 0;
+            long volcados = 0;
+            int[] bloque = new int[BLOQUEFRONTERA];
+            while (actual.getTamanio() > 0) {
+                FronteraExploracion siguiente = new FronteraExploracion(this.limiteFrontera);
+                int cantidad;
+                while ((cantidad = actual.leer(bloque)) > 0) {
+                    pool.invoke(new Expansion(bloque, 0, cantidad, siguiente));
+                }
+                volcados += actual.getEnDisco();
+                actual.close();
+                actual = siguiente;
+                niveles++;
+            }
+            actual.close();
+
+            // Se analiza la vivacidad solo si se alcanzaron todos los marcados
+            int[] desbordadas = bits(this.desbordadas, this.totalPlazas);
+            boolean completa = !this.truncada && desbordadas.length == 0;
+            Vivacidad vivacidad = completa ? analizarVivacidad(pool, raiz) : null;
+
+            // Se reconstruyen los caminos a los bloqueos de la muestra
+            List<int[]> marcadosBloqueo = new ArrayList<>();
+            List<int[]> caminosBloqueo = new ArrayList<>();
+            for (int bloqueo : this.muestraBloqueos) {
+                int[] marcado = new int[this.totalPlazas];
+                this.conjunto.decodificar(bloqueo, marcado);
+                marcadosBloqueo.add(marcado);
+                caminosBloqueo.add(camino(bloqueo));
+            }
+
+            // Se arma el resultado
+            int[] cotasObservadas = new int[this.totalPlazas];
+            for (int p = 0; p < this.totalPlazas; p++) {
+                cotasObservadas[p] = this.cotas.get(p);
+            }
+            int[] nuncaSensibilizadas = IntStream.range(0, this.totalTransiciones)
+                    .filter(t -> (this.sensibilizadas.get(t >>> 6) & (1L << t)) == 0).toArray();
+            return new Resultado(this.conjunto.getEstados(), this.arcos.sum(), niveles,
+                    (System.nanoTime() - inicio) / 1_000_000, this.paralelismo, this.conjunto.getPalabras(), volcados,
+                    this.truncada, cotasObservadas, desbordadas, this.bloqueos.sum(), marcadosBloqueo, caminosBloqueo,
+                    nuncaSensibilizadas, vivacidad);
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo cerrar la frontera
+            throw new UncheckedIOException("No se pudo cerrar la frontera", e);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tarea que expande un rango de un bloque de la frontera, dividiéndolo mientras supere el umbral.
+     */
+    private final class Expansion extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] ids;
+        private final int desde;
+        private final int hasta;
+        private final FronteraExploracion siguiente;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param ids bloque de identificadores de la frontera
+         * @param desde primera posición del rango
+         * @param hasta posición siguiente a la última del rango
+         * @param siguiente frontera del nivel siguiente
+         */
+        private Expansion(int[] ids, int desde, int hasta, FronteraExploracion siguiente) {
+            this.ids = ids;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.siguiente = siguiente;
+        }
+
+        @Override
+        protected void compute() {
+            // Se divide el rango en dos mitades mientras sea grande
+            if (this.hasta - this.desde > UMBRALTAREA) {
+                int medio = (this.desde + this.hasta) >>> 1;
+                invokeAll(new Expansion(this.ids, this.desde, medio, this.siguiente),
+                        new Expansion(this.ids, medio, this.hasta, this.siguiente));
+                return;
+            }
+
+            // Se expande cada marcado del rango acumulando los resultados localmente
+            int[] marcado = new int[totalPlazas];
+            int[] maximos = new int[totalPlazas];
+            long[] base = new long[conjunto.getPalabras()];
+            long[] sucesor = new long[base.length];
+            long[] vistas = new long[sensibilizadas.length()];
+            int[] evaluadas = new int[totalTransiciones];
+            int[] candidatas = new int[totalTransiciones];
+            int[] nuevos = new int[UMBRALTAREA];
+            int cantidadNuevos = 0;
+            long cantidadArcos = 0;
+            for (int i = this.desde; i < this.hasta; i++) {
+                int id = this.ids[i];
+                conjunto.decodificar(id, marcado);
+                conjunto.copiar(id, base);
+                for (int p = 0; p < totalPlazas; p++) {
+                    maximos[p] = Math.max(maximos[p], marcado[p]);
+                }
+
+                // Se dispara cada transicion sensibilizada sobre el marcado empaquetado
+                int cantidad = calcularSensibilizadas(marcado, evaluadas, i + 1, candidatas);
+                for (int c = 0; c < cantidad; c++) {
+                    int t = candidatas[c];
+                    vistas[t >>> 6] |= 1L << t;
+                    cantidadArcos++;
+
+                    // Se omite el sucesor si ya no se pueden guardar marcados nuevos
+                    if (truncada) {
+                        continue;
+                    }
+                    System.arraycopy(base, 0, sucesor, 0, base.length);
+                    if (!disparar(marcado, t, sucesor)) {
+                        continue;
+                    }
+                    int nuevo = conjunto.agregar(sucesor, id, t);
+                    if (nuevo == ConjuntoMarcados.LLENO) {
+                        truncada = true;
+                    }
+                    else if (nuevo >= 0) {
+                        if (cantidadNuevos == nuevos.length) {
+                            nuevos = Arrays.copyOf(nuevos, 2 * nuevos.length);
+                        }
+                        nuevos[cantidadNuevos++] = nuevo;
+                    }
+                }
+
+                // Se registra el bloqueo si no hay transiciones sensibilizadas
+                if (cantidad == 0) {
+                    bloqueos.increment();
+                    if (tamanioMuestra.getAndIncrement() < MUESTRABLOQUEOS) {
+                        muestraBloqueos.add(id);
+                    }
+                }
+            }
+
+            // Se publican los resultados locales
+            this.siguiente.agregar(nuevos, cantidadNuevos);
+            arcos.add(cantidadArcos);
+            for (int p = 0; p < totalPlazas; p++) {
+                if (maximos[p] > cotas.get(p)) {
+                    cotas.accumulateAndGet(p, maximos[p], Math::max);
+                }
+            }
+            for (int w = 0; w < vistas.length; w++) {
+                if ((vistas[w] & ~sensibilizadas.get(w)) != 0) {
+                    sensibilizadas.accumulateAndGet(w, vistas[w], (a, b) -> a | b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula las transiciones sensibilizadas en un marcado, evaluando solo las que no tienen entradas y las que
+     * consumen de alguna plaza marcada.
+     *
+     * @param marcado tokens de cada plaza
+     * @param evaluadas consulta en la que se evaluó por última vez cada transición
+     * @param consulta número de esta consulta, distinto de cero y de los de consultas anteriores
+     * @param resultado arreglo donde se escriben las transiciones sensibilizadas
+     * @return Cantidad de transiciones sensibilizadas
+     */
+    private int calcularSensibilizadas(int[] marcado, int[] evaluadas, int consulta, int[] resultado) {
+        // Se agregan las transiciones sin entradas, que siempre estan sensibilizadas
+        int cantidad = 0;
+        for (int t : this.fuentes) {
+            resultado[cantidad++] = t;
+        }
+
+        // Se evalua una vez cada transicion que consume de una plaza marcada
+        for (int p = 0; p < this.totalPlazas; p++) {
+            if (marcado[p] == 0) {
+                continue;
+            }
+            for (int t : this.salientes[p]) {
+                if (evaluadas[t] != consulta) {
+                    evaluadas[t] = consulta;
+                    if (sensibilizada(marcado, t)) {
+                        resultado[cantidad++] = t;
+                    }
+                }
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Indica si una transición está sensibilizada en un marcado.
+     *
+     * @param marcado tokens de cada plaza
+     * @param transicion transición a evaluar
+     * @return true si cada plaza de entrada tiene los tokens del arco
+     */
+    private boolean sensibilizada(int[] marcado, int transicion) {
+        int[] plazas = this.motor.getPlazasEntrada(transicion);
+        int[] pesos = this.motor.getPesosEntrada(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            if (marcado[plazas[i]] < pesos[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escribe en un marcado empaquetado el resultado de disparar una transición sensibilizada. El marcado
+     * desempaquetado se modifica durante el cálculo y se restaura al terminar.
+     *
+     * @param marcado tokens de cada plaza antes del disparo
+     * @param transicion transición a disparar
+     * @param codigo copia del marcado empaquetado, donde se escriben las plazas que cambian
+     * @return false si alguna plaza supera su capacidad, en cuyo caso se la marca como desbordada
+     */
+    private boolean disparar(int[] marcado, int transicion, long[] codigo) {
+        // Se aplica el disparo sobre el marcado, que contempla los bucles de una plaza con la transicion
+        int[] entrada = this.motor.getPlazasEntrada(transicion);
+        int[] pesosEntrada = this.motor.getPesosEntrada(transicion);
+        int[] salida = this.motor.getPlazasSalida(transicion);
+        int[] pesosSalida = this.motor.getPesosSalida(transicion);
+        for (int i = 0; i < entrada.length; i++) {
+            marcado[entrada[i]] -= pesosEntrada[i];
+        }
+        for (int i = 0; i < salida.length; i++) {
+            marcado[salida[i]] += pesosSalida[i];
+        }
+
+        // Se escriben las plazas que cambiaron y se marca la que supere su capacidad
+        boolean valido = true;
+        for (int plaza : entrada) {
+            valido &= this.conjunto.escribir(codigo, plaza, marcado[plaza]);
+        }
+        for (int plaza : salida) {
+            if (!this.conjunto.escribir(codigo, plaza, marcado[plaza])) {
+                this.desbordadas.accumulateAndGet(plaza >>> 6, 1L << plaza, (a, b) -> a | b);
+                valido = false;
+            }
+        }
+
+        // Se restaura el marcado
+        for (int i = 0; i < salida.length; i++) {
+            marcado[salida[i]] -= pesosSalida[i];
+        }
+        for (int i = 0; i < entrada.length; i++) {
+            marcado[entrada[i]] += pesosEntrada[i];
+        }
+        return valido;
+    }
+
+    /**
+     * Reconstruye el camino más corto desde el marcado inicial siguiendo los padres de la exploración en anchura.
+     *
+     * @param id identificador del marcado
+     * @return Transiciones disparadas, en orden
+     */
+    private int[] camino(int id) {
+        // Se sube por los padres y se invierte el recorrido
+        List<Integer> transiciones = new ArrayList<>();
+        for (int actual = id; this.conjunto.getPadre(actual) >= 0; actual = this.conjunto.getPadre(actual)) {
+            transiciones.add(this.conjunto.getTransicion(actual));
+        }
+        Collections.reverse(transiciones);
+        return transiciones.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Analiza la vivacidad sobre el grafo completo. Primero arma en paralelo la lista de sucesores de cada marcado
+     * y luego busca las componentes fuertemente conexas con Tarjan iterativo. Como Tarjan termina cada componente
+     * después de todas las que alcanza, al terminarla ya se sabe si tiene arcos que salen de ella.
+     *
+     * @param pool pool de la exploración
+     * @param raiz identificador del marcado inicial
+     * @return Vivacidad de la red, o null si el grafo tiene demasiados arcos para guardarlos
+     */
+    private Vivacidad analizarVivacidad(ForkJoinPool pool, int raiz) {
+        // Se verifica que los arcos entren en un arreglo
+        int capacidad = this.conjunto.getCapacidad();
+        if (this.arcos.sum() > Integer.MAX_VALUE - 8) {
+            return null;
+        }
+
+        // Se cuentan los sucesores de cada marcado y se acumulan para obtener el inicio de cada lista
+        int[] inicio = new int[capacidad + 1];
+        pool.invoke(new Sucesores(0, capacidad, inicio, null, null));
+        for (int i = 0; i < capacidad; i++) {
+            inicio[i + 1] += inicio[i];
+        }
+        int[] destinos = new int[inicio[capacidad]];
+        int[] etiquetas = new int[inicio[capacidad]];
+        pool.invoke(new Sucesores(0, capacidad, inicio, destinos, etiquetas));
+
+        // Se recorren las componentes con Tarjan iterativo, con una pila explicita de marcos
+        int[] orden = new int[capacidad];
+        int[] bajo = new int[capacidad];
+        int[] componente = new int[capacidad];
+        Arrays.fill(componente, -1);
+        int[] pila = new int[this.conjunto.getEstados()];
+        int[] marcoEstado = new int[this.conjunto.getEstados()];
+        int[] marcoArco = new int[this.conjunto.getEstados()];
+        long[] internas = new long[(this.totalTransiciones + 63) >>> 6];
+        int[] contadores = new int[this.totalTransiciones];
+        int terminales = 0;
+        boolean raizTerminal = false;
+        int contador = 0;
+        int componentes = 0;
+        int tope = 0;
+        for (int s = 0; s < capacidad; s++) {
+            if (!this.conjunto.ocupada(s) || orden[s] != 0) {
+                continue;
+            }
+            int marcos = 0;
+            marcoEstado[marcos] = s;
+            marcoArco[marcos++] = inicio[s];
+            orden[s] = bajo[s] = ++contador;
+            pila[tope++] = s;
+
+            while (marcos > 0) {
+                int v = marcoEstado[marcos - 1];
+                int arco = marcoArco[marcos - 1];
+                if (arco < inicio[v + 1]) {
+                    // Se avanza por el siguiente arco del marcado
+                    marcoArco[marcos - 1]++;
+                    int w = destinos[arco];
+                    if (orden[w] == 0) {
+                        marcoEstado[marcos] = w;
+                        marcoArco[marcos++] = inicio[w];
+                        orden[w] = bajo[w] = ++contador;
+                        pila[tope++] = w;
+                    }
+                    else if (componente[w] < 0) {
+                        bajo[v] = Math.min(bajo[v], orden[w]);
+                    }
+                    continue;
+                }
+
+                // Se termina el marcado y se propaga su valor bajo al marco anterior
+                marcos--;
+                if (marcos > 0) {
+                    int u = marcoEstado[marcos - 1];
+                    bajo[u] = Math.min(bajo[u], bajo[v]);
+                }
+                if (bajo[v] != orden[v]) {
+                    continue;
+                }
+
+                // Se extrae la componente y se verifica si es terminal, anotando sus transiciones internas
+                int primero = tope;
+                do {
+                    componente[pila[--primero]] = componentes;
+                }
+                while (pila[primero] != v);
+                boolean terminal = true;
+                boolean contieneRaiz = false;
+                for (int i = primero; i < tope; i++) {
+                    int miembro = pila[i];
+                    contieneRaiz |= miembro == raiz;
+                    for (int a = inicio[miembro]; a < inicio[miembro + 1]; a++) {
+                        if (componente[destinos[a]] != componentes) {
+                            terminal = false;
+                        }
+                        else {
+                            internas[etiquetas[a] >>> 6] |= 1L << etiquetas[a];
+                        }
+                    }
+                }
+                if (terminal) {
+                    terminales++;
+                    raizTerminal |= contieneRaiz;
+                    for (int t = 0; t < this.totalTransiciones; t++) {
+                        if ((internas[t >>> 6] & (1L << t)) != 0) {
+                            contadores[t]++;
+                        }
+                    }
+                }
+                Arrays.fill(internas, 0L);
+                tope = primero;
+                componentes++;
+            }
+        }
+
+        // Se consideran vivas las transiciones que aparecen en todas las componentes terminales
+        int totalTerminales = terminales;
+        int[] vivas = IntStream.range(0, this.totalTransiciones).filter(t -> contadores[t] == totalTerminales)
+                .toArray();
+        return new Vivacidad(componentes, terminales, vivas, raizTerminal && terminales == 1);
+    }
+
+    /**
+     * Tarea que recorre un rango de posiciones de la tabla de marcados contando los sucesores de cada uno o, si
+     * ya se conoce el inicio de cada lista, escribiéndolos.
+     */
+    private final class Sucesores extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int desde;
+        private final int hasta;
+        private final int[] inicio;
+        private final int[] destinos;
+        private final int[] etiquetas;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param desde primera posición del rango
+         * @param hasta posición siguiente a la última del rango
+         * @param inicio inicio de la lista de cada marcado, o donde se cuentan los sucesores desplazados en uno
+         * @param destinos sucesores de cada marcado, o null si se están contando
+         * @param etiquetas transición de cada arco, o null si se están contando
+         */
+        private Sucesores(int desde, int hasta, int[] inicio, int[] destinos, int[] etiquetas) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.inicio = inicio;
+            this.destinos = destinos;
+            this.etiquetas = etiquetas;
+        }
+
+        @Override
+        protected void compute() {
+            // Se divide el rango en dos mitades mientras sea grande
+            if (this.hasta - this.desde > UMBRALTAREA * 8) {
+                int medio = (this.desde + this.hasta) >>> 1;
+                invokeAll(new Sucesores(this.desde, medio, this.inicio, this.destinos, this.etiquetas),
+                        new Sucesores(medio, this.hasta, this.inicio, this.destinos, this.etiquetas));
+                return;
+            }
+
+            // Se cuentan o se escriben los sucesores de cada marcado del rango
+            int[] marcado = new int[totalPlazas];
+            long[] base = new long[conjunto.getPalabras()];
+            long[] sucesor = new long[base.length];
+            int[] evaluadas = new int[totalTransiciones];
+            int[] candidatas = new int[totalTransiciones];
+            for (int s = this.desde; s < this.hasta; s++) {
+                if (!conjunto.ocupada(s)) {
+                    continue;
+                }
+                conjunto.decodificar(s, marcado);
+                conjunto.copiar(s, base);
+                int arco = this.destinos == null ? 0 : this.inicio[s];
+                int cantidad = calcularSensibilizadas(marcado, evaluadas, s - this.desde + 1, candidatas);
+                for (int c = 0; c < cantidad; c++) {
+                    int t = candidatas[c];
+                    if (this.destinos != null) {
+                        System.arraycopy(base, 0, sucesor, 0, base.length);
+                        disparar(marcado, t, sucesor);
+                        this.destinos[arco] = conjunto.buscar(sucesor);
+                        this.etiquetas[arco] = t;
+                    }
+                    arco++;
+                }
+                if (this.destinos == null) {
+                    this.inicio[s + 1] = arco;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna los índices de los bits encendidos de un arreglo atómico.
+     *
+     * @param bits arreglo de bits
+     * @param cantidad cantidad de bits válidos
+     * @return Índices encendidos, en orden
+     */
+    private static int[] bits(AtomicLongArray bits, int cantidad) {
+        return IntStream.range(0, cantidad).filter(i -> (bits.get(i >>> 6) & (1L << i)) != 0).toArray();
+    }
+
+    /**
+     * Vivacidad de la red según las componentes fuertemente conexas de su grafo de alcanzabilidad.
+     */
+    private static final class Vivacidad {
+
+        private final int componentes;
+        private final int terminales;
+        private final int[] vivas;
+        private final boolean reversible;
+
+        private Vivacidad(int componentes, int terminales, int[] vivas, boolean reversible) {
+            this.componentes = componentes;
+            this.terminales = terminales;
+            this.vivas = vivas;
+            this.reversible = reversible;
+        }
+    }
+
+    /**
+     * Resultado de una exploración.
+     */
+    public static final class Resultado {
+
+        private final int estados;
+        private final long arcos;
+        private final int niveles;
+        private final long milisegundos;
+        private final int paralelismo;
+        private final int palabras;
+        private final long volcados;
+        private final boolean truncada;
+        private final int[] cotas;
+        private final int[] desbordadas;
+        private final long bloqueos;
+        private final List<int[]> marcadosBloqueo;
+        private final List<int[]> caminosBloqueo;
+        private final int[] nuncaSensibilizadas;
+        private final Vivacidad vivacidad;
+
+        private Resultado(int estados, long arcos, int niveles, long milisegundos, int paralelismo, int palabras,
+                          long volcados, boolean truncada, int[] cotas, int[] desbordadas, long bloqueos,
+                          List<int[]> marcadosBloqueo, List<int[]> caminosBloqueo, int[] nuncaSensibilizadas,
+                          Vivacidad vivacidad) {
+            this.estados = estados;
+            this.arcos = arcos;
+            this.niveles = niveles;
+            this.milisegundos = milisegundos;
+            this.paralelismo = paralelismo;
+            this.palabras = palabras;
+            this.volcados = volcados;
+            this.truncada = truncada;
+            this.cotas = cotas;
+            this.desbordadas = desbordadas;
+            this.bloqueos = bloqueos;
+            this.marcadosBloqueo = marcadosBloqueo;
+            this.caminosBloqueo = caminosBloqueo;
+            this.nuncaSensibilizadas = nuncaSensibilizadas;
+            this.vivacidad = vivacidad;
+        }
+
+        /**
+         * Indica si se alcanzaron todos los marcados: no se llegó al máximo de estados ni se desbordó ninguna
+         * plaza.
+         *
+         * @return true si la exploración es completa
+         */
+        public boolean isCompleta() {
+            return !this.truncada && this.desbordadas.length == 0;
+        }
+
+        /**
+         * Retorna la cantidad de marcados alcanzados.
+         *
+         * @return Cantidad de marcados
+         */
+        public int getEstados() {
+            return this.estados;
+        }
+
+        /**
+         * Retorna la cantidad de arcos del grafo, uno por transición sensibilizada en cada marcado.
+         *
+         * @return Cantidad de arcos
+         */
+        public long getArcos() {
+            return this.arcos;
+        }
+
+        /**
+         * Retorna el máximo de tokens observado en cada plaza.
+         *
+         * @return Cota observada de cada plaza
+         */
+        public int[] getCotas() {
+            return this.cotas.clone();
+        }
+
+        /**
+         * Retorna las plazas que superaron la cota de exploración, que posiblemente no están acotadas.
+         *
+         * @return Plazas desbordadas
+         */
+        public int[] getDesbordadas() {
+            return this.desbordadas.clone();
+        }
+
+        /**
+         * Retorna la cantidad de marcados sin transiciones sensibilizadas.
+         *
+         * @return Cantidad de bloqueos
+         */
+        public long getBloqueos() {
+            return this.bloqueos;
+        }
+
+        /**
+         * Retorna los caminos más cortos a los bloqueos de la muestra.
+         *
+         * @return Transiciones disparadas hasta cada bloqueo
+         */
+        public List<int[]> getCaminosBloqueo() {
+            return Collections.unmodifiableList(this.caminosBloqueo);
+        }
+
+        /**
+         * Retorna las transiciones que no se sensibilizan en ningún marcado alcanzado.
+         *
+         * @return Transiciones muertas
+         */
+        public int[] getNuncaSensibilizadas() {
+            return this.nuncaSensibilizadas.clone();
+        }
+
+        /**
+         * Retorna las transiciones vivas, que pueden volver a dispararse desde cualquier marcado alcanzable.
+         *
+         * @return Transiciones vivas, o null si no se analizó la vivacidad
+         */
+        public int[] getVivas() {
+            return this.vivacidad == null ? null : this.vivacidad.vivas.clone();
+        }
+
+        /**
+         * Indica si el marcado inicial es alcanzable desde cualquier marcado alcanzable.
+         *
+         * @return true si la red es reversible, o null si no se analizó la vivacidad
+         */
+        public Boolean isReversible() {
+            return this.vivacidad == null ? null : this.vivacidad.reversible;
+        }
+
+        /**
+         * Informa el resultado de la exploración, nombrando las plazas y transiciones por su número desde 1.
+         *
+         * @param salida flujo donde se escribe el informe
+         */
+        public void informar(PrintStream salida) {
+            informar(salida, p -> "P" + (p + 1), t -> "T" + (t + 1));
+        }
+
+        /**
+         * Informa el resultado de la exploración.
+         *
+         * @param salida flujo donde se escribe el informe
+         * @param nombrePlaza nombre de cada plaza
+         * @param nombreTransicion nombre de cada transición
+         */
+        public void informar(PrintStream salida, IntFunction<String> nombrePlaza,
+                             IntFunction<String> nombreTransicion) {
+            // Se informa el tamaño del espacio de estados y como se recorrio
+            salida.printf("Espacio de estados: %d marcados, %d arcos, %d niveles en %d ms con %d hilos "
+                            + "(%d palabras por marcado, %d identificadores volcados a disco)\n", this.estados,
+                    this.arcos, this.niveles, this.milisegundos, this.paralelismo, this.palabras, this.volcados);
+            if (this.truncada) {
+                salida.println("Exploracion incompleta: se alcanzo el maximo de estados");
+            }
+            if (this.desbordadas.length > 0) {
+                salida.println("Exploracion incompleta: plazas que superan la cota de exploracion, posiblemente "
+                        + "no acotadas: " + nombres(nombrePlaza, this.desbordadas));
+            }
+
+            // Se informan las cotas observadas
+            int cota = Arrays.stream(this.cotas).max().orElse(0);
+            int[] noSeguras = IntStream.range(0, this.cotas.length).filter(p -> this.cotas[p] > 1).toArray();
+            salida.printf("Cota observada de la red: %d (%d plazas con mas de un token)\n", cota, noSeguras.length);
+            if (noSeguras.length > 0) {
+                salida.println("Plazas con mas de un token: " + nombresConValor(nombrePlaza, noSeguras, this.cotas));
+            }
+
+            // Se informan los bloqueos con el camino mas corto a cada uno
+            salida.printf("Bloqueos: %d\n", this.bloqueos);
+            for (int i = 0; i < this.marcadosBloqueo.size(); i++) {
+                int[] marcado = this.marcadosBloqueo.get(i);
+                int[] marcadas = IntStream.range(0, marcado.length).filter(p -> marcado[p] > 0).toArray();
+                salida.println("  Bloqueo en " + nombresConValor(nombrePlaza, marcadas, marcado) + " tras "
+                        + nombres(nombreTransicion, this.caminosBloqueo.get(i)));
+            }
+
+            // Se informan las transiciones muertas y la vivacidad
+            salida.println("Transiciones nunca sensibilizadas" + (isCompleta() ? ": " : " en lo explorado: ")
+                    + nombres(nombreTransicion, this.nuncaSensibilizadas));
+            if (this.vivacidad == null) {
+                salida.println(isCompleta() ? "Vivacidad no analizada: el grafo tiene demasiados arcos"
+                        : "Vivacidad no analizada: la exploracion es incompleta");
+                return;
+            }
+            salida.printf("Componentes fuertemente conexas: %d (%d terminales)\n", this.vivacidad.componentes,
+                    this.vivacidad.terminales);
+            salida.println("Transiciones vivas: " + nombres(nombreTransicion, this.vivacidad.vivas));
+            salida.println("La red es " + (this.vivacidad.reversible ? "reversible" : "no reversible"));
+        }
+
+        /**
+         * Arma la lista de nombres de plazas o transiciones, abreviada si es larga.
+         *
+         * @param nombre nombre de cada índice
+         * @param indices índices a nombrar
+         * @return Nombres separados por espacios
+         */
+        private static String nombres(IntFunction<String> nombre, int[] indices) {
+            return nombresConValor(nombre, indices, null);
+        }
+
+        /**
+         * Arma la lista de nombres con el valor de cada uno, abreviada si es larga.
+         *
+         * @param nombre nombre de cada índice
+         * @param indices índices a nombrar
+         * @param valores valor de cada índice, o null para no mostrarlo
+         * @return Nombres separados por espacios
+         */
+        private static String nombresConValor(IntFunction<String> nombre, int[] indices, int[] valores) {
+            // Se nombran a lo sumo los primeros cuarenta
+            if (indices.length == 0) {
+                return "ninguna";
+            }
+            StringBuilder texto = new StringBuilder();
+            for (int i = 0; i < Math.min(indices.length, 40); i++) {
+                texto.append(i > 0 ? " " : "").append(nombre.apply(indices[i]));
+                if (valores != null) {
+                    texto.append('=').append(valores[indices[i]]);
+                }
+            }
+            if (indices.length > 40) {
+                texto.append(" ... (").append(indices.length).append(')');
+            }
+            return texto.toString();
+        }
+    }
+
+    /**
+     * Explora la red indicada con la propiedad {@code hydra.red}, como en {@link Main}, e informa el resultado.
+     * Las propiedades {@code hydra.cota}, {@code hydra.estados}, {@code hydra.frontera} y
+     * {@code hydra.paralelismo} indican la cota de las plazas no cubiertas por p-invariantes, el máximo de
+     * marcados (0 para elegirlo según la memoria), los identificadores de la frontera en memoria y los hilos.
+     *
+     * @param args no se usan
+     */
+    public static void main(String[] args) {
+        // Se carga la red y se explora con los parametros de las propiedades
+        DefinicionRed red = Main.cargarRed(System.getProperty("hydra.red"));
+        ExploradorAlcanzabilidad explorador = new ExploradorAlcanzabilidad(red.crearRed(),
+                Integer.getInteger("hydra.cota", COTAEXPLORACION), Integer.getInteger("hydra.estados", 0),
+                Integer.getInteger("hydra.frontera", LIMITEFRONTERA),
+                Integer.getInteger("hydra.paralelismo", Runtime.getRuntime().availableProcessors()));
+        explorador.explorar().informar(System.out, red::getNombrePlaza, red::getNombreTransicion);
+    }
+}
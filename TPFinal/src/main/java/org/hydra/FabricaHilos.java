@@ -0,0 +1,59 @@
+package org.hydra;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Crea la fábrica de hilos de los disparadores según el modo de ejecución elegido al inicio. En modo
+ * {@code plataforma} cada disparador es un hilo del sistema operativo; en modo {@code virtuales} cada disparador es
+ * un hilo virtual, lo que permite modelar miles de agentes por segmento.
+ * <p>
+ * Los hilos virtuales se obtienen por reflexión, ya que el proyecto compila para Java 8; el modo requiere ejecutar
+ * sobre Java 21 o superior. Los monitores bloquean únicamente con semáforos y locks de java.util.concurrent, nunca
+ * dentro de bloques {@code synchronized}, por lo que un disparador bloqueado no retiene a su hilo portador.
+ */
+public final class FabricaHilos {
+
+    private FabricaHilos() {
+    }
+
+    /**
+     * Crea la fábrica de hilos del modo indicado.
+     *
+     * @param modo "plataforma" o "virtuales"
+     * @return fábrica de hilos
+     * @throws IllegalArgumentException si el modo es desconocido
+     * @throws IllegalStateException si se piden hilos virtuales y la JVM no los soporta
+     */
+    public static ThreadFactory crear(String modo) {
+        // Se crea la fabrica segun el modo indicado
+        switch (modo) {
+            case "plataforma":
+                return Thread::new;
+            case "virtuales":
+                return crearVirtuales();
+            default:
+                throw new IllegalArgumentException("Modo de hilos desconocido: " + modo);
+        }
+    }
+
+    /**
+     * Obtiene por reflexión la fábrica de {@code Thread.ofVirtual()}.
+     *
+     * @return fábrica de hilos virtuales
+     * @throws IllegalStateException si la JVM no soporta hilos virtuales
+     */
+    private static ThreadFactory crearVirtuales() {
+        try {
+            // Se obtiene el constructor de hilos virtuales y su fabrica a traves de la interfaz publica Thread.Builder
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(ofVirtual.invoke(null));
+        }
+        catch (ReflectiveOperationException e) {
+            // Se informa que la JVM no soporta hilos virtuales
+            throw new IllegalStateException("Los hilos virtuales requieren Java 21 o superior (JVM actual: "
+                    + System.getProperty("java.version") + ")", e);
+        }
+    }
+}
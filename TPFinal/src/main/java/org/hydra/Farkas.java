@@ -0,0 +1,373 @@
+package org.hydra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Algoritmo de Farkas para los invariantes semipositivos de soporte mínimo de una RdP, con aritmética entera
+ * exacta. Para los p-invariantes se parte de la matriz [C | I] con una fila por plaza y se anula cada columna de C:
+ * se conservan las filas con cero en la columna y se agrega cada combinación positiva de una fila con valor positivo
+ * y otra con valor negativo. Al terminar, la parte identidad de las filas son los p-invariantes. Los t-invariantes
+ * se obtienen igual sobre la traspuesta.
+ * <p>
+ * Las filas son dispersas y en cada paso se anula la columna que menos combinaciones genera, el producto de sus
+ * filas positivas y negativas, lo que evita que las plazas compartidas por muchas transiciones multipliquen las filas
+ * antes de que las cadenas locales se reduzcan. Se descarta toda combinación cuyo soporte contiene el de otra fila, y
+ * al final se dejan solo los soportes mínimos. Como la cantidad de filas puede crecer exponencialmente, el cálculo se
+ * abandona al superar un límite.
+ */
+final class Farkas {
+
+    private Farkas() {
+    }
+
+    /**
+     * Resultado del algoritmo: los invariantes mínimos, o null si se abandonó.
+     */
+    static final class Resultado {
+
+        final List<VectorDisperso> invariantes;
+        final String motivo;
+
+        private Resultado(List<VectorDisperso> invariantes, String motivo) {
+            this.invariantes = invariantes;
+            this.motivo = motivo;
+        }
+    }
+
+    /**
+     * Fila de la matriz: la parte de incidencia y la parte identidad, ambas dispersas, y una firma del soporte de la
+     * parte identidad para descartar rápido las comparaciones de inclusión.
+     */
+    private static final class Fila {
+
+        private final int[] columnas;
+        private final long[] valores;
+        private final int[] soporte;
+        private final long[] pesos;
+        private final long firma;
+
+        private Fila(int[] columnas, long[] valores, int[] soporte, long[] pesos) {
+            this.columnas = columnas;
+            this.valores = valores;
+            this.soporte = soporte;
+            this.pesos = pesos;
+            long firma = 0;
+            for (int indice : soporte) {
+                firma |= 1L << (indice & 63);
+            }
+            this.firma = firma;
+        }
+    }
+
+    /**
+     * Calcula los invariantes mínimos de la matriz dada por filas dispersas.
+     *
+     * @param columnasFila columnas no nulas de cada fila, en orden creciente
+     * @param valoresFila valor de cada columna no nula de cada fila
+     * @param limite cantidad máxima de filas durante el cálculo
+     * @return Invariantes mínimos como vectores sobre las filas, o el motivo por el que se abandonó
+     */
+    static Resultado calcular(int[][] columnasFila, int[][] valoresFila, int limite) {
+        // Se arma cada fila con su parte identidad
+        List<Fila> filas = new ArrayList<>(columnasFila.length);
+        int columnas = 0;
+        for (int i = 0; i < columnasFila.length; i++) {
+            long[] valores = new long[valoresFila[i].length];
+            for (int k = 0; k < valores.length; k++) {
+                valores[k] = valoresFila[i][k];
+            }
+            filas.add(new Fila(columnasFila[i], valores, new int[]{i}, new long[]{1}));
+            for (int columna : columnasFila[i]) {
+                columnas = Math.max(columnas, columna + 1);
+            }
+        }
+
+        try {
+            // Se anula una columna por paso hasta que no quede ninguna
+            int[] positivos = new int[columnas];
+            int[] negativos = new int[columnas];
+            while (true) {
+                int columna = elegirColumna(filas, positivos, negativos);
+                if (columna < 0) {
+                    break;
+                }
+
+                // Se separan las filas segun el signo de su valor en la columna
+                List<Fila> positivas = new ArrayList<>();
+                List<Fila> negativas = new ArrayList<>();
+                List<Fila> siguientes = new ArrayList<>(filas.size());
+                for (Fila fila : filas) {
+                    long valor = valor(fila, columna);
+                    if (valor == 0) {
+                        siguientes.add(fila);
+                    }
+                    else if (valor > 0) {
+                        positivas.add(fila);
+                    }
+                    else {
+                        negativas.add(fila);
+                    }
+                }
+
+                // Se agregan las combinaciones cuyo soporte no contiene el de otra fila
+                for (Fila positiva : positivas) {
+                    for (Fila negativa : negativas) {
+                        Fila combinada = combinar(positiva, negativa, columna);
+                        if (!contieneOtra(combinada, siguientes, siguientes.size())) {
+                            siguientes.add(combinada);
+                            if (siguientes.size() > limite) {
+                                return new Resultado(null, "se superaron " + limite + " vectores");
+                            }
+                        }
+                    }
+                }
+                filas = siguientes;
+            }
+        }
+        catch (ArithmeticException e) {
+            // Se abandona si algun coeficiente excede el rango
+            return new Resultado(null, "los coeficientes exceden el rango de long");
+        }
+
+        // Se dejan solo los soportes minimos y se convierten a vectores
+        List<VectorDisperso> invariantes = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            if (fila.columnas.length != 0 || noMinima(fila, filas, i)) {
+                continue;
+            }
+            int[] pesos = new int[fila.pesos.length];
+            for (int k = 0; k < pesos.length; k++) {
+                pesos[k] = Math.toIntExact(fila.pesos[k]);
+            }
+            invariantes.add(new VectorDisperso(fila.soporte, pesos));
+        }
+        return new Resultado(invariantes, null);
+    }
+
+    /**
+     * Elige la columna a anular: la que tiene menos combinaciones entre sus filas positivas y negativas.
+     *
+     * @param filas filas actuales
+     * @param positivos arreglo auxiliar para contar las filas positivas de cada columna
+     * @param negativos arreglo auxiliar para contar las filas negativas de cada columna
+     * @return Columna elegida, o -1 si todas son nulas
+     */
+    private static int elegirColumna(List<Fila> filas, int[] positivos, int[] negativos) {
+        // Se cuentan las filas positivas y negativas de cada columna
+        Arrays.fill(positivos, 0);
+        Arrays.fill(negativos, 0);
+        for (Fila fila : filas) {
+            for (int k = 0; k < fila.columnas.length; k++) {
+                if (fila.valores[k] > 0) {
+                    positivos[fila.columnas[k]]++;
+                }
+                else {
+                    negativos[fila.columnas[k]]++;
+                }
+            }
+        }
+
+        // Se elige la de menor producto, prefiriendo la que tiene menos filas ante un empate
+        int elegida = -1;
+        long mejor = Long.MAX_VALUE;
+        int filasMejor = Integer.MAX_VALUE;
+        for (int columna = 0; columna < positivos.length; columna++) {
+            int cantidad = positivos[columna] + negativos[columna];
+            long producto = (long) positivos[columna] * negativos[columna];
+            if (cantidad > 0 && (producto < mejor || producto == mejor && cantidad < filasMejor)) {
+                elegida = columna;
+                mejor = producto;
+                filasMejor = cantidad;
+            }
+        }
+        return elegida;
+    }
+
+    /**
+     * Retorna el valor de una fila en una columna de la parte de incidencia.
+     *
+     * @param fila fila a consultar
+     * @param columna columna buscada
+     * @return Valor, cero si la columna no está
+     */
+    private static long valor(Fila fila, int columna) {
+        int posicion = Arrays.binarySearch(fila.columnas, columna);
+        return posicion < 0 ? 0 : fila.valores[posicion];
+    }
+
+    /**
+     * Combina una fila con valor positivo en una columna con otra con valor negativo para anularla, y divide el
+     * resultado por el máximo común divisor de sus valores.
+     *
+     * @param positiva fila con valor positivo en la columna
+     * @param negativa fila con valor negativo en la columna
+     * @param columna columna a anular
+     * @return Fila combinada, sin la columna
+     * @throws ArithmeticException si algún coeficiente excede el rango de long
+     */
+    private static Fila combinar(Fila positiva, Fila negativa, int columna) {
+        // Se calculan los factores que anulan la columna
+        long a = -valor(negativa, columna);
+        long b = valor(positiva, columna);
+        long divisor = mcd(a, b);
+        a /= divisor;
+        b /= divisor;
+
+        // Se combinan ambas partes, donde la columna anulada se descarta por valer cero
+        long[][] incidencia = mezclar(positiva.columnas, positiva.valores, negativa.columnas, negativa.valores, a, b);
+        long[][] identidad = mezclar(positiva.soporte, positiva.pesos, negativa.soporte, negativa.pesos, a, b);
+
+        // Se divide por el maximo comun divisor de todos los valores
+        long comun = 0;
+        for (long valor : incidencia[1]) {
+            comun = mcd(comun, valor);
+        }
+        for (long valor : identidad[1]) {
+            comun = mcd(comun, valor);
+        }
+        for (int k = 0; k < incidencia[1].length; k++) {
+            incidencia[1][k] /= comun;
+        }
+        for (int k = 0; k < identidad[1].length; k++) {
+            identidad[1][k] /= comun;
+        }
+        return new Fila(enteros(incidencia[0]), incidencia[1], enteros(identidad[0]), identidad[1]);
+    }
+
+    /**
+     * Mezcla dos vectores dispersos como a·x + b·y, descartando los valores que se anulan.
+     *
+     * @param indicesX índices de x
+     * @param valoresX valores de x
+     * @param indicesY índices de y
+     * @param valoresY valores de y
+     * @param a factor de x
+     * @param b factor de y
+     * @return Índices y valores del resultado
+     */
+    private static long[][] mezclar(int[] indicesX, long[] valoresX, int[] indicesY, long[] valoresY, long a, long b) {
+        long[] indices = new long[indicesX.length + indicesY.length];
+        long[] valores = new long[indices.length];
+        int cantidad = 0;
+        int i = 0;
+        int j = 0;
+        while (i < indicesX.length || j < indicesY.length) {
+            long valor;
+            int indice;
+            if (j == indicesY.length || (i < indicesX.length && indicesX[i] < indicesY[j])) {
+                indice = indicesX[i];
+                valor = Math.multiplyExact(a, valoresX[i++]);
+            }
+            else if (i == indicesX.length || indicesY[j] < indicesX[i]) {
+                indice = indicesY[j];
+                valor = Math.multiplyExact(b, valoresY[j++]);
+            }
+            else {
+                indice = indicesX[i];
+                valor = Math.addExact(Math.multiplyExact(a, valoresX[i++]), Math.multiplyExact(b, valoresY[j++]));
+            }
+            if (valor != 0) {
+                indices[cantidad] = indice;
+                valores[cantidad++] = valor;
+            }
+        }
+        return new long[][]{Arrays.copyOf(indices, cantidad), Arrays.copyOf(valores, cantidad)};
+    }
+
+    /**
+     * Indica si el soporte de una fila contiene el de alguna de las primeras filas de una lista.
+     *
+     * @param fila fila a evaluar
+     * @param filas filas contra las que se compara
+     * @param cantidad cantidad de filas a considerar
+     * @return true si contiene algún soporte
+     */
+    private static boolean contieneOtra(Fila fila, List<Fila> filas, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            Fila otra = filas.get(i);
+            if ((otra.firma & ~fila.firma) == 0 && otra.soporte.length <= fila.soporte.length
+                    && incluido(otra.soporte, fila.soporte)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si el soporte de una fila terminada no es mínimo: contiene estrictamente el de otra fila terminada, o
+     * es igual al de una fila terminada anterior.
+     *
+     * @param fila fila a evaluar
+     * @param filas filas finales
+     * @param posicion posición de la fila en la lista
+     * @return true si hay que descartarla
+     */
+    private static boolean noMinima(Fila fila, List<Fila> filas, int posicion) {
+        for (int i = 0; i < filas.size(); i++) {
+            Fila otra = filas.get(i);
+            if (i == posicion || otra.columnas.length != 0 || (otra.firma & ~fila.firma) != 0
+                    || otra.soporte.length > fila.soporte.length || !incluido(otra.soporte, fila.soporte)) {
+                continue;
+            }
+            if (otra.soporte.length < fila.soporte.length || i < posicion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si un conjunto ordenado está incluido en otro.
+     *
+     * @param menor conjunto ordenado
+     * @param mayor conjunto ordenado
+     * @return true si todos los elementos de menor están en mayor
+     */
+    private static boolean incluido(int[] menor, int[] mayor) {
+        int j = 0;
+        for (int elemento : menor) {
+            while (j < mayor.length && mayor[j] < elemento) {
+                j++;
+            }
+            if (j == mayor.length || mayor[j] != elemento) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Convierte índices guardados como long a int.
+     *
+     * @param valores índices
+     * @return Índices como int
+     */
+    private static int[] enteros(long[] valores) {
+        int[] resultado = new int[valores.length];
+        for (int k = 0; k < valores.length; k++) {
+            resultado[k] = (int) valores[k];
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula el máximo común divisor de dos enteros, en valor absoluto.
+     *
+     * @param a primer entero
+     * @param b segundo entero
+     * @return Máximo común divisor, o el valor absoluto del otro si uno es cero
+     */
+    private static long mcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
+    }
+}
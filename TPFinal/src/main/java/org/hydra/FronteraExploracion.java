@@ -0,0 +1,157 @@
+package org.hydra;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Frontera de un nivel de la exploración: los identificadores de los marcados descubiertos que falta expandir.
+ * Mientras entran en el límite de memoria se guardan en un arreglo; los que exceden el límite se vuelcan a un
+ * archivo temporal, que se borra al cerrar la frontera. El orden de los identificadores no importa.
+ * <p>
+ * Los hilos de la exploración agregan bloques de identificadores en paralelo, protegidos por un cerrojo que se
+ * toma una vez por bloque. La lectura se hace desde un solo hilo, cuando ya no se agrega nada.
+ */
+final class FronteraExploracion implements Closeable {
+
+    private final int limiteMemoria;
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private int[] memoria = new int[64];
+    private int enMemoria;
+    private int leidosMemoria;
+    private FileChannel disco;
+    private long enDisco;
+    private long leidosDisco;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param limiteMemoria cantidad de identificadores que se guardan en memoria antes de volcar a disco
+     */
+    FronteraExploracion(int limiteMemoria) {
+        this.limiteMemoria = limiteMemoria;
+    }
+
+    /**
+     * Agrega un bloque de identificadores. Puede llamarse desde varios hilos a la vez.
+     *
+     * @param ids arreglo con los identificadores
+     * @param cantidad cantidad de identificadores válidos al inicio del arreglo
+     * @throws UncheckedIOException si no se puede escribir el archivo temporal
+     */
+    void agregar(int[] ids, int cantidad) {
+        if (cantidad == 0) {
+            return;
+        }
+        this.cerrojo.lock();
+        try {
+            // Se guarda en memoria si entra en el limite, agrandando el arreglo si hace falta
+            if (this.enMemoria + cantidad <= this.limiteMemoria) {
+                if (this.enMemoria + cantidad > this.memoria.length) {
+                    this.memoria = Arrays.copyOf(this.memoria,
+                            Math.min(this.limiteMemoria, Math.max(2 * this.memoria.length, this.enMemoria + cantidad)));
+                }
+                System.arraycopy(ids, 0, this.memoria, this.enMemoria, cantidad);
+                this.enMemoria += cantidad;
+                return;
+            }
+
+            // Se vuelca el bloque al final del archivo temporal, que se crea la primera vez
+            if (this.disco == null) {
+                Path archivo = Files.createTempFile("hydra-frontera", ".bin");
+                this.disco = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(cantidad * Integer.BYTES);
+            buffer.asIntBuffer().put(ids, 0, cantidad);
+            while (buffer.hasRemaining()) {
+                this.disco.write(buffer, this.enDisco * Integer.BYTES + buffer.position());
+            }
+            this.enDisco += cantidad;
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo volcar la frontera
+            throw new UncheckedIOException("No se pudo volcar la frontera a disco", e);
+        }
+        finally {
+            this.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Lee el siguiente bloque de identificadores, primero los volcados a disco y luego los de memoria.
+     *
+     * @param bloque arreglo donde se copian los identificadores
+     * @return Cantidad de identificadores leídos, 0 si no quedan
+     * @throws UncheckedIOException si no se puede leer el archivo temporal
+     */
+    int leer(int[] bloque) {
+        // Se leen los identificadores pendientes del archivo
+        if (this.leidosDisco < this.enDisco) {
+            int cantidad = (int) Math.min(bloque.length, this.enDisco - this.leidosDisco);
+            ByteBuffer buffer = ByteBuffer.allocate(cantidad * Integer.BYTES);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (this.disco.read(buffer, this.leidosDisco * Integer.BYTES + buffer.position()) < 0) {
+                        throw new IOException("Fin inesperado del archivo de la frontera");
+                    }
+                }
+            }
+            catch (IOException e) {
+                // Se informa que no se pudo leer la frontera
+                throw new UncheckedIOException("No se pudo leer la frontera desde disco", e);
+            }
+            buffer.flip();
+            buffer.asIntBuffer().get(bloque, 0, cantidad);
+            this.leidosDisco += cantidad;
+            return cantidad;
+        }
+
+        // Se copian los identificadores pendientes de memoria
+        int cantidad = Math.min(bloque.length, this.enMemoria - this.leidosMemoria);
+        System.arraycopy(this.memoria, this.leidosMemoria, bloque, 0, cantidad);
+        this.leidosMemoria += cantidad;
+        return cantidad;
+    }
+
+    /**
+     * Retorna la cantidad total de identificadores de la frontera.
+     *
+     * @return Identificadores en memoria y en disco
+     */
+    long getTamanio() {
+        return this.enMemoria + this.enDisco;
+    }
+
+    /**
+     * Retorna la cantidad de identificadores volcados a disco.
+     *
+     * @return Identificadores en disco
+     */
+    long getEnDisco() {
+        return this.enDisco;
+    }
+
+    /**
+     * Cierra la frontera y borra el archivo temporal, si se creó.
+     *
+     * @throws IOException si no se puede cerrar el archivo
+     */
+    @Override
+    public void close() throws IOException {
+        // Se libera la memoria y se cierra el archivo, que se borra al cerrarse
+        this.memoria = new int[0];
+        if (this.disco != null) {
+            this.disco.close();
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de RdP sintéticas para pruebas de escala. Cada red se arma con {@link DefinicionRed.Armado}, con sus
+ * t-invariantes, p-invariantes y segmentos declarados, de modo que puede ejecutarse con toda la pila de
+ * {@link Inicializador} y verificarse su traza. Las familias se describen con un texto:
+ * <pre>
+ * lineas:N,M[,etapas[,hilos]]                  N líneas de producción cíclicas que comparten M recursos
+ * tuberia:D[,P[,W[,K]]]                        P tuberías de D etapas con W tokens y capacidad K por etapa
+ * libre:F[,ramas[,largo[,profundidad[,semilla]]]]  F flujos de libre elección con bifurcaciones anidadas
+ * </pre>
+ * Las transiciones son inmediatas. Las redes de libre elección son máquinas de estado, por lo que cada camino
+ * desde la plaza de inicio hasta volver a ella es un t-invariante ordenado que el verificador reconoce.
+ */
+public final class GeneradorRedes {
+
+    /**
+     * Máximo de caminos, y por lo tanto de t-invariantes, de cada flujo de libre elección.
+     */
+    private static final int MAXIMOCAMINOS = 64;
+
+    private GeneradorRedes() {
+    }
+
+    /**
+     * Genera una red según su descripción, por ejemplo {@code lineas:2500,100,4}.
+     *
+     * @param descripcion familia y parámetros separados por comas
+     * @return Definición de la red generada
+     * @throws IllegalArgumentException si la familia no existe o los parámetros son inválidos
+     */
+    public static DefinicionRed generar(String descripcion) {
+        // Se separa la familia de sus parametros
+        int separador = descripcion.indexOf(':');
+        String familia = separador < 0 ? descripcion : descripcion.substring(0, separador);
+        String[] textos = separador < 0 ? new String[0] : descripcion.substring(separador + 1).split(",");
+        int[] parametros = new int[textos.length];
+        for (int i = 0; i < textos.length; i++) {
+            parametros[i] = CargadorRed.leerEntero(textos[i].trim());
+        }
+
+        // Se genera la red de la familia indicada
+        switch (familia) {
+            case "lineas":
+                exigir(descripcion, parametros, 2, 4);
+                return generarLineas(parametros[0], parametros[1], parametro(parametros, 2, 2),
+                        parametro(parametros, 3, 1));
+            case "tuberia":
+                exigir(descripcion, parametros, 1, 4);
+                return generarTuberia(parametros[0], parametro(parametros, 1, 1), parametro(parametros, 2, 1),
+                        parametro(parametros, 3, 1));
+            case "libre":
+                exigir(descripcion, parametros, 1, 5);
+                return generarLibre(parametros[0], parametro(parametros, 1, 3), parametro(parametros, 2, 4),
+                        parametro(parametros, 3, 2), parametro(parametros, 4, 1));
+            default:
+                throw new IllegalArgumentException("Familia de red desconocida: " + familia);
+        }
+    }
+
+    /**
+     * Genera N líneas de producción cíclicas. La línea i tiene las plazas {@code LiP0..} con un token en la
+     * primera y las transiciones {@code LiT0..}, donde cada una pasa el token a la plaza siguiente. La primera
+     * transición toma el recurso {@code Rj} (j = i mod M, con capacidad 1) y la última lo devuelve.
+     *
+     * @param lineas cantidad de líneas
+     * @param recursos cantidad de recursos compartidos, 0 para líneas independientes
+     * @param etapas transiciones de cada línea, al menos 2
+     * @param hilos hilos del segmento de cada línea
+     * @return Definición de la red
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     */
+    public static DefinicionRed generarLineas(int lineas, int recursos, int etapas, int hilos) {
+        // Se verifican los parametros
+        if (lineas <= 0 || recursos < 0 || etapas < 2 || hilos <= 0) {
+            throw new IllegalArgumentException("Parametros invalidos para lineas: " + lineas + "," + recursos + ","
+                    + etapas + "," + hilos);
+        }
+        DefinicionRed.Armado armado = new DefinicionRed.Armado("lineas-" + lineas + "x" + etapas + "-r" + recursos);
+
+        // Se agregan los recursos con su capacidad
+        for (int j = 0; j < recursos; j++) {
+            armado.agregarPlaza("R" + j, 1);
+        }
+
+        // Se agregan las lineas con sus plazas, transiciones, arcos, segmento e invariantes
+        List<List<String>> usuarios = new ArrayList<>();
+        for (int j = 0; j < recursos; j++) {
+            usuarios.add(new ArrayList<>());
+        }
+        for (int i = 0; i < lineas; i++) {
+            String[] plazas = new String[etapas];
+            List<String> transiciones = new ArrayList<>(etapas);
+            for (int k = 0; k < etapas; k++) {
+                plazas[k] = "L" + i + "P" + k;
+                armado.agregarPlaza(plazas[k], k == 0 ? 1 : 0);
+                transiciones.add("L" + i + "T" + k);
+                armado.agregarTransicion(transiciones.get(k), 0, VectorSensibilizado.SIN_LIMITE);
+            }
+            for (int k = 0; k < etapas; k++) {
+                armado.agregarArco(plazas[k], transiciones.get(k), 1);
+                armado.agregarArco(transiciones.get(k), plazas[(k + 1) % etapas], 1);
+            }
+
+            // Se conecta el recurso de la linea y se anotan las plazas que lo retienen
+            if (recursos > 0) {
+                String recurso = "R" + (i % recursos);
+                armado.agregarArco(recurso, transiciones.get(0), 1);
+                armado.agregarArco(transiciones.get(etapas - 1), recurso, 1);
+                usuarios.get(i % recursos).addAll(Arrays.asList(plazas).subList(1, etapas));
+            }
+            armado.agregarSegmento("L" + i, hilos, transiciones);
+            armado.agregarTInvariante(transiciones);
+            armado.agregarPInvariante(plazas, unos(etapas));
+        }
+
+        // Se declaran los p-invariantes de los recursos: el recurso mas las plazas que lo retienen
+        for (int j = 0; j < recursos; j++) {
+            List<String> soporte = usuarios.get(j);
+            soporte.add(0, "R" + j);
+            armado.agregarPInvariante(soporte.toArray(new String[0]), unos(soporte.size()));
+        }
+        return armado.construir();
+    }
+
+    /**
+     * Genera P tuberías cíclicas de D etapas. La tubería p tiene las plazas {@code CpQ0..} con W tokens en la
+     * primera y las transiciones {@code CpT0..}, donde cada una pasa un token a la cola siguiente. Cada cola
+     * {@code CpQk} con k &gt; 0 tiene una plaza de capacidad {@code CpKk} con K tokens, que toma la transición
+     * anterior y devuelve la que la vacía. Cada etapa es un segmento de un hilo.
+     *
+     * @param etapas transiciones de cada tubería, al menos 2
+     * @param tuberias cantidad de tuberías
+     * @param tokens tokens que circulan por cada tubería
+     * @param capacidad capacidad de cada cola intermedia
+     * @return Definición de la red
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     */
+    public static DefinicionRed generarTuberia(int etapas, int tuberias, int tokens, int capacidad) {
+        // Se verifican los parametros
+        if (etapas < 2 || tuberias <= 0 || tokens <= 0 || capacidad <= 0) {
+            throw new IllegalArgumentException("Parametros invalidos para tuberia: " + etapas + "," + tuberias + ","
+                    + tokens + "," + capacidad);
+        }
+        DefinicionRed.Armado armado = new DefinicionRed.Armado("tuberia-" + tuberias + "x" + etapas);
+
+        // Se agrega cada tuberia con sus colas, capacidades, transiciones y segmentos
+        for (int p = 0; p < tuberias; p++) {
+            String[] colas = new String[etapas];
+            List<String> transiciones = new ArrayList<>(etapas);
+            for (int k = 0; k < etapas; k++) {
+                colas[k] = "C" + p + "Q" + k;
+                armado.agregarPlaza(colas[k], k == 0 ? tokens : 0);
+                if (k > 0) {
+                    armado.agregarPlaza("C" + p + "K" + k, capacidad);
+                }
+                transiciones.add("C" + p + "T" + k);
+                armado.agregarTransicion(transiciones.get(k), 0, VectorSensibilizado.SIN_LIMITE);
+                armado.agregarSegmento("C" + p + "E" + k, 1, transiciones.subList(k, k + 1));
+            }
+            for (int k = 0; k < etapas; k++) {
+                int siguiente = (k + 1) % etapas;
+                armado.agregarArco(colas[k], transiciones.get(k), 1);
+                armado.agregarArco(transiciones.get(k), colas[siguiente], 1);
+                if (k > 0) {
+                    armado.agregarArco(transiciones.get(k), "C" + p + "K" + k, 1);
+                }
+                if (siguiente > 0) {
+                    armado.agregarArco("C" + p + "K" + siguiente, transiciones.get(k), 1);
+                }
+            }
+
+            // Se declaran los invariantes: la tuberia completa, los tokens y cada cola con su capacidad
+            armado.agregarTInvariante(transiciones);
+            armado.agregarPInvariante(colas, unos(etapas));
+            for (int k = 1; k < etapas; k++) {
+                armado.agregarPInvariante(new String[]{colas[k], "C" + p + "K" + k}, unos(2));
+            }
+        }
+        return armado.construir();
+    }
+
+    /**
+     * Genera F flujos de libre elección. Cada flujo tiene una plaza de inicio {@code FfP0} con entre 1 y 3 tokens
+     * y una bifurcación entre ramas que vuelven a ella; cada rama es una secuencia de transiciones en la que
+     * algunos pasos son a su vez bifurcaciones anidadas, hasta la profundidad indicada. Cada plaza es la única
+     * entrada de sus transiciones, así que la red es de libre elección, y cada camino es un t-invariante. Cada
+     * tramo de transiciones sin bifurcaciones es un segmento de un hilo.
+     *
+     * @param flujos cantidad de flujos
+     * @param ramas máximo de ramas de cada bifurcación, al menos 2
+     * @param largo máximo de pasos de cada rama
+     * @param profundidad máximo de bifurcaciones anidadas
+     * @param semilla semilla de la generación, para que la red sea reproducible
+     * @return Definición de la red
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     */
+    public static DefinicionRed generarLibre(int flujos, int ramas, int largo, int profundidad, int semilla) {
+        // Se verifican los parametros
+        if (flujos <= 0 || ramas < 2 || largo <= 0 || profundidad < 0) {
+            throw new IllegalArgumentException("Parametros invalidos para libre: " + flujos + "," + ramas + ","
+                    + largo + "," + profundidad);
+        }
+        DefinicionRed.Armado armado = new DefinicionRed.Armado("libre-" + flujos + "-s" + semilla);
+        SplittableRandom azar = new SplittableRandom(semilla);
+
+        // Se genera cada flujo desde su plaza de inicio
+        for (int f = 0; f < flujos; f++) {
+            Flujo flujo = new Flujo(armado, azar, "F" + f, ramas, largo);
+            String inicio = flujo.agregarPlaza(1 + azar.nextInt(3));
+            for (List<String> camino : flujo.bifurcacion(inicio, inicio, profundidad, MAXIMOCAMINOS, true)) {
+                armado.agregarTInvariante(camino);
+            }
+            armado.agregarPInvariante(flujo.plazas.toArray(new String[0]), unos(flujo.plazas.size()));
+        }
+        return armado.construir();
+    }
+
+    /**
+     * Estado de la generación de un flujo de libre elección.
+     */
+    private static final class Flujo {
+
+        private final DefinicionRed.Armado armado;
+        private final SplittableRandom azar;
+        private final String prefijo;
+        private final int ramas;
+        private final int largo;
+        private final List<String> plazas = new ArrayList<>();
+        private int transiciones;
+        private int segmentos;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param armado armado de la red
+         * @param azar generador de números aleatorios
+         * @param prefijo prefijo de los nombres del flujo
+         * @param ramas máximo de ramas de cada bifurcación
+         * @param largo máximo de pasos de cada rama
+         */
+        private Flujo(DefinicionRed.Armado armado, SplittableRandom azar, String prefijo, int ramas, int largo) {
+            this.armado = armado;
+            this.azar = azar;
+            this.prefijo = prefijo;
+            this.ramas = ramas;
+            this.largo = largo;
+        }
+
+        /**
+         * Agrega una plaza al flujo.
+         *
+         * @param tokens marcado inicial
+         * @return Nombre de la plaza
+         */
+        private String agregarPlaza(int tokens) {
+            String nombre = this.prefijo + "P" + this.plazas.size();
+            this.armado.agregarPlaza(nombre, tokens);
+            this.plazas.add(nombre);
+            return nombre;
+        }
+
+        /**
+         * Genera una bifurcación entre ramas que parten de una plaza y terminan en otra.
+         *
+         * @param entrada plaza de la que parten las ramas
+         * @param salida plaza a la que llegan las ramas
+         * @param profundidad bifurcaciones anidadas que todavía se permiten
+         * @param presupuesto máximo de caminos de la bifurcación, al menos 2
+         * @param inicio true si es la bifurcación de la plaza de inicio, cuyas ramas no pueden ser un bucle
+         * @return Caminos de la bifurcación, a lo sumo tantos como el presupuesto
+         */
+        private List<List<String>> bifurcacion(String entrada, String salida, int profundidad, int presupuesto,
+                                               boolean inicio) {
+            // Se reparte el presupuesto de caminos entre las ramas
+            int cantidad = 2 + this.azar.nextInt(Math.min(this.ramas, presupuesto) - 1);
+            List<List<String>> caminos = new ArrayList<>();
+            for (int r = 0; r < cantidad; r++) {
+                int minimo = inicio ? Math.min(2, this.largo) : 1;
+                int pasos = minimo + this.azar.nextInt(this.largo - minimo + 1);
+                caminos.addAll(rama(entrada, salida, pasos, profundidad, presupuesto / cantidad));
+            }
+            return caminos;
+        }
+
+        /**
+         * Genera una rama como secuencia de pasos. El primero es siempre una transición, para que las ramas de
+         * cada bifurcación se distingan por su primera transición.
+         *
+         * @param entrada plaza de la que parte la rama
+         * @param salida plaza a la que llega la rama
+         * @param pasos cantidad de pasos
+         * @param profundidad bifurcaciones anidadas que todavía se permiten
+         * @param presupuesto máximo de caminos de la rama
+         * @return Caminos de la rama
+         */
+        private List<List<String>> rama(String entrada, String salida, int pasos, int profundidad,
+                                        int presupuesto) {
+            // Se arrancan los caminos vacios y el tramo actual sin transiciones
+            List<List<String>> caminos = new ArrayList<>();
+            caminos.add(new ArrayList<>());
+            List<String> tramo = new ArrayList<>();
+            String actual = entrada;
+
+            for (int paso = 0; paso < pasos; paso++) {
+                String destino = paso == pasos - 1 ? salida : agregarPlaza(0);
+                int restante = presupuesto / caminos.size();
+
+                if (paso > 0 && profundidad > 0 && restante >= 2 && this.azar.nextInt(3) == 0) {
+                    // Se cierra el tramo y se combinan los caminos con los de la bifurcacion anidada
+                    cerrarTramo(tramo);
+                    List<List<String>> anidados = bifurcacion(actual, destino, profundidad - 1, restante, false);
+                    List<List<String>> combinados = new ArrayList<>();
+                    for (List<String> camino : caminos) {
+                        for (List<String> anidado : anidados) {
+                            List<String> combinado = new ArrayList<>(camino);
+                            combinado.addAll(anidado);
+                            combinados.add(combinado);
+                        }
+                    }
+                    caminos = combinados;
+                }
+                else {
+                    // Se agrega una transicion de la plaza actual al destino
+                    String transicion = this.prefijo + "T" + this.transiciones++;
+                    this.armado.agregarTransicion(transicion, 0, VectorSensibilizado.SIN_LIMITE);
+                    this.armado.agregarArco(actual, transicion, 1);
+                    this.armado.agregarArco(transicion, destino, 1);
+                    tramo.add(transicion);
+                    for (List<String> camino : caminos) {
+                        camino.add(transicion);
+                    }
+                }
+                actual = destino;
+            }
+            cerrarTramo(tramo);
+            return caminos;
+        }
+
+        /**
+         * Declara el tramo de transiciones como un segmento de un hilo, si no está vacío, y lo vacía.
+         *
+         * @param tramo transiciones consecutivas sin bifurcaciones
+         */
+        private void cerrarTramo(List<String> tramo) {
+            if (!tramo.isEmpty()) {
+                this.armado.agregarSegmento(this.prefijo + "S" + this.segmentos++, 1, tramo);
+                tramo.clear();
+            }
+        }
+    }
+
+    /**
+     * Verifica la cantidad de parámetros de una descripción.
+     *
+     * @param descripcion descripción de la red, para el mensaje de error
+     * @param parametros parámetros leídos
+     * @param minimo cantidad mínima
+     * @param maximo cantidad máxima
+     * @throws IllegalArgumentException si la cantidad está fuera del rango
+     */
+    private static void exigir(String descripcion, int[] parametros, int minimo, int maximo) {
+        if (parametros.length < minimo || parametros.length > maximo) {
+            throw new IllegalArgumentException("Cantidad de parametros invalida en " + descripcion);
+        }
+    }
+
+    /**
+     * Obtiene un parámetro opcional.
+     *
+     * @param parametros parámetros leídos
+     * @param indice posición del parámetro
+     * @param defecto valor si no se indicó
+     * @return Valor del parámetro
+     */
+    private static int parametro(int[] parametros, int indice, int defecto) {
+        return indice < parametros.length ? parametros[indice] : defecto;
+    }
+
+    /**
+     * Crea un arreglo de pesos unitarios para un p-invariante.
+     *
+     * @param cantidad cantidad de plazas
+     * @return Arreglo de unos
+     */
+    private static int[] unos(int cantidad) {
+        int[] pesos = new int[cantidad];
+        Arrays.fill(pesos, 1);
+        return pesos;
+    }
+
+    /**
+     * Genera una red y la escribe en formato de texto, para guardarla o inspeccionarla.
+     *
+     * @param args descripción de la red y, opcionalmente, el archivo {@code .red} de destino (si se omite se
+     *             escribe en la salida estándar)
+     */
+    public static void main(String[] args) {
+        // Se verifican los argumentos
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: GeneradorRedes <descripcion> [archivo.red]");
+            System.exit(2);
+        }
+
+        // Se genera la red y se escribe en el destino indicado
+        DefinicionRed red = generar(args[0]);
+        try (Writer salida = args.length > 1
+                ? Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            red.escribir(salida);
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo escribir la red
+            throw new UncheckedIOException("No se pudo escribir la red", e);
+        }
+        System.err.printf("Red %s: %d plazas, %d transiciones, %d arcos, %d t-invariantes\n", red.getNombre(),
+                red.getTotalPlazas(), red.getTotalTransiciones(), red.getTotalArcos(), red.getTInvariantes().size());
+    }
+}
@@ -0,0 +1,167 @@
+package org.hydra;
+
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Guarda de seguridad del marcado en tiempo de ejecución. Tras cada disparo verifica que las plazas que tocó la
+ * transición no sean negativas ni superen la cota que imponen los p-invariantes y, cada {@code periodo} disparos,
+ * que el marcado completo conserve la constante y·M0 de cada p-invariante. La verificación completa recorre solo
+ * las plazas del soporte de cada p-invariante.
+ * <p>
+ * Las violaciones no interrumpen la ejecución: se informan en el log y se cuentan, para no romper el traspaso del
+ * monitor en medio de un disparo. Los métodos deben llamarse con el marcado protegido por el monitor.
+ */
+public class GuardiaMarcado {
+
+    private static final Logger LOG = Logger.getLogger(GuardiaMarcado.class);
+
+    private final int[][] invariantes;
+    private final int[][] soportes;
+    private final int[][] pesos;
+    private final long[] constantes;
+    private final int[] cotas;
+    private final int periodo;
+    private long disparos;
+    private final AtomicLong verificaciones = new AtomicLong();
+    private final AtomicLong violaciones = new AtomicLong();
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param invariantes p-invariantes de la red, uno por fila
+     * @param marcadoInicial marcado inicial de la red, que fija la constante de cada p-invariante
+     * @param periodo cantidad de disparos entre verificaciones completas (1 para verificar en cada disparo)
+     */
+    public GuardiaMarcado(int[][] invariantes, int[] marcadoInicial, int periodo) {
+        // Se verifica el periodo
+        if (periodo < 1) {
+            throw new IllegalArgumentException("El periodo de la guarda debe ser positivo: " + periodo);
+        }
+        this.invariantes = invariantes;
+        this.periodo = periodo;
+
+        // Se guarda cada p-invariante como su soporte disperso y su constante
+        this.soportes = new int[invariantes.length][];
+        this.pesos = new int[invariantes.length][];
+        this.constantes = new long[invariantes.length];
+        for (int i = 0; i < invariantes.length; i++) {
+            int[] invariante = invariantes[i];
+            this.soportes[i] = IntStream.range(0, invariante.length).filter(p -> invariante[p] != 0).toArray();
+            this.pesos[i] = Arrays.stream(this.soportes[i]).map(p -> invariante[p]).toArray();
+            this.constantes[i] = InvariantesP.evaluar(invariante, marcadoInicial);
+        }
+
+        // Se calculan las cotas de las plazas
+        this.cotas = InvariantesP.calcularCotas(invariantes, marcadoInicial);
+    }
+
+    /**
+     * Verifica el marcado tras un disparo: las cotas de las plazas de la transición siempre y los p-invariantes
+     * cada {@code periodo} disparos.
+     *
+     * @param marcado marcado actual de la red
+     * @param plazasEntrada plazas de entrada de la transición disparada
+     * @param plazasSalida plazas de salida de la transición disparada
+     * @param transicion transición disparada, para el mensaje de error
+     * @return true si no se detectó ninguna violación
+     */
+    public boolean verificarDisparo(int[] marcado, int[] plazasEntrada, int[] plazasSalida, int transicion) {
+        // Se verifican las cotas de las plazas que cambiaron con el disparo
+        boolean valido = verificarCotas(marcado, plazasEntrada, transicion) & verificarCotas(marcado, plazasSalida, transicion);
+
+        // Se verifican los p-invariantes cuando se cumple el periodo
+        if (++this.disparos % this.periodo == 0) {
+            valido &= verificar(marcado);
+        }
+        return valido;
+    }
+
+    /**
+     * Verifica que el marcado conserve la constante de cada p-invariante.
+     *
+     * @param marcado marcado a verificar
+     * @return true si se cumplen todos los p-invariantes
+     */
+    public boolean verificar(int[] marcado) {
+        this.verificaciones.incrementAndGet();
+        boolean valido = true;
+
+        // Se evalua cada p-invariante sobre su soporte
+        for (int i = 0; i < this.soportes.length; i++) {
+            long suma = 0;
+            int[] soporte = this.soportes[i];
+            int[] peso = this.pesos[i];
+            for (int j = 0; j < soporte.length; j++) {
+                suma += (long) peso[j] * marcado[soporte[j]];
+            }
+            if (suma != this.constantes[i]) {
+                valido = false;
+                informar(String.format("El marcado %s viola el p-invariante %s: %d != %d",
+                        Arrays.toString(marcado), Arrays.toString(this.invariantes[i]), suma, this.constantes[i]));
+            }
+        }
+        return valido;
+    }
+
+    /**
+     * Devuelve la cantidad de verificaciones completas de p-invariantes realizadas.
+     *
+     * @return verificaciones realizadas
+     */
+    public long getVerificaciones() {
+        return this.verificaciones.get();
+    }
+
+    /**
+     * Devuelve la cantidad de violaciones detectadas.
+     *
+     * @return violaciones detectadas
+     */
+    public long getViolaciones() {
+        return this.violaciones.get();
+    }
+
+    /**
+     * Devuelve la cantidad de p-invariantes verificados.
+     *
+     * @return cantidad de p-invariantes
+     */
+    public int getCantidadInvariantes() {
+        return this.invariantes.length;
+    }
+
+    /**
+     * Verifica que las plazas indicadas no tengan tokens negativos ni superen su cota.
+     *
+     * @param marcado marcado actual
+     * @param plazas plazas a verificar
+     * @param transicion transición disparada, para el mensaje de error
+     * @return true si todas las plazas están dentro de sus cotas
+     */
+    private boolean verificarCotas(int[] marcado, int[] plazas, int transicion) {
+        boolean valido = true;
+        for (int plaza : plazas) {
+            int tokens = marcado[plaza];
+            if (tokens < 0 || tokens > this.cotas[plaza]) {
+                valido = false;
+                informar(String.format("Tras disparar T%d la plaza P%d tiene %d tokens (cota %d)",
+                        transicion + 1, plaza + 1, tokens, this.cotas[plaza]));
+            }
+        }
+        return valido;
+    }
+
+    /**
+     * Cuenta una violación y la informa en el log.
+     *
+     * @param mensaje descripción de la violación
+     */
+    private void informar(String mensaje) {
+        this.violaciones.incrementAndGet();
+        LOG.error(mensaje);
+    }
+}
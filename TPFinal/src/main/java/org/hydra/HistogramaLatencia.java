@@ -0,0 +1,213 @@
+package org.hydra;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales, al estilo de HdrHistogram: los valores menores
+ * a {@value #SUBCUBETAS} tienen una cubeta cada uno y cada potencia de dos siguiente se divide en
+ * {@value #SUBCUBETAS} cubetas iguales, con lo que el error relativo de cualquier percentil es menor al 3,2 %. La
+ * última potencia de dos con cubetas propias es 2^{@value #MAXIMOEXPONENTE}; los valores desde 2^41 ns (unos 36
+ * minutos) se cuentan en una fila de desborde aparte, cuyo percentil se informa como el máximo registrado.
+ * <p>
+ * Las cubetas de cada potencia de dos forman una fila que se reserva recién al registrar el primer valor que cae en
+ * ella, ya que las latencias suelen ocupar pocas filas; así un histograma con pocos registros ocupa unos cientos de
+ * bytes en lugar de las {@value #CUBETAS} cubetas completas. Fuera de esa primera vez, registrar un valor cuesta un
+ * cálculo de índice con operaciones de bits y un incremento atómico, sin reservar memoria, por lo que puede quedar
+ * activo en producción. Las lecturas pueden hacerse desde otro hilo mientras se registra: cada cubeta es exacta, aunque
+ * una foto tomada en medio de un registro puede no incluirlo en todos los totales.
+ */
+public class HistogramaLatencia {
+
+    private static final int BITSSUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITSSUBCUBETA;
+    private static final int MAXIMOEXPONENTE = 40;
+    private static final int FILAS = MAXIMOEXPONENTE - BITSSUBCUBETA + 3;
+    private static final int CUBETAS = FILAS << BITSSUBCUBETA;
+    private static final int DESBORDE = CUBETAS - 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> filas = new AtomicReferenceArray<>(FILAS);
+    private final AtomicLong cantidad = new AtomicLong();
+    private final AtomicLong suma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra una latencia. Los valores negativos se registran como 0.
+     *
+     * @param nanos latencia en nanosegundos
+     */
+    public void registrar(long nanos) {
+        // Se acota el valor y se cuenta en su cubeta
+        long valor = Math.max(nanos, 0);
+        int indice = indice(valor);
+        fila(indice >>> BITSSUBCUBETA).incrementAndGet(indice & (SUBCUBETAS - 1));
+        this.cantidad.incrementAndGet();
+        this.suma.addAndGet(valor);
+
+        // Se actualiza el maximo solo si se supero, para no escribir la variable en cada registro
+        if (valor > this.maximo.get()) {
+            this.maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    /**
+     * Suma a este histograma los valores de otro, por ejemplo para agregar las transiciones de un segmento.
+     *
+     * @param otro histograma a sumar
+     */
+    public void sumar(HistogramaLatencia otro) {
+        // Se suman las cubetas de las filas reservadas del otro histograma y los totales
+        for (int f = 0; f < FILAS; f++) {
+            AtomicLongArray filaOtro = otro.filas.get(f);
+            if (filaOtro == null) {
+                continue;
+            }
+            for (int i = 0; i < SUBCUBETAS; i++) {
+                long conteo = filaOtro.get(i);
+                if (conteo != 0) {
+                    fila(f).addAndGet(i, conteo);
+                }
+            }
+        }
+        this.cantidad.addAndGet(otro.cantidad.get());
+        this.suma.addAndGet(otro.suma.get());
+        this.maximo.accumulateAndGet(otro.maximo.get(), Math::max);
+    }
+
+    /**
+     * Devuelve una copia del histograma, que no cambia con los registros posteriores.
+     *
+     * @return copia del histograma
+     */
+    public HistogramaLatencia copiar() {
+        // Se suma este histograma a uno vacio
+        HistogramaLatencia copia = new HistogramaLatencia();
+        copia.sumar(this);
+        return copia;
+    }
+
+    /**
+     * Devuelve la cantidad de latencias registradas.
+     *
+     * @return cantidad de registros
+     */
+    public long getCantidad() {
+        return this.cantidad.get();
+    }
+
+    /**
+     * Devuelve la mayor latencia registrada.
+     *
+     * @return latencia máxima en nanosegundos, 0 si no hay registros
+     */
+    public long getMaximo() {
+        return this.maximo.get();
+    }
+
+    /**
+     * Devuelve la latencia promedio.
+     *
+     * @return promedio en nanosegundos, 0 si no hay registros
+     */
+    public double getPromedio() {
+        long registros = this.cantidad.get();
+        return registros == 0 ? 0 : (double) this.suma.get() / registros;
+    }
+
+    /**
+     * Devuelve el valor por debajo del cual cae el porcentaje indicado de las latencias registradas, con la
+     * resolución de las cubetas.
+     *
+     * @param percentil porcentaje entre 0 y 100
+     * @return latencia en nanosegundos (el extremo superior de su cubeta, acotado por el máximo), 0 si no hay registros
+     */
+    public long getPercentil(double percentil) {
+        // Se suman las cubetas hasta alcanzar el rango buscado
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += conteo(i);
+        }
+        long rango = Math.max(1, (long) Math.ceil(total * Math.min(Math.max(percentil, 0), 100) / 100));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteo(i);
+            if (acumulado >= rango) {
+                return Math.min(limiteSuperior(i), this.maximo.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Devuelve la fila indicada, reservándola si todavía no se registró ningún valor en ella. Si dos hilos la
+     * reservan a la vez, queda la del primero que la publica.
+     *
+     * @param fila índice de la fila
+     * @return cubetas de la fila
+     */
+    private AtomicLongArray fila(int fila) {
+        AtomicLongArray cubetas = this.filas.get(fila);
+        if (cubetas == null) {
+            this.filas.compareAndSet(fila, null, new AtomicLongArray(SUBCUBETAS));
+            cubetas = this.filas.get(fila);
+        }
+        return cubetas;
+    }
+
+    /**
+     * Devuelve el conteo de una cubeta sin reservar su fila.
+     *
+     * @param indice índice de la cubeta
+     * @return conteo de la cubeta, 0 si su fila no está reservada
+     */
+    private long conteo(int indice) {
+        AtomicLongArray cubetas = this.filas.get(indice >>> BITSSUBCUBETA);
+        return cubetas == null ? 0 : cubetas.get(indice & (SUBCUBETAS - 1));
+    }
+
+    /**
+     * Calcula la cubeta de un valor: los menores a {@value #SUBCUBETAS} usan la fila 0, cada potencia de dos
+     * siguiente hasta 2^{@value #MAXIMOEXPONENTE} usa una fila de {@value #SUBCUBETAS} cubetas y los mayores van a la
+     * cubeta de desborde, en la última fila, que no comparte fila con ningún valor representable.
+     *
+     * @param valor latencia no negativa
+     * @return índice de la cubeta
+     */
+    private static int indice(long valor) {
+        // Se calcula el exponente del bit mas significativo, acotado al rango del histograma
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente < BITSSUBCUBETA) {
+            return (int) valor;
+        }
+        if (exponente > MAXIMOEXPONENTE) {
+            return DESBORDE;
+        }
+
+        // Se toman los bits que siguen al mas significativo como subcubeta
+        int subcubeta = (int) (valor >>> (exponente - BITSSUBCUBETA)) & (SUBCUBETAS - 1);
+        return ((exponente - BITSSUBCUBETA + 1) << BITSSUBCUBETA) + subcubeta;
+    }
+
+    /**
+     * Calcula el mayor valor que cae en una cubeta.
+     *
+     * @param indice índice de la cubeta
+     * @return extremo superior de la cubeta
+     */
+    private static long limiteSuperior(int indice) {
+        // Se recupera la fila y la subcubeta
+        int fila = indice >>> BITSSUBCUBETA;
+        int subcubeta = indice & (SUBCUBETAS - 1);
+        if (fila == 0) {
+            return subcubeta;
+        }
+        if (indice == DESBORDE) {
+            return Long.MAX_VALUE;
+        }
+
+        // Se reconstruye el valor inferior de la cubeta y se le suma su ancho
+        int desplazamiento = fila - 1;
+        return ((long) (SUBCUBETAS + subcubeta) << desplazamiento) + (1L << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,362 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Importador de redes lugar/transición en PNML (ISO/IEC 15909-2). Lee el XML con StAX en una sola pasada, sin
+ * cargar el documento en memoria, y toma de cada plaza su nombre y su marcado inicial, de cada transición su nombre
+ * y de cada arco sus extremos y su inscripción. Las páginas se aplanan y los nodos de referencia se resuelven a los
+ * nodos que referencian.
+ * <p>
+ * Como PNML no define ventanas temporales, se aceptan en un elemento propio de la herramienta dentro de la
+ * transición: {@code <toolspecific tool="hydra" version="1"><ventana alpha="10ms" beta="inf"/></toolspecific>}.
+ * Los arcos inhibidores o de reinicio no se admiten. Los segmentos y los invariantes no forman parte de PNML: se
+ * declaran en un archivo {@code .red} que importa el PNML con {@code pnml archivo.pnml}.
+ */
+public final class ImportadorPnml {
+
+    private static final String HERRAMIENTA = "hydra";
+
+    private ImportadorPnml() {
+    }
+
+    /**
+     * Carga una red desde un archivo PNML. Como no tiene segmentos, cada transición queda en un segmento propio de
+     * un hilo, y no tiene t-invariantes.
+     *
+     * @param archivo archivo PNML
+     * @return Definición de la red
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no es una red válida
+     */
+    public static DefinicionRed cargar(Path archivo) throws IOException {
+        // Se importa la estructura en un armado nuevo y se construye la definicion
+        DefinicionRed.Armado armado = new DefinicionRed.Armado(archivo.getFileName().toString());
+        leer(archivo, armado, true);
+        return armado.construir();
+    }
+
+    /**
+     * Agrega a un armado las plazas, transiciones y arcos de un archivo PNML, conservando el nombre del armado.
+     *
+     * @param archivo archivo PNML
+     * @param armado armado de la red
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no es una red válida
+     */
+    public static void importar(Path archivo, DefinicionRed.Armado armado) throws IOException {
+        // Se lee el archivo sin tomar el nombre de la red
+        leer(archivo, armado, false);
+    }
+
+    /**
+     * Lee un archivo PNML y agrega su contenido a un armado.
+     *
+     * @param archivo archivo PNML
+     * @param armado armado de la red
+     * @param nombrar true para tomar el nombre de la red del archivo
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si el archivo no es una red válida
+     */
+    private static void leer(Path archivo, DefinicionRed.Armado armado, boolean nombrar) throws IOException {
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            // Se crea un lector sin DTD ni entidades externas
+            XMLInputFactory fabrica = XMLInputFactory.newInstance();
+            fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            XMLStreamReader lector = fabrica.createXMLStreamReader(entrada);
+            try {
+                new Lectura(armado, nombrar).leer(lector);
+            }
+            finally {
+                lector.close();
+            }
+        }
+        catch (XMLStreamException e) {
+            // Se informa el XML mal formado como error de lectura
+            throw new IOException("PNML invalido en " + archivo + ": " + e.getMessage(), e);
+        }
+        catch (IllegalArgumentException e) {
+            // Se agrega al error el archivo
+            throw new IllegalArgumentException(archivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Estado de la lectura de un documento: la pila de elementos abiertos, el nodo en curso y los arcos y
+     * referencias, que se resuelven al terminar porque pueden aparecer antes que los nodos que unen.
+     */
+    private static final class Lectura {
+
+        private final DefinicionRed.Armado armado;
+        private final boolean nombrar;
+        private final Deque<String> elementos = new ArrayDeque<>();
+        private final Map<String, String> nombres = new HashMap<>();
+        private final Map<String, String> referencias = new HashMap<>();
+        private final List<String[]> arcos = new ArrayList<>();
+        private final StringBuilder texto = new StringBuilder();
+        private String id;
+        private String nombre;
+        private String valor;
+        private String origen;
+        private String destino;
+        private long alpha;
+        private long beta;
+        private boolean herramienta;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param armado armado al que se agregan los nodos y arcos
+         * @param nombrar true para tomar el nombre de la red del documento
+         */
+        Lectura(DefinicionRed.Armado armado, boolean nombrar) {
+            this.armado = armado;
+            this.nombrar = nombrar;
+        }
+
+        /**
+         * Recorre el documento y agrega la red al armado.
+         *
+         * @param lector lector StAX posicionado al comienzo del documento
+         * @throws XMLStreamException si el XML está mal formado
+         */
+        void leer(XMLStreamReader lector) throws XMLStreamException {
+            // Se procesan los eventos de apertura, texto y cierre de elementos
+            while (lector.hasNext()) {
+                switch (lector.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        abrir(lector);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if ("text".equals(this.elementos.peek())) {
+                            this.texto.append(lector.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        cerrar(lector.getLocalName());
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            // Se agregan los arcos, ya conocidos todos los nodos
+            for (String[] arco : this.arcos) {
+                this.armado.agregarArco(resolver(arco[0]), resolver(arco[1]), CargadorRed.leerEntero(arco[2]));
+            }
+        }
+
+        /**
+         * Procesa la apertura de un elemento.
+         *
+         * @param lector lector posicionado en la apertura
+         */
+        private void abrir(XMLStreamReader lector) {
+            // Se inicia el nodo o se registra el dato segun el elemento
+            String elemento = lector.getLocalName();
+            switch (elemento) {
+                case "place":
+                case "transition":
+                case "arc":
+                    this.id = atributo(lector, "id");
+                    this.nombre = null;
+                    this.valor = null;
+                    this.origen = lector.getAttributeValue(null, "source");
+                    this.destino = lector.getAttributeValue(null, "target");
+                    this.alpha = 0;
+                    this.beta = VectorSensibilizado.SIN_LIMITE;
+                    break;
+                case "referencePlace":
+                case "referenceTransition":
+                    this.referencias.put(atributo(lector, "id"), atributo(lector, "ref"));
+                    break;
+                case "toolspecific":
+                    this.herramienta = HERRAMIENTA.equals(lector.getAttributeValue(null, "tool"));
+                    break;
+                case "ventana":
+                    if (this.herramienta && "transition".equals(padre(1))) {
+                        this.alpha = tiempo(lector, "alpha", 0);
+                        this.beta = tiempo(lector, "beta", VectorSensibilizado.SIN_LIMITE);
+                    }
+                    break;
+                case "type":
+                    String tipo = lector.getAttributeValue(null, "value");
+                    if ("arc".equals(this.elementos.peek()) && tipo != null && !tipo.equals("normal")) {
+                        throw new IllegalArgumentException("Arco " + this.id + " de tipo " + tipo + " no soportado");
+                    }
+                    break;
+                case "text":
+                    this.texto.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+            this.elementos.push(elemento);
+        }
+
+        /**
+         * Procesa el cierre de un elemento.
+         *
+         * @param elemento nombre local del elemento
+         */
+        private void cerrar(String elemento) {
+            this.elementos.pop();
+            switch (elemento) {
+                case "text":
+                    // Se asigna el texto segun el elemento que lo contiene y el nodo al que pertenece
+                    String contenido = this.texto.toString().trim();
+                    String dato = this.elementos.peek();
+                    String nodo = padre(1);
+                    if ("name".equals(dato) && "net".equals(nodo)) {
+                        if (this.nombrar) {
+                            this.armado.setNombre(contenido);
+                        }
+                    }
+                    else if ("name".equals(dato)) {
+                        this.nombre = contenido;
+                    }
+                    else if ("initialMarking".equals(dato) || "inscription".equals(dato)) {
+                        this.valor = contenido;
+                    }
+                    break;
+                case "place":
+                    this.armado.agregarPlaza(registrar(), this.valor == null ? 0 : CargadorRed.leerEntero(ultimo(this.valor)));
+                    break;
+                case "transition":
+                    this.armado.agregarTransicion(registrar(), this.alpha, this.beta);
+                    break;
+                case "arc":
+                    this.arcos.add(new String[]{atributo(this.origen, "source"), atributo(this.destino, "target"),
+                            this.valor == null ? "1" : ultimo(this.valor)});
+                    break;
+                case "toolspecific":
+                    this.herramienta = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * Registra el nodo en curso con su nombre, o con su identificador si no tiene nombre o el nombre ya está en
+         * uso.
+         *
+         * @return Nombre con el que se agrega el nodo
+         */
+        private String registrar() {
+            // Se elige el nombre y se asocia al identificador
+            String elegido = this.nombre != null && !this.nombre.isEmpty() && !this.armado.existe(this.nombre)
+                    ? this.nombre : this.id;
+            this.nombres.put(this.id, elegido);
+            return elegido;
+        }
+
+        /**
+         * Resuelve el identificador de un nodo, o de una referencia a un nodo, al nombre con que se registró.
+         *
+         * @param identificador identificador PNML
+         * @return Nombre del nodo
+         * @throws IllegalArgumentException si no existe
+         */
+        private String resolver(String identificador) {
+            // Se siguen las referencias hasta un nodo, acotando el recorrido por si son circulares
+            String actual = identificador;
+            for (int i = 0; i <= this.referencias.size() && this.referencias.containsKey(actual); i++) {
+                actual = this.referencias.get(actual);
+            }
+            String encontrado = this.nombres.get(actual);
+            if (encontrado == null) {
+                throw new IllegalArgumentException("El arco referencia un nodo inexistente: " + identificador);
+            }
+            return encontrado;
+        }
+
+        /**
+         * Retorna un elemento abierto por encima del actual.
+         *
+         * @param niveles cantidad de niveles por encima del tope de la pila
+         * @return Nombre local del elemento, o null si no existe
+         */
+        private String padre(int niveles) {
+            // Se recorre la pila desde el tope
+            int nivel = 0;
+            for (String elemento : this.elementos) {
+                if (nivel++ == niveles) {
+                    return elemento;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Lee un atributo obligatorio.
+         *
+         * @param lector lector posicionado en la apertura
+         * @param nombre nombre del atributo
+         * @return Valor del atributo
+         * @throws IllegalArgumentException si no está
+         */
+        private static String atributo(XMLStreamReader lector, String nombre) {
+            return atributo(lector.getAttributeValue(null, nombre), nombre);
+        }
+
+        /**
+         * Verifica que un atributo obligatorio esté presente.
+         *
+         * @param valor valor del atributo
+         * @param nombre nombre del atributo
+         * @return Valor del atributo
+         * @throws IllegalArgumentException si no está
+         */
+        private static String atributo(String valor, String nombre) {
+            if (valor == null) {
+                throw new IllegalArgumentException("Falta el atributo " + nombre);
+            }
+            return valor;
+        }
+
+        /**
+         * Lee un atributo de tiempo opcional.
+         *
+         * @param lector lector posicionado en la apertura
+         * @param nombre nombre del atributo
+         * @param porDefecto valor si no está
+         * @return Tiempo en microsegundos
+         */
+        private static long tiempo(XMLStreamReader lector, String nombre, long porDefecto) {
+            String valor = lector.getAttributeValue(null, nombre);
+            return valor == null ? porDefecto : CargadorRed.leerTiempo(valor.trim());
+        }
+
+        /**
+         * Retorna el último valor de una lista separada por comas, como los marcados "Default,4" de algunas
+         * herramientas.
+         *
+         * @param valor texto del valor
+         * @return Último valor
+         */
+        private static String ultimo(String valor) {
+            return valor.substring(valor.lastIndexOf(',') + 1).trim();
+        }
+    }
+}
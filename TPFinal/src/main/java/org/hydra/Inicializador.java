@@ -1,9 +1,11 @@
 package org.hydra;
 
 import org.hydra.beans.Segmento;
+import org.hydra.beans.VectorSensibilizado;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
 
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -14,19 +16,58 @@ import java.util.stream.Stream;
  */
 public class Inicializador {
 
-    private final AdminMonitor monitor;
+    private final Monitor monitor;
     private final Segmento[] segmentos;
     private final ProcesosModelados procesosModelados;
+    private final ThreadFactory fabricaHilos;
+    private final int[] transicionesFinales;
     private final List<Thread> disparadores;
 
+    /**
+     * Constructor de la clase con disparadores en hilos de plataforma.
+     *
+     * @param monitor monitor del sistema
+     * @param segmentos Array de segmentos de la RdP
+     * @param procesosModelados proceso modelado de la RdP
+     */
+    public Inicializador(Monitor monitor, Segmento[] segmentos, ProcesosModelados procesosModelados) {
+        // Se utilizan hilos de plataforma
+        this(monitor, segmentos, procesosModelados, FabricaHilos.crear("plataforma"));
+    }
+
+    /**
+     * Constructor de la clase que, al terminar, vacía la red con todas las transiciones salvo las que inician cada
+     * t-invariante.
+     *
+     * @param monitor monitor del sistema
+     * @param segmentos Array de segmentos de la RdP
+     * @param procesosModelados proceso modelado de la RdP
+     * @param fabricaHilos fábrica de los hilos de los disparadores, según {@link FabricaHilos}
+     */
+    public Inicializador(Monitor monitor, Segmento[] segmentos, ProcesosModelados procesosModelados,
+                         ThreadFactory fabricaHilos) {
+        // Se calculan las transiciones finales a partir de los t-invariantes
+        this(monitor, segmentos, procesosModelados, fabricaHilos, DefinicionRed.calcularTransicionesFinales(
+                procesosModelados.getPlazasTransiciones(), procesosModelados.getRDP().getTotaltransiciones()));
+    }
+
     /**
      * Constructor de la clase.
      *
      * @param monitor monitor del sistema
      * @param segmentos Array de segmentos de la RdP
      * @param procesosModelados proceso modelado de la RdP
+     * @param fabricaHilos fábrica de los hilos de los disparadores, según {@link FabricaHilos}
+     * @param transicionesFinales transiciones que se disparan al terminar, hasta que ninguna esté sensibilizada
      */
-    public Inicializador(AdminMonitor monitor, Segmento[] segmentos, ProcesosModelados procesosModelados) {
+    public Inicializador(Monitor monitor, Segmento[] segmentos, ProcesosModelados procesosModelados,
+                         ThreadFactory fabricaHilos, int[] transicionesFinales) {
+        // Se asigna la fabrica de hilos que viene como parametro a la variable local
+        this.fabricaHilos = fabricaHilos;
+
+        // Se asignan las transiciones finales que vienen como parametro a la variable local
+        this.transicionesFinales = transicionesFinales.clone();
+
         // Se asigna el monitor que viene como parametro a la variable local
         this.monitor = monitor;
 
@@ -45,7 +86,7 @@ public class Inicializador {
     /**
      * A partir de un objeto de la clase Segmento recibido como parámetro, crea una cantidad definida
      * (cantidad máxima de hilos del segmento) de objetos Runnable (Disparador).
-     * Luego utiliza estos objetos como parámetro para la creación de objetos Thread, a los cuales se les
+     * Luego utiliza estos objetos como parámetro para la creación de objetos Thread con la fábrica de hilos, a los cuales se les
      * asigna un nombre en función del segmento y su orden de creación.
      *
      * @param segmento Segmento particular para el que se quieren crear los disparadores
@@ -57,7 +98,9 @@ public class Inicializador {
         // hilo basado en el segmento y el indice del hilo
         return IntStream.range(0, segmento.getNroHilo()).mapToObj(i -> {
             Runnable shooter = new Disparador(this.monitor, segmento.getTransiciones(), this.procesosModelados);
-            return new Thread(shooter, String.format("S%sN%s", segmento, i));
+            Thread hilo = this.fabricaHilos.newThread(shooter);
+            hilo.setName(String.format("S%sN%s", segmento, i));
+            return hilo;
         });
     }
 
@@ -77,6 +120,10 @@ public class Inicializador {
      * @throws InterruptedException Excepción por interrupción
      */
     public void finish() throws InterruptedException {
+        // Se esperan las tareas en curso mientras los hilos siguen disparando, ya que sus salidas se disparan en el
+        // monitor
+        this.procesosModelados.cerrarTareas();
+
         // Se interrumpen todos los hilos generados
         this.disparadores.parallelStream().forEach(Thread::interrupt);
 
@@ -91,15 +138,18 @@ public class Inicializador {
             e.printStackTrace();
         }
 
-        // Se imprime por consola que el hilo se interrumpio y los tokens de la red
-        System.out.println("El hilo ha sido interrumpido");
-        System.out.println(this.procesosModelados.getRDP().getTokens());
+        // Se detiene el planificador de las ventanas temporales, ya que no quedan hilos que despertar
+        VectorSensibilizado vectorSensibilizado = this.procesosModelados.getRDP().getVectorSensibilizado();
+        if (vectorSensibilizado != null) {
+            vectorSensibilizado.detenerPlanificador();
+        }
 
-        // Se declaran las transiciones finales
-        int[] finaltransiciones = {1,2,3,4,5,6,7,9,10,11};
+        // Se vuelca en la RdP el marcado que el monitor pudiera mantener por separado
+        this.monitor.sincronizarMarcado();
 
-        // Se obtiene el tamaño total de las transiciones
-        int tamanio = this.procesosModelados.getRDP().getTotaltransiciones()-2;
+        // Se imprime por consola que el hilo se interrumpio y los tokens de la red
+        System.out.println("El hilo ha sido interrumpido");
+        System.out.println(Arrays.toString(this.procesosModelados.getRDP().getTokens()));
 
         // Se setea en false que se llego al fin
         boolean fin = false;
@@ -109,11 +159,11 @@ public class Inicializador {
             // Se supone que hemos terminado hasta que encontremos una transición que disparar
             fin = true;
 
-            for(int i=0; i<tamanio; i++){
+            for (int transicion : this.transicionesFinales) {
                 // Se verifica si se puede disparar una transicion
-                if(this.procesosModelados.getRDP().disparo(finaltransiciones[i], true)) {
+                if(this.procesosModelados.getRDP().disparo(transicion, true)) {
                     // Se realiza la tarea despues de disparar la transicion
-                    this.procesosModelados.realizarTarea(finaltransiciones[i]);
+                    this.procesosModelados.realizarTarea(transicion);
 
                     // Se setea en false porque aun no se termino
                     fin = false;
@@ -122,7 +172,7 @@ public class Inicializador {
         }
 
         // Se imprime por consola los tokens finales, el contador de transiciones y que la ejecucion del programa finalizo
-        System.out.printf("Tokens finales %s\n", this.procesosModelados.getRDP().getTokens());
+        System.out.printf("Tokens finales %s\n", Arrays.toString(this.procesosModelados.getRDP().getTokens()));
         System.out.printf("Contador final de transiciones %s\n", Arrays.toString(this.procesosModelados.getContadorDisparoTransiciones()));
         System.out.println("La ejecucion del programa ha finalizado");
     }
@@ -0,0 +1,164 @@
+package org.hydra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cálculo de los p-invariantes de una RdP: los vectores enteros y sobre las plazas tales que y·C = 0, donde C es la
+ * matriz de incidencia. Para todo marcado M alcanzable vale y·M = y·M0, por lo que sirven como guarda barata de la
+ * coherencia del marcado.
+ * <p>
+ * La base se obtiene por eliminación entera sobre la matriz [C | I]: se anula cada columna de C combinando filas
+ * con coeficientes enteros y, al terminar, las filas cuya parte de C quedó en cero tienen en la parte de I un
+ * p-invariante. Cada vector se divide por el máximo común divisor de sus componentes.
+ */
+public final class InvariantesP {
+
+    private InvariantesP() {
+    }
+
+    /**
+     * Calcula una base entera de los p-invariantes de la red.
+     *
+     * @param incidencia matriz de incidencia (plazas x transiciones)
+     * @return p-invariantes, uno por fila, con un peso por plaza
+     * @throws ArithmeticException si algún coeficiente intermedio excede el rango de long
+     */
+    public static int[][] calcular(int[][] incidencia) {
+        int plazas = incidencia.length;
+        int transiciones = plazas == 0 ? 0 : incidencia[0].length;
+
+        // Se arma la matriz [C | I] con una fila por plaza
+        List<long[]> filas = new ArrayList<>(plazas);
+        for (int p = 0; p < plazas; p++) {
+            long[] fila = new long[transiciones + plazas];
+            for (int t = 0; t < transiciones; t++) {
+                fila[t] = incidencia[p][t];
+            }
+            fila[transiciones + p] = 1;
+            filas.add(fila);
+        }
+
+        // Se anula cada columna de C usando como pivote una fila con valor no nulo, que luego se descarta
+        for (int t = 0; t < transiciones; t++) {
+            int pivote = -1;
+            for (int i = 0; i < filas.size(); i++) {
+                if (filas.get(i)[t] != 0 && (pivote < 0 || Math.abs(filas.get(i)[t]) < Math.abs(filas.get(pivote)[t]))) {
+                    pivote = i;
+                }
+            }
+            if (pivote < 0) {
+                continue;
+            }
+            long[] filaPivote = filas.remove(pivote);
+            for (long[] fila : filas) {
+                if (fila[t] != 0) {
+                    combinar(fila, filaPivote, t);
+                }
+            }
+        }
+
+        // Se extraen los p-invariantes de la parte identidad de las filas restantes
+        int[][] invariantes = new int[filas.size()][];
+        for (int i = 0; i < filas.size(); i++) {
+            long[] fila = filas.get(i);
+            invariantes[i] = new int[plazas];
+            for (int p = 0; p < plazas; p++) {
+                invariantes[i][p] = Math.toIntExact(fila[transiciones + p]);
+            }
+        }
+        return invariantes;
+    }
+
+    /**
+     * Calcula la constante y·M0 de un p-invariante.
+     *
+     * @param invariante pesos del p-invariante por plaza
+     * @param marcado marcado de la red
+     * @return suma ponderada de los tokens
+     */
+    public static long evaluar(int[] invariante, int[] marcado) {
+        long suma = 0;
+        for (int p = 0; p < invariante.length; p++) {
+            suma += (long) invariante[p] * marcado[p];
+        }
+        return suma;
+    }
+
+    /**
+     * Calcula la cota de tokens de cada plaza que se deduce de los p-invariantes semipositivos: si y ≥ 0 e
+     * y[p] > 0, entonces M[p] ≤ y·M0 / y[p].
+     *
+     * @param invariantes p-invariantes de la red
+     * @param marcadoInicial marcado inicial de la red
+     * @return cota de cada plaza, o Integer.MAX_VALUE si ningún p-invariante semipositivo la cubre
+     */
+    public static int[] calcularCotas(int[][] invariantes, int[] marcadoInicial) {
+        int[] cotas = new int[marcadoInicial.length];
+        Arrays.fill(cotas, Integer.MAX_VALUE);
+
+        // Se acota cada plaza cubierta por un p-invariante semipositivo
+        for (int[] invariante : invariantes) {
+            if (Arrays.stream(invariante).anyMatch(peso -> peso < 0)) {
+                continue;
+            }
+            long constante = evaluar(invariante, marcadoInicial);
+            for (int p = 0; p < invariante.length; p++) {
+                if (invariante[p] > 0) {
+                    cotas[p] = (int) Math.min(cotas[p], constante / invariante[p]);
+                }
+            }
+        }
+        return cotas;
+    }
+
+    /**
+     * Anula la columna indicada de una fila con la fila pivote: fila = a·fila - b·pivote, con a y b los valores de
+     * la columna divididos por su máximo común divisor, y luego divide la fila por el máximo común divisor de sus
+     * componentes y deja positivo su primer valor no nulo.
+     *
+     * @param fila fila a modificar
+     * @param pivote fila pivote
+     * @param columna columna a anular
+     */
+    private static void combinar(long[] fila, long[] pivote, int columna) {
+        // Se calculan los coeficientes minimos que anulan la columna
+        long divisor = mcd(Math.abs(fila[columna]), Math.abs(pivote[columna]));
+        long a = pivote[columna] / divisor;
+        long b = fila[columna] / divisor;
+
+        // Se combinan las filas y se calcula el divisor comun del resultado
+        long comun = 0;
+        for (int j = 0; j < fila.length; j++) {
+            fila[j] = Math.subtractExact(Math.multiplyExact(a, fila[j]), Math.multiplyExact(b, pivote[j]));
+            comun = mcd(comun, Math.abs(fila[j]));
+        }
+
+        // Se normaliza la fila por su divisor comun y su signo
+        int primero = 0;
+        while (primero < fila.length && fila[primero] == 0) {
+            primero++;
+        }
+        long factor = comun == 0 ? 1 : (primero < fila.length && fila[primero] < 0 ? -comun : comun);
+        for (int j = 0; j < fila.length; j++) {
+            fila[j] /= factor;
+        }
+    }
+
+    /**
+     * Calcula el máximo común divisor de dos enteros no negativos.
+     *
+     * @param a primer valor
+     * @param b segundo valor
+     * @return máximo común divisor, 0 si ambos son 0
+     */
+    private static long mcd(long a, long b) {
+        while (b != 0) {
+            long resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,325 @@
+package org.hydra;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+
+/**
+ * Lee secuencialmente una traza binaria de disparos escrita por {@link EscritorTrazaBinaria}. El archivo se recorre
+ * mapeado en memoria por regiones, sin copiar ni crear objetos por disparo:
+ * <pre>
+ * try (LectorTraza lector = new LectorTraza(archivo)) {
+ *     while (lector.siguiente()) {
+ *         procesar(lector.getNanosegundos(), lector.getHilo(), lector.getTransicion());
+ *     }
+ * }
+ * </pre>
+ * Ejecutado como programa, exporta una traza binaria al formato de texto que lee el analizador de invariantes.
+ */
+public class LectorTraza implements Closeable {
+
+    private static final long TAMANIO_REGION = 256L << 20;
+
+    private final FileChannel canal;
+    private final long tamanioRegion;
+    private final int plazas;
+    private final int transiciones;
+    private final long baseMilisegundos;
+    private final long baseNanosegundos;
+    private final long cantidadDisparos;
+    private final long finDisparos;
+    private final String[] nombresHilos;
+    private MappedByteBuffer region;
+    private long inicioRegion;
+    private long leidos;
+    private long nanosegundos;
+    private int hilo;
+    private int transicion;
+
+    /**
+     * Constructor de la clase. Lee la cabecera y la tabla de nombres y se posiciona antes del primer disparo.
+     *
+     * @param archivo archivo de la traza
+     * @throws IOException si no se puede leer el archivo o no es una traza válida
+     */
+    public LectorTraza(Path archivo) throws IOException {
+        this(archivo, TAMANIO_REGION);
+    }
+
+    /**
+     * Constructor con el tamaño de las regiones mapeadas, para probar el paso de una región a la siguiente.
+     *
+     * @param archivo archivo de la traza
+     * @param tamanioRegion tamaño máximo de cada región, mayor que un disparo
+     * @throws IOException si no se puede leer el archivo o no es una traza válida
+     */
+    LectorTraza(Path archivo, long tamanioRegion) throws IOException {
+        this.tamanioRegion = tamanioRegion;
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            // Se lee y valida la cabecera
+            ByteBuffer cabecera = ByteBuffer.allocate(TrazaBinaria.TAMANIO_CABECERA);
+            leerCompleto(cabecera, 0);
+            byte[] magia = new byte[TrazaBinaria.MAGIA.length];
+            cabecera.get(magia);
+            if (!Arrays.equals(magia, TrazaBinaria.MAGIA)) {
+                throw new IOException("El archivo " + archivo + " no es una traza de disparos");
+            }
+            int version = cabecera.getInt();
+            if (version != TrazaBinaria.VERSION) {
+                throw new IOException("Version de traza no soportada: " + version);
+            }
+            this.plazas = cabecera.getInt();
+            this.transiciones = cabecera.getInt();
+            int cantidadHilos = cabecera.getInt();
+            this.baseMilisegundos = cabecera.getLong();
+            this.baseNanosegundos = cabecera.getLong();
+            this.cantidadDisparos = cabecera.getLong();
+            this.finDisparos = cabecera.getLong();
+            long tamanio = cabecera.getLong();
+            if (this.finDisparos < TrazaBinaria.TAMANIO_CABECERA || tamanio < this.finDisparos || this.canal.size() < tamanio) {
+                throw new IOException("La traza " + archivo + " esta incompleta");
+            }
+            if (this.plazas < 0 || this.transiciones < 0 || cantidadHilos < 0 || this.cantidadDisparos < 0
+                    || tamanio - this.finDisparos > Integer.MAX_VALUE) {
+                throw new IOException("La traza " + archivo + " esta corrupta");
+            }
+
+            // Se lee la tabla de nombres de los hilos
+            ByteBuffer tabla = ByteBuffer.allocate((int) (tamanio - this.finDisparos));
+            leerCompleto(tabla, this.finDisparos);
+            this.nombresHilos = new String[cantidadHilos];
+            for (int i = 0; i < cantidadHilos; i++) {
+                long longitud = TrazaBinaria.leerVariable(tabla);
+                if (longitud < 0 || longitud > tabla.remaining()) {
+                    throw new IOException("La traza " + archivo + " esta corrupta");
+                }
+                byte[] nombre = new byte[(int) longitud];
+                tabla.get(nombre);
+                this.nombresHilos[i] = new String(nombre, StandardCharsets.UTF_8);
+            }
+
+            // Se mapea la primera region de disparos
+            this.nanosegundos = this.baseNanosegundos;
+            mapear(TrazaBinaria.TAMANIO_CABECERA);
+        }
+        catch (IOException | RuntimeException e) {
+            // Se cierra el archivo si la traza no es valida
+            this.canal.close();
+            if (e instanceof BufferUnderflowException) {
+                throw new IOException("La traza " + archivo + " esta corrupta", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Avanza al siguiente disparo de la traza.
+     *
+     * @return true si hay un disparo, false si se llegó al final de la traza
+     * @throws IOException si no se puede mapear la región siguiente o los disparos no coinciden con la cabecera
+     */
+    public boolean siguiente() throws IOException {
+        // Se verifica si quedan disparos y, al terminar, que se hayan consumido todos los bytes de disparos
+        if (this.leidos == this.cantidadDisparos) {
+            if (this.inicioRegion + this.region.position() != this.finDisparos) {
+                throw new IOException("La traza esta corrupta: sobran bytes despues del ultimo disparo");
+            }
+            return false;
+        }
+
+        // Se mapea la region siguiente si el disparo podria quedar cortado
+        if (this.region.remaining() < TrazaBinaria.MAXIMO_DISPARO
+                && this.inicioRegion + this.region.limit() < this.finDisparos) {
+            mapear(this.inicioRegion + this.region.position());
+        }
+
+        // Se decodifica el disparo, que no puede pasar del fin de los disparos indicado en la cabecera
+        long diferencia;
+        long indiceHilo;
+        long indiceTransicion;
+        try {
+            diferencia = TrazaBinaria.deszigzag(TrazaBinaria.leerVariable(this.region));
+            indiceHilo = TrazaBinaria.leerVariable(this.region);
+            indiceTransicion = TrazaBinaria.leerVariable(this.region);
+        }
+        catch (BufferUnderflowException e) {
+            throw new IOException("La traza esta corrupta: faltan disparos", e);
+        }
+        if (indiceHilo < 0 || indiceHilo >= this.nombresHilos.length
+                || indiceTransicion < 0 || indiceTransicion >= this.transiciones) {
+            throw new IOException(String.format("La traza esta corrupta: disparo %d con hilo %d y transicion %d",
+                    this.leidos + 1, indiceHilo, indiceTransicion));
+        }
+        this.nanosegundos += diferencia;
+        this.hilo = (int) indiceHilo;
+        this.transicion = (int) indiceTransicion;
+        this.leidos++;
+        return true;
+    }
+
+    /**
+     * Exporta el resto de la traza al formato de texto "milisegundos. Disparador NOMBRE disparo Tn".
+     *
+     * @param destino archivo de texto; se sobrescribe
+     * @throws IOException si no se puede leer la traza o escribir el archivo
+     */
+    public void exportarTexto(Path destino) throws IOException {
+        try (Writer salida = new BufferedWriter(Files.newBufferedWriter(destino, StandardCharsets.UTF_8), 1 << 16)) {
+            // Se escribe una linea por disparo reutilizando el buffer
+            StringBuilder linea = new StringBuilder(64);
+            while (siguiente()) {
+                linea.setLength(0);
+                linea.append(getMilisegundos()).append(". Disparador ").append(getNombreHilo(this.hilo))
+                        .append(" disparo T").append(this.transicion + 1).append('\n');
+                salida.append(linea);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el instante del disparo actual.
+     *
+     * @return instante según {@link System#nanoTime()} de la ejecución que escribió la traza
+     */
+    public long getNanosegundos() {
+        return this.nanosegundos;
+    }
+
+    /**
+     * Devuelve el instante del disparo actual en milisegundos de época.
+     *
+     * @return milisegundos de época
+     */
+    public long getMilisegundos() {
+        return this.baseMilisegundos + (this.nanosegundos - this.baseNanosegundos) / 1_000_000;
+    }
+
+    /**
+     * Devuelve el hilo que realizó el disparo actual.
+     *
+     * @return índice del hilo
+     */
+    public int getHilo() {
+        return this.hilo;
+    }
+
+    /**
+     * Devuelve la transición del disparo actual.
+     *
+     * @return índice de la transición
+     */
+    public int getTransicion() {
+        return this.transicion;
+    }
+
+    /**
+     * Devuelve el nombre de un hilo de la traza.
+     *
+     * @param hilo índice del hilo
+     * @return nombre del hilo
+     */
+    public String getNombreHilo(int hilo) {
+        return this.nombresHilos[hilo];
+    }
+
+    /**
+     * Devuelve la cantidad de hilos que dispararon.
+     *
+     * @return cantidad de hilos
+     */
+    public int getCantidadHilos() {
+        return this.nombresHilos.length;
+    }
+
+    /**
+     * Devuelve la cantidad de disparos de la traza.
+     *
+     * @return cantidad de disparos
+     */
+    public long getCantidadDisparos() {
+        return this.cantidadDisparos;
+    }
+
+    /**
+     * Devuelve la cantidad de plazas de la red que generó la traza.
+     *
+     * @return cantidad de plazas
+     */
+    public int getPlazas() {
+        return this.plazas;
+    }
+
+    /**
+     * Devuelve la cantidad de transiciones de la red que generó la traza.
+     *
+     * @return cantidad de transiciones
+     */
+    public int getTransiciones() {
+        return this.transiciones;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Se cierra el archivo; la region mapeada se libera cuando deja de estar referenciada
+        this.region = null;
+        this.canal.close();
+    }
+
+    /**
+     * Mapea una región de disparos a partir de la posición indicada.
+     *
+     * @param posicion posición del archivo
+     * @throws IOException si no se puede mapear el archivo
+     */
+    private void mapear(long posicion) throws IOException {
+        this.inicioRegion = posicion;
+        this.region = this.canal.map(FileChannel.MapMode.READ_ONLY, posicion,
+                Math.min(this.tamanioRegion, this.finDisparos - posicion));
+    }
+
+    /**
+     * Lee del archivo hasta completar el buffer y lo deja listo para leer.
+     *
+     * @param buffer buffer de destino
+     * @param posicion posición del archivo
+     * @throws IOException si el archivo termina antes de completar el buffer
+     */
+    private void leerCompleto(ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException("La traza esta incompleta");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Exporta una traza binaria a texto.
+     *
+     * @param args archivo de la traza y archivo de texto de destino (por defecto traza.bin y log.txt)
+     * @throws IOException si no se puede leer la traza o escribir el archivo
+     */
+    public static void main(String[] args) throws IOException {
+        // Se exporta la traza indicada
+        Path origen = Paths.get(args.length > 0 ? args[0] : "traza.bin");
+        Path destino = Paths.get(args.length > 1 ? args[1] : "log.txt");
+        try (LectorTraza lector = new LectorTraza(origen)) {
+            lector.exportarTexto(destino);
+            System.out.printf("%d disparos exportados a %s\n", lector.getCantidadDisparos(), destino);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package org.hydra;
+
+import org.hydra.beans.Segmento;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lote de simulaciones de Monte Carlo sobre una grilla de parámetros: cantidad de hilos por segmento, límites alpha
+ * y beta de las ventanas y política de disparo. Cada combinación de la grilla es una configuración, que se simula con
+ * {@link SimuladorEventos} una vez por semilla; todas las configuraciones usan las mismas semillas, por lo que sus
+ * diferencias no se deben a la suerte de cada una.
+ * <p>
+ * Las réplicas se reparten entre los hilos de un {@link ForkJoinPool}. Cada réplica crea su propia red, política,
+ * segmentos y estadística, y corre sin registro de disparos, así que no comparte estado ni locks con las demás: solo
+ * toman el lock de la salida al terminar, para volcar su fila al CSV. Cuando termina la última réplica de una
+ * configuración se vuelca también su resumen: la media de la tasa de t-invariantes por segundo virtual y de la
+ * equidad entre t-invariantes, con la semiamplitud de su intervalo de confianza del 95%.
+ * <p>
+ * La equidad es el índice de Jain de los t-invariantes completados durante la medición, (Σx)² / (n·Σx²): vale 1
+ * si todos se completaron la misma cantidad de veces y 1/n si solo se completó uno.
+ */
+public final class LoteSimulaciones {
+
+    // Se declara el archivo CSV por defecto
+    private static final String ARCHIVOLOTE = "lote.csv";
+
+    // Se declaran la cantidad de replicas y la parada por defecto
+    private static final int REPLICAS = 30;
+    private static final String PARADA = "invariantes:1000";
+
+    // Se declaran los cuantiles 0.975 de la t de Student para 1 a 30 grados de libertad
+    private static final double[] CUANTILEST = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+            2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+            2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+    private static final double CUANTILNORMAL = 1.959964;
+
+    // Se declara la cabecera del CSV
+    private static final String CABECERA = "tipo,configuracion,hilos,alpha,beta,politica,semilla,replicas,bloqueadas,"
+            + "tiempo_virtual_ms,disparos,tasa,tasa_ic95,equidad,equidad_ic95";
+
+    private final DefinicionRed red;
+    private final List<Configuracion> configuraciones = new ArrayList<>();
+    private final int replicas;
+    private final long semilla;
+    private final String parada;
+    private final long calentamiento;
+    private final long demoraTarea;
+    private final int paralelismo;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Writer salida;
+    private long milisegundos;
+
+    /**
+     * Constructor de la clase. Arma las configuraciones con todas las combinaciones de los valores indicados.
+     *
+     * @param red definición de la red a simular
+     * @param hilos alternativas de cantidad de hilos por segmento
+     * @param alphas alternativas de límites inferiores de las ventanas, en microsegundos
+     * @param betas alternativas de límites superiores de las ventanas, en microsegundos
+     * @param politicas alternativas de política, con el formato de {@link Main#crearPolitica}
+     * @param replicas cantidad de réplicas de cada configuración
+     * @param semilla semilla de la primera réplica; las siguientes usan las semillas consecutivas
+     * @param parada condición de parada de cada réplica, "invariantes:N" o "duracion:D" en tiempo virtual
+     * @param calentamiento cantidad de t-invariantes que cada réplica excluye de la medición
+     * @param demoraTarea duración virtual de la tarea de cada disparo, en microsegundos
+     * @param paralelismo cantidad de hilos del pool
+     * @throws IllegalArgumentException si algún parámetro no es válido
+     */
+    public LoteSimulaciones(DefinicionRed red, List<Valor<int[]>> hilos, List<Valor<long[]>> alphas,
+                            List<Valor<long[]>> betas, List<String> politicas, int replicas, long semilla,
+                            String parada, long calentamiento, long demoraTarea, int paralelismo) {
+        // Se verifican los parametros del lote
+        if (replicas < 1 || paralelismo < 1) {
+            throw new IllegalArgumentException("Las replicas y el paralelismo deben ser positivos: " + replicas
+                    + ", " + paralelismo);
+        }
+        CondicionParada condicion = Main.crearCondicionParada(parada);
+        if (condicion.getObjetivo() == Long.MAX_VALUE && !(condicion instanceof ParadaPorDuracion)) {
+            throw new IllegalArgumentException("El lote admite paradas por t-invariantes o por duracion: " + parada);
+        }
+        this.red = red;
+        this.replicas = replicas;
+        this.semilla = semilla;
+        this.parada = parada;
+        this.calentamiento = calentamiento;
+        this.demoraTarea = demoraTarea;
+        this.paralelismo = paralelismo;
+
+        // Se arma una configuracion por cada combinacion de la grilla
+        for (Valor<int[]> hilosSegmentos : hilos) {
+            for (Valor<long[]> alpha : alphas) {
+                for (Valor<long[]> beta : betas) {
+                    for (String politica : politicas) {
+                        this.configuraciones.add(new Configuracion(this.configuraciones.size() + 1, hilosSegmentos,
+                                alpha, beta, politica));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Valor de un parámetro de la grilla con el texto que lo identifica en la salida.
+     *
+     * @param <T> tipo del valor
+     */
+    public static final class Valor<T> {
+
+        private final T valor;
+        private final String etiqueta;
+
+        /**
+         * Constructor de la clase.
+         *
+         * @param valor valor del parámetro
+         * @param etiqueta texto que lo identifica en la salida
+         */
+        public Valor(T valor, String etiqueta) {
+            this.valor = valor;
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    /**
+     * Combinación de parámetros de la grilla y las muestras de sus réplicas terminadas. Las muestras se acumulan con
+     * el lock de la salida tomado.
+     */
+    private static final class Configuracion {
+
+        private final int numero;
+        private final Valor<int[]> hilos;
+        private final Valor<long[]> alpha;
+        private final Valor<long[]> beta;
+        private final String politica;
+        private final Muestra tasa = new Muestra();
+        private final Muestra equidad = new Muestra();
+        private final Muestra tiempo = new Muestra();
+        private final Muestra disparos = new Muestra();
+        private int terminadas;
+        private int bloqueadas;
+
+        private Configuracion(int numero, Valor<int[]> hilos, Valor<long[]> alpha, Valor<long[]> beta,
+                              String politica) {
+            this.numero = numero;
+            this.hilos = hilos;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.politica = politica;
+        }
+    }
+
+    /**
+     * Media y varianza de una muestra, acumuladas con el método de Welford. Los valores no finitos se ignoran.
+     */
+    private static final class Muestra {
+
+        private int cantidad;
+        private double media;
+        private double cuadrados;
+
+        /**
+         * Agrega un valor a la muestra.
+         *
+         * @param valor valor a agregar
+         */
+        private void agregar(double valor) {
+            if (!Double.isFinite(valor)) {
+                return;
+            }
+            this.cantidad++;
+            double delta = valor - this.media;
+            this.media += delta / this.cantidad;
+            this.cuadrados += delta * (valor - this.media);
+        }
+
+        /**
+         * Devuelve la media de la muestra.
+         *
+         * @return Media, o NaN si la muestra está vacía
+         */
+        private double getMedia() {
+            return this.cantidad == 0 ? Double.NaN : this.media;
+        }
+
+        /**
+         * Devuelve la semiamplitud del intervalo de confianza del 95% de la media, con la t de Student.
+         *
+         * @return Semiamplitud, o NaN si la muestra tiene menos de dos valores
+         */
+        private double getSemiamplitud() {
+            if (this.cantidad < 2) {
+                return Double.NaN;
+            }
+            return cuantilT(this.cantidad - 1) * Math.sqrt(this.cuadrados / (this.cantidad - 1) / this.cantidad);
+        }
+    }
+
+    /**
+     * Ejecuta todas las réplicas de todas las configuraciones y vuelca al archivo una fila por réplica y una por
+     * configuración, a medida que terminan.
+     *
+     * @param archivo archivo CSV de salida
+     * @throws UncheckedIOException si no se puede escribir el archivo
+     */
+    public void ejecutar(Path archivo) {
+        long inicio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(this.paralelismo);
+        try (Writer escritor = Files.newBufferedWriter(archivo)) {
+            // Se escribe la cabecera del CSV
+            this.salida = escritor;
+            escritor.write(CABECERA);
+            escritor.write('\n');
+
+            // Se envian las replicas al pool, por configuracion, para que los resumenes se vuelquen en orden
+            List<ForkJoinTask<?>> tareas = new ArrayList<>();
+            for (Configuracion configuracion : this.configuraciones) {
+                for (int replica = 0; replica < this.replicas; replica++) {
+                    long semillaReplica = this.semilla + replica;
+                    tareas.add(pool.submit(() -> simular(configuracion, semillaReplica)));
+                }
+            }
+
+            // Se espera a que terminen todas las replicas
+            for (ForkJoinTask<?> tarea : tareas) {
+                tarea.join();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el archivo del lote " + archivo, e);
+        }
+        finally {
+            pool.shutdownNow();
+            this.milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        }
+    }
+
+    /**
+     * Simula una réplica de una configuración sobre una red propia y vuelca su resultado.
+     *
+     * @param configuracion configuración a simular
+     * @param semillaReplica semilla de la réplica
+     */
+    private void simular(Configuracion configuracion, long semillaReplica) {
+        // Se crean la red, la politica y los segmentos de la replica, sin estado compartido con las demas
+        RDP rdp = this.red.crearRed();
+        List<List<Integer>> invariantes = this.red.getTInvariantes();
+        ProcesosModelados procesoModelado = new ProcesosModelados(rdp, invariantes);
+        procesoModelado.setPolitica(Main.crearPolitica(configuracion.politica, procesoModelado));
+        Segmento[] segmentos = this.red.crearSegmentos(configuracion.hilos.valor);
+        SimuladorEventos simulador = new SimuladorEventos(procesoModelado, segmentos, configuracion.alpha.valor,
+                configuracion.beta.valor, TimeUnit.MICROSECONDS, this.demoraTarea, this.red.getTransicionesFinales(),
+                semillaReplica, null);
+
+        // Se simula hasta la condicion de parada
+        CondicionParada condicion = Main.crearCondicionParada(this.parada);
+        Estadistica estadistica = rdp.crearEstadistica(invariantes, this.calentamiento, condicion);
+        estadistica.setTimeStart();
+        simulador.ejecutar(estadistica, condicion);
+        estadistica.setTimeStop();
+
+        // Se calculan la tasa de t-invariantes por segundo virtual y el indice de Jain de los completados
+        double suma = 0;
+        double cuadrados = 0;
+        for (int i = 0; i < invariantes.size(); i++) {
+            double completados = estadistica.getCompletadosMedidos(i);
+            suma += completados;
+            cuadrados += completados * completados;
+        }
+        long tiempo = simulador.getTiempoMedido();
+        double tasa = tiempo > 0 ? suma * 1e9 / tiempo : Double.NaN;
+        double equidad = cuadrados > 0 ? suma * suma / (invariantes.size() * cuadrados) : Double.NaN;
+
+        // Se vuelcan la replica y, si fue la ultima de la configuracion, el resumen
+        this.lock.lock();
+        try {
+            configuracion.terminadas++;
+            configuracion.bloqueadas += simulador.isBloqueada() ? 1 : 0;
+            configuracion.tasa.agregar(tasa);
+            configuracion.equidad.agregar(equidad);
+            configuracion.tiempo.agregar(simulador.getTiempoVirtual() / 1e6);
+            configuracion.disparos.agregar(simulador.getDisparos());
+            escribirFila("replica", configuracion, Long.toString(semillaReplica), 1, simulador.isBloqueada() ? 1 : 0,
+                    simulador.getTiempoVirtual() / 1e6, simulador.getDisparos(), tasa, Double.NaN, equidad,
+                    Double.NaN);
+            if (configuracion.terminadas == this.replicas) {
+                escribirFila("resumen", configuracion, "", configuracion.terminadas, configuracion.bloqueadas,
+                        configuracion.tiempo.getMedia(), configuracion.disparos.getMedia(),
+                        configuracion.tasa.getMedia(), configuracion.tasa.getSemiamplitud(),
+                        configuracion.equidad.getMedia(), configuracion.equidad.getSemiamplitud());
+            }
+            this.salida.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el archivo del lote", e);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe una fila del CSV. Solo se llama con el lock de la salida tomado.
+     *
+     * @param tipo "replica" o "resumen"
+     * @param configuracion configuración de la fila
+     * @param semillaReplica semilla de la réplica, vacía en los resúmenes
+     * @param replicas cantidad de réplicas de la fila
+     * @param bloqueadas cantidad de réplicas en que la red se bloqueó
+     * @param tiempo tiempo virtual en milisegundos
+     * @param disparos cantidad de disparos
+     * @param tasa tasa de t-invariantes por segundo virtual
+     * @param tasaIntervalo semiamplitud del intervalo de la tasa
+     * @param equidad índice de Jain
+     * @param equidadIntervalo semiamplitud del intervalo de la equidad
+     * @throws IOException si no se puede escribir la fila
+     */
+    private void escribirFila(String tipo, Configuracion configuracion, String semillaReplica, int replicas,
+                              int bloqueadas, double tiempo, double disparos, double tasa, double tasaIntervalo,
+                              double equidad, double equidadIntervalo) throws IOException {
+        this.salida.write(String.join(",", tipo, Integer.toString(configuracion.numero),
+                campo(configuracion.hilos.etiqueta), campo(configuracion.alpha.etiqueta),
+                campo(configuracion.beta.etiqueta), campo(configuracion.politica), semillaReplica,
+                Integer.toString(replicas), Integer.toString(bloqueadas), numero(tiempo, 3), numero(disparos, 1),
+                numero(tasa, 3), numero(tasaIntervalo, 3), numero(equidad, 5), numero(equidadIntervalo, 5)));
+        this.salida.write('\n');
+    }
+
+    /**
+     * Imprime el resumen de cada configuración.
+     *
+     * @param salidaResumen flujo de salida
+     */
+    public void imprimirResumen(PrintStream salidaResumen) {
+        salidaResumen.printf("Lote de %d configuraciones con %d replicas cada una en %d ms con %d hilos\n",
+                this.configuraciones.size(), this.replicas, this.milisegundos, this.paralelismo);
+        for (Configuracion configuracion : this.configuraciones) {
+            salidaResumen.printf("Configuracion %d (hilos %s, alpha %s, beta %s, politica %s): "
+                            + "%.1f +/- %.1f t-invariantes/s, equidad %.4f +/- %.4f, %d de %d replicas bloqueadas\n",
+                    configuracion.numero, configuracion.hilos.etiqueta, configuracion.alpha.etiqueta,
+                    configuracion.beta.etiqueta, configuracion.politica, configuracion.tasa.getMedia(),
+                    configuracion.tasa.getSemiamplitud(), configuracion.equidad.getMedia(),
+                    configuracion.equidad.getSemiamplitud(), configuracion.bloqueadas, configuracion.terminadas);
+        }
+    }
+
+    /**
+     * Devuelve el cuantil 0.975 de la t de Student, de tabla hasta 30 grados de libertad y con la expansión de
+     * Cornish-Fisher a partir de la normal para más.
+     *
+     * @param grados grados de libertad
+     * @return Cuantil
+     */
+    static double cuantilT(int grados) {
+        if (grados <= CUANTILEST.length) {
+            return CUANTILEST[grados - 1];
+        }
+        double z = CUANTILNORMAL;
+        return z + (z * z * z + z) / (4.0 * grados)
+                + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96.0 * grados * grados);
+    }
+
+    /**
+     * Da formato a un número del CSV con punto decimal; los valores no finitos quedan vacíos.
+     *
+     * @param valor número
+     * @param decimales cantidad de decimales
+     * @return Texto del número
+     */
+    private static String numero(double valor, int decimales) {
+        return Double.isFinite(valor) ? String.format(Locale.ROOT, "%." + decimales + "f", valor) : "";
+    }
+
+    /**
+     * Entrecomilla un campo de texto del CSV si contiene separadores o comillas.
+     *
+     * @param texto texto del campo
+     * @return Campo listo para escribir
+     */
+    private static String campo(String texto) {
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Lee de una propiedad del sistema las alternativas de un parámetro, separadas por punto y coma.
+     *
+     * @param propiedad nombre de la propiedad
+     * @param porDefecto alternativa a usar si la propiedad no está definida
+     * @param interpretar conversión del texto de cada alternativa a su valor
+     * @param <T> tipo del valor
+     * @return Alternativas leídas, o la alternativa por defecto
+     */
+    private static <T> List<Valor<T>> alternativas(String propiedad, Valor<T> porDefecto,
+                                                   Function<String, T> interpretar) {
+        String texto = System.getProperty(propiedad);
+        if (texto == null) {
+            return Collections.singletonList(porDefecto);
+        }
+        return Arrays.stream(texto.split(";")).map(String::trim).filter(a -> !a.isEmpty())
+                .map(a -> new Valor<>(interpretar.apply(a), a)).collect(Collectors.toList());
+    }
+
+    /**
+     * Ejecuta un lote sobre la red indicada con la propiedad {@code hydra.red}, como en {@link Main}, vuelca el CSV e
+     * imprime el resumen. Las alternativas de cada parámetro se separan con punto y coma:
+     * {@code hydra.lote.hilos} (hilos por segmento separados por comas, ej. "2,2,1;4,4,2"),
+     * {@code hydra.lote.alpha} y {@code hydra.lote.beta} (límites por transición en microsegundos, con el formato
+     * de {@code hydra.alpha}) y {@code hydra.lote.politicas} (ej. "balanceada;plazos;reparto:7,3,5"); sin la
+     * propiedad se usa el valor de la red o la política balanceada. {@code hydra.lote.replicas} y
+     * {@code hydra.lote.semilla} indican las réplicas por configuración y la primera semilla, y
+     * {@code hydra.lote.salida} el archivo CSV. Como en la simulación de {@link Main}, {@code hydra.parada},
+     * {@code hydra.calentamiento} y {@code hydra.tarea} indican la parada, el calentamiento y la duración de las
+     * tareas de cada réplica, y {@code hydra.paralelismo} los hilos del pool.
+     *
+     * @param args no se usan
+     */
+    public static void main(String[] args) {
+        // Se carga la red y se toman sus valores como alternativas por defecto
+        DefinicionRed red = Main.cargarRed(System.getProperty("hydra.red"));
+        int[] hilosRed = Arrays.stream(red.crearSegmentos()).mapToInt(Segmento::getNroHilo).toArray();
+        Valor<int[]> hilosPorDefecto = new Valor<>(hilosRed,
+                Arrays.stream(hilosRed).mapToObj(Integer::toString).collect(Collectors.joining(",")));
+
+        // Se arma el lote con las alternativas de las propiedades
+        LoteSimulaciones lote = new LoteSimulaciones(red,
+                alternativas("hydra.lote.hilos", hilosPorDefecto,
+                        a -> Arrays.stream(a.split(",")).mapToInt(h -> Integer.parseInt(h.trim())).toArray()),
+                alternativas("hydra.lote.alpha", new Valor<>(red.getAlpha(), "red"), Main::interpretarTiempos),
+                alternativas("hydra.lote.beta", new Valor<>(red.getBeta(), "red"), Main::interpretarTiempos),
+                Arrays.stream(System.getProperty("hydra.lote.politicas", "balanceada").split(";"))
+                        .map(String::trim).filter(p -> !p.isEmpty()).collect(Collectors.toList()),
+                Integer.getInteger("hydra.lote.replicas", REPLICAS), Long.getLong("hydra.lote.semilla", 1),
+                System.getProperty("hydra.parada", PARADA), Long.getLong("hydra.calentamiento", 0),
+                Long.getLong("hydra.tarea", 0),
+                Integer.getInteger("hydra.paralelismo", Runtime.getRuntime().availableProcessors()));
+
+        // Se ejecuta el lote y se imprime el resumen
+        lote.ejecutar(Paths.get(System.getProperty("hydra.lote.salida", ARCHIVOLOTE)));
+        lote.imprimirResumen(System.out);
+    }
+}
@@ -1,69 +1,46 @@
 package org.hydra;
 
-import com.google.common.collect.Iterables;
-
 import org.hydra.beans.Segmento;
 import org.hydra.beans.VectorSensibilizado;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
 
 /**
  * Clase principal que contiene el método principal para ejecutar la simulación de la red de Petri y
  * una función para correr un analizador de invariantes.
  */
 public class Main {
-    // Se declara un arreglo con los tokens iniciales de la red
-    private static final double[] TOKENSINICIALES =
-            //           1  2  3  4  5  6  7  8  9 10 11 12 13 14 15 16 17
-            new double[]{0, 0, 0, 0, 0, 0, 4, 0, 0, 0, 4, 2, 2, 3, 1, 2, 1};
-
-    // Se declara una matriz que representa la matriz de incidencia
-    private static final double[][] MATRIZFLUJODATA = {
-            //T1 T2 T3 T4 T5 T6 T7 T8 T9 T10 T11 T12
-            { 1,-1,-1, 0, 0, 0, 0, 0, 0, 0,  0,  0}, //P1
-            { 0, 1, 0,-1, 0, 0, 0, 0, 0, 0,  0,  0}, //P2
-            { 0, 0, 1, 0,-1, 0, 0, 0, 0, 0,  0,  0}, //P3
-            { 0, 0, 0, 1, 0,-1, 0, 0, 0, 0,  0,  0}, //P4
-            { 0, 0, 0, 0, 1, 0,-1, 0, 0, 0,  0,  0}, //P5
-            { 0, 0, 0, 0, 0, 1, 1,-1, 0, 0,  0,  0}, //P6
-            {-1, 0, 0, 0, 0, 0, 0, 1, 0, 0,  0,  0}, //P7
-            { 0, 0, 0, 0, 0, 0, 0, 0, 1,-1,  0,  0}, //P8
-            { 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, -1,  0}, //P9
-            { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,  1, -1}, //P10
-            { 0, 0, 0, 0, 0, 0, 0, 0,-1, 0,  0,  1}, //P11
-            {-1, 1, 1, 0, 0, 0, 0, 0, 0, 0, -1,  1}, //P12
-            { 0,-1,-1, 1, 1, 0, 0, 0, 0,-1,  1,  0}, //P13
-            { 0, 0, 0,-1,-1, 1, 1, 0,-1, 1,  0,  0}, //P14
-            { 0, 0, 0, 0, 0,-1,-1, 1, 0, 0,  0,  0}, //P15
-            { 0, 0, 0, 0, 0, 0, 0, 0,-1, 1,  0,  0}, //P16
-            { 0, 0, 0, 0, 0, 0, 0, 0, 0,-1,  1,  0}, //P17
-    };
-
-    // Se declara un arreglo de segmentos, donde se le pasa la cantidad de hilos, los elementos que componen el
-    // segmento y el nombre de dicho segmento
-    private static final Segmento[] segmentos = {
-            new Segmento(2, Iterables.cycle(0).iterator(), "A"),
-            new Segmento(4, Iterables.cycle(1, 3, 5).iterator(), "B"),
-            new Segmento(4, Iterables.cycle(2, 4, 6).iterator(), "C"),
-            new Segmento(1, Iterables.cycle(7).iterator(), "D"),
-            new Segmento(4, Iterables.cycle(8, 9, 10, 11).iterator(), "E")
-    };
-
-    // Se declara una lista que conteiene los caminos de produccion
-    private static final List<List<Integer>> plazasTransiciones = Arrays.asList(
-            // Bloques cuadrados de madera
-            Arrays.asList(0,1,3,5,7),
-
-            // Bloques circulares de madera
-            Arrays.asList(0,2,4,6,7),
-
-            // Figuras de madera
-            Arrays.asList(8,9,10,11));
+    // Se declaran la traza binaria de disparos y el log de texto que lee el analizador de invariantes
+    private static final String ARCHIVOTRAZA = "traza.bin";
+    private static final String ARCHIVOLOG = "log.txt";
+
+    // Se declara cada cuantos disparos la guarda verifica el marcado completo con los p-invariantes
+    private static final int PERIODOGUARDIA = 16;
+
+    // Se declaran los t-invariantes que se miden por defecto y el maximo de ventanas de la condicion estable
+    private static final int LIMITEINVARIANTES = 1000;
+    private static final int MAXIMOVENTANAS = 100;
+
+    // Se declara el recurso con la red de la fabrica, que se usa si no se indica otra con la propiedad hydra.red
+    private static final String REDFABRICA = "/redes/fabrica.red";
+    private static final DefinicionRed FABRICA = cargarFabrica();
+
+    // Se declara el prefijo de hydra.red que indica una red generada en lugar de un archivo
+    private static final String PREFIJOGENERADA = "generar:";
+
+    // Se declara el directorio de la cache del analisis estructural, que puede cambiarse con la propiedad hydra.cache
+    private static final String CACHEANALISIS = "hydra-analisis";
 
     /**
      * Método principal que inicializa y ejecuta la simulación de la red de Petri.
@@ -72,27 +49,104 @@ public class Main {
      * @throws InterruptedException Si se produce una interrupción mientras el hilo está esperando.
      */
     public static void main(String[] args) throws InterruptedException {
-        // Se declara un nuevo elemento de la RDP pasandole la matriz de incidencia y los tokens iniciales
-        RDP rdp = new RDP(MATRIZFLUJODATA, TOKENSINICIALES);
+        // Se carga la red indicada con la propiedad hydra.red, o la de la fabrica
+        DefinicionRed red = cargarRed(System.getProperty("hydra.red"));
+
+        // Se analiza la estructura de la red y se validan sus t-invariantes, salvo que la propiedad hydra.analisis
+        // lo desactive, guardando el resultado en la cache indicada con la propiedad hydra.cache ("no" la desactiva)
+        if (!"no".equals(System.getProperty("hydra.analisis"))) {
+            String cache = System.getProperty("hydra.cache",
+                    Paths.get(System.getProperty("java.io.tmpdir"), CACHEANALISIS).toString());
+            AnalisisEstructural.analizar(red, "no".equals(cache) ? null : Paths.get(cache))
+                    .informar(System.out, red::getNombrePlaza, red::getNombreTransicion);
+        }
+        List<List<Integer>> plazasTransiciones = red.getTInvariantes();
+        Segmento[] segmentos = red.crearSegmentos();
+
+        // Se declara un nuevo elemento de la RDP con la estructura y el marcado inicial de la red
+        RDP rdp = red.crearRed();
 
         // Se declara un nuevo elemento de los ProcesosModelados pasandole la rdp y el listado de los t-invariantes
         ProcesosModelados procesoModelado = new ProcesosModelados(rdp, plazasTransiciones);
 
-        // Se crea un nuevo elemento de AdminMonitor pasandole los procesoModelado de la red
-        AdminMonitor monitor = new AdminMonitor(procesoModelado);
+        // Se aplica la politica elegida con la propiedad hydra.politica
+        procesoModelado.setPolitica(crearPolitica(System.getProperty("hydra.politica", "balanceada"), procesoModelado));
 
-        // Se declara un nuevo elemento de VectorSensibilizado pasandole el monitor
-        VectorSensibilizado vectorSensibilizado = new VectorSensibilizado(monitor);
+        // Se simula la red con eventos discretos en un unico hilo, en lugar de lanzar los hilos, si se indico una
+        // semilla con la propiedad hydra.simulacion
+        String semilla = System.getProperty("hydra.simulacion");
+        if (semilla != null) {
+            simular(red, procesoModelado, segmentos, Long.parseLong(semilla.trim()));
+            return;
+        }
+
+        // Se crea el monitor elegido con la propiedad hydra.monitor pasandole los procesoModelado de la red
+        Monitor monitor = crearMonitor(System.getProperty("hydra.monitor", "mutex"), procesoModelado);
+
+        // Se publican por JMX las metricas del monitor con semaforo global y, si se indico un periodo con la
+        // propiedad hydra.metricas, se vuelcan periodicamente
+        MetricasMonitor metricas = monitor instanceof AdminMonitor ? ((AdminMonitor) monitor).getMetricas() : null;
+        String periodoMetricas = System.getProperty("hydra.metricas");
+        ScheduledExecutorService volcadoMetricas = null;
+        if (metricas != null) {
+            metricas.setSegmentos(segmentos);
+            publicarMetricas(metricas);
+            if (periodoMetricas != null) {
+                volcadoMetricas = metricas.programarVolcado(leerDuracion(periodoMetricas), TimeUnit.MILLISECONDS,
+                        System.out);
+            }
+        }
+
+        // Se declara un nuevo elemento de VectorSensibilizado pasandole el monitor y los limites de las ventanas
+        // de la red, que pueden reemplazarse con las propiedades hydra.alpha y hydra.beta en microsegundos
+        VectorSensibilizado vectorSensibilizado = new VectorSensibilizado(monitor,
+                leerTiempos("hydra.alpha", red.getAlpha(), rdp.getTotaltransiciones()),
+                leerTiempos("hydra.beta", red.getBeta(), rdp.getTotaltransiciones()),
+                TimeUnit.MICROSECONDS);
+
+        // Se conserva el inicio de las ventanas con hilos esperando solo si lo pide la propiedad hydra.memoriaVentana
+        vectorSensibilizado.setMemoriaVentana(Boolean.getBoolean("hydra.memoriaVentana"));
 
         // Se setea el vector de sensibilizado de la red bansadose en vectorSensibilizaddo
         rdp.setVectorSensibilizado(vectorSensibilizado);
 
-        // Se declara un nuevo elemento de Inicializador pasandole el monitor, los segmentos y los procesos
-        // que modela la red
-        Inicializador initializer = new Inicializador(monitor, segmentos, procesoModelado);
+        // Se crea el registro de disparos elegido con la propiedad hydra.registro, que verifica los t-invariantes
+        // a medida que vuelca los disparos
+        String tipoRegistro = System.getProperty("hydra.registro", "binario");
+        Path archivoRegistro = Paths.get(tipoRegistro.equals("binario") ? ARCHIVOTRAZA : ARCHIVOLOG);
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(plazasTransiciones, rdp.getTotaltransiciones());
+        RegistroDisparos registroDisparos = crearRegistro(tipoRegistro, archivoRegistro, rdp, verificador);
+        rdp.setRegistroDisparos(registroDisparos);
+
+        // Se activa la guarda del marcado con los p-invariantes, verificando el marcado completo cada tantos disparos
+        // como indique la propiedad hydra.guardia (0 la desactiva)
+        int periodoGuardia = Integer.getInteger("hydra.guardia", PERIODOGUARDIA);
+        GuardiaMarcado guardia = periodoGuardia > 0 ? rdp.activarGuardia(periodoGuardia) : null;
+
+        // Se realizan las tareas de las transiciones fuera del monitor con el ejecutor elegido con la propiedad
+        // hydra.tareas y, si la propiedad hydra.tarea indica una duracion en microsegundos, se registra en cada
+        // transicion una tarea que espera ese tiempo, con a lo sumo hydra.concurrencia tareas en curso por transicion
+        EjecutorTareas ejecutorTareas = EjecutorTareas.crear(System.getProperty("hydra.tareas", "inline"));
+        procesoModelado.setEjecutorTareas(ejecutorTareas, monitor);
+        long duracionTarea = Long.getLong("hydra.tarea", 0);
+        if (duracionTarea > 0) {
+            for (int t = 0; t < rdp.getTotaltransiciones(); t++) {
+                procesoModelado.registrarTarea(t, EjecutorTareas.espera(duracionTarea, TimeUnit.MICROSECONDS),
+                        Integer.getInteger("hydra.concurrencia", 0), -1);
+            }
+        }
 
-        // Se crea un nueva instancia de la clase Estadistica
-        Estadistica estadistica = rdp.crearEstadistica(plazasTransiciones);
+        // Se declara un nuevo elemento de Inicializador pasandole el monitor, los segmentos, los procesos
+        // que modela la red, la fabrica de hilos elegida con la propiedad hydra.hilos y las transiciones que
+        // vacian la red al terminar
+        Inicializador initializer = new Inicializador(monitor, segmentos, procesoModelado,
+                FabricaHilos.crear(System.getProperty("hydra.hilos", "plataforma")), red.getTransicionesFinales());
+
+        // Se crea un nueva instancia de la clase Estadistica, que descarta los t-invariantes de calentamiento
+        // indicados con la propiedad hydra.calentamiento y mide hasta la condicion de la propiedad hydra.parada
+        CondicionParada parada = crearCondicionParada(System.getProperty("hydra.parada", "invariantes:" + LIMITEINVARIANTES));
+        Estadistica estadistica = rdp.crearEstadistica(plazasTransiciones, Long.getLong("hydra.calentamiento", 0), parada);
+        estadistica.imprimirInvariantes();
 
         // Se llama al metodo para registrar el tiempo de inicio
         estadistica.setTimeStart();
@@ -100,70 +154,469 @@ public class Main {
         // Se inicializan y lanzan los hilos
         initializer.start();
 
-        // Se espera a que se tengan 1000 invariantes en total
-        estadistica.esperar1000TInvariantes();
+        // Se espera el calentamiento y la condicion de parada
+        estadistica.esperarFin();
 
         // Se finalizan todos los hilos
         initializer.finish();
 
+        // Se vuelcan los disparos pendientes antes de analizarlos
+        registroDisparos.cerrar();
+
         // Se llama al metodo para registrar el tiempo de finalizacion
         estadistica.setTimeStop();
 
         // Se imprimen las estadisticas de la ejecucion
         estadistica.imprimirEstadisticas();
 
-        // Se llama a la funcion que corre el analizador para ver que las ejecuciones sean validas
-        correrAnalizadorTInvariantes();
+        // Se informa si la tasa se estabilizo, cuando se midio hasta estabilizarla
+        if (parada instanceof ParadaPorEstabilidad) {
+            ParadaPorEstabilidad estabilidad = (ParadaPorEstabilidad) parada;
+            System.out.printf(estabilidad.isEstabilizada() ? "Tasa estabilizada en %.1f t-invariantes/s\n"
+                    : "La tasa no se estabilizo (ultimo promedio %.1f t-invariantes/s)\n", estabilidad.getTasa());
+        }
+
+        // Se detiene el volcado de metricas y se imprimen las finales
+        if (volcadoMetricas != null) {
+            volcadoMetricas.shutdownNow();
+            metricas.imprimir(System.out);
+        }
+
+        // Se imprimen las metricas de las tareas, si se registraron
+        if (duracionTarea > 0) {
+            ejecutorTareas.imprimir(System.out);
+        }
+
+        // Se informan los vencimientos y la guarda, se exporta la traza y se verifican los t-invariantes
+        informarFin(rdp, vectorSensibilizado, guardia, tipoRegistro, archivoRegistro, verificador);
     }
 
     /**
-     * Funcion que se encarga de analizar los invariantes y de imprimir el resultado de ejecutar el
-     * archivo encargado de esto
+     * Simula la red con {@link SimuladorEventos} en lugar de lanzar los hilos. Usa las mismas propiedades que la
+     * ejecución con hilos, salvo el monitor, los hilos y las métricas, que no intervienen; la propiedad hydra.tarea
+     * indica en microsegundos la duración virtual de la tarea de cada disparo (por defecto 0).
+     *
+     * @param red definición de la red
+     * @param procesoModelado proceso modelado de la red, con la política ya elegida
+     * @param segmentos segmentos de la red
+     * @param semilla semilla de la simulación
      */
-    public static void correrAnalizadorTInvariantes() {
-        // Se declara un String con el path del archivo a ejecutar
-        String path = "../Regex/regex1.py";
+    private static void simular(DefinicionRed red, ProcesosModelados procesoModelado, Segmento[] segmentos,
+                                long semilla) {
+        RDP rdp = procesoModelado.getRDP();
+
+        // Se crea la salida de la traza elegida con la propiedad hydra.registro, verificando los t-invariantes
+        String tipoRegistro = System.getProperty("hydra.registro", "binario");
+        if (tipoRegistro.equals("log4j")) {
+            throw new IllegalArgumentException("La simulacion de eventos no admite el registro log4j");
+        }
+        Path archivoRegistro = Paths.get(tipoRegistro.equals("binario") ? ARCHIVOTRAZA : ARCHIVOLOG);
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(red.getTInvariantes(),
+                rdp.getTotaltransiciones());
+        EscritorTraza salida = verificador.verificando(crearEscritor(tipoRegistro, archivoRegistro, rdp));
+
+        // Se crea el simulador, que asigna a la red el vector de sensibilizados con su reloj virtual, y se activa la
+        // memoria de la ventana si lo pide la propiedad hydra.memoriaVentana
+        SimuladorEventos simulador = new SimuladorEventos(procesoModelado, segmentos,
+                leerTiempos("hydra.alpha", red.getAlpha(), rdp.getTotaltransiciones()),
+                leerTiempos("hydra.beta", red.getBeta(), rdp.getTotaltransiciones()),
+                TimeUnit.MICROSECONDS, Long.getLong("hydra.tarea", 0), red.getTransicionesFinales(), semilla, salida);
+        rdp.getVectorSensibilizado().setMemoriaVentana(Boolean.getBoolean("hydra.memoriaVentana"));
+
+        // Se activan la guarda del marcado y la estadistica como en la ejecucion con hilos
+        int periodoGuardia = Integer.getInteger("hydra.guardia", PERIODOGUARDIA);
+        GuardiaMarcado guardia = periodoGuardia > 0 ? rdp.activarGuardia(periodoGuardia) : null;
+        CondicionParada parada = crearCondicionParada(System.getProperty("hydra.parada", "invariantes:" + LIMITEINVARIANTES));
+        Estadistica estadistica = rdp.crearEstadistica(red.getTInvariantes(), Long.getLong("hydra.calentamiento", 0),
+                parada);
+        estadistica.imprimirInvariantes();
+
+        // Se simula hasta la condicion de parada y se imprimen las estadisticas
+        estadistica.setTimeStart();
+        simulador.ejecutar(estadistica, parada);
+        estadistica.setTimeStop();
+        System.out.printf("Tokens finales %s\n", Arrays.toString(rdp.getTokens()));
+        estadistica.imprimirEstadisticas();
+        simulador.imprimirResultado(System.out);
 
-        // Se declara un arreglo de String que tiene el parametro para ejecutar el script y el path donde se encuentra
-        String[] cmd = {"python3", path};
+        // Se informan los vencimientos y la guarda, se exporta la traza y se verifican los t-invariantes
+        informarFin(rdp, rdp.getVectorSensibilizado(), guardia, tipoRegistro, archivoRegistro, verificador);
+    }
 
-        try {
-            // Se ejecuta el comando del script
-            Process proceso = Runtime.getRuntime().exec(cmd);
+    /**
+     * Informa los vencimientos de ventanas y el resultado de la guarda, exporta la traza binaria a texto si se pidió
+     * con la propiedad hydra.log y verifica los t-invariantes.
+     *
+     * @param rdp red ejecutada
+     * @param vectorSensibilizado vector de sensibilizados de la red
+     * @param guardia guarda del marcado, o null si no se activó
+     * @param tipoRegistro tipo de registro de los disparos
+     * @param archivoRegistro archivo donde se registraron los disparos
+     * @param verificador verificador de t-invariantes
+     */
+    private static void informarFin(RDP rdp, VectorSensibilizado vectorSensibilizado, GuardiaMarcado guardia,
+                                    String tipoRegistro, Path archivoRegistro, VerificadorTInvariantes verificador) {
+        // Se imprimen los vencimientos de ventanas, si los hubo
+        for (int i = 0; i < rdp.getTotaltransiciones(); i++) {
+            if (vectorSensibilizado.getVencimientos(i) > 0) {
+                System.out.printf("Vencimientos de la ventana de T%d: %d\n", i + 1, vectorSensibilizado.getVencimientos(i));
+            }
+        }
+
+        // Se imprime el resultado de la guarda del marcado
+        if (guardia != null) {
+            System.out.printf("Guarda del marcado: %d p-invariantes, %d verificaciones completas, %d violaciones\n",
+                    guardia.getCantidadInvariantes(), guardia.getVerificaciones(), guardia.getViolaciones());
+        }
 
-            // Se imprime por consola que se termino la ejecucion de la REGEX
-            System.out.println("Ejecucion de la REGEX");
+        // Se exporta la traza binaria a texto si se pidio con la propiedad hydra.log
+        String log = System.getProperty("hydra.log");
+        if (log != null && tipoRegistro.equals("binario")) {
+            exportarTraza(archivoRegistro, Paths.get(log));
+        }
 
-            String commandRead;
+        // Se verifican los t-invariantes, releyendo el log si el registro no los verifico en vivo
+        verificarTInvariantes(verificador, tipoRegistro.equals("log4j") ? archivoRegistro : null);
+    }
 
-            // Se crea un BufferedReader para leer la salida del proceso a través de su flujo de entrada estándar
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(proceso.getInputStream()));
+    /**
+     * Crea la RdP de la fábrica con su marcado inicial.
+     *
+     * @return RdP de la fábrica
+     */
+    public static RDP crearRed() {
+        // Se crea la red a partir de la definicion de la fabrica
+        return FABRICA.crearRed();
+    }
 
-            // Se itera sobre cada línea de la salida del proceso hasta que no haya más líneas
-            // Se lee una línea del proceso y la almacena en commandRead
-            while ((commandRead = stdInput.readLine()) != null) {
-                // Se imprime la linea leida del proceso
-                System.out.println(commandRead);
-            }
+    /**
+     * Retorna los t-invariantes de la RdP de la fábrica.
+     *
+     * @return Listado de los caminos de producción
+     */
+    public static List<List<Integer>> getTInvariantes() {
+        // Se retornan los caminos de produccion
+        return FABRICA.getTInvariantes();
+    }
 
-            // Se destruye el proceso una vez que se termino de leer la salida
-            proceso.destroy();
+    /**
+     * Carga la definición de una RdP desde un archivo de texto o PNML, según {@link CargadorRed}, o la genera con
+     * {@link GeneradorRedes} si se indica {@code generar:} seguido de su descripción.
+     *
+     * @param archivo ruta del archivo, descripción de la red generada, o null para usar la red de la fábrica
+     * @return Definición de la red
+     * @throws UncheckedIOException si no se puede leer el archivo
+     */
+    public static DefinicionRed cargarRed(String archivo) {
+        // Se usa la red de la fabrica si no se indico un archivo
+        if (archivo == null) {
+            return FABRICA;
+        }
 
-            try {
-                // Se espera a que el proceso termine
-                proceso.waitFor();
+        try {
+            // Se genera o se carga la red y se informa su tamaño
+            DefinicionRed red = archivo.startsWith(PREFIJOGENERADA)
+                    ? GeneradorRedes.generar(archivo.substring(PREFIJOGENERADA.length()))
+                    : CargadorRed.cargar(Paths.get(archivo));
+            System.out.printf("Red %s: %d plazas, %d transiciones, %d arcos\n", red.getNombre(),
+                    red.getTotalPlazas(), red.getTotalTransiciones(), red.getTotalArcos());
+            return red;
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo leer la red
+            throw new UncheckedIOException("No se pudo leer la red " + archivo, e);
+        }
+    }
 
-                // Se imprime el codigo con el que termino la REGEX
-                System.out.printf("REGEX termino con el codigo %d\n", proceso.exitValue());
+    /**
+     * Carga la definición de la RdP de la fábrica desde el classpath.
+     *
+     * @return Definición de la fábrica
+     * @throws UncheckedIOException si no se puede leer el recurso
+     */
+    private static DefinicionRed cargarFabrica() {
+        try {
+            // Se lee el recurso de la fabrica
+            return CargadorRed.cargarRecurso(REDFABRICA);
+        }
+        catch (IOException e) {
+            // Se informa que el recurso no esta disponible
+            throw new UncheckedIOException("No se pudo leer la red de la fabrica " + REDFABRICA, e);
+        }
+    }
+
+    /**
+     * Crea el monitor de concurrencia indicado por nombre.
+     *
+     * @param tipo "mutex" para el monitor con semáforo global, "franjas" para el monitor con locks por franja de
+     *             plazas o "cas" para el monitor sin lock global
+     * @param procesoModelado proceso modelado de la red
+     * @return Monitor creado
+     */
+    public static Monitor crearMonitor(String tipo, ProcesosModelados procesoModelado) {
+        // Se crea el monitor segun el tipo indicado
+        switch (tipo) {
+            case "mutex":
+                return new AdminMonitor(procesoModelado);
+            case "franjas":
+                return new MonitorFranjas(procesoModelado);
+            case "cas":
+                return new MonitorCAS(procesoModelado);
+            default:
+                throw new IllegalArgumentException("Tipo de monitor desconocido: " + tipo);
+        }
+    }
+
+    /**
+     * Registra las métricas del monitor en el servidor JMX. Si no se puede, la ejecución sigue sin ellas.
+     *
+     * @param metricas métricas a publicar
+     */
+    private static void publicarMetricas(MetricasMonitor metricas) {
+        try {
+            // Se registran las metricas con su nombre JMX
+            metricas.registrarJmx();
+        }
+        catch (JMException e) {
+            // Se informa que las metricas no estaran disponibles por JMX
+            System.err.println("No se pudieron publicar las metricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crea el registro de disparos indicado por nombre.
+     *
+     * @param tipo "binario" para el diario asíncrono con traza binaria, "diario" para el diario asíncrono con traza
+     *             de texto o "log4j" para el registro síncrono con log4j
+     * @param archivo archivo donde se escriben los disparos
+     * @param rdp red cuyos disparos se registran
+     * @param verificador verificador de t-invariantes que los diarios alimentan en vivo, o null
+     * @return Registro creado
+     * @throws UncheckedIOException si no se puede abrir el archivo
+     */
+    public static RegistroDisparos crearRegistro(String tipo, Path archivo, RDP rdp, VerificadorTInvariantes verificador) {
+        try {
+            // Se crea el registro segun el tipo indicado
+            switch (tipo) {
+                case "binario":
+                case "diario":
+                    return crearDiario(crearEscritor(tipo, archivo, rdp), verificador);
+                case "log4j":
+                    return new RegistroLog4j(archivo.toString());
+                default:
+                    throw new IllegalArgumentException("Tipo de registro desconocido: " + tipo);
             }
-            catch (InterruptedException e) {
-                // Se imprime el error
-                e.printStackTrace();
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo abrir el archivo de registro
+            throw new UncheckedIOException("No se pudo abrir el archivo de registro " + archivo, e);
+        }
+    }
+
+    /**
+     * Crea la salida de traza indicada por nombre, sin diario.
+     *
+     * @param tipo "binario" para la traza binaria o "diario" para la traza de texto
+     * @param archivo archivo donde se escriben los disparos
+     * @param rdp red cuyos disparos se escriben
+     * @return Salida creada
+     * @throws UncheckedIOException si no se puede abrir el archivo
+     */
+    public static EscritorTraza crearEscritor(String tipo, Path archivo, RDP rdp) {
+        try {
+            // Se crea la salida segun el tipo indicado
+            switch (tipo) {
+                case "binario":
+                    return new EscritorTrazaBinaria(archivo, rdp.getMotor().getTotalPlazas(), rdp.getTotaltransiciones());
+                case "diario":
+                    return new EscritorTrazaTexto(archivo);
+                default:
+                    throw new IllegalArgumentException("Tipo de traza desconocido: " + tipo);
             }
         }
         catch (IOException e) {
-            // Se imprime el error
-            e.printStackTrace();
+            // Se informa que no se pudo abrir el archivo de la traza
+            throw new UncheckedIOException("No se pudo abrir el archivo de registro " + archivo, e);
         }
     }
+
+    /**
+     * Crea un diario de disparos sobre la salida indicada, verificando los t-invariantes si se pasa un verificador.
+     *
+     * @param salida salida de la traza
+     * @param verificador verificador de t-invariantes, o null
+     * @return Diario creado
+     */
+    private static DiarioDisparos crearDiario(EscritorTraza salida, VerificadorTInvariantes verificador) {
+        // Se envuelve la salida con el verificador, si lo hay
+        return new DiarioDisparos(verificador == null ? salida : verificador.verificando(salida));
+    }
+
+    /**
+     * Exporta una traza binaria de disparos al formato de texto.
+     *
+     * @param traza archivo de la traza binaria
+     * @param log archivo de texto de destino
+     * @throws UncheckedIOException si no se puede leer la traza o escribir el log
+     */
+    public static void exportarTraza(Path traza, Path log) {
+        try (LectorTraza lector = new LectorTraza(traza)) {
+            // Se escribe una linea de texto por disparo
+            lector.exportarTexto(log);
+        }
+        catch (IOException e) {
+            // Se informa que no se pudo exportar la traza
+            throw new UncheckedIOException("No se pudo exportar la traza " + traza, e);
+        }
+    }
+
+    /**
+     * Crea la política de disparo indicada por nombre.
+     *
+     * @param tipo "balanceada" para la política por defecto, "plazos" para la de plazo más próximo o
+     *             "reparto:p1,p2,..." para el reparto ponderado con un peso por t-invariante
+     * @param procesoModelado proceso modelado de la red
+     * @return Política creada
+     */
+    public static PoliticaDisparo crearPolitica(String tipo, ProcesosModelados procesoModelado) {
+        // Se separa el nombre de la politica de sus parametros
+        String[] partes = tipo.split(":", 2);
+
+        // Se crea la politica segun el nombre indicado
+        switch (partes[0]) {
+            case "balanceada":
+                return new Politicas(procesoModelado);
+            case "plazos":
+                return new PoliticaPlazos(procesoModelado);
+            case "reparto":
+                if (partes.length < 2) {
+                    throw new IllegalArgumentException("La politica de reparto requiere los pesos, ej. reparto:7,3,5");
+                }
+                return new PoliticaReparto(procesoModelado,
+                        Arrays.stream(partes[1].split(",")).mapToInt(p -> Integer.parseInt(p.trim())).toArray());
+            default:
+                throw new IllegalArgumentException("Politica desconocida: " + tipo);
+        }
+    }
+
+    /**
+     * Crea la condición de parada indicada por nombre.
+     *
+     * @param tipo "invariantes:N" para medir N t-invariantes, "duracion:D" para medir durante D (con sufijo ms, s o
+     *             m, por defecto s) o "estable:V,K,tol[,max]" para medir en ventanas de duración V hasta que las
+     *             tasas de las últimas K difieran menos que la tolerancia relativa tol, con a lo sumo max ventanas
+     *             (por defecto 100)
+     * @return Condición creada
+     */
+    public static CondicionParada crearCondicionParada(String tipo) {
+        // Se separa el nombre de la condicion de sus parametros
+        String[] partes = tipo.split(":", 2);
+        if (partes.length < 2) {
+            throw new IllegalArgumentException("La condicion de parada requiere parametros, ej. invariantes:1000");
+        }
+
+        // Se crea la condicion segun el nombre indicado
+        switch (partes[0]) {
+            case "invariantes":
+                return new ParadaPorInvariantes(Long.parseLong(partes[1].trim()));
+            case "duracion":
+                return new ParadaPorDuracion(leerDuracion(partes[1]), TimeUnit.MILLISECONDS);
+            case "estable":
+                String[] parametros = partes[1].split(",");
+                if (parametros.length < 3) {
+                    throw new IllegalArgumentException("La condicion estable requiere ventana, ventanas y tolerancia, "
+                            + "ej. estable:1s,5,0.05");
+                }
+                return new ParadaPorEstabilidad(leerDuracion(parametros[0]), TimeUnit.MILLISECONDS,
+                        Integer.parseInt(parametros[1].trim()), Double.parseDouble(parametros[2].trim()),
+                        parametros.length > 3 ? Integer.parseInt(parametros[3].trim()) : MAXIMOVENTANAS);
+            default:
+                throw new IllegalArgumentException("Condicion de parada desconocida: " + tipo);
+        }
+    }
+
+    /**
+     * Interpreta una duración con sufijo ms, s o m; sin sufijo se toma en segundos.
+     *
+     * @param duracion texto de la duración
+     * @return duración en milisegundos
+     */
+    private static long leerDuracion(String duracion) {
+        // Se separa el valor de su unidad
+        String valor = duracion.trim();
+        if (valor.endsWith("ms")) {
+            return Long.parseLong(valor.substring(0, valor.length() - 2));
+        }
+        if (valor.endsWith("m")) {
+            return TimeUnit.MINUTES.toMillis(Long.parseLong(valor.substring(0, valor.length() - 1)));
+        }
+        if (valor.endsWith("s")) {
+            valor = valor.substring(0, valor.length() - 1);
+        }
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(valor));
+    }
+
+    /**
+     * Lee de una propiedad del sistema un límite de ventana por transición, separados por comas. Un límite vacío,
+     * "-" o "inf" indica que no hay límite.
+     *
+     * @param propiedad nombre de la propiedad
+     * @param porDefecto valores a usar si la propiedad no está definida
+     * @param transiciones cantidad de transiciones de la red
+     * @return límites leídos, o los valores por defecto
+     * @throws IllegalArgumentException si la propiedad no indica un límite por transición
+     */
+    public static long[] leerTiempos(String propiedad, long[] porDefecto, int transiciones) {
+        // Se retornan los valores por defecto si la propiedad no esta definida
+        String valor = System.getProperty(propiedad);
+        if (valor == null) {
+            return porDefecto;
+        }
+
+        // Se verifica que haya un limite por transicion, ya que faltantes o sobrantes desalinean los limites
+        long[] tiempos = interpretarTiempos(valor);
+        if (tiempos.length != transiciones) {
+            throw new IllegalArgumentException("La propiedad " + propiedad + " indica " + tiempos.length
+                    + " limites y la red tiene " + transiciones + " transiciones");
+        }
+        return tiempos;
+    }
+
+    /**
+     * Interpreta un límite de ventana por transición, separados por comas. Un límite vacío, "-" o "inf" indica que
+     * no hay límite.
+     *
+     * @param valor texto con los límites
+     * @return límites leídos
+     */
+    public static long[] interpretarTiempos(String valor) {
+        // Se interpreta cada limite
+        return Arrays.stream(valor.split(",", -1)).map(String::trim)
+                .mapToLong(t -> t.isEmpty() || t.equals("-") || t.equals("inf") ? VectorSensibilizado.SIN_LIMITE : Long.parseLong(t))
+                .toArray();
+    }
+
+    /**
+     * Imprime el resultado de la verificación de t-invariantes. Si se indica un archivo, antes se verifican los
+     * disparos registrados en él.
+     *
+     * @param verificador verificador de t-invariantes
+     * @param archivo traza binaria o log de texto a verificar, o null si el verificador ya procesó los disparos
+     */
+    public static void verificarTInvariantes(VerificadorTInvariantes verificador, Path archivo) {
+        // Se verifican los disparos del archivo, si se indico
+        if (archivo != null) {
+            try {
+                verificador.verificar(archivo);
+            }
+            catch (IOException e) {
+                // Se informa que no se pudo leer el archivo
+                throw new UncheckedIOException("No se pudo verificar el archivo " + archivo, e);
+            }
+        }
+
+        // Se imprime el resultado de la verificacion
+        System.out.println("Verificacion de t-invariantes");
+        verificador.imprimirResultado(System.out);
+    }
 }
@@ -0,0 +1,308 @@
+package org.hydra;
+
+import org.hydra.beans.Segmento;
+
+import java.io.PrintStream;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de contención del monitor. Para cada transición mantiene un {@link HistogramaLatencia} por fase del disparo:
+ * la espera del mutex, la espera en la cola de la transición por falta de tokens, la espera en la cola hasta que se
+ * abra la ventana temporal y el disparo en sí, medido como el tiempo con el mutex tomado. Los histogramas de un
+ * segmento se obtienen sumando los de sus transiciones, por lo que no tienen costo de registro propio. Cada histograma
+ * se reserva al registrar su primera latencia, para que las fases y transiciones que no se usan no ocupen memoria en
+ * redes grandes. Además cuenta las adquisiciones del mutex, las que encontraron el mutex tomado y los traspasos del
+ * mutex a hilos dormidos, con cuántos de ellos terminaron en un disparo.
+ * <p>
+ * Las métricas se consultan por JMX con el nombre {@value #NOMBREJMX} y pueden volcarse periódicamente en texto.
+ */
+public class MetricasMonitor implements MetricasMonitorMBean {
+
+    public static final String NOMBREJMX = "org.hydra:type=MetricasMonitor";
+
+    /**
+     * Fases del paso de un hilo por el monitor.
+     */
+    public enum Fase {
+        MUTEX("espera del mutex"),
+        COLA("espera en cola"),
+        VENTANA("espera de ventana"),
+        DISPARO("disparo");
+
+        private final String descripcion;
+
+        Fase(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        @Override
+        public String toString() {
+            return this.descripcion;
+        }
+    }
+
+    private final int totalTransiciones;
+    private final AtomicReferenceArray<HistogramaLatencia> histogramas;
+    private final LongAdder adquisiciones = new LongAdder();
+    private final LongAdder adquisicionesConEspera = new LongAdder();
+    private final LongAdder traspasos = new LongAdder();
+    private final LongAdder traspasosExitosos = new LongAdder();
+    private final LongAdder liberaciones = new LongAdder();
+    private volatile Map<String, int[]> segmentos = new LinkedHashMap<>();
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param totalTransiciones cantidad de transiciones de la red
+     */
+    public MetricasMonitor(int totalTransiciones) {
+        // Se reserva el lugar de un histograma por fase y transicion, que se crea con su primer registro
+        this.totalTransiciones = totalTransiciones;
+        this.histogramas = new AtomicReferenceArray<>(Fase.values().length * totalTransiciones);
+    }
+
+    /**
+     * Define los segmentos por los que se agregan las métricas, a partir de sus transiciones.
+     *
+     * @param segmentos segmentos de la red
+     */
+    public void setSegmentos(Segmento[] segmentos) {
+        // Se guardan las transiciones de cada segmento que las conoce
+        Map<String, int[]> transiciones = new LinkedHashMap<>();
+        for (Segmento segmento : segmentos) {
+            if (segmento.getListaTransiciones().length > 0) {
+                transiciones.put(segmento.toString(), segmento.getListaTransiciones());
+            }
+        }
+        this.segmentos = transiciones;
+    }
+
+    /**
+     * Registra la latencia de una fase para una transición.
+     *
+     * @param fase fase medida
+     * @param transicion transición del hilo
+     * @param nanos latencia en nanosegundos
+     */
+    public void registrar(Fase fase, int transicion, long nanos) {
+        // Se obtiene el histograma, creandolo si es el primer registro; si dos hilos lo crean a la vez queda el
+        // del primero que lo publica
+        int indice = fase.ordinal() * this.totalTransiciones + transicion;
+        HistogramaLatencia histograma = this.histogramas.get(indice);
+        if (histograma == null) {
+            this.histogramas.compareAndSet(indice, null, new HistogramaLatencia());
+            histograma = this.histogramas.get(indice);
+        }
+        histograma.registrar(nanos);
+    }
+
+    /**
+     * Cuenta una adquisición del mutex para disparar.
+     *
+     * @param conEspera true si el mutex estaba tomado
+     */
+    public void contarAdquisicion(boolean conEspera) {
+        this.adquisiciones.increment();
+        if (conEspera) {
+            this.adquisicionesConEspera.increment();
+        }
+    }
+
+    /**
+     * Cuenta un traspaso del mutex a un hilo dormido.
+     */
+    public void contarTraspaso() {
+        this.traspasos.increment();
+    }
+
+    /**
+     * Cuenta el resultado del primer intento de disparo de un hilo despertado por un traspaso.
+     *
+     * @param exitoso true si el hilo pudo disparar
+     */
+    public void contarResultadoTraspaso(boolean exitoso) {
+        if (exitoso) {
+            this.traspasosExitosos.increment();
+        }
+    }
+
+    /**
+     * Cuenta una liberación del mutex sin traspaso.
+     */
+    public void contarLiberacion() {
+        this.liberaciones.increment();
+    }
+
+    /**
+     * Devuelve el histograma de una fase para una transición.
+     *
+     * @param fase fase medida
+     * @param transicion transición
+     * @return histograma, que sigue cambiando con los registros posteriores, o uno vacío que no cambia si todavía
+     * no hay registros
+     */
+    public HistogramaLatencia getHistograma(Fase fase, int transicion) {
+        HistogramaLatencia histograma = this.histogramas.get(fase.ordinal() * this.totalTransiciones + transicion);
+        return histograma == null ? new HistogramaLatencia() : histograma;
+    }
+
+    /**
+     * Devuelve el histograma de una fase para un segmento, como suma de los de sus transiciones.
+     *
+     * @param fase fase medida
+     * @param segmento nombre del segmento
+     * @return histograma del segmento, vacío si el segmento no está definido
+     */
+    public HistogramaLatencia getHistogramaSegmento(Fase fase, String segmento) {
+        // Se suman los histogramas de las transiciones del segmento
+        HistogramaLatencia suma = new HistogramaLatencia();
+        for (int t : this.segmentos.getOrDefault(segmento, new int[0])) {
+            suma.sumar(getHistograma(fase, t));
+        }
+        return suma;
+    }
+
+    @Override
+    public long getAdquisiciones() {
+        return this.adquisiciones.sum();
+    }
+
+    @Override
+    public long getAdquisicionesConEspera() {
+        return this.adquisicionesConEspera.sum();
+    }
+
+    @Override
+    public double getTasaContencion() {
+        long total = this.adquisiciones.sum();
+        return total == 0 ? 0 : (double) this.adquisicionesConEspera.sum() / total;
+    }
+
+    @Override
+    public long getTraspasos() {
+        return this.traspasos.sum();
+    }
+
+    @Override
+    public long getTraspasosExitosos() {
+        return this.traspasosExitosos.sum();
+    }
+
+    @Override
+    public double getTasaTraspasosExitosos() {
+        long total = this.traspasos.sum();
+        return total == 0 ? 0 : (double) this.traspasosExitosos.sum() / total;
+    }
+
+    @Override
+    public long getLiberaciones() {
+        return this.liberaciones.sum();
+    }
+
+    @Override
+    public long percentil(String fase, int transicion, double percentil) {
+        return getHistograma(Fase.valueOf(fase), transicion).getPercentil(percentil);
+    }
+
+    @Override
+    public String getResumen() {
+        // Se arma el encabezado con los contadores del mutex
+        StringBuilder resumen = new StringBuilder();
+        resumen.append(String.format(Locale.ROOT, "Mutex: %d adquisiciones (%.1f%% con espera), %d traspasos "
+                        + "(%.1f%% exitosos), %d liberaciones\n", getAdquisiciones(), 100 * getTasaContencion(),
+                getTraspasos(), 100 * getTasaTraspasosExitosos(), getLiberaciones()));
+        resumen.append(String.format("%-18s %8s %10s %10s %10s %10s %10s %10s %10s\n", "fase", "origen", "cantidad",
+                "prom(us)", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+
+        // Se agrega una linea por fase y transicion, y por fase y segmento, omitiendo las vacias
+        for (Fase fase : Fase.values()) {
+            for (int t = 0; t < this.totalTransiciones; t++) {
+                agregarLinea(resumen, fase, "T" + (t + 1), getHistograma(fase, t).copiar());
+            }
+            for (String segmento : this.segmentos.keySet()) {
+                agregarLinea(resumen, fase, "S" + segmento, getHistogramaSegmento(fase, segmento));
+            }
+        }
+        return resumen.toString();
+    }
+
+    /**
+     * Imprime el informe de las métricas.
+     *
+     * @param salida flujo donde se imprime
+     */
+    public void imprimir(PrintStream salida) {
+        salida.print(getResumen());
+    }
+
+    /**
+     * Registra las métricas en el servidor JMX de la plataforma con el nombre {@value #NOMBREJMX}, reemplazando a
+     * las registradas anteriormente.
+     *
+     * @throws JMException si el servidor rechaza el registro
+     */
+    public void registrarJmx() throws JMException {
+        // Se reemplaza el registro anterior, si lo hay
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nombre = new ObjectName(NOMBREJMX);
+        if (servidor.isRegistered(nombre)) {
+            servidor.unregisterMBean(nombre);
+        }
+        servidor.registerMBean(this, nombre);
+    }
+
+    /**
+     * Programa el volcado periódico del informe en un hilo daemon.
+     *
+     * @param periodo tiempo entre volcados
+     * @param unidad unidad del periodo
+     * @param salida flujo donde se imprime
+     * @return planificador del volcado, que debe detenerse al terminar
+     */
+    public ScheduledExecutorService programarVolcado(long periodo, TimeUnit unidad, PrintStream salida) {
+        // Se crea el planificador con un hilo daemon para no demorar el fin del programa
+        ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "METRICAS");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        // Se imprime el informe al cumplirse cada periodo
+        planificador.scheduleAtFixedRate(() -> imprimir(salida), periodo, periodo, unidad);
+        return planificador;
+    }
+
+    /**
+     * Agrega al informe la línea de un histograma, si tiene registros.
+     *
+     * @param resumen informe en construcción
+     * @param fase fase del histograma
+     * @param origen transición o segmento del histograma
+     * @param histograma histograma a informar
+     */
+    private static void agregarLinea(StringBuilder resumen, Fase fase, String origen, HistogramaLatencia histograma) {
+        if (histograma.getCantidad() == 0) {
+            return;
+        }
+        double[] valores = Arrays.stream(new double[]{50, 90, 99, 99.9})
+                .map(p -> histograma.getPercentil(p) / 1e3).toArray();
+        resumen.append(String.format(Locale.ROOT, "%-18s %8s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f\n",
+                fase, origen, histograma.getCantidad(), histograma.getPromedio() / 1e3, valores[0], valores[1],
+                valores[2], valores[3], histograma.getMaximo() / 1e3));
+    }
+}
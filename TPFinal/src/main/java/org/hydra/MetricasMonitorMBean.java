@@ -0,0 +1,73 @@
+package org.hydra;
+
+/**
+ * Interfaz de gestión JMX de las métricas del monitor. Los tiempos se expresan en nanosegundos.
+ */
+public interface MetricasMonitorMBean {
+
+    /**
+     * Devuelve la cantidad de veces que un hilo entró al monitor para disparar.
+     *
+     * @return adquisiciones del mutex
+     */
+    long getAdquisiciones();
+
+    /**
+     * Devuelve la cantidad de entradas al monitor que encontraron el mutex tomado.
+     *
+     * @return adquisiciones con espera
+     */
+    long getAdquisicionesConEspera();
+
+    /**
+     * Devuelve la proporción de entradas al monitor que encontraron el mutex tomado.
+     *
+     * @return proporción entre 0 y 1
+     */
+    double getTasaContencion();
+
+    /**
+     * Devuelve la cantidad de veces que el monitor cedió el mutex a un hilo dormido en lugar de liberarlo.
+     *
+     * @return traspasos del mutex
+     */
+    long getTraspasos();
+
+    /**
+     * Devuelve la cantidad de traspasos tras los cuales el hilo despertado pudo disparar.
+     *
+     * @return traspasos exitosos
+     */
+    long getTraspasosExitosos();
+
+    /**
+     * Devuelve la proporción de traspasos tras los cuales el hilo despertado pudo disparar.
+     *
+     * @return proporción entre 0 y 1
+     */
+    double getTasaTraspasosExitosos();
+
+    /**
+     * Devuelve la cantidad de veces que el monitor liberó el mutex sin cedérselo a nadie.
+     *
+     * @return liberaciones del mutex
+     */
+    long getLiberaciones();
+
+    /**
+     * Devuelve el informe de las métricas con los percentiles de cada fase por transición y por segmento.
+     *
+     * @return informe en texto
+     */
+    String getResumen();
+
+    /**
+     * Calcula un percentil de la latencia de una fase para una transición.
+     *
+     * @param fase nombre de la fase: MUTEX, COLA, VENTANA o DISPARO
+     * @param transicion índice de la transición
+     * @param percentil porcentaje entre 0 y 100
+     * @return latencia en nanosegundos
+     */
+    long percentil(String fase, int transicion, double percentil);
+}
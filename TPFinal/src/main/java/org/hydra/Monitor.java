@@ -0,0 +1,49 @@
+package org.hydra;
+
+/**
+ * Interfaz común a los monitores de concurrencia que gobiernan el disparo de transiciones de la RdP. Permite
+ * elegir al inicio de la ejecución la estrategia de exclusión utilizada por los disparadores.
+ */
+public interface Monitor {
+
+    /**
+     * Dispara la transición, bloqueando al hilo llamador hasta que la misma pueda dispararse.
+     *
+     * @param transicion Transición a disparar
+     * @throws RuntimeException Excepción manejada en shooter
+     */
+    void disparoTransicion(int transicion) throws RuntimeException;
+
+    /**
+     * Retorna la RdP asociada al monitor.
+     *
+     * @return Instancia de RDP del monitor
+     */
+    RDP getRDP();
+
+    /**
+     * Vuelca en la RdP el marcado que el monitor mantenga por separado. Debe llamarse una vez que los
+     * disparadores terminaron. Los monitores que operan directamente sobre la RdP no necesitan hacer nada.
+     */
+    default void sincronizarMarcado() {
+    }
+
+    /**
+     * Notifica que se abrió la ventana temporal de la transición, para que el monitor despierte a un hilo encolado
+     * en ella. Es invocado por el {@link PlanificadorTemporal} desde su propio hilo.
+     *
+     * @param transicion Transición cuya ventana se abrió
+     */
+    default void ventanaAbierta(int transicion) {
+    }
+
+    /**
+     * Notifica que venció el límite superior de la ventana temporal de la transición, para que el monitor la
+     * deshabilite si sigue sensibilizada desde entonces. Es invocado por el {@link PlanificadorTemporal} desde su
+     * propio hilo.
+     *
+     * @param transicion Transición cuya ventana se cerró
+     */
+    default void ventanaCerrada(int transicion) {
+    }
+}
@@ -0,0 +1,166 @@
+package org.hydra;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Monitor de concurrencia sin mutex global. El marcado se mantiene en un {@link AtomicIntegerArray} y cada disparo
+ * se confirma tomando los tokens de sus plazas de entrada con compare-and-set, por lo que los hilos cuyas
+ * transiciones no comparten plazas disparan en paralelo sin tomar ningún lock.
+ */
+public class MonitorCAS extends MonitorParalelo {
+
+    private final AtomicIntegerArray marcado;
+
+    /**
+     * Constructor de la clase. Copia el marcado actual de la RdP en el marcado atómico del monitor.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     */
+    public MonitorCAS(ProcesosModelados procesoModelado) {
+        // Se inicializan las colas y registros comunes
+        super(procesoModelado);
+
+        // Se copia el marcado inicial en el arreglo atomico
+        this.marcado = new AtomicIntegerArray(motor.getMarcado());
+    }
+
+    /**
+     * Dispara la transición sin tomar ningún lock global. Si la transición no tiene tokens el hilo se registra en
+     * su cola, vuelve a intentar y recién entonces se bloquea, de modo que un productor que deposite tokens después
+     * del intento siempre encuentra el registro y lo despierta.
+     *
+     * @param transicion Transición a disparar
+     * @throws RuntimeException Excepción manejada en shooter
+     */
+    @Override
+    public void disparoTransicion(int transicion) throws RuntimeException {
+        while (true) {
+            // Se verifica la ventana temporal antes de tomar tokens
+            long espera = tiempoRestante(transicion, tieneTokens(transicion));
+            if (espera == VENCIDA) {
+                // Se espera en la cola hasta que un productor vuelva a sensibilizar la transicion
+                registrarEspera(transicion);
+                esperarVencida(transicion);
+                continue;
+            }
+            if (espera > 0) {
+                // Se espera en la cola de la transicion hasta la apertura de la ventana
+                esperarVentana(transicion, espera);
+                continue;
+            }
+
+            // Se intenta tomar los tokens de entrada con compare-and-set
+            if (tomarTokens(transicion)) {
+                // Se registra el disparo, se depositan los tokens de salida y se despiertan las afectadas
+                completarDisparo(transicion);
+                return;
+            }
+
+            // Se registra el hilo como esperando antes de reintentar
+            registrarEspera(transicion);
+
+            // Se reintenta por si un productor deposito tokens antes del registro
+            if (tieneTokens(transicion)) {
+                cancelarEspera(transicion);
+                continue;
+            }
+
+            // Se bloquea el hilo en la cola de la transicion
+            bloquear(transicion);
+        }
+    }
+
+    /**
+     * Toma los tokens de las plazas de entrada de la transición. Cada plaza se decrementa con compare-and-set; si
+     * alguna no tiene tokens suficientes se devuelven los tokens ya tomados y se despierta a quienes pudieron
+     * haber fallado mientras estaban retenidos y ahora pueden disparar.
+     *
+     * @param transicion Transición a disparar
+     * @return true si se tomaron todos los tokens, false de lo contrario
+     */
+    private boolean tomarTokens(int transicion) {
+        int[] plazas = this.motor.getPlazasEntrada(transicion);
+        int[] pesos = this.motor.getPesosEntrada(transicion);
+
+        for (int i = 0; i < plazas.length; i++) {
+            while (true) {
+                int actual = this.marcado.get(plazas[i]);
+
+                // Se verifica si la plaza tiene tokens suficientes
+                if (actual < pesos[i]) {
+                    // Se devuelven los tokens tomados de las plazas anteriores
+                    for (int j = 0; j < i; j++) {
+                        this.marcado.addAndGet(plazas[j], pesos[j]);
+                    }
+                    if (i > 0) {
+                        despertarSensibilizadas(transicion, this::tieneTokens);
+                    }
+                    return false;
+                }
+
+                // Se confirma la toma de tokens de la plaza
+                if (this.marcado.compareAndSet(plazas[i], actual, actual - pesos[i])) {
+                    break;
+                }
+            }
+        }
+
+        // Se tomaron todos los tokens de entrada
+        return true;
+    }
+
+    /**
+     * Registra el disparo de una transición cuyos tokens de entrada ya fueron tomados, deposita los tokens de
+     * salida y despierta a las transiciones afectadas. El registro se hace antes de depositar los tokens para que
+     * ningún disparo que los consuma quede registrado antes que este.
+     *
+     * @param transicion Transición disparada
+     */
+    private void completarDisparo(int transicion) {
+        // Se registra el disparo
+        registrarDisparo(transicion);
+
+        // Se depositan los tokens en las plazas de salida
+        int[] plazas = this.motor.getPlazasSalida(transicion);
+        int[] pesos = this.motor.getPesosSalida(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            this.marcado.addAndGet(plazas[i], pesos[i]);
+        }
+
+        // Se despiertan las transiciones que consumen de las plazas tocadas
+        despertarAfectadas(transicion);
+    }
+
+    /**
+     * Indica si las plazas de entrada de la transición tienen tokens suficientes en el marcado atómico. La lectura
+     * no es una instantánea consistente; solo se utiliza para decidir si conviene reintentar.
+     *
+     * @param transicion Transición consultada
+     * @return true si tiene tokens suficientes, false de lo contrario
+     */
+    private boolean tieneTokens(int transicion) {
+        int[] plazas = this.motor.getPlazasEntrada(transicion);
+        int[] pesos = this.motor.getPesosEntrada(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            if (this.marcado.get(plazas[i]) < pesos[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copia el marcado atómico del monitor en la RdP.
+     */
+    @Override
+    public void sincronizarMarcado() {
+        // Se toma una copia del marcado atomico
+        int[] tokens = new int[this.marcado.length()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = this.marcado.get(i);
+        }
+
+        // Se reemplaza el marcado de la RdP
+        this.rdp.setTokens(tokens);
+    }
+}
@@ -0,0 +1,230 @@
+package org.hydra;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Monitor de concurrencia con locks por franja de plazas. Las plazas de la red se reparten en franjas contiguas y
+ * cada franja tiene su propio lock. Un disparo toma solo las franjas que cubren las plazas de entrada y de salida
+ * de su transición, siempre en orden creciente de franja, por lo que no puede producirse un interbloqueo y las
+ * transiciones que no comparten franjas disparan en paralelo.
+ */
+public class MonitorFranjas extends MonitorParalelo {
+
+    /**
+     * Cantidad máxima de franjas utilizada por defecto.
+     */
+    public static final int MAX_FRANJAS = 64;
+
+    private final int[] marcado;
+    private final ReentrantLock[] franjas;
+    private final int[][] franjasTransicion;
+
+    /**
+     * Constructor de la clase. Utiliza una franja por plaza, hasta {@value #MAX_FRANJAS} franjas.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     */
+    public MonitorFranjas(ProcesosModelados procesoModelado) {
+        this(procesoModelado, Math.min(procesoModelado.getRDP().getMotor().getTotalPlazas(), MAX_FRANJAS));
+    }
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     * @param cantidadFranjas cantidad de franjas en que se reparten las plazas
+     */
+    public MonitorFranjas(ProcesosModelados procesoModelado, int cantidadFranjas) {
+        // Se inicializan las colas y registros comunes
+        super(procesoModelado);
+
+        // Se verifica la cantidad de franjas
+        int totalPlazas = motor.getTotalPlazas();
+        if (cantidadFranjas < 1 || cantidadFranjas > Math.max(totalPlazas, 1)) {
+            throw new IllegalArgumentException("Cantidad de franjas invalida: " + cantidadFranjas);
+        }
+
+        // Se copia el marcado inicial, protegido por los locks de las franjas
+        this.marcado = motor.getMarcado();
+
+        // Se crea un lock por franja
+        this.franjas = new ReentrantLock[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            this.franjas[i] = new ReentrantLock();
+        }
+
+        // Se calculan, ordenadas y sin repetidos, las franjas que toca cada transicion
+        this.franjasTransicion = new int[motor.getTotalTransiciones()][];
+        for (int transicion = 0; transicion < franjasTransicion.length; transicion++) {
+            int[] entrada = motor.getPlazasEntrada(transicion);
+            int[] salida = motor.getPlazasSalida(transicion);
+            int[] tocadas = new int[entrada.length + salida.length];
+            for (int i = 0; i < entrada.length; i++) {
+                tocadas[i] = franja(entrada[i], totalPlazas, cantidadFranjas);
+            }
+            for (int i = 0; i < salida.length; i++) {
+                tocadas[entrada.length + i] = franja(salida[i], totalPlazas, cantidadFranjas);
+            }
+            this.franjasTransicion[transicion] = Arrays.stream(tocadas).sorted().distinct().toArray();
+        }
+    }
+
+    /**
+     * Calcula la franja a la que pertenece una plaza, repartiendo las plazas en rangos contiguos.
+     *
+     * @param plaza Índice de la plaza
+     * @param totalPlazas Número total de plazas
+     * @param cantidadFranjas Número de franjas
+     * @return Índice de la franja
+     */
+    private static int franja(int plaza, int totalPlazas, int cantidadFranjas) {
+        return (int) ((long) plaza * cantidadFranjas / totalPlazas);
+    }
+
+    /**
+     * Dispara la transición tomando solo las franjas de sus plazas. Si la transición no tiene tokens, el hilo se
+     * registra mientras posee las franjas y luego se bloquea en la cola de la transición; cualquier productor
+     * que deposite tokens en sus plazas de entrada debe tomar alguna de esas franjas, por lo que encuentra el
+     * registro y lo despierta.
+     *
+     * @param transicion Transición a disparar
+     * @throws RuntimeException Excepción manejada en shooter
+     */
+    @Override
+    public void disparoTransicion(int transicion) throws RuntimeException {
+        while (true) {
+            boolean disparada = false;
+            long espera = 0;
+
+            // Se toman las franjas de la transicion en orden creciente
+            tomarFranjas(transicion);
+            try {
+                // Se verifica la sensibilizacion por tokens y por tiempo
+                boolean conTokens = tieneTokens(transicion);
+                espera = tiempoRestante(transicion, conTokens);
+
+                if (conTokens && espera == 0) {
+                    // Se actualiza el marcado de las plazas de la transicion
+                    aplicarDisparo(transicion);
+
+                    // Se registra el disparo antes de liberar las franjas, para que ningun disparo que consuma
+                    // los tokens producidos quede registrado antes que este
+                    registrarDisparo(transicion);
+                    disparada = true;
+                }
+                else if (!conTokens || espera == VENCIDA) {
+                    // Se registra la espera mientras se poseen las franjas
+                    registrarEspera(transicion);
+                }
+            }
+            finally {
+                // Se liberan las franjas de la transicion
+                liberarFranjas(transicion);
+            }
+
+            if (disparada) {
+                // Se despiertan las transiciones afectadas
+                despertarAfectadas(transicion);
+                return;
+            }
+
+            if (espera == VENCIDA) {
+                // Se espera hasta que un productor vuelva a sensibilizar la transicion
+                esperarVencida(transicion);
+            }
+            else if (espera > 0) {
+                // Se espera sin poseer franjas, en la cola de la transicion, hasta la apertura de la ventana
+                esperarVentana(transicion, espera);
+            }
+            else {
+                // Se bloquea el hilo en la cola de la transicion
+                bloquear(transicion);
+            }
+        }
+    }
+
+    /**
+     * Toma los locks de las franjas de la transición en orden creciente.
+     *
+     * @param transicion Transición a disparar
+     */
+    private void tomarFranjas(int transicion) {
+        for (int franja : this.franjasTransicion[transicion]) {
+            this.franjas[franja].lock();
+        }
+    }
+
+    /**
+     * Libera los locks de las franjas de la transición en orden inverso.
+     *
+     * @param transicion Transición disparada
+     */
+    private void liberarFranjas(int transicion) {
+        int[] tomadas = this.franjasTransicion[transicion];
+        for (int i = tomadas.length - 1; i >= 0; i--) {
+            this.franjas[tomadas[i]].unlock();
+        }
+    }
+
+    /**
+     * Indica si las plazas de entrada de la transición tienen tokens suficientes. Debe llamarse con las franjas
+     * de la transición tomadas.
+     *
+     * @param transicion Transición consultada
+     * @return true si tiene tokens suficientes, false de lo contrario
+     */
+    private boolean tieneTokens(int transicion) {
+        int[] plazas = this.motor.getPlazasEntrada(transicion);
+        int[] pesos = this.motor.getPesosEntrada(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            if (this.marcado[plazas[i]] < pesos[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Actualiza el marcado de las plazas de entrada y de salida de la transición. Debe llamarse con las franjas
+     * de la transición tomadas.
+     *
+     * @param transicion Transición disparada
+     */
+    private void aplicarDisparo(int transicion) {
+        // Se quitan los tokens de las plazas de entrada
+        int[] plazas = this.motor.getPlazasEntrada(transicion);
+        int[] pesos = this.motor.getPesosEntrada(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            this.marcado[plazas[i]] -= pesos[i];
+        }
+
+        // Se agregan los tokens a las plazas de salida
+        plazas = this.motor.getPlazasSalida(transicion);
+        pesos = this.motor.getPesosSalida(transicion);
+        for (int i = 0; i < plazas.length; i++) {
+            this.marcado[plazas[i]] += pesos[i];
+        }
+    }
+
+    /**
+     * Copia el marcado del monitor en la RdP tomando todas las franjas en orden.
+     */
+    @Override
+    public void sincronizarMarcado() {
+        // Se toman todas las franjas para leer un marcado consistente
+        for (ReentrantLock franja : this.franjas) {
+            franja.lock();
+        }
+        try {
+            // Se reemplaza el marcado de la RdP
+            this.rdp.setTokens(this.marcado);
+        }
+        finally {
+            // Se liberan las franjas en orden inverso
+            for (int i = this.franjas.length - 1; i >= 0; i--) {
+                this.franjas[i].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+
+/**
+ * Base de los monitores que permiten disparar transiciones en paralelo, sin un mutex global. Mantiene las colas
+ * de espera por transición, el registro de hilos esperando y el inicio aproximado de las ventanas temporales.
+ * <p>
+ * Un hilo que no puede disparar se registra en su transición antes de bloquearse, y quien dispara despierta a las
+ * transiciones que consumen de las plazas que tocó solo si tienen hilos registrados sin un permiso pendiente. Como
+ * los permisos del semáforo persisten, un despertar que llega antes del bloqueo no se pierde. La prioridad de
+ * {@link Politicas} no se aplica en estos monitores.
+ */
+public abstract class MonitorParalelo implements Monitor {
+
+    /**
+     * Valor de {@link #tiempoRestante(int, boolean)} para una transición que superó su beta.
+     */
+    protected static final long VENCIDA = -1;
+
+    private static final long SIN_VENTANA = Long.MIN_VALUE;
+
+    protected final RDP rdp;
+    protected final MotorDisparo motor;
+    private final AtomicIntegerArray esperando;
+    private final AtomicLongArray tiempoSensibilizada;
+    private final AtomicIntegerArray vencidas;
+    private final Semaphore[] colas;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     */
+    protected MonitorParalelo(ProcesosModelados procesoModelado) {
+        // Se almacenan la red y su motor de disparo
+        this.rdp = procesoModelado.getRDP();
+        this.motor = rdp.getMotor();
+
+        // Se reservan los contadores de espera, los tiempos de sensibilizacion y las colas por transicion
+        int totalTransiciones = motor.getTotalTransiciones();
+        this.esperando = new AtomicIntegerArray(totalTransiciones);
+        this.tiempoSensibilizada = new AtomicLongArray(totalTransiciones);
+        this.vencidas = new AtomicIntegerArray(totalTransiciones);
+        this.colas = new Semaphore[totalTransiciones];
+        for (int i = 0; i < totalTransiciones; i++) {
+            this.colas[i] = new Semaphore(0);
+            this.tiempoSensibilizada.set(i, SIN_VENTANA);
+        }
+    }
+
+    /**
+     * Registra al hilo actual como esperando por la transición. Debe llamarse antes de la última verificación de
+     * tokens previa a {@link #bloquear(int)}.
+     *
+     * @param transicion Transición por la que se espera
+     */
+    protected void registrarEspera(int transicion) {
+        this.esperando.incrementAndGet(transicion);
+    }
+
+    /**
+     * Quita el registro de espera del hilo actual sin bloquearlo.
+     *
+     * @param transicion Transición por la que se esperaba
+     */
+    protected void cancelarEspera(int transicion) {
+        this.esperando.decrementAndGet(transicion);
+    }
+
+    /**
+     * Bloquea al hilo actual, previamente registrado, en la cola de la transición hasta que otro hilo lo despierte.
+     *
+     * @param transicion Transición por la que se espera
+     * @throws RuntimeException si el hilo es interrumpido
+     */
+    protected void bloquear(int transicion) throws RuntimeException {
+        try {
+            // Se bloquea el hilo en la cola de la transicion
+            this.colas[transicion].acquire();
+        }
+        catch (InterruptedException e) {
+            // Se lanza una excepcion que se resuelve en el run del disparador
+            throw new RuntimeException(e);
+        }
+        finally {
+            // Se quita el registro de espera
+            this.esperando.decrementAndGet(transicion);
+        }
+    }
+
+    /**
+     * Despierta un hilo de cada transición afectada por el disparo que tenga hilos registrados y no tenga ya un
+     * permiso pendiente por cada uno de ellos.
+     *
+     * @param transicion Transición disparada
+     */
+    protected void despertarAfectadas(int transicion) {
+        for (int afectada : this.motor.getTransicionesAfectadas(transicion)) {
+            // Se libera un permiso si hay hilos registrados sin permiso pendiente
+            if (this.colas[afectada].availablePermits() < this.esperando.get(afectada)) {
+                this.colas[afectada].release();
+            }
+        }
+    }
+
+    /**
+     * Despierta, como {@link #despertarAfectadas(int)}, a las transiciones que comparten plazas con la indicada,
+     * pero solo a las que ahora tienen tokens suficientes. Se usa al devolver tokens tomados en un intento fallido:
+     * una transición a la que todavía le falta otra plaza fallaría de nuevo, y será despertada por quien la reponga.
+     * Despertarlas igual provoca un intercambio de permisos entre competidoras sin avance que, con hilos virtuales
+     * sobre pocos portadores, acapara la CPU.
+     *
+     * @param transicion Transición cuyo intento falló
+     * @param conTokens indica si una transición tiene tokens suficientes en el marcado actual
+     */
+    protected void despertarSensibilizadas(int transicion, IntPredicate conTokens) {
+        for (int afectada : this.motor.getTransicionesAfectadas(transicion)) {
+            // Se libera un permiso si puede disparar y hay hilos registrados sin permiso pendiente
+            if (this.colas[afectada].availablePermits() < this.esperando.get(afectada) && conTokens.test(afectada)) {
+                this.colas[afectada].release();
+            }
+        }
+    }
+
+    /**
+     * Registra el disparo en el log y en la estadística. Ambos admiten llamadas concurrentes, por lo que el registro
+     * no se serializa.
+     *
+     * @param transicion Transición disparada
+     */
+    protected void registrarDisparo(int transicion) {
+        // Se reinicia la ventana de la transicion disparada
+        this.tiempoSensibilizada.set(transicion, SIN_VENTANA);
+
+        // Se registra el disparo
+        this.rdp.registrarDisparo(transicion);
+    }
+
+    /**
+     * Calcula cuánto falta para la apertura de la ventana temporal de la transición. La ventana comienza cuando
+     * algún hilo observa por primera vez la transición sensibilizada por tokens, y se reinicia cuando se la
+     * observa sin tokens o se la dispara. Si se la observa con tokens pasado su beta, se registra el vencimiento
+     * una única vez y la transición queda deshabilitada hasta que un productor despierte a sus hilos.
+     *
+     * @param transicion Transición consultada
+     * @param conTokens indica si la transición fue observada sensibilizada por tokens
+     * @return nanosegundos hasta la apertura de la ventana, 0 si ya está abierta o la transición no es temporizada,
+     *         o {@link #VENCIDA} si superó su beta
+     */
+    protected long tiempoRestante(int transicion, boolean conTokens) {
+        // Se obtienen los limites de la ventana
+        VectorSensibilizado vectorSensibilizado = this.rdp.getVectorSensibilizado();
+        if (vectorSensibilizado == null) {
+            return 0;
+        }
+        long alpha = vectorSensibilizado.getAlpha(transicion);
+        long beta = vectorSensibilizado.getBeta(transicion);
+        if (alpha == 0 && beta == VectorSensibilizado.SIN_LIMITE) {
+            return 0;
+        }
+
+        // Se reinicia la ventana si la transicion no tiene tokens
+        if (!conTokens) {
+            reiniciarVentana(transicion);
+            return 0;
+        }
+
+        // Se fija el inicio de la ventana si todavia no fue fijado
+        long ahora = System.nanoTime();
+        this.tiempoSensibilizada.compareAndSet(transicion, SIN_VENTANA, ahora);
+        long transcurrido = ahora - this.tiempoSensibilizada.get(transicion);
+
+        // Se deshabilita la transicion si supero su beta, registrando el vencimiento una unica vez
+        if (transcurrido > beta) {
+            if (this.vencidas.compareAndSet(transicion, 0, 1)) {
+                vectorSensibilizado.registrarVencimiento(transicion);
+            }
+            return VENCIDA;
+        }
+
+        // Se calcula el tiempo que falta para la cota inferior
+        return Math.max(0, alpha - transcurrido);
+    }
+
+    /**
+     * Reinicia la ventana de la transición y la rehabilita si estaba vencida.
+     *
+     * @param transicion Transición consultada
+     */
+    protected void reiniciarVentana(int transicion) {
+        this.tiempoSensibilizada.set(transicion, SIN_VENTANA);
+        this.vencidas.set(transicion, 0);
+    }
+
+    /**
+     * Registra al hilo en la cola de la transición, programa la apertura de su ventana y lo bloquea hasta que el
+     * planificador, o un productor de tokens, lo despierte.
+     *
+     * @param transicion Transición temporizada
+     * @param nanosegundos tiempo hasta la apertura de la ventana
+     * @throws RuntimeException si el hilo es interrumpido
+     */
+    protected void esperarVentana(int transicion, long nanosegundos) throws RuntimeException {
+        // Se registra la espera antes de programar, para que el vencimiento encuentre el registro
+        registrarEspera(transicion);
+        this.rdp.getVectorSensibilizado().programarApertura(transicion, nanosegundos);
+
+        // Se bloquea el hilo en la cola de la transicion
+        bloquear(transicion);
+    }
+
+    /**
+     * Bloquea al hilo, previamente registrado, en la cola de una transición vencida. Al ser despertado por un
+     * productor de sus plazas de entrada se considera que la transición volvió a sensibilizarse, por lo que se
+     * reinicia su ventana.
+     *
+     * @param transicion Transición vencida
+     * @throws RuntimeException si el hilo es interrumpido
+     */
+    protected void esperarVencida(int transicion) throws RuntimeException {
+        // Se bloquea el hilo en la cola de la transicion
+        bloquear(transicion);
+
+        // Se reinicia la ventana tras la nueva sensibilizacion
+        reiniciarVentana(transicion);
+    }
+
+    /**
+     * Atiende la apertura de la ventana de una transición despertando a uno de sus hilos registrados, si no tiene
+     * ya un permiso pendiente por cada uno. El hilo despertado vuelve a verificar tokens y tiempo.
+     *
+     * @param transicion Transición cuya ventana se abrió
+     */
+    @Override
+    public void ventanaAbierta(int transicion) {
+        // Se libera un permiso si hay hilos registrados sin permiso pendiente
+        if (this.colas[transicion].availablePermits() < this.esperando.get(transicion)) {
+            this.colas[transicion].release();
+        }
+    }
+
+    /**
+     * Retorna la RdP asociada al monitor.
+     *
+     * @return Instancia de RDP del monitor
+     */
+    @Override
+    public RDP getRDP() {
+        return this.rdp;
+    }
+}
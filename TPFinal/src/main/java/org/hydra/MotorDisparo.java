@@ -0,0 +1,453 @@
+package org.hydra;
+
+import java.util.Arrays;
+
+/**
+ * Motor de disparo de la RdP. Almacena los arcos de entrada (pre) y de salida (post) de cada transición como
+ * arreglos dispersos de enteros (índices de plaza y pesos) y el marcado como un arreglo de enteros, de modo que
+ * verificar la sensibilización o disparar una transición solo recorre las plazas afectadas por ella.
+ * El conjunto de transiciones sensibilizadas se mantiene en un bitset que se actualiza de forma incremental tras
+ * cada disparo, reevaluando solo las transiciones que comparten alguna plaza con la transición disparada.
+ */
+public class MotorDisparo {
+
+    private final int totalPlazas;
+    private final int totalTransiciones;
+    private final int[] marcado;
+    private final int[][] plazasEntrada;
+    private final int[][] pesosEntrada;
+    private final int[][] plazasSalida;
+    private final int[][] pesosSalida;
+    private final int[][] transicionesAfectadas;
+    private final long[] sensibilizadas;
+    private final int[] nuevasSensibilizadas;
+    private int cantidadNuevasSensibilizadas;
+    private GuardiaMarcado guardia;
+
+    /**
+     * Constructor de la clase. Separa cada columna de la matriz de incidencia en sus arcos de entrada (valores
+     * negativos) y de salida (valores positivos).
+     *
+     * @param matrizIncidencia matriz de incidencia de la RdP (plazas x transiciones)
+     * @param marcadoInicial marcado inicial de la RdP
+     */
+    public MotorDisparo(int[][] matrizIncidencia, int[] marcadoInicial) {
+        // Se almacenan las dimensiones de la red
+        this.totalPlazas = matrizIncidencia.length;
+        this.totalTransiciones = totalPlazas == 0 ? 0 : matrizIncidencia[0].length;
+
+        // Se verifica que el marcado inicial sea coherente con la matriz
+        if (marcadoInicial.length != totalPlazas) {
+            throw new IllegalArgumentException("El marcado inicial no coincide con la cantidad de plazas");
+        }
+
+        // Se copia el marcado inicial
+        this.marcado = Arrays.copyOf(marcadoInicial, totalPlazas);
+
+        // Se reservan los arreglos dispersos por transicion
+        this.plazasEntrada = new int[totalTransiciones][];
+        this.pesosEntrada = new int[totalTransiciones][];
+        this.plazasSalida = new int[totalTransiciones][];
+        this.pesosSalida = new int[totalTransiciones][];
+
+        // Se recorre cada columna de la matriz para extraer los arcos
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            // Se cuentan los arcos de entrada y de salida de la transicion
+            int entradas = 0;
+            int salidas = 0;
+            for (int plaza = 0; plaza < totalPlazas; plaza++) {
+                if (matrizIncidencia[plaza][transicion] < 0) {
+                    entradas++;
+                }
+                else if (matrizIncidencia[plaza][transicion] > 0) {
+                    salidas++;
+                }
+            }
+
+            // Se reservan los arreglos con el tamaño exacto
+            this.plazasEntrada[transicion] = new int[entradas];
+            this.pesosEntrada[transicion] = new int[entradas];
+            this.plazasSalida[transicion] = new int[salidas];
+            this.pesosSalida[transicion] = new int[salidas];
+
+            // Se completan los indices de plaza y sus pesos
+            entradas = 0;
+            salidas = 0;
+            for (int plaza = 0; plaza < totalPlazas; plaza++) {
+                int peso = matrizIncidencia[plaza][transicion];
+                if (peso < 0) {
+                    this.plazasEntrada[transicion][entradas] = plaza;
+                    this.pesosEntrada[transicion][entradas++] = -peso;
+                }
+                else if (peso > 0) {
+                    this.plazasSalida[transicion][salidas] = plaza;
+                    this.pesosSalida[transicion][salidas++] = peso;
+                }
+            }
+        }
+
+        // Se construye el indice de transiciones a reevaluar tras cada disparo
+        this.transicionesAfectadas = calcularTransicionesAfectadas();
+
+        // Se reserva el bitset de sensibilizadas y el buffer de nuevas sensibilizadas
+        this.sensibilizadas = new long[(totalTransiciones + 63) >>> 6];
+        this.nuevasSensibilizadas = new int[totalTransiciones];
+
+        // Se evalua la sensibilizacion inicial de todas las transiciones
+        recalcularSensibilizadas();
+    }
+
+    /**
+     * Constructor de la clase a partir de los arcos dispersos de cada transición, sin pasar por la matriz de
+     * incidencia. Permite construir redes de miles de nodos en memoria proporcional a la cantidad de arcos y
+     * representar lazos (una plaza de entrada y de salida de la misma transición), que la matriz de incidencia
+     * anula. Cada plaza debe aparecer a lo sumo una vez entre las entradas y una vez entre las salidas de cada
+     * transición. Los arreglos pasan a ser el estado interno del motor y no deben modificarse.
+     *
+     * @param totalPlazas cantidad de plazas de la red
+     * @param plazasEntrada plazas de entrada de cada transición
+     * @param pesosEntrada pesos de los arcos de entrada de cada transición
+     * @param plazasSalida plazas de salida de cada transición
+     * @param pesosSalida pesos de los arcos de salida de cada transición
+     * @param marcadoInicial marcado inicial de la RdP
+     */
+    public MotorDisparo(int totalPlazas, int[][] plazasEntrada, int[][] pesosEntrada, int[][] plazasSalida,
+                        int[][] pesosSalida, int[] marcadoInicial) {
+        // Se almacenan las dimensiones de la red
+        this.totalPlazas = totalPlazas;
+        this.totalTransiciones = plazasEntrada.length;
+
+        // Se verifica que el marcado inicial y los arcos sean coherentes con las dimensiones
+        if (marcadoInicial.length != totalPlazas) {
+            throw new IllegalArgumentException("El marcado inicial no coincide con la cantidad de plazas");
+        }
+        if (pesosEntrada.length != totalTransiciones || plazasSalida.length != totalTransiciones
+                || pesosSalida.length != totalTransiciones) {
+            throw new IllegalArgumentException("Los arcos no coinciden con la cantidad de transiciones");
+        }
+
+        // Se copia el marcado inicial y se almacenan los arcos
+        this.marcado = Arrays.copyOf(marcadoInicial, totalPlazas);
+        this.plazasEntrada = plazasEntrada;
+        this.pesosEntrada = pesosEntrada;
+        this.plazasSalida = plazasSalida;
+        this.pesosSalida = pesosSalida;
+
+        // Se construye el indice de transiciones a reevaluar tras cada disparo
+        this.transicionesAfectadas = calcularTransicionesAfectadas();
+
+        // Se reserva el bitset de sensibilizadas y el buffer de nuevas sensibilizadas
+        this.sensibilizadas = new long[(totalTransiciones + 63) >>> 6];
+        this.nuevasSensibilizadas = new int[totalTransiciones];
+
+        // Se evalua la sensibilizacion inicial de todas las transiciones
+        recalcularSensibilizadas();
+    }
+
+    /**
+     * Construye, para cada transición, el listado de transiciones que consumen de alguna de sus plazas de entrada
+     * o de salida. Son las únicas cuya sensibilización puede cambiar al dispararla. Se utiliza un índice
+     * plaza -> transiciones consumidoras construido una única vez.
+     *
+     * @return Transiciones afectadas por el disparo de cada transición
+     */
+    private int[][] calcularTransicionesAfectadas() {
+        // Se cuentan las transiciones que consumen de cada plaza
+        int[] cantidadConsumidoras = new int[totalPlazas];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            for (int plaza : this.plazasEntrada[transicion]) {
+                cantidadConsumidoras[plaza]++;
+            }
+        }
+
+        // Se construye el indice plaza -> transiciones consumidoras
+        int[][] consumidoras = new int[totalPlazas][];
+        for (int plaza = 0; plaza < totalPlazas; plaza++) {
+            consumidoras[plaza] = new int[cantidadConsumidoras[plaza]];
+            cantidadConsumidoras[plaza] = 0;
+        }
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            for (int plaza : this.plazasEntrada[transicion]) {
+                consumidoras[plaza][cantidadConsumidoras[plaza]++] = transicion;
+            }
+        }
+
+        // Se une, sin repetidos, el conjunto de consumidoras de las plazas tocadas por cada transicion
+        int[][] afectadas = new int[totalTransiciones][];
+        int[] marca = new int[totalTransiciones];
+        int[] buffer = new int[totalTransiciones];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            int cantidad = 0;
+            for (int[] plazas : new int[][]{this.plazasEntrada[transicion], this.plazasSalida[transicion]}) {
+                for (int plaza : plazas) {
+                    for (int consumidora : consumidoras[plaza]) {
+                        // Se utiliza transicion + 1 como marca para evitar limpiar el arreglo en cada vuelta
+                        if (marca[consumidora] != transicion + 1) {
+                            marca[consumidora] = transicion + 1;
+                            buffer[cantidad++] = consumidora;
+                        }
+                    }
+                }
+            }
+            afectadas[transicion] = Arrays.copyOf(buffer, cantidad);
+        }
+
+        // Se retorna el indice construido
+        return afectadas;
+    }
+
+    /**
+     * Reevalúa la sensibilización de todas las transiciones a partir del marcado actual.
+     */
+    private void recalcularSensibilizadas() {
+        // Se limpia el bitset
+        Arrays.fill(this.sensibilizadas, 0L);
+
+        // Se evalua cada transicion
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            if (tieneTokensSuficientes(transicion)) {
+                this.sensibilizadas[transicion >>> 6] |= 1L << transicion;
+            }
+        }
+    }
+
+    /**
+     * Indica si la transición está sensibilizada por tokens consultando el bitset mantenido por el motor.
+     *
+     * @param transicion Índice de la transición
+     * @return true si la transición está sensibilizada, false de lo contrario
+     */
+    public boolean estaSensibilizada(int transicion) {
+        // Se consulta el bit de la transicion
+        return (this.sensibilizadas[transicion >>> 6] & (1L << transicion)) != 0;
+    }
+
+    /**
+     * Indica si cada una de las plazas de entrada de la transición tiene al menos tantos tokens como el peso del
+     * arco. No realiza reservas de memoria.
+     *
+     * @param transicion Índice de la transición
+     * @return true si la transición tiene tokens suficientes, false de lo contrario
+     */
+    private boolean tieneTokensSuficientes(int transicion) {
+        // Se obtienen los arcos de entrada de la transicion
+        int[] plazas = this.plazasEntrada[transicion];
+        int[] pesos = this.pesosEntrada[transicion];
+
+        // Se verifica que cada plaza de entrada tenga tokens suficientes
+        for (int i = 0; i < plazas.length; i++) {
+            if (this.marcado[plazas[i]] < pesos[i]) {
+                return false;
+            }
+        }
+
+        // Todas las plazas de entrada tienen tokens suficientes
+        return true;
+    }
+
+    /**
+     * Dispara la transición actualizando únicamente las plazas de entrada y de salida de la misma, y reevalúa la
+     * sensibilización de las transiciones afectadas. Las transiciones que pasan de no sensibilizadas a
+     * sensibilizadas quedan registradas en el buffer de nuevas sensibilizadas. No verifica la sensibilización de
+     * la transición disparada; el llamador debe hacerlo previamente.
+     *
+     * @param transicion Índice de la transición a disparar
+     */
+    public void disparar(int transicion) {
+        // Se quitan los tokens de las plazas de entrada
+        int[] plazas = this.plazasEntrada[transicion];
+        int[] pesos = this.pesosEntrada[transicion];
+        for (int i = 0; i < plazas.length; i++) {
+            this.marcado[plazas[i]] -= pesos[i];
+        }
+
+        // Se agregan los tokens a las plazas de salida
+        plazas = this.plazasSalida[transicion];
+        pesos = this.pesosSalida[transicion];
+        for (int i = 0; i < plazas.length; i++) {
+            this.marcado[plazas[i]] += pesos[i];
+        }
+
+        // Se verifica el marcado resultante con la guarda, si esta activa
+        if (this.guardia != null) {
+            this.guardia.verificarDisparo(this.marcado, this.plazasEntrada[transicion], plazas, transicion);
+        }
+
+        // Se reinicia el buffer de nuevas sensibilizadas
+        this.cantidadNuevasSensibilizadas = 0;
+
+        // Se reevaluan solo las transiciones que comparten alguna plaza con la disparada
+        for (int afectada : this.transicionesAfectadas[transicion]) {
+            int palabra = afectada >>> 6;
+            long bit = 1L << afectada;
+            if (tieneTokensSuficientes(afectada)) {
+                // Se registra si la transicion no estaba sensibilizada antes del disparo
+                if ((this.sensibilizadas[palabra] & bit) == 0) {
+                    this.sensibilizadas[palabra] |= bit;
+                    this.nuevasSensibilizadas[this.cantidadNuevasSensibilizadas++] = afectada;
+                }
+            }
+            else {
+                this.sensibilizadas[palabra] &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * Retorna el bitset de transiciones sensibilizadas por tokens. El bit i de la palabra i / 64 corresponde a la
+     * transición i. El arreglo es el estado interno del motor y no debe modificarse.
+     *
+     * @return Bitset de transiciones sensibilizadas
+     */
+    public long[] getSensibilizadas() {
+        return this.sensibilizadas;
+    }
+
+    /**
+     * Retorna el buffer con las transiciones que quedaron sensibilizadas por el último disparo y que no lo estaban
+     * antes. Solo son válidas las primeras {@link #getCantidadNuevasSensibilizadas()} posiciones.
+     *
+     * @return Buffer de nuevas sensibilizadas
+     */
+    public int[] getNuevasSensibilizadas() {
+        return this.nuevasSensibilizadas;
+    }
+
+    /**
+     * Retorna la cantidad de transiciones que quedaron sensibilizadas por el último disparo.
+     *
+     * @return Cantidad de nuevas sensibilizadas
+     */
+    public int getCantidadNuevasSensibilizadas() {
+        return this.cantidadNuevasSensibilizadas;
+    }
+
+    /**
+     * Retorna una copia del marcado actual.
+     *
+     * @return Copia del marcado
+     */
+    public int[] getMarcado() {
+        // Se retorna una copia para no exponer el estado interno
+        return Arrays.copyOf(this.marcado, this.totalPlazas);
+    }
+
+    /**
+     * Reemplaza el marcado actual y reevalúa la sensibilización de todas las transiciones.
+     *
+     * @param nuevoMarcado Nuevo marcado de la red
+     */
+    public void setMarcado(int[] nuevoMarcado) {
+        // Se verifica que el marcado sea coherente con la red
+        if (nuevoMarcado.length != totalPlazas) {
+            throw new IllegalArgumentException("El marcado no coincide con la cantidad de plazas");
+        }
+
+        // Se copia el marcado y se recalculan las sensibilizadas
+        System.arraycopy(nuevoMarcado, 0, this.marcado, 0, totalPlazas);
+        recalcularSensibilizadas();
+
+        // Se verifica el marcado completo con la guarda, si esta activa
+        if (this.guardia != null) {
+            this.guardia.verificar(this.marcado);
+        }
+    }
+
+    /**
+     * Establece la guarda que verifica el marcado tras cada disparo y cada vez que se reemplaza.
+     *
+     * @param guardia Guarda del marcado, o null para no verificarlo
+     */
+    public void setGuardia(GuardiaMarcado guardia) {
+        this.guardia = guardia;
+    }
+
+    /**
+     * Retorna las transiciones cuya sensibilización puede cambiar al disparar la transición, es decir, las que
+     * consumen de alguna de sus plazas de entrada o de salida. El arreglo no debe modificarse.
+     *
+     * @param transicion Índice de la transición
+     * @return Transiciones afectadas
+     */
+    public int[] getTransicionesAfectadas(int transicion) {
+        return this.transicionesAfectadas[transicion];
+    }
+
+    /**
+     * Retorna los índices de las plazas de entrada de la transición. El arreglo no debe modificarse.
+     *
+     * @param transicion Índice de la transición
+     * @return Plazas de entrada
+     */
+    public int[] getPlazasEntrada(int transicion) {
+        return this.plazasEntrada[transicion];
+    }
+
+    /**
+     * Retorna los pesos de los arcos de entrada de la transición. El arreglo no debe modificarse.
+     *
+     * @param transicion Índice de la transición
+     * @return Pesos de entrada
+     */
+    public int[] getPesosEntrada(int transicion) {
+        return this.pesosEntrada[transicion];
+    }
+
+    /**
+     * Retorna los índices de las plazas de salida de la transición. El arreglo no debe modificarse.
+     *
+     * @param transicion Índice de la transición
+     * @return Plazas de salida
+     */
+    public int[] getPlazasSalida(int transicion) {
+        return this.plazasSalida[transicion];
+    }
+
+    /**
+     * Retorna los pesos de los arcos de salida de la transición. El arreglo no debe modificarse.
+     *
+     * @param transicion Índice de la transición
+     * @return Pesos de salida
+     */
+    public int[] getPesosSalida(int transicion) {
+        return this.pesosSalida[transicion];
+    }
+
+    /**
+     * Arma la matriz de incidencia densa (plazas x transiciones) a partir de los arcos, como salida menos entrada.
+     * Los lazos se anulan, igual que en la matriz de la que parte el otro constructor.
+     *
+     * @return Matriz de incidencia nueva
+     */
+    public int[][] getMatrizIncidencia() {
+        // Se suman los pesos de salida y se restan los de entrada de cada transicion
+        int[][] incidencia = new int[totalPlazas][totalTransiciones];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            for (int i = 0; i < this.plazasEntrada[transicion].length; i++) {
+                incidencia[this.plazasEntrada[transicion][i]][transicion] -= this.pesosEntrada[transicion][i];
+            }
+            for (int i = 0; i < this.plazasSalida[transicion].length; i++) {
+                incidencia[this.plazasSalida[transicion][i]][transicion] += this.pesosSalida[transicion][i];
+            }
+        }
+        return incidencia;
+    }
+
+    /**
+     * Retorna el número total de plazas de la red.
+     *
+     * @return Número de plazas
+     */
+    public int getTotalPlazas() {
+        return this.totalPlazas;
+    }
+
+    /**
+     * Retorna el número total de transiciones de la red.
+     *
+     * @return Número de transiciones
+     */
+    public int getTotalTransiciones() {
+        return this.totalTransiciones;
+    }
+}
@@ -0,0 +1,43 @@
+package org.hydra;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Condición de parada que termina la ejecución tras medir durante un tiempo fijo.
+ */
+public class ParadaPorDuracion implements CondicionParada {
+
+    private final long duracion;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param duracion Duración de la medición
+     * @param unidad Unidad de la duración
+     */
+    public ParadaPorDuracion(long duracion, TimeUnit unidad) {
+        // Se verifica la duracion
+        if (duracion < 1) {
+            throw new IllegalArgumentException("La duracion debe ser positiva: " + duracion);
+        }
+        this.duracion = unidad.toNanos(duracion);
+    }
+
+    /**
+     * Retorna la duración de la medición.
+     *
+     * @return Duración en nanosegundos
+     */
+    public long getDuracion() {
+        return this.duracion;
+    }
+
+    @Override
+    public void esperar(Estadistica estadistica) throws InterruptedException {
+        // Se duerme hasta el plazo, retomando si el sueno termina antes
+        long fin = System.nanoTime() + this.duracion;
+        for (long resto = this.duracion; resto > 0; resto = fin - System.nanoTime()) {
+            TimeUnit.NANOSECONDS.sleep(resto);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.hydra;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Condición de parada que termina la ejecución cuando la tasa de t-invariantes se estabiliza. La tasa se mide en
+ * ventanas consecutivas de igual duración y se considera estable cuando, en las últimas {@code ventanas}, la
+ * diferencia entre la mayor y la menor no supera la {@code tolerancia} relativa a su promedio. Si no se estabiliza
+ * en {@code maximoVentanas} ventanas, la ejecución termina igual.
+ */
+public class ParadaPorEstabilidad implements CondicionParada {
+
+    private final long ventana;
+    private final int ventanas;
+    private final double tolerancia;
+    private final int maximoVentanas;
+    private volatile double tasa;
+    private volatile boolean estabilizada;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param ventana Duración de cada ventana de medición
+     * @param unidad Unidad de la duración de la ventana
+     * @param ventanas Cantidad de ventanas consecutivas que deben coincidir
+     * @param tolerancia Diferencia relativa admitida entre las tasas de las ventanas, ej. 0.05
+     * @param maximoVentanas Cantidad máxima de ventanas a medir
+     */
+    public ParadaPorEstabilidad(long ventana, TimeUnit unidad, int ventanas, double tolerancia, int maximoVentanas) {
+        // Se verifican los parametros
+        if (ventana < 1 || ventanas < 2 || tolerancia < 0 || maximoVentanas < ventanas) {
+            throw new IllegalArgumentException(String.format("Parametros de estabilidad invalidos: ventana %d, "
+                    + "ventanas %d, tolerancia %s, maximo %d", ventana, ventanas, tolerancia, maximoVentanas));
+        }
+        this.ventana = unidad.toNanos(ventana);
+        this.ventanas = ventanas;
+        this.tolerancia = tolerancia;
+        this.maximoVentanas = maximoVentanas;
+    }
+
+    @Override
+    public void esperar(Estadistica estadistica) throws InterruptedException {
+        // Se guardan las tasas de las ultimas ventanas en un arreglo circular
+        double[] tasas = new double[this.ventanas];
+        long inicio = System.nanoTime();
+        long anterior = inicio;
+        long completadosAnterior = estadistica.getCompletadosMedidos();
+
+        for (int medidas = 1; medidas <= this.maximoVentanas; medidas++) {
+            // Se duerme hasta el fin de la ventana, medido desde el inicio para no acumular desfasaje
+            long fin = inicio + medidas * this.ventana;
+            for (long resto = fin - System.nanoTime(); resto > 0; resto = fin - System.nanoTime()) {
+                TimeUnit.NANOSECONDS.sleep(resto);
+            }
+
+            // Se calcula la tasa de la ventana con su duracion real
+            long ahora = System.nanoTime();
+            long completados = estadistica.getCompletadosMedidos();
+            tasas[medidas % this.ventanas] = (completados - completadosAnterior) * 1e9 / (ahora - anterior);
+            anterior = ahora;
+            completadosAnterior = completados;
+
+            // Se verifica si las ultimas ventanas coinciden
+            if (medidas >= this.ventanas && esEstable(tasas)) {
+                this.estabilizada = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Indica si la última espera terminó porque la tasa se estabilizó.
+     *
+     * @return true si se estabilizó, false si se alcanzó el máximo de ventanas
+     */
+    public boolean isEstabilizada() {
+        return this.estabilizada;
+    }
+
+    /**
+     * Devuelve la tasa promedio de las últimas ventanas medidas.
+     *
+     * @return t-invariantes por segundo
+     */
+    public double getTasa() {
+        return this.tasa;
+    }
+
+    /**
+     * Verifica si las tasas difieren entre sí menos que la tolerancia relativa a su promedio.
+     *
+     * @param tasas tasas de las últimas ventanas
+     * @return true si las tasas son estables
+     */
+    private boolean esEstable(double[] tasas) {
+        // Se calculan el minimo, el maximo y el promedio de las tasas
+        double minimo = Double.MAX_VALUE;
+        double maximo = 0;
+        double suma = 0;
+        for (double t : tasas) {
+            minimo = Math.min(minimo, t);
+            maximo = Math.max(maximo, t);
+            suma += t;
+        }
+        this.tasa = suma / tasas.length;
+
+        // Se exige una tasa positiva para no dar por estable una red detenida
+        return this.tasa > 0 && maximo - minimo <= this.tolerancia * this.tasa;
+    }
+}
@@ -0,0 +1,33 @@
+package org.hydra;
+
+/**
+ * Condición de parada que termina la ejecución al completarse una cantidad de t-invariantes medidos.
+ */
+public class ParadaPorInvariantes implements CondicionParada {
+
+    private final long cantidad;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param cantidad Cantidad de t-invariantes a completar después del calentamiento
+     */
+    public ParadaPorInvariantes(long cantidad) {
+        // Se verifica la cantidad
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad de t-invariantes debe ser positiva: " + cantidad);
+        }
+        this.cantidad = cantidad;
+    }
+
+    @Override
+    public long getObjetivo() {
+        return this.cantidad;
+    }
+
+    @Override
+    public void esperar(Estadistica estadistica) throws InterruptedException {
+        // Se espera a que la estadistica libere el objetivo
+        estadistica.esperarObjetivo();
+    }
+}
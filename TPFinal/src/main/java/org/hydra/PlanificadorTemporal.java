@@ -0,0 +1,155 @@
+package org.hydra;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Planificador central de las aperturas y cierres de las ventanas temporales. En lugar de que cada hilo duerma
+ * hasta la cota inferior de su transición, se programa un vencimiento en una {@link DelayQueue} y un único hilo
+ * daemon notifica al monitor cuando la ventana se abre, para que despierte al hilo encolado en esa transición, o
+ * cuando se cierra, para que la deshabilite.
+ * <p>
+ * Se mantiene a lo sumo un vencimiento útil de cada tipo por transición: si ya hay uno programado para un instante
+ * anterior o igual, el nuevo se descarta, ya que quien lo atienda volverá a programar el suyo si todavía no llegó.
+ */
+public class PlanificadorTemporal {
+
+    private final DelayQueue<Vencimiento> vencimientos = new DelayQueue<>();
+    private final AtomicLongArray aperturas;
+    private final AtomicLongArray cierres;
+    private final IntConsumer alAbrirVentana;
+    private final IntConsumer alCerrarVentana;
+    private final Thread hilo;
+
+    /**
+     * Constructor de la clase. Inicia el hilo daemon que atiende los vencimientos.
+     *
+     * @param totalTransiciones número total de transiciones
+     * @param alAbrirVentana acción a ejecutar con la transición cuya ventana se abrió
+     * @param alCerrarVentana acción a ejecutar con la transición cuya ventana se cerró
+     */
+    public PlanificadorTemporal(int totalTransiciones, IntConsumer alAbrirVentana, IntConsumer alCerrarVentana) {
+        // Se reservan los instantes programados por transicion (0 si no hay ninguno)
+        this.aperturas = new AtomicLongArray(totalTransiciones);
+        this.cierres = new AtomicLongArray(totalTransiciones);
+        this.alAbrirVentana = alAbrirVentana;
+        this.alCerrarVentana = alCerrarVentana;
+
+        // Se crea e inicia el hilo que atiende los vencimientos
+        this.hilo = new Thread(this::atenderVencimientos, "Planificador temporal");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa la apertura de la ventana de la transición dentro del tiempo indicado.
+     *
+     * @param transicion transición temporizada
+     * @param demora tiempo hasta la apertura de la ventana
+     * @param unidad unidad de la demora
+     */
+    public void programar(int transicion, long demora, TimeUnit unidad) {
+        programar(this.aperturas, transicion, demora, unidad);
+    }
+
+    /**
+     * Programa el cierre de la ventana de la transición dentro del tiempo indicado.
+     *
+     * @param transicion transición temporizada
+     * @param demora tiempo hasta el cierre de la ventana
+     * @param unidad unidad de la demora
+     */
+    public void programarCierre(int transicion, long demora, TimeUnit unidad) {
+        programar(this.cierres, transicion, demora, unidad);
+    }
+
+    /**
+     * Programa un vencimiento del tipo indicado por el arreglo de instantes.
+     *
+     * @param programados instantes programados del tipo de vencimiento
+     * @param transicion transición temporizada
+     * @param demora tiempo hasta el vencimiento
+     * @param unidad unidad de la demora
+     */
+    private void programar(AtomicLongArray programados, int transicion, long demora, TimeUnit unidad) {
+        // Se calcula el instante del vencimiento en el reloj monotono, evitando el 0 reservado
+        long instante = System.nanoTime() + unidad.toNanos(demora);
+        if (instante == 0) {
+            instante = 1;
+        }
+
+        while (true) {
+            // Se descarta si ya hay un vencimiento programado antes o en el mismo instante
+            long actual = programados.get(transicion);
+            if (actual != 0 && actual - instante <= 0) {
+                return;
+            }
+
+            // Se registra el nuevo instante y se encola el vencimiento
+            if (programados.compareAndSet(transicion, actual, instante)) {
+                this.vencimientos.offer(new Vencimiento(transicion, instante, programados == this.cierres));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Detiene el hilo del planificador. Los vencimientos pendientes se descartan.
+     */
+    public void detener() {
+        this.hilo.interrupt();
+    }
+
+    /**
+     * Ciclo del hilo del planificador: toma cada vencimiento cuando llega su instante y notifica la apertura o el cierre.
+     */
+    private void atenderVencimientos() {
+        try {
+            while (true) {
+                // Se espera el proximo vencimiento
+                Vencimiento vencimiento = this.vencimientos.take();
+
+                // Se libera el registro si corresponde a este vencimiento, para permitir reprogramar
+                AtomicLongArray programados = vencimiento.cierre ? this.cierres : this.aperturas;
+                programados.compareAndSet(vencimiento.transicion, vencimiento.instante, 0);
+
+                // Se notifica la apertura o el cierre de la ventana
+                (vencimiento.cierre ? this.alCerrarVentana : this.alAbrirVentana).accept(vencimiento.transicion);
+            }
+        }
+        catch (InterruptedException e) {
+            // Se finaliza el hilo al ser interrumpido
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apertura o cierre de la ventana de una transición, ordenado por su instante.
+     */
+    private static final class Vencimiento implements Delayed {
+
+        private final int transicion;
+        private final long instante;
+        private final boolean cierre;
+
+        private Vencimiento(int transicion, long instante, boolean cierre) {
+            this.transicion = transicion;
+            this.instante = instante;
+            this.cierre = cierre;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unidad) {
+            return unidad.convert(this.instante - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            long diferencia = this.instante - ((Vencimiento) otro).instante;
+            return diferencia < 0 ? -1 : (diferencia > 0 ? 1 : 0);
+        }
+    }
+}
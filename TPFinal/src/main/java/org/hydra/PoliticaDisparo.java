@@ -0,0 +1,25 @@
+package org.hydra;
+
+/**
+ * Interfaz de las políticas que deciden qué transición despertar cuando hay varias sensibilizadas con hilos
+ * esperando. La política se elige al inicio de la ejecución y el monitor la consulta mientras posee su mutex, por
+ * lo que las implementaciones no deben reservar memoria ni realizar entrada/salida al seleccionar.
+ */
+public interface PoliticaDisparo {
+
+    /**
+     * Devuelve una y solo una transición para ser disparada entre las disponibles.
+     *
+     * @param transicionesDisponibles Bitset de transiciones disponibles para disparar (al menos una)
+     * @return Transición seleccionada para disparar
+     */
+    int getDisparoPrioritario(long[] transicionesDisponibles);
+
+    /**
+     * Notifica a la política que se realizó la tarea de una transición. Puede llamarse fuera del mutex del monitor.
+     *
+     * @param transicion Transición cuya tarea se realizó
+     */
+    default void notificarDisparo(int transicion) {
+    }
+}
@@ -0,0 +1,57 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+
+/**
+ * Política de plazo más próximo primero (EDF). El plazo de cada transición disponible es la cota superior de su
+ * ventana temporal en {@link VectorSensibilizado}: el instante en que quedó sensibilizada más su beta. Se elige la
+ * transición de plazo más próximo y, a igualdad de plazo, la de menor índice. La selección se hace bajo el mutex
+ * del monitor, que es también quien actualiza las ventanas, y no reserva memoria.
+ */
+public class PoliticaPlazos implements PoliticaDisparo {
+
+    private final RDP rdp;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     */
+    public PoliticaPlazos(ProcesosModelados procesoModelado) {
+        // Se almacena la red, cuyo vector sensibilizado se consulta al seleccionar
+        this.rdp = procesoModelado.getRDP();
+    }
+
+    /**
+     * Devuelve la transición disponible cuya ventana temporal cierra antes.
+     *
+     * @param transicionesDisponibles Bitset de transiciones disponibles para disparar (al menos una)
+     * @return Transición seleccionada para disparar
+     */
+    @Override
+    public int getDisparoPrioritario(long[] transicionesDisponibles) {
+        VectorSensibilizado vectorSensibilizado = this.rdp.getVectorSensibilizado();
+        int elegida = -1;
+        long plazoElegido = Long.MAX_VALUE;
+
+        // Se recorren los bits encendidos del bitset de disponibles
+        for (int palabra = 0; palabra < transicionesDisponibles.length; palabra++) {
+            long resto = transicionesDisponibles[palabra];
+            while (resto != 0) {
+                int transicion = (palabra << 6) + Long.numberOfTrailingZeros(resto);
+                resto &= resto - 1;
+
+                // Se calcula el plazo de la transicion y se conserva el mas proximo, comparando por diferencia
+                // porque los instantes de nanoTime y los betas sin limite pueden desbordar
+                long plazo = vectorSensibilizado.getTiempoEspera(transicion) + vectorSensibilizado.getBeta(transicion);
+                if (elegida < 0 || plazo - plazoElegido < 0) {
+                    elegida = transicion;
+                    plazoElegido = plazo;
+                }
+            }
+        }
+
+        // Se retorna la transicion de plazo mas proximo
+        return elegida;
+    }
+}
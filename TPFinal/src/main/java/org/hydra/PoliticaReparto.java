@@ -0,0 +1,136 @@
+package org.hydra;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Política de reparto ponderado entre t-invariantes mediante stride scheduling. Cada t-invariante recibe un peso;
+ * su paso (stride) es inversamente proporcional al peso y su pase avanza un paso cada vez que se dispara su
+ * transición distintiva (la primera que no pertenece a otro t-invariante). Se elige siempre el t-invariante
+ * disponible de menor pase, de modo que a largo plazo cada uno completa una fracción de las piezas proporcional a
+ * su peso (por ejemplo 7/3 entre bloques cuadrados y redondos).
+ */
+public class PoliticaReparto implements PoliticaDisparo {
+
+    private static final long PASO_BASE = 1L << 20;
+
+    private final int[][] invariantes;
+    private final long[][] mascaras;
+    private final int[][] invariantesPorDistintiva;
+    private final long[] paso;
+    private final long[] pase;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param procesoModelado proceso modelado por la RdP
+     * @param pesos peso de cada t-invariante, en el orden de {@link ProcesosModelados#getPlazasTransiciones()}
+     */
+    public PoliticaReparto(ProcesosModelados procesoModelado, int[] pesos) {
+        // Se obtienen los t-invariantes y el total de transiciones de la red
+        List<List<Integer>> base = procesoModelado.getPlazasTransiciones();
+        int totalTransiciones = procesoModelado.getRDP().getTotaltransiciones();
+
+        // Se verifica que haya un peso positivo por t-invariante
+        if (pesos.length != base.size()) {
+            throw new IllegalArgumentException("Se esperaban " + base.size() + " pesos y se recibieron " + pesos.length);
+        }
+
+        // Se copian los t-invariantes, sus mascaras y se calcula el paso de cada uno
+        this.invariantes = new int[base.size()][];
+        this.mascaras = new long[base.size()][(totalTransiciones + 63) >>> 6];
+        this.paso = new long[base.size()];
+        this.pase = new long[base.size()];
+        int[] pertenencias = new int[totalTransiciones];
+        for (int i = 0; i < base.size(); i++) {
+            if (pesos[i] <= 0) {
+                throw new IllegalArgumentException("Los pesos deben ser positivos");
+            }
+            this.invariantes[i] = base.get(i).stream().mapToInt(Integer::intValue).toArray();
+            for (int transicion : this.invariantes[i]) {
+                this.mascaras[i][transicion >>> 6] |= 1L << transicion;
+                pertenencias[transicion]++;
+            }
+            this.paso[i] = PASO_BASE / pesos[i];
+        }
+
+        // Se elige la transicion distintiva de cada t-invariante y se indexa por transicion
+        int[] cantidad = new int[totalTransiciones];
+        int[] distintiva = new int[base.size()];
+        for (int i = 0; i < base.size(); i++) {
+            distintiva[i] = this.invariantes[i][0];
+            for (int transicion : this.invariantes[i]) {
+                if (pertenencias[transicion] == 1) {
+                    distintiva[i] = transicion;
+                    break;
+                }
+            }
+            cantidad[distintiva[i]]++;
+        }
+        this.invariantesPorDistintiva = new int[totalTransiciones][];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            this.invariantesPorDistintiva[transicion] = new int[cantidad[transicion]];
+            cantidad[transicion] = 0;
+        }
+        for (int i = 0; i < base.size(); i++) {
+            this.invariantesPorDistintiva[distintiva[i]][cantidad[distintiva[i]]++] = i;
+        }
+    }
+
+    /**
+     * Avanza el pase de los t-invariantes cuya transición distintiva es la indicada.
+     *
+     * @param transicion Transición cuya tarea se realizó
+     */
+    @Override
+    public void notificarDisparo(int transicion) {
+        this.lock.lock();
+        try {
+            for (int invariante : this.invariantesPorDistintiva[transicion]) {
+                this.pase[invariante] += this.paso[invariante];
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Elige, entre los t-invariantes con alguna transición disponible, el de menor pase (a igualdad, el de menor
+     * índice) y devuelve su primera transición disponible. No reserva memoria.
+     *
+     * @param transicionesDisponibles Bitset de transiciones disponibles para disparar (al menos una)
+     * @return Transición seleccionada para disparar
+     */
+    @Override
+    public int getDisparoPrioritario(long[] transicionesDisponibles) {
+        int elegido = -1;
+        this.lock.lock();
+        try {
+            // Se busca el t-invariante disponible de menor pase
+            for (int i = 0; i < this.invariantes.length; i++) {
+                if ((elegido < 0 || this.pase[i] < this.pase[elegido])
+                        && Politicas.intersecta(this.mascaras[i], transicionesDisponibles)) {
+                    elegido = i;
+                }
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+
+        // Se devuelve la primera transicion disponible del t-invariante elegido
+        if (elegido >= 0) {
+            return Politicas.primeraDisponible(this.invariantes[elegido], transicionesDisponibles);
+        }
+
+        // Si ninguna transicion disponible pertenece a un t-invariante, se elige la de menor indice
+        for (int i = 0; i < transicionesDisponibles.length; i++) {
+            if (transicionesDisponibles[i] != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(transicionesDisponibles[i]);
+            }
+        }
+        return -1;
+    }
+}
@@ -1,14 +1,39 @@
 package org.hydra;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Clase que implementa políticas para la selección de transiciones a disparar en una Red de Petri.
+ * Política por defecto para la selección de transiciones a disparar en una Red de Petri: balancea los
+ * t-invariantes privilegiando al que menos veces se disparó.
+ * <p>
+ * Los t-invariantes se mantienen en un min-heap indexado cuya clave es la cantidad de disparos de la segunda
+ * transición de cada t-invariante (la única, si tiene una sola). El heap se actualiza en O(log k) cada vez que
+ * {@link ProcesosModelados} registra una tarea realizada, y la selección recorre el heap en orden de prioridad
+ * usando tablas de máscaras precalculadas, sin reservar memoria ni escribir en consola. Las máscaras solo guardan
+ * las palabras del bitset en las que el t-invariante tiene transiciones, para que verificar un t-invariante no
+ * dependa del tamaño de la red.
+ * <p>
+ * Un lock propio protege el heap, ya que {@link ProcesosModelados} registra las tareas realizadas fuera del mutex
+ * del monitor, al mismo tiempo que el hilo que tiene el mutex elige la próxima transición. No puede producir un
+ * interbloqueo: mientras se lo tiene no se toma ningún otro lock ni se llama a código externo, por lo que nunca se
+ * espera al mutex del monitor teniendo este lock.
  */
-public class Politicas {
+public class Politicas implements PoliticaDisparo {
 
-    private final ProcesosModelados procesoModelado;
+    private final int[][] invariantes;
+    private final int[][] palabrasMascara;
+    private final long[][] mascaras;
+    private final int[][] invariantesPorClave;
+    private final int[][] invariantesPorTransicion;
+    private final int maximoPorTransicion;
+    private final int[] disparos;
+    private final int[] clave;
+    private final int[] heap;
+    private final int[] posicion;
+    private final int[] frontera;
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Constructor de la clase.
@@ -16,40 +41,346 @@ public class Politicas {
      * @param procesoModelado proceso modelado por la RdP
      */
     public Politicas(ProcesosModelados procesoModelado) {
-        // Se almacena el proceso modelado del parametro en la variable global
-        this.procesoModelado = procesoModelado;
+        // Se obtienen los t-invariantes y el total de transiciones de la red
+        List<List<Integer>> base = procesoModelado.getPlazasTransiciones();
+        int totalTransiciones = procesoModelado.getRDP().getTotaltransiciones();
+
+        // Se copian los t-invariantes a arreglos de enteros y se precalcula la mascara de cada uno, con solo las
+        // palabras en las que tiene transiciones
+        this.invariantes = new int[base.size()][];
+        this.palabrasMascara = new int[base.size()][];
+        this.mascaras = new long[base.size()][];
+        this.clave = new int[base.size()];
+        for (int i = 0; i < base.size(); i++) {
+            this.invariantes[i] = base.get(i).stream().mapToInt(Integer::intValue).toArray();
+            this.palabrasMascara[i] = Arrays.stream(this.invariantes[i]).map(t -> t >>> 6).distinct().sorted()
+                    .toArray();
+            this.mascaras[i] = new long[this.palabrasMascara[i].length];
+            for (int transicion : this.invariantes[i]) {
+                this.mascaras[i][Arrays.binarySearch(this.palabrasMascara[i], transicion >>> 6)] |= 1L << transicion;
+            }
+            this.clave[i] = this.invariantes[i][Math.min(1, this.invariantes[i].length - 1)];
+        }
+
+        // Se construye la tabla transicion -> t-invariantes cuya clave es esa transicion
+        int[] cantidad = new int[totalTransiciones];
+        for (int transicion : this.clave) {
+            cantidad[transicion]++;
+        }
+        this.invariantesPorClave = new int[totalTransiciones][];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            this.invariantesPorClave[transicion] = new int[cantidad[transicion]];
+            cantidad[transicion] = 0;
+        }
+        for (int i = 0; i < this.clave.length; i++) {
+            this.invariantesPorClave[this.clave[i]][cantidad[this.clave[i]]++] = i;
+        }
+
+        // Se construye la tabla transicion -> t-invariantes que la contienen
+        int[] pertenencias = new int[totalTransiciones];
+        for (int[] invariante : this.invariantes) {
+            for (int transicion : invariante) {
+                pertenencias[transicion]++;
+            }
+        }
+        this.invariantesPorTransicion = new int[totalTransiciones][];
+        for (int transicion = 0; transicion < totalTransiciones; transicion++) {
+            this.invariantesPorTransicion[transicion] = new int[pertenencias[transicion]];
+            pertenencias[transicion] = 0;
+        }
+        for (int i = 0; i < this.invariantes.length; i++) {
+            for (int transicion : this.invariantes[i]) {
+                this.invariantesPorTransicion[transicion][pertenencias[transicion]++] = i;
+            }
+        }
+        this.maximoPorTransicion = Math.max(1, Arrays.stream(this.invariantesPorTransicion).mapToInt(t -> t.length)
+                .max().orElse(0));
+
+        // Se inicializa el heap con todos los t-invariantes en orden, con cero disparos
+        this.disparos = new int[totalTransiciones];
+        this.heap = new int[base.size()];
+        this.posicion = new int[base.size()];
+        for (int i = 0; i < base.size(); i++) {
+            this.heap[i] = i;
+            this.posicion[i] = i;
+        }
+
+        // Se reserva la frontera utilizada para recorrer el heap en orden de prioridad
+        this.frontera = new int[base.size()];
+    }
+
+    /**
+     * Registra el disparo de una transición y reubica en el heap los t-invariantes cuya clave es esa transición.
+     *
+     * @param transicion Transición cuya tarea se realizó
+     */
+    @Override
+    public void notificarDisparo(int transicion) {
+        this.lock.lock();
+        try {
+            // Se incrementa el contador de la transicion
+            this.disparos[transicion]++;
+
+            // Se hunden en el heap los t-invariantes cuya clave aumento
+            for (int invariante : this.invariantesPorClave[transicion]) {
+                hundir(this.posicion[invariante]);
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
     }
 
     /**
      * Devuelve una y solo una transición para ser disparada. El método de decisión es, a partir de todas las
-     * transiciones disponibles para disparar (transicionesDisponibles) se elige la que tenga menor cantidad de disparos
-     * históricos (valor representado en el contador de procesoModelado). En caso de haber más de una con la misma
-     * cantidad de disparos, se elige la primera.
+     * transiciones disponibles para disparar (transicionesDisponibles) se elige la que pertenezca al t-invariante
+     * con menor cantidad de disparos históricos de su segunda transición. En caso de haber más de uno con la misma
+     * cantidad de disparos, se elige el primero, y dentro del t-invariante la primera transición disponible.
+     * <p>
+     * El heap se recorre en orden de prioridad con una frontera preasignada, que es a su vez un heap binario de
+     * nodos: se extrae el nodo de menor clave de la frontera y, si su t-invariante no tiene transiciones
+     * disponibles, se agregan sus hijos. Si las transiciones disponibles son pocas frente a los t-invariantes, en
+     * lugar de recorrer el heap se busca el de mayor prioridad entre los que contienen alguna de ellas, lo que da el
+     * mismo resultado.
      *
-     * @param transicionesDisponibles Transiciones disponibles para disparar
+     * @param transicionesDisponibles Bitset de transiciones disponibles para disparar (al menos una)
      * @return Transición seleccionada para disparar
      */
-    public int getDisparoPrioritario(List<Integer> transicionesDisponibles) {
-        // Se obtiene el contador de disparos por transicion del proceso modelado
-        int[] acciones = procesoModelado.getContadorDisparoTransiciones();
+    @Override
+    public int getDisparoPrioritario(long[] transicionesDisponibles) {
+        this.lock.lock();
+        try {
+            // Se recorren las transiciones disponibles si son pocas frente a los t-invariantes
+            if (contar(transicionesDisponibles) * this.maximoPorTransicion < this.heap.length) {
+                return prioritarioPorDisponibles(transicionesDisponibles);
+            }
 
-        // Se obtiene la matriz de t-invariantes
-        List<List<Integer>> base = procesoModelado.getPlazasTransiciones();
+            // Se inicia la frontera con la raiz del heap
+            int tamanioFrontera = 0;
+            if (this.heap.length > 0) {
+                this.frontera[tamanioFrontera++] = 0;
+            }
+
+            while (tamanioFrontera > 0) {
+                // Se extrae de la frontera el nodo de mayor prioridad, que esta en su raiz
+                int nodo = this.frontera[0];
+                this.frontera[0] = this.frontera[--tamanioFrontera];
+                hundirFrontera(tamanioFrontera);
+
+                // Se verifica si el t-invariante tiene alguna transicion disponible
+                int invariante = this.heap[nodo];
+                if (intersecta(invariante, transicionesDisponibles)) {
+                    return primeraDisponible(this.invariantes[invariante], transicionesDisponibles);
+                }
+
+                // Se agregan los hijos del nodo a la frontera
+                for (int hijo = 2 * nodo + 1; hijo <= 2 * nodo + 2 && hijo < this.heap.length; hijo++) {
+                    this.frontera[tamanioFrontera] = hijo;
+                    flotarFrontera(tamanioFrontera++);
+                }
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+
+        // Si ninguna transicion disponible pertenece a un t-invariante, se elige la de menor indice
+        for (int i = 0; i < transicionesDisponibles.length; i++) {
+            if (transicionesDisponibles[i] != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(transicionesDisponibles[i]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indica si el t-invariante a tiene mayor prioridad que el b: menos disparos de su clave o, a igualdad de
+     * disparos, menor índice.
+     *
+     * @param a Índice de un t-invariante
+     * @param b Índice de otro t-invariante
+     * @return true si a tiene mayor prioridad que b
+     */
+    private boolean menor(int a, int b) {
+        int disparosA = this.disparos[this.clave[a]];
+        int disparosB = this.disparos[this.clave[b]];
+        return disparosA < disparosB || (disparosA == disparosB && a < b);
+    }
+
+    /**
+     * Hunde en el heap el nodo indicado hasta restablecer la propiedad de heap.
+     *
+     * @param nodo Posición en el heap
+     */
+    private void hundir(int nodo) {
+        while (true) {
+            // Se busca el hijo de mayor prioridad
+            int hijo = 2 * nodo + 1;
+            if (hijo >= this.heap.length) {
+                return;
+            }
+            if (hijo + 1 < this.heap.length && menor(this.heap[hijo + 1], this.heap[hijo])) {
+                hijo++;
+            }
+
+            // Se detiene si el nodo ya tiene mayor prioridad que sus hijos
+            if (!menor(this.heap[hijo], this.heap[nodo])) {
+                return;
+            }
+
+            // Se intercambia el nodo con su hijo
+            int invariante = this.heap[nodo];
+            this.heap[nodo] = this.heap[hijo];
+            this.heap[hijo] = invariante;
+            this.posicion[this.heap[nodo]] = nodo;
+            this.posicion[invariante] = hijo;
+            nodo = hijo;
+        }
+    }
+
+    /**
+     * Elige la transición a disparar recorriendo los t-invariantes de cada transición disponible, en lugar del heap.
+     *
+     * @param transicionesDisponibles Bitset de transiciones disponibles para disparar
+     * @return Transición seleccionada, o la disponible de menor índice si ninguna pertenece a un t-invariante
+     */
+    private int prioritarioPorDisponibles(long[] transicionesDisponibles) {
+        // Se busca el t-invariante de mayor prioridad que contiene alguna transicion disponible
+        int mejor = -1;
+        int primera = -1;
+        for (int i = 0; i < transicionesDisponibles.length; i++) {
+            for (long palabra = transicionesDisponibles[i]; palabra != 0; palabra &= palabra - 1) {
+                int transicion = (i << 6) + Long.numberOfTrailingZeros(palabra);
+                if (primera < 0) {
+                    primera = transicion;
+                }
+                for (int invariante : this.invariantesPorTransicion[transicion]) {
+                    if (mejor < 0 || menor(invariante, mejor)) {
+                        mejor = invariante;
+                    }
+                }
+            }
+        }
+
+        // Se elige la primera transicion disponible del t-invariante, o la de menor indice si no hay ninguno
+        return mejor < 0 ? primera : primeraDisponible(this.invariantes[mejor], transicionesDisponibles);
+    }
+
+    /**
+     * Cuenta las transiciones encendidas en un bitset.
+     *
+     * @param transiciones Bitset de transiciones
+     * @return Cantidad de transiciones encendidas
+     */
+    private static int contar(long[] transiciones) {
+        int cantidad = 0;
+        for (long palabra : transiciones) {
+            cantidad += Long.bitCount(palabra);
+        }
+        return cantidad;
+    }
+
+    /**
+     * Hunde la raíz de la frontera hasta restablecer la propiedad de heap, comparando los t-invariantes de los nodos.
+     *
+     * @param tamanio Cantidad de nodos en la frontera
+     */
+    private void hundirFrontera(int tamanio) {
+        int posicionFrontera = 0;
+        while (true) {
+            // Se busca el hijo de mayor prioridad
+            int hijo = 2 * posicionFrontera + 1;
+            if (hijo >= tamanio) {
+                return;
+            }
+            if (hijo + 1 < tamanio && menor(this.heap[this.frontera[hijo + 1]], this.heap[this.frontera[hijo]])) {
+                hijo++;
+            }
+
+            // Se detiene si el nodo ya tiene mayor prioridad que sus hijos
+            if (!menor(this.heap[this.frontera[hijo]], this.heap[this.frontera[posicionFrontera]])) {
+                return;
+            }
+
+            // Se intercambia el nodo con su hijo
+            int nodo = this.frontera[posicionFrontera];
+            this.frontera[posicionFrontera] = this.frontera[hijo];
+            this.frontera[hijo] = nodo;
+            posicionFrontera = hijo;
+        }
+    }
+
+    /**
+     * Hace flotar un nodo de la frontera hasta restablecer la propiedad de heap.
+     *
+     * @param posicionFrontera Posición del nodo en la frontera
+     */
+    private void flotarFrontera(int posicionFrontera) {
+        while (posicionFrontera > 0) {
+            // Se detiene si el padre ya tiene mayor prioridad
+            int padre = (posicionFrontera - 1) >>> 1;
+            if (!menor(this.heap[this.frontera[posicionFrontera]], this.heap[this.frontera[padre]])) {
+                return;
+            }
+
+            // Se intercambia el nodo con su padre
+            int nodo = this.frontera[posicionFrontera];
+            this.frontera[posicionFrontera] = this.frontera[padre];
+            this.frontera[padre] = nodo;
+            posicionFrontera = padre;
+        }
+    }
+
+    /**
+     * Indica si un t-invariante tiene alguna transición encendida en el bitset, usando su máscara compacta.
+     *
+     * @param invariante Índice del t-invariante
+     * @param transiciones Bitset de transiciones
+     * @return true si alguna transición del t-invariante está encendida
+     */
+    private boolean intersecta(int invariante, long[] transiciones) {
+        int[] palabras = this.palabrasMascara[invariante];
+        long[] mascara = this.mascaras[invariante];
+        for (int i = 0; i < palabras.length; i++) {
+            if ((mascara[i] & transiciones[palabras[i]]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si dos bitsets tienen algún bit encendido en común.
+     *
+     * @param a Un bitset
+     * @param b Otro bitset de igual longitud
+     * @return true si comparten algún bit
+     */
+    static boolean intersecta(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retorna la primera transición del t-invariante que está encendida en el bitset.
+     *
+     * @param invariante Transiciones del t-invariante
+     * @param transiciones Bitset de transiciones
+     * @return Transición encontrada o -1 si ninguna está encendida
+     */
+    static int primeraDisponible(int[] invariante, long[] transiciones) {
+        // Se recorre el t-invariante en orden
+        for (int transicion : invariante) {
+            if ((transiciones[transicion >>> 6] & (1L << transicion)) != 0) {
+                return transicion;
+            }
+        }
 
-        // Se aplica la politica de seleccion de transicion prioriza, donde se aplana la lista de transiciones, se
-        // obtienen las transiciones disponibles y se recolectan las transiciones con prioridad
-        List<Integer> accionesPrivilegiadas = base.stream()
-                .sorted(Comparator.comparingInt(piecetransiciones -> acciones[piecetransiciones.get(1)]))
-                .flatMap(Collection::stream)
-                .filter(transicionesDisponibles::contains)
-                .collect(Collectors.toList());
-
-        // Se imprime por consola los disparos, los disponibles y el resultado
-        System.out.println("Disparos: " + Arrays.toString(acciones));
-        System.out.println("Disponible: " + transicionesDisponibles);
-        System.out.println("Resultado: " + accionesPrivilegiadas);
-
-        // Se retorna el primer disparo que cumpla la condicion
-        return accionesPrivilegiadas.get(0);
+        // Ninguna transicion del t-invariante esta disponible
+        return -1;
     }
 }
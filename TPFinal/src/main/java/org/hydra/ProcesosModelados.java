@@ -1,16 +1,33 @@
 package org.hydra;
 
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Clase que modela los procesos de la Red de Petri.
+ * <p>
+ * Cada transición puede tener registrada una {@link TareaTransicion}, que se realiza después de dispararla, fuera
+ * del monitor, con el {@link EjecutorTareas} elegido. Una tarea puede tener un límite de tareas en curso, que frena
+ * a los hilos que disparan la transición mientras esté completo, y una transición de salida que se dispara en el
+ * monitor al terminar la tarea, por lo que la finalización vuelve a la red como un disparo más. La tarea conserva sus
+ * lugares hasta que la salida se dispara, por lo que una salida bloqueada en el monitor frena a los disparadores. La
+ * transición de salida no debe pertenecer a ningún segmento, ya que la dispara la tarea.
  */
 public class ProcesosModelados {
 
+    // Se declara el tiempo maximo de espera de las tareas en curso al cerrar
+    private static final long ESPERATAREAS = 30;
+
     private final RDP rdp;
     private final List<List<Integer>> plazasTransiciones;
-    private final Politicas politicas;
-    private final int[] contadorDisparoTransiciones;
+    private PoliticaDisparo politicas;
+    private final AtomicIntegerArray contadorDisparoTransiciones;
+    private final TareaRegistrada[] tareas;
+    private EjecutorTareas ejecutorTareas = EjecutorTareas.crear("inline");
+    private Monitor monitor;
+    private volatile boolean tareasCerradas;
 
     /**
      * Constructor de la clase.
@@ -28,19 +45,145 @@ public class ProcesosModelados {
         // Se inicializa la variable global de la clase Politicas
         this.politicas = new Politicas(this);
 
-        // Se inicializa el tamaño del contador con la cantidad total de transiciones
-        this.contadorDisparoTransiciones = new int[rdp.getTotaltransiciones()];
+        // Se inicializa el tamaño del contador y de las tareas con la cantidad total de transiciones
+        this.contadorDisparoTransiciones = new AtomicIntegerArray(rdp.getTotaltransiciones());
+        this.tareas = new TareaRegistrada[rdp.getTotaltransiciones()];
+    }
+
+    /**
+     * Tarea registrada para una transición, con su límite de tareas en curso y su transición de salida.
+     */
+    private static final class TareaRegistrada {
+
+        private final TareaTransicion tarea;
+        private final Semaphore limite;
+        private final int salida;
+
+        private TareaRegistrada(TareaTransicion tarea, Semaphore limite, int salida) {
+            this.tarea = tarea;
+            this.limite = limite;
+            this.salida = salida;
+        }
+    }
+
+    /**
+     * Registra la tarea de una transición, sin límite de tareas en curso ni transición de salida. Debe llamarse
+     * antes de lanzar los hilos.
+     *
+     * @param transicion transición cuya tarea se registra
+     * @param tarea tarea a realizar después de cada disparo
+     */
+    public void registrarTarea(int transicion, TareaTransicion tarea) {
+        registrarTarea(transicion, tarea, 0, -1);
+    }
+
+    /**
+     * Registra la tarea de una transición. Debe llamarse antes de lanzar los hilos.
+     *
+     * @param transicion transición cuya tarea se registra
+     * @param tarea tarea a realizar después de cada disparo
+     * @param limite máximo de tareas de la transición en curso, o 0 si no tiene límite
+     * @param salida transición a disparar en el monitor al terminar cada tarea, o -1 si no tiene
+     * @throws IllegalArgumentException si el límite es negativo o alguna transición no existe
+     */
+    public void registrarTarea(int transicion, TareaTransicion tarea, int limite, int salida) {
+        // Se verifican las transiciones y el limite
+        if (transicion < 0 || transicion >= this.tareas.length || salida < -1 || salida >= this.tareas.length
+                || salida == transicion || limite < 0) {
+            throw new IllegalArgumentException(String.format("Tarea invalida: transicion %d, limite %d, salida %d",
+                    transicion, limite, salida));
+        }
+
+        // Se registra la tarea con su limite
+        this.tareas[transicion] = new TareaRegistrada(tarea, limite > 0 ? new Semaphore(limite) : null, salida);
+    }
+
+    /**
+     * Reemplaza el ejecutor de las tareas, que por defecto las realiza en el hilo que disparó, y asigna el monitor
+     * en el que se disparan las transiciones de salida. Debe llamarse antes de lanzar los hilos.
+     *
+     * @param ejecutor ejecutor de las tareas
+     * @param monitor monitor de la red
+     */
+    public void setEjecutorTareas(EjecutorTareas ejecutor, Monitor monitor) {
+        this.ejecutorTareas = ejecutor;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Retorna el ejecutor de las tareas.
+     *
+     * @return Ejecutor de las tareas
+     */
+    public EjecutorTareas getEjecutorTareas() {
+        return this.ejecutorTareas;
+    }
+
+    /**
+     * Deja de entregar tareas, espera a que terminen las que están en curso, con sus salidas, y cierra el ejecutor.
+     * Los disparos posteriores, como los finales, solo se cuentan. Debe llamarse antes de detener los hilos que
+     * disparan, ya que las salidas pueden tener que esperar en el monitor a que estos avancen la red; los tokens que
+     * queden a la entrada de una salida se vacían con los disparos finales.
+     *
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public void cerrarTareas() throws InterruptedException {
+        // Se dejan de entregar tareas
+        this.tareasCerradas = true;
+
+        // Se esperan las tareas en curso, avisando si no terminan a tiempo
+        if (!this.ejecutorTareas.esperar(ESPERATAREAS, TimeUnit.SECONDS)) {
+            System.out.printf("Quedaron %d tareas en curso tras esperar %d s\n", this.ejecutorTareas.getEnCurso(),
+                    ESPERATAREAS);
+        }
+
+        // Se cierra el ejecutor, interrumpiendo las tareas que no terminaron
+        this.ejecutorTareas.cerrar();
     }
 
     /**
-     * Realiza una tarea específica en el contexto de la simulación de una Red de Petri.
+     * Realiza una tarea específica en el contexto de la simulación de una Red de Petri. Puede llamarse desde varios
+     * hilos a la vez, fuera del monitor.
      *
      * @param transicion La transición que se va a realizar.
-     * @throws RuntimeException Si ocurre algún error durante la ejecución de la tarea.
+     * @throws RuntimeException Si el hilo se interrumpe mientras espera lugar para la tarea de la transición.
      */
     public void realizarTarea(int transicion) throws RuntimeException {
         // Incrementa el contador de disparo de la transición especificada
-        this.contadorDisparoTransiciones[transicion]++;
+        this.contadorDisparoTransiciones.incrementAndGet(transicion);
+
+        // Se notifica a la politica para que actualice la prioridad de los t-invariantes
+        this.politicas.notificarDisparo(transicion);
+
+        // Se entrega la tarea registrada para la transicion, si la hay y no se cerraron las tareas
+        TareaRegistrada registrada = this.tareas[transicion];
+        if (registrada != null && !this.tareasCerradas) {
+            if (registrada.salida < 0) {
+                this.ejecutorTareas.ejecutar(transicion, registrada.tarea, registrada.limite, null, null);
+            }
+            else {
+                this.ejecutorTareas.ejecutar(transicion, registrada.tarea, registrada.limite,
+                        () -> dispararSalida(registrada.salida), () -> realizarTarea(registrada.salida));
+            }
+        }
+    }
+
+    /**
+     * Dispara en el monitor la transición de salida de una tarea terminada. Se ejecuta en un hilo de salidas o en el
+     * que realizó la tarea, nunca en un hilo del pool, por lo que puede bloquearse sin detener al ejecutor. La tarea
+     * de la salida se entrega después, una vez liberados los lugares de la tarea terminada.
+     *
+     * @param salida transición de salida
+     * @throws IllegalStateException si no se asignó el monitor
+     */
+    private void dispararSalida(int salida) {
+        // Se verifica que haya un monitor en el que disparar la salida
+        if (this.monitor == null) {
+            throw new IllegalStateException("Las tareas con transicion de salida requieren asignar el monitor");
+        }
+
+        // Se dispara la salida
+        this.monitor.disparoTransicion(salida);
     }
 
     /**
@@ -68,18 +211,32 @@ public class ProcesosModelados {
      *
      * @return Las políticas aplicadas.
      */
-    public Politicas getPolitica() {
+    public PoliticaDisparo getPolitica() {
         // Retorna las políticas aplicadas en la simulación
         return this.politicas;
     }
 
+    /**
+     * Reemplaza la política por defecto. Debe llamarse antes de crear el monitor, que la toma al construirse.
+     *
+     * @param politica La política a aplicar.
+     */
+    public void setPolitica(PoliticaDisparo politica) {
+        // Se almacena la politica pasada como parametro en la variable global
+        this.politicas = politica;
+    }
+
     /**
      * Retorna el contador de disparos de transiciones en la simulación de la Red de Petri asociada a esta instancia de ProcesosModelados.
      *
-     * @return El arreglo que contiene el contador de disparos de transiciones.
+     * @return Una copia del contador de disparos de transiciones.
      */
     public int[] getContadorDisparoTransiciones() {
-        // Retorna el contador de disparos de transiciones
-        return this.contadorDisparoTransiciones;
+        // Retorna una copia del contador de disparos de transiciones
+        int[] contador = new int[this.contadorDisparoTransiciones.length()];
+        for (int i = 0; i < contador.length; i++) {
+            contador[i] = this.contadorDisparoTransiciones.get(i);
+        }
+        return contador;
     }
 }
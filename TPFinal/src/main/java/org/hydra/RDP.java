@@ -1,15 +1,7 @@
 package org.hydra;
 
-import org.apache.commons.math.linear.MatrixUtils;
-import org.apache.commons.math.linear.RealMatrix;
-import org.apache.commons.math.linear.RealVector;
-
-import org.apache.log4j.Logger;
-
 import org.hydra.beans.VectorSensibilizado;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,9 +9,10 @@ import java.util.List;
  */
 public class RDP {
 
-    private static final Logger LOG = Logger.getLogger(RDP.class);
-    private final RealMatrix matrizFlujo;
-    private RealVector tokens;
+    private final MotorDisparo motor;
+    private int[][] invariantesP;
+    private final int[] marcadoInicial;
+    private RegistroDisparos registroDisparos;
     private VectorSensibilizado vectorSensibilizado;
     private Estadistica estadistica;
 
@@ -29,12 +22,57 @@ public class RDP {
      * @param fluxMatrixData matriz de flujo de incidencia de la RdP
      * @param initialTokens marcado inicial de la RdP
      */
-    public RDP(double[][] fluxMatrixData, double[] initialTokens) {
-        // Se almacena la matriz de flujo que viene como parametro en la variable global
-        matrizFlujo = MatrixUtils.createRealMatrix(fluxMatrixData);
+    public RDP(int[][] fluxMatrixData, int[] initialTokens) {
+        // Se crea el motor de disparo disperso a partir de la matriz de flujo y los tokens iniciales
+        motor = new MotorDisparo(fluxMatrixData, initialTokens);
+
+        // Se calculan una unica vez los p-invariantes de la red
+        this.invariantesP = InvariantesP.calcular(fluxMatrixData);
+        this.marcadoInicial = motor.getMarcado();
+    }
+
+    /**
+     * Constructor de la clase a partir de un motor de disparo ya construido, como el que arma una
+     * {@link DefinicionRed}. Si no se indican los p-invariantes, se calculan recién cuando se piden, ya que en
+     * redes grandes la eliminación sobre la matriz de incidencia densa es costosa.
+     *
+     * @param motor motor de disparo con el marcado inicial de la RdP
+     * @param invariantesP p-invariantes de la red, uno por fila con un peso por plaza, o null para calcularlos
+     */
+    public RDP(MotorDisparo motor, int[][] invariantesP) {
+        // Se almacenan el motor, los p-invariantes conocidos y el marcado inicial
+        this.motor = motor;
+        this.invariantesP = invariantesP;
+        this.marcadoInicial = motor.getMarcado();
+    }
+
+    /**
+     * Este método activa la verificación del marcado con los p-invariantes de la red: tras cada disparo se verifican
+     * las cotas de las plazas de la transición y cada {@code periodo} disparos el marcado completo.
+     *
+     * @param periodo Cantidad de disparos entre verificaciones completas, 1 para verificar en cada disparo
+     * @return Guarda creada, para consultar sus verificaciones y violaciones
+     */
+    public GuardiaMarcado activarGuardia(int periodo) {
+        // Se crea la guarda con las constantes del marcado inicial y se la asigna al motor
+        GuardiaMarcado guardia = new GuardiaMarcado(getInvariantesP(), this.marcadoInicial, periodo);
+        this.motor.setGuardia(guardia);
+        return guardia;
+    }
+
+    /**
+     * Este método devuelve los p-invariantes de la red, calculándolos la primera vez si no se conocían.
+     *
+     * @return P-invariantes, uno por fila con un peso por plaza
+     */
+    public int[][] getInvariantesP() {
+        // Se calculan los p-invariantes a partir de la matriz de incidencia del motor, si no se conocian
+        if (this.invariantesP == null) {
+            this.invariantesP = InvariantesP.calcular(this.motor.getMatrizIncidencia());
+        }
 
-        // Se alamcenan los tokens que vienen como parametro en la variable global
-        tokens = MatrixUtils.createRealVector(initialTokens);
+        // Se retornan los p-invariantes
+        return this.invariantesP;
     }
 
     /**
@@ -53,25 +91,32 @@ public class RDP {
     }
 
     /**
-     * Este método devuelve un vector de transición que representa una transición específica en la red de Petri.
-     * El vector de transición tiene un valor de 1 en la posición correspondiente a la transición especificada,
-     * indicando que esa transición está habilitada, y 0 en todas las demás posiciones.
+     * Este método crea y devuelve un objeto de tipo Estadistica que mide después de un calentamiento hasta que se
+     * cumple la condición de parada indicada.
      *
-     * @param i Índice de la transición para la cual se creará el vector de transición
-     * @return Vector de transición creado
+     * @param plazasTransiciones Lista de listas de transiciones para las que se creará la estadística
+     * @param calentamiento Cantidad de t-invariantes que se excluyen de la medición
+     * @param condicion Condición que termina la medición
+     * @return Objeto Estadistica creado
      */
-    private RealVector getTransicion(int i) {
-        // Se crea un array para almacenar los datos del vector de transicion
-        double[] datosTransicion = new double[getTotaltransiciones()];
+    public Estadistica crearEstadistica(List<List<Integer>> plazasTransiciones, long calentamiento,
+                                        CondicionParada condicion) {
+        // Se crea un nuevo objeto de tipo Estadistica con el calentamiento y la condicion de parada
+        this.estadistica = new Estadistica(plazasTransiciones, calentamiento, condicion);
 
-        // Se rellena el array con 0
-        Arrays.fill(datosTransicion, 0);
-
-        // Se establece el valor de 1 en la posicion correspondiente a la transicion especificiada
-        datosTransicion[i] = 1;
+        // Se devuelve el objeto Estadistica creado
+        return this.estadistica;
+    }
 
-        // Se crea y devuelve un vector real con los datos proporcionados
-        return MatrixUtils.createRealVector(datosTransicion);
+    /**
+     * Este método establece el registro al que se informan los disparos. Sin registro, los disparos solo se cuentan
+     * en la estadística.
+     *
+     * @param registroDisparos Registro de disparos, o null para no registrarlos
+     */
+    public void setRegistroDisparos(RegistroDisparos registroDisparos) {
+        // Se guarda el registro de disparos
+        this.registroDisparos = registroDisparos;
     }
 
     /**
@@ -84,31 +129,25 @@ public class RDP {
      * @return true si la transición se disparó exitosamente, false si la transición no estaba sensibilizada
      */
     public boolean disparo(int transicion, boolean finalShots) {
-        // Se actualiza el vector de las transiciones sensibilizadas
-        this.vectorSensibilizado.setSensibilizar(getSensibilizadas());
-
         boolean retval;
 
-        // Se verifica si la transicion esta sensibilizada
+        // Se verifica si la transicion esta sensibilizada, consultando el bitset mantenido por el motor
         if(this.vectorSensibilizado.estaSensibilizada(transicion, finalShots)) {
-            // Se actualiza el marcaco
-            this.tokens = this.tokens.add(this.matrizFlujo.operate(getTransicion(transicion)));
-
-            // Se crea el String para registrar el evento de disparo
-            String message = String.format("%s. Disparador %s disparo T%s",
-                    System.currentTimeMillis(), Thread.currentThread().getName(), (transicion+1));
+            // Se actualiza el marcado y se reevaluan solo las transiciones afectadas por el disparo
+            this.motor.disparar(transicion);
 
-            // Se registra el evento de disparo
-            LOG.info(message);
+            // Se actualizan los tiempos de espera de las transiciones que quedaron sensibilizadas con el disparo
+            vectorSensibilizado.actualizarTiempoEspera(this.motor.getNuevasSensibilizadas(),
+                    this.motor.getCantidadNuevasSensibilizadas());
 
-            // Se actualizan los tiempos de espera
-            vectorSensibilizado.actualizarTiempoEspera(getSensibilizadas());
+            // Se rehabilitan las transiciones vencidas cuyas plazas de entrada cambiaron con el disparo
+            vectorSensibilizado.rehabilitarVencidas(this.motor.getTransicionesAfectadas(transicion));
 
             // Se setea el valor a retornar en true
             retval = true;
 
-            // Se llama al metodo para incrementar el contador de transiciones
-            this.estadistica.incrementarContador(transicion);
+            // Se registra el evento de disparo y se incrementa el contador de transiciones
+            registrarDisparo(transicion);
         }
         else {
             // Se setea el valor a retornar en false
@@ -120,28 +159,41 @@ public class RDP {
     }
 
     /**
-     * Este método devuelve una lista de índices de transiciones que están sensibilizadas en la red de Petri
-     * en función del marcado actual y la matriz de flujo.
+     * Este método informa al registro de disparos el disparo de una transición realizado por el hilo actual e incrementa el
+     * contador de la estadística. Lo utilizan también los monitores que disparan sobre su propio marcado.
      *
-     * @return Lista de índices de transiciones sensibilizadas
+     * @param transicion Índice de la transición disparada
      */
-    public List<Integer> getSensibilizadas() {
-        // Se crea una nueva lista
-        List<Integer> sensibilizado = new ArrayList<>();
+    public void registrarDisparo(int transicion) {
+        // Se registra el evento de disparo, sin formatear ni escribir dentro de la seccion critica
+        if (this.registroDisparos != null) {
+            this.registroDisparos.registrar(transicion);
+        }
 
-        for(int transicion = 0; transicion < getTotaltransiciones(); transicion++) {
-            // Se calcula cual es el proximo marcado
-            RealVector proximoToken = tokens.add(matrizFlujo.operate(getTransicion(transicion)));
+        // Se llama al metodo para incrementar el contador de transiciones
+        this.estadistica.incrementarContador(transicion);
+    }
 
-            // Se verifica que no haya ningun valor negativo en el arreglo
-            if(!Arrays.stream(proximoToken.getData()).filter(val -> val < 0).findAny().isPresent()) {
-                // Se almacena el valor de la transicion en la lista de sensibilizada
-                sensibilizado.add(transicion);
-            }
-        }
+    /**
+     * Este método indica si una transición está sensibilizada por tokens en el marcado actual.
+     *
+     * @param transicion Índice de la transición consultada
+     * @return true si la transición está sensibilizada, false de lo contrario
+     */
+    public boolean estaSensibilizada(int transicion) {
+        // Se consulta el bitset de sensibilizadas del motor
+        return motor.estaSensibilizada(transicion);
+    }
 
-        // Se devuelve la lista de transiciones sensibilizadas
-        return sensibilizado;
+    /**
+     * Este método devuelve el bitset de transiciones sensibilizadas por tokens, que el motor mantiene de forma
+     * incremental. El bit i de la palabra i / 64 corresponde a la transición i. El arreglo no debe modificarse.
+     *
+     * @return Bitset de transiciones sensibilizadas
+     */
+    public long[] getSensibilizadas() {
+        // Se devuelve el bitset de sensibilizadas del motor
+        return motor.getSensibilizadas();
     }
 
     /**
@@ -150,8 +202,8 @@ public class RDP {
      * @return Número total de transiciones
      */
     public int getTotaltransiciones() {
-        // Se devuelve la dimenson de columnas de la matriz de flujo, que representa el numero total de transiciones
-        return matrizFlujo.getColumnDimension();
+        // Se devuelve el numero total de transiciones del motor de disparo
+        return motor.getTotalTransiciones();
     }
 
     /**
@@ -165,12 +217,42 @@ public class RDP {
     }
 
     /**
-     * Este método devuelve el vector de marcado actual de la red de Petri.
+     * Este método devuelve una copia del vector de marcado actual de la red de Petri.
      *
      * @return Vector de marcado actual
      */
-    public RealVector getTokens() {
-        // Se retorna el tokens de marcado
-        return this.tokens;
+    public int[] getTokens() {
+        // Se retorna una copia del marcado
+        return this.motor.getMarcado();
+    }
+
+    /**
+     * Este método reemplaza el marcado actual de la red de Petri y reevalúa las transiciones sensibilizadas.
+     *
+     * @param tokens Nuevo vector de marcado
+     */
+    public void setTokens(int[] tokens) {
+        // Se reemplaza el marcado del motor
+        this.motor.setMarcado(tokens);
+    }
+
+    /**
+     * Este método devuelve el vector sensibilizado asociado a la red de Petri.
+     *
+     * @return Vector sensibilizado
+     */
+    public VectorSensibilizado getVectorSensibilizado() {
+        // Se retorna el vector sensibilizado
+        return this.vectorSensibilizado;
+    }
+
+    /**
+     * Este método devuelve el motor de disparo de la red de Petri.
+     *
+     * @return Motor de disparo
+     */
+    public MotorDisparo getMotor() {
+        // Se retorna el motor de disparo
+        return this.motor;
     }
 }
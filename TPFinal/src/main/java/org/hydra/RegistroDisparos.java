@@ -0,0 +1,22 @@
+package org.hydra;
+
+/**
+ * Destino de los eventos de disparo de la RdP. La RdP informa cada disparo en el orden causal en que ocurre,
+ * desde el hilo que disparó; la implementación decide cómo y cuándo persistirlo.
+ */
+public interface RegistroDisparos {
+
+    /**
+     * Registra el disparo de una transición realizado por el hilo actual.
+     *
+     * @param transicion Índice de la transición disparada
+     */
+    void registrar(int transicion);
+
+    /**
+     * Persiste los eventos pendientes y libera los recursos del registro. Debe llamarse una vez que no se
+     * realizan más disparos.
+     */
+    default void cerrar() {
+    }
+}
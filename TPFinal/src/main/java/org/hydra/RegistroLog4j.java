@@ -0,0 +1,55 @@
+package org.hydra;
+
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+
+import java.io.IOException;
+
+/**
+ * Registro de disparos síncrono con log4j: formatea y escribe cada línea dentro de la sección crítica del monitor.
+ * Se conserva para comparar su costo con el de {@link DiarioDisparos}.
+ */
+public class RegistroLog4j implements RegistroDisparos {
+
+    private final Logger log = Logger.getLogger(RegistroLog4j.class);
+    private final FileAppender archivo;
+
+    /**
+     * Constructor de la clase. Agrega al logger un appender al archivo indicado, que se sobrescribe.
+     *
+     * @param archivo archivo de texto donde se escriben los disparos
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public RegistroLog4j(String archivo) throws IOException {
+        // Se crea el appender con el mismo formato de linea que el diario y se lo asocia solo a este logger
+        this.archivo = new FileAppender(new PatternLayout("%m%n"), archivo, false);
+        this.log.addAppender(this.archivo);
+        this.log.setAdditivity(false);
+    }
+
+    /**
+     * Formatea y escribe la línea del disparo.
+     *
+     * @param transicion Índice de la transición disparada
+     */
+    @Override
+    public void registrar(int transicion) {
+        // Se crea el String para registrar el evento de disparo
+        String message = String.format("%s. Disparador %s disparo T%s",
+                System.currentTimeMillis(), Thread.currentThread().getName(), (transicion+1));
+
+        // Se registra el evento de disparo
+        this.log.info(message);
+    }
+
+    /**
+     * Cierra el appender del archivo.
+     */
+    @Override
+    public void cerrar() {
+        // Se quita y cierra el appender
+        this.log.removeAppender(this.archivo);
+        this.archivo.close();
+    }
+}
@@ -0,0 +1,297 @@
+package org.hydra;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Búsqueda de los sifones mínimos de una RdP y de la trampa máxima que contiene cada uno. Un sifón es un conjunto de
+ * plazas S tal que toda transición que produce en S también consume de S: una vez vacío, no vuelve a marcarse. Una
+ * trampa es lo opuesto: toda transición que consume de ella también produce en ella, así que marcada no se vacía.
+ * En una red ordinaria, el conjunto de plazas vacías de un bloqueo es un sifón, por lo que si cada sifón mínimo
+ * contiene una trampa marcada la red no puede bloquearse (condición de Commoner).
+ * <p>
+ * Los sifones se enumeran por ramificación y poda. Para cada plaza p se buscan los sifones cuya menor plaza es p:
+ * cada transición que produce en una plaza incluida necesita una plaza de entrada incluida; si tiene una sola
+ * candidata se incluye, y si tiene varias se ramifica incluyendo cada una y excluyendo las anteriores, de modo que
+ * cada sifón se encuentra una sola vez. Los sifones encontrados que contienen otro sifón se descartan.
+ */
+final class Sifones {
+
+    private final MotorDisparo motor;
+    private final int totalPlazas;
+    private final int[][] entrantes;
+    private final int[][] salientes;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param motor motor con la estructura de la red
+     */
+    Sifones(MotorDisparo motor) {
+        this.motor = motor;
+        this.totalPlazas = motor.getTotalPlazas();
+
+        // Se arman las transiciones que producen en cada plaza y las que consumen de ella
+        List<List<Integer>> producen = new ArrayList<>();
+        List<List<Integer>> consumen = new ArrayList<>();
+        for (int p = 0; p < this.totalPlazas; p++) {
+            producen.add(new ArrayList<>());
+            consumen.add(new ArrayList<>());
+        }
+        for (int t = 0; t < motor.getTotalTransiciones(); t++) {
+            for (int plaza : motor.getPlazasSalida(t)) {
+                producen.get(plaza).add(t);
+            }
+            for (int plaza : motor.getPlazasEntrada(t)) {
+                consumen.get(plaza).add(t);
+            }
+        }
+        this.entrantes = new int[this.totalPlazas][];
+        this.salientes = new int[this.totalPlazas][];
+        for (int p = 0; p < this.totalPlazas; p++) {
+            this.entrantes[p] = producen.get(p).stream().mapToInt(Integer::intValue).toArray();
+            this.salientes[p] = consumen.get(p).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Resultado de la enumeración: los sifones mínimos encontrados y, si no se completó, el motivo.
+     */
+    static final class Resultado {
+
+        final List<int[]> sifones;
+        final String motivo;
+
+        private Resultado(List<int[]> sifones, String motivo) {
+            this.sifones = sifones;
+            this.motivo = motivo;
+        }
+    }
+
+    /**
+     * Estado de una rama de la búsqueda: las plazas incluidas y las excluidas.
+     */
+    private static final class Rama {
+
+        private final BitSet incluidas;
+        private final BitSet excluidas;
+
+        private Rama(BitSet incluidas, BitSet excluidas) {
+            this.incluidas = incluidas;
+            this.excluidas = excluidas;
+        }
+    }
+
+    /**
+     * Enumera los sifones mínimos.
+     *
+     * @param limiteRamas cantidad máxima de ramas a recorrer
+     * @param limiteSifones cantidad máxima de sifones mínimos
+     * @return Sifones mínimos, cada uno con sus plazas en orden creciente
+     */
+    Resultado enumerar(int limiteRamas, int limiteSifones) {
+        List<int[]> sifones = new ArrayList<>();
+        long ramas = 0;
+
+        // Se buscan los sifones cuya menor plaza es cada plaza, excluyendo las anteriores
+        for (int p = 0; p < this.totalPlazas; p++) {
+            BitSet incluidas = new BitSet(this.totalPlazas);
+            BitSet excluidas = new BitSet(this.totalPlazas);
+            incluidas.set(p);
+            excluidas.set(0, p);
+            Deque<Rama> pendientes = new ArrayDeque<>();
+            pendientes.push(new Rama(incluidas, excluidas));
+
+            while (!pendientes.isEmpty()) {
+                if (++ramas > limiteRamas) {
+                    return new Resultado(sifones, "se superaron " + limiteRamas + " ramas de busqueda");
+                }
+                Rama rama = pendientes.pop();
+
+                // Se propagan las inclusiones forzadas y se busca una transicion sin resolver
+                int pendiente = propagar(rama);
+                if (pendiente == -2) {
+                    continue;
+                }
+                if (pendiente == -1) {
+                    // Se guarda el sifon si no contiene otro
+                    int[] sifon = rama.incluidas.stream().toArray();
+                    if (esMinimo(rama.incluidas)) {
+                        sifones.add(sifon);
+                        if (sifones.size() >= limiteSifones) {
+                            return new Resultado(sifones, "se alcanzaron " + limiteSifones + " sifones");
+                        }
+                    }
+                    continue;
+                }
+
+                // Se ramifica por cada plaza de entrada candidata de la transicion, excluyendo las anteriores
+                BitSet anteriores = (BitSet) rama.excluidas.clone();
+                for (int candidata : this.motor.getPlazasEntrada(pendiente)) {
+                    if (anteriores.get(candidata)) {
+                        continue;
+                    }
+                    BitSet nuevasIncluidas = (BitSet) rama.incluidas.clone();
+                    nuevasIncluidas.set(candidata);
+                    pendientes.push(new Rama(nuevasIncluidas, (BitSet) anteriores.clone()));
+                    anteriores.set(candidata);
+                }
+            }
+        }
+        return new Resultado(sifones, null);
+    }
+
+    /**
+     * Incluye las plazas forzadas de una rama: la única entrada no excluida de cada transición que produce en una
+     * plaza incluida y no consume de ninguna.
+     *
+     * @param rama rama a completar, que se modifica
+     * @return -2 si la rama no tiene sifones, -1 si las plazas incluidas ya son un sifón, o una transición con varias
+     *         candidatas para ramificar
+     */
+    private int propagar(Rama rama) {
+        // Se repite hasta que no haya inclusiones forzadas
+        boolean cambio = true;
+        int pendiente = -1;
+        while (cambio) {
+            cambio = false;
+            pendiente = -1;
+            for (int p = rama.incluidas.nextSetBit(0); p >= 0; p = rama.incluidas.nextSetBit(p + 1)) {
+                for (int t : this.entrantes[p]) {
+                    // Se cuentan las entradas incluidas y las candidatas de la transicion
+                    int candidatas = 0;
+                    int candidata = -1;
+                    boolean resuelta = false;
+                    for (int entrada : this.motor.getPlazasEntrada(t)) {
+                        if (rama.incluidas.get(entrada)) {
+                            resuelta = true;
+                            break;
+                        }
+                        if (!rama.excluidas.get(entrada)) {
+                            candidatas++;
+                            candidata = entrada;
+                        }
+                    }
+                    if (resuelta) {
+                        continue;
+                    }
+                    if (candidatas == 0) {
+                        return -2;
+                    }
+                    if (candidatas == 1) {
+                        rama.incluidas.set(candidata);
+                        cambio = true;
+                    }
+                    else if (pendiente < 0) {
+                        pendiente = t;
+                    }
+                }
+            }
+        }
+        return pendiente;
+    }
+
+    /**
+     * Indica si un sifón es mínimo: ningún subconjunto obtenido al quitar una plaza contiene un sifón.
+     *
+     * @param sifon plazas del sifón
+     * @return true si es mínimo
+     */
+    private boolean esMinimo(BitSet sifon) {
+        for (int p = sifon.nextSetBit(0); p >= 0; p = sifon.nextSetBit(p + 1)) {
+            BitSet resto = (BitSet) sifon.clone();
+            resto.clear(p);
+            if (!sifonMaximo(resto).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula el mayor sifón contenido en un conjunto de plazas, quitando las plazas con una transición de entrada
+     * que no consume del conjunto hasta que no quede ninguna.
+     *
+     * @param plazas conjunto de plazas, que se modifica
+     * @return El mismo conjunto, reducido al mayor sifón que contiene
+     */
+    private BitSet sifonMaximo(BitSet plazas) {
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int p = plazas.nextSetBit(0); p >= 0; p = plazas.nextSetBit(p + 1)) {
+                for (int t : this.entrantes[p]) {
+                    if (!consumeDe(t, plazas)) {
+                        plazas.clear(p);
+                        cambio = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return plazas;
+    }
+
+    /**
+     * Calcula la mayor trampa contenida en un conjunto de plazas, quitando las plazas con una transición de salida
+     * que no produce en el conjunto hasta que no quede ninguna.
+     *
+     * @param plazas plazas del conjunto
+     * @return Mayor trampa contenida, vacía si no hay
+     */
+    BitSet trampaMaxima(int[] plazas) {
+        BitSet trampa = new BitSet(this.totalPlazas);
+        for (int plaza : plazas) {
+            trampa.set(plaza);
+        }
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int p = trampa.nextSetBit(0); p >= 0; p = trampa.nextSetBit(p + 1)) {
+                for (int t : this.salientes[p]) {
+                    if (!produceEn(t, trampa)) {
+                        trampa.clear(p);
+                        cambio = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return trampa;
+    }
+
+    /**
+     * Indica si una transición consume de alguna plaza del conjunto.
+     *
+     * @param transicion transición a evaluar
+     * @param plazas conjunto de plazas
+     * @return true si alguna entrada está en el conjunto
+     */
+    private boolean consumeDe(int transicion, BitSet plazas) {
+        for (int entrada : this.motor.getPlazasEntrada(transicion)) {
+            if (plazas.get(entrada)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si una transición produce en alguna plaza del conjunto.
+     *
+     * @param transicion transición a evaluar
+     * @param plazas conjunto de plazas
+     * @return true si alguna salida está en el conjunto
+     */
+    private boolean produceEn(int transicion, BitSet plazas) {
+        for (int salida : this.motor.getPlazasSalida(transicion)) {
+            if (plazas.get(salida)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,604 @@
+package org.hydra;
+
+import org.hydra.beans.Segmento;
+import org.hydra.beans.VectorSensibilizado;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulación de eventos discretos de la RdP en un único hilo, con un reloj virtual en lugar de hilos, semáforos y
+ * esperas reales. Reproduce la ejecución con hilos sobre las mismas piezas: la {@link RDP} con su estadística y su
+ * guarda, un {@link VectorSensibilizado} que lee el reloj virtual, los ciclos de transiciones de cada
+ * {@link Segmento} y la {@link PoliticaDisparo} de los {@link ProcesosModelados}.
+ * <p>
+ * Cada hilo de un segmento es un hilo virtual que toma su próxima transición del iterador del segmento, como
+ * {@link Disparador}. Al llegar dispara si su transición está sensibilizada y dentro de su ventana, y si no espera
+ * en la cola de la transición. Tras cada disparo, como en {@link AdminMonitor}, la política elige entre las
+ * transiciones sensibilizadas con hilos esperando y se dispara la del primer hilo de su cola; el hilo que disparó
+ * vuelve a llegar después de la duración de su tarea. Las aperturas y cierres de las ventanas son eventos programados
+ * al sensibilizarse cada transición temporizada.
+ * <p>
+ * Los eventos se guardan en un heap preasignado ordenado por instante y, entre eventos del mismo instante, por un
+ * desempate pseudoaleatorio generado con la semilla: ese orden modela el del planificador de hilos, por lo que la
+ * misma semilla reproduce la misma traza y semillas distintas exploran intercalados distintos. Los disparos se
+ * escriben en un {@link EscritorTraza} con el instante virtual, en el mismo formato que la ejecución con hilos.
+ */
+public final class SimuladorEventos {
+
+    // Se declaran los tipos de evento, guardados en los bits bajos del dato
+    private static final int LLEGADA = 0;
+    private static final int APERTURA = 1;
+    private static final int CIERRE = 2;
+    private static final int BITSTIPO = 2;
+
+    // Se declara la capacidad inicial del heap de eventos
+    private static final int CAPACIDADINICIAL = 1024;
+
+    private final RDP rdp;
+    private final MotorDisparo motor;
+    private final ProcesosModelados procesoModelado;
+    private final PoliticaDisparo politica;
+    private final VectorSensibilizado vectorSensibilizado;
+    private final int[] transicionesFinales;
+    private final long demoraTarea;
+    private final long semilla;
+    private final SplittableRandom azar;
+    private final EscritorTraza salida;
+    private final long origen = System.nanoTime();
+
+    // Se declaran los hilos virtuales: su nombre, el iterador de su segmento, su transicion y su indice en la traza
+    private final String[] nombres;
+    private final List<Iterator<Integer>> ciclos;
+    private final int[] transicionHilo;
+    private final int[] indiceTraza;
+    private int hilosEnTraza;
+
+    // Se declaran las colas de hilos de cada transicion como listas enlazadas sobre arreglos
+    private final int[] primero;
+    private final int[] ultimo;
+    private final int[] siguiente;
+    private final long[] enEspera;
+    private final long[] candidatas;
+    private final long[] programada;
+
+    // Se declara el heap de eventos
+    private long[] tiempos = new long[CAPACIDADINICIAL];
+    private long[] desempates = new long[CAPACIDADINICIAL];
+    private int[] datos = new int[CAPACIDADINICIAL];
+    private int eventos;
+
+    private Estadistica estadistica;
+    private long ahora;
+    private int hiloActual;
+    private long disparos;
+    private long inicioMedicion = -1;
+    private long limite = Long.MAX_VALUE;
+    private boolean porObjetivo;
+    private boolean terminada;
+    private boolean bloqueada;
+    private long milisegundos;
+
+    /**
+     * Constructor de la clase. Crea un hilo virtual por cada hilo de cada segmento y asigna a la red un vector de
+     * sensibilizados con el reloj virtual y el registro que escribe la traza.
+     *
+     * @param procesoModelado proceso modelado de la red, con la política ya elegida
+     * @param segmentos segmentos de la red, cuyos iteradores consumen los hilos virtuales
+     * @param alpha límite inferior de la ventana de cada transición (0 si no tiene)
+     * @param beta límite superior de la ventana de cada transición ({@link VectorSensibilizado#SIN_LIMITE} si no
+     *             tiene), o null
+     * @param unidad unidad de alpha, beta y la demora de las tareas
+     * @param demoraTarea duración de la tarea de cada disparo, tras la cual el hilo vuelve a llegar
+     * @param transicionesFinales transiciones que se disparan al terminar, hasta que ninguna esté sensibilizada
+     * @param semilla semilla del orden de los eventos simultáneos
+     * @param salida salida de la traza de disparos, o null para no escribirla
+     */
+    public SimuladorEventos(ProcesosModelados procesoModelado, Segmento[] segmentos, long[] alpha, long[] beta,
+                            TimeUnit unidad, long demoraTarea, int[] transicionesFinales, long semilla,
+                            EscritorTraza salida) {
+        // Se verifica la demora de las tareas
+        if (demoraTarea < 0) {
+            throw new IllegalArgumentException("La demora de las tareas no puede ser negativa: " + demoraTarea);
+        }
+
+        // Se almacenan la red, la politica y los parametros de la simulacion
+        this.procesoModelado = procesoModelado;
+        this.rdp = procesoModelado.getRDP();
+        this.motor = this.rdp.getMotor();
+        this.politica = procesoModelado.getPolitica();
+        this.demoraTarea = unidad.toNanos(demoraTarea);
+        this.transicionesFinales = transicionesFinales.clone();
+        this.semilla = semilla;
+        this.azar = new SplittableRandom(semilla);
+        this.salida = salida;
+
+        // Se asignan a la red el vector de sensibilizados con el reloj virtual y el registro de la traza
+        this.vectorSensibilizado = new VectorSensibilizado(this.rdp, alpha, beta, unidad, () -> this.ahora);
+        this.rdp.setVectorSensibilizado(this.vectorSensibilizado);
+        this.rdp.setRegistroDisparos(salida == null ? null : this::registrar);
+
+        // Se crean los hilos virtuales con los nombres de los hilos del inicializador, y uno mas para los finales
+        int hilos = Arrays.stream(segmentos).mapToInt(Segmento::getNroHilo).sum();
+        this.nombres = new String[hilos + 1];
+        this.ciclos = new ArrayList<>(hilos);
+        this.transicionHilo = new int[hilos];
+        this.indiceTraza = new int[hilos + 1];
+        Arrays.fill(this.indiceTraza, -1);
+        int hilo = 0;
+        for (Segmento segmento : segmentos) {
+            for (int i = 0; i < segmento.getNroHilo(); i++) {
+                this.nombres[hilo++] = String.format("S%sN%s", segmento, i);
+                this.ciclos.add(segmento.getTransiciones());
+            }
+        }
+        this.nombres[hilos] = Thread.currentThread().getName();
+
+        // Se reservan las colas de hilos y los bitsets de espera y candidatas
+        int transiciones = this.rdp.getTotaltransiciones();
+        this.primero = new int[transiciones];
+        this.ultimo = new int[transiciones];
+        this.siguiente = new int[hilos];
+        Arrays.fill(this.primero, -1);
+        this.enEspera = new long[(transiciones + 63) >>> 6];
+        this.candidatas = new long[this.enEspera.length];
+        this.programada = new long[transiciones];
+        Arrays.fill(this.programada, Long.MIN_VALUE);
+    }
+
+    /**
+     * Ejecuta la simulación hasta que se cumpla la condición de parada, o hasta que no queden eventos porque la red
+     * se bloqueó, y luego dispara las transiciones finales y cierra la traza. La estadística debe crearse sobre la
+     * misma red y tener iniciado su tiempo.
+     *
+     * @param estadistica estadística de la red, que cuenta los t-invariantes
+     * @param parada condición de parada: una cantidad de t-invariantes, o una duración en tiempo virtual
+     * @throws IllegalArgumentException si la condición no puede evaluarse en tiempo virtual
+     * @throws UncheckedIOException si no se puede escribir la traza
+     */
+    public void ejecutar(Estadistica estadistica, CondicionParada parada) {
+        // Se interpreta la condicion de parada en tiempo virtual
+        this.estadistica = estadistica;
+        this.porObjetivo = parada.getObjetivo() != Long.MAX_VALUE;
+        if (parada instanceof ParadaPorDuracion) {
+            this.limite = ((ParadaPorDuracion) parada).getDuracion();
+            boolean temporizada = false;
+            for (int t = 0; t < this.rdp.getTotaltransiciones(); t++) {
+                temporizada |= this.vectorSensibilizado.getAlpha(t) > 0;
+            }
+            if (!temporizada && this.demoraTarea == 0) {
+                throw new IllegalArgumentException("Sin transiciones con alpha ni demora de tareas el tiempo virtual "
+                        + "no avanza: la simulacion requiere una parada por t-invariantes");
+            }
+        }
+        else if (!this.porObjetivo) {
+            throw new IllegalArgumentException("La simulacion admite paradas por t-invariantes o por duracion");
+        }
+        long inicio = System.nanoTime();
+
+        // Se programan la llegada de cada hilo y las ventanas de las transiciones sensibilizadas inicialmente
+        for (int hilo = 0; hilo < this.ciclos.size(); hilo++) {
+            this.transicionHilo[hilo] = this.ciclos.get(hilo).next();
+            programar(0, LLEGADA, hilo);
+        }
+        for (int t = 0; t < this.rdp.getTotaltransiciones(); t++) {
+            programarVentana(t);
+        }
+
+        // Se atienden los eventos en orden hasta la condicion de parada
+        while (!this.terminada && this.eventos > 0) {
+            // Se detiene en el limite de tiempo, sin atender eventos posteriores
+            long tiempo = this.tiempos[0];
+            if (this.inicioMedicion >= 0 && tiempo - this.inicioMedicion >= this.limite) {
+                this.ahora = this.inicioMedicion + this.limite;
+                break;
+            }
+            int dato = quitarEvento();
+            this.ahora = tiempo;
+            int indice = dato >>> BITSTIPO;
+
+            // Se atiende el evento segun su tipo
+            switch (dato & ((1 << BITSTIPO) - 1)) {
+                case LLEGADA:
+                    llegar(indice);
+                    break;
+                case APERTURA:
+                    abrirVentana(indice);
+                    break;
+                default:
+                    this.vectorSensibilizado.cerrarVentana(indice);
+                    break;
+            }
+            actualizarMedicion();
+        }
+        this.bloqueada = !this.terminada && this.eventos == 0;
+
+        // Se disparan las transiciones finales desde el hilo actual, como al finalizar la ejecucion con hilos
+        this.hiloActual = this.ciclos.size();
+        boolean fin = false;
+        while (!fin) {
+            fin = true;
+            for (int transicion : this.transicionesFinales) {
+                if (this.rdp.disparo(transicion, true)) {
+                    this.disparos++;
+                    this.procesoModelado.realizarTarea(transicion);
+                    fin = false;
+                }
+            }
+        }
+        this.milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Se cierra la traza
+        if (this.salida != null) {
+            try {
+                this.salida.vaciar();
+                this.salida.cerrar();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("No se pudo cerrar la traza de la simulacion", e);
+            }
+        }
+    }
+
+    /**
+     * Atiende la llegada de un hilo a su transición: dispara si está sensibilizada y dentro de su ventana, y si no
+     * lo encola en la transición.
+     *
+     * @param hilo hilo virtual
+     */
+    private void llegar(int hilo) {
+        int transicion = this.transicionHilo[hilo];
+        if (this.motor.estaSensibilizada(transicion) && this.vectorSensibilizado.dentroDeVentana(transicion)) {
+            disparar(hilo, transicion);
+        }
+        else {
+            encolar(hilo, transicion);
+        }
+    }
+
+    /**
+     * Atiende la apertura de la ventana de una transición: si hay transiciones sensibilizadas con hilos esperando y
+     * dentro de su ventana, dispara con el primer hilo de la que elige la política, como el monitor al abrirse una
+     * ventana.
+     *
+     * @param transicion transición temporizada
+     */
+    private void abrirVentana(int transicion) {
+        if (calcularCandidatas()) {
+            int elegida = unicaCandidata();
+            if (elegida < 0) {
+                elegida = this.politica.getDisparoPrioritario(this.candidatas);
+            }
+            disparar(desencolar(elegida), elegida);
+        }
+    }
+
+    /**
+     * Dispara una transición con un hilo y, mientras haya transiciones sensibilizadas con hilos esperando, dispara
+     * la que elige la política con el primer hilo de su cola, como el traspaso del mutex del monitor.
+     *
+     * @param hilo hilo virtual que dispara
+     * @param transicion transición sensibilizada y dentro de su ventana
+     */
+    private void disparar(int hilo, int transicion) {
+        while (true) {
+            // Se dispara la transicion; la ventana ya se verifico, por lo que solo se exigen los tokens
+            this.hiloActual = hilo;
+            this.rdp.disparo(transicion, true);
+            this.disparos++;
+
+            // Se programan las ventanas de las transiciones que se sensibilizaron con el disparo
+            for (int afectada : this.motor.getTransicionesAfectadas(transicion)) {
+                programarVentana(afectada);
+            }
+
+            // Se realiza la tarea y el hilo vuelve a llegar con su proxima transicion al terminarla
+            this.procesoModelado.realizarTarea(transicion);
+            this.transicionHilo[hilo] = this.ciclos.get(hilo).next();
+            programar(this.ahora + this.demoraTarea, LLEGADA, hilo);
+
+            // Se termina si se alcanzo el objetivo de t-invariantes
+            if (this.porObjetivo && this.estadistica.isObjetivoAlcanzado()) {
+                this.terminada = true;
+                return;
+            }
+
+            // Se elige la siguiente transicion entre las sensibilizadas con hilos esperando, consultando a la
+            // politica solo si hay mas de una
+            if (!calcularCandidatas()) {
+                return;
+            }
+            transicion = unicaCandidata();
+            if (transicion < 0) {
+                transicion = this.politica.getDisparoPrioritario(this.candidatas);
+            }
+            hilo = desencolar(transicion);
+        }
+    }
+
+    /**
+     * Calcula en el bitset de candidatas las transiciones sensibilizadas que tienen hilos esperando y están dentro
+     * de su ventana.
+     *
+     * @return true si hay al menos una transición candidata
+     */
+    private boolean calcularCandidatas() {
+        // Se intersectan palabra a palabra las sensibilizadas y las que tienen hilos esperando
+        long[] sensibilizadas = this.motor.getSensibilizadas();
+        long hay = 0;
+        for (int i = 0; i < this.candidatas.length; i++) {
+            this.candidatas[i] = sensibilizadas[i] & this.enEspera[i];
+            hay |= this.candidatas[i];
+        }
+
+        // Se descartan las temporizadas fuera de su ventana y las inmediatas que les quitarian los tokens
+        return hay != 0 && this.vectorSensibilizado.filtrarFueraDeVentana(this.candidatas, this.politica);
+    }
+
+    /**
+     * Devuelve la transición candidata si es la única.
+     *
+     * @return Única transición candidata, o -1 si hay más de una
+     */
+    private int unicaCandidata() {
+        int unica = -1;
+        for (int i = 0; i < this.candidatas.length; i++) {
+            long palabra = this.candidatas[i];
+            if (palabra == 0) {
+                continue;
+            }
+            if (unica >= 0 || (palabra & (palabra - 1)) != 0) {
+                return -1;
+            }
+            unica = (i << 6) + Long.numberOfTrailingZeros(palabra);
+        }
+        return unica;
+    }
+
+    /**
+     * Programa la apertura y el cierre de la ventana de una transición temporizada que se sensibilizó en el instante
+     * actual, una única vez por sensibilización.
+     *
+     * @param transicion transición a evaluar
+     */
+    private void programarVentana(int transicion) {
+        // Se ignoran las no temporizadas, las no sensibilizadas y las ya programadas
+        long sensibilizacion = this.vectorSensibilizado.getTiempoEspera(transicion);
+        if (!this.vectorSensibilizado.esTemporizada(transicion) || !this.motor.estaSensibilizada(transicion)
+                || this.programada[transicion] == sensibilizacion) {
+            return;
+        }
+        this.programada[transicion] = sensibilizacion;
+
+        // Se programa la apertura, si tiene alpha, y el cierre apenas despues de beta, si tiene limite superior
+        if (this.vectorSensibilizado.getAlpha(transicion) > 0) {
+            programar(sensibilizacion + this.vectorSensibilizado.getAlpha(transicion), APERTURA, transicion);
+        }
+        if (this.vectorSensibilizado.getBeta(transicion) != VectorSensibilizado.SIN_LIMITE) {
+            programar(sensibilizacion + this.vectorSensibilizado.getBeta(transicion) + 1, CIERRE, transicion);
+        }
+    }
+
+    /**
+     * Registra el instante virtual en que terminó el calentamiento, desde el que se mide la duración.
+     */
+    private void actualizarMedicion() {
+        if (this.inicioMedicion < 0 && this.estadistica.isMedicionIniciada()) {
+            this.inicioMedicion = this.ahora;
+        }
+    }
+
+    /**
+     * Escribe un disparo en la traza con el instante virtual y el hilo virtual que disparó.
+     *
+     * @param transicion transición disparada
+     * @throws UncheckedIOException si no se puede escribir la traza
+     */
+    private void registrar(int transicion) {
+        // Se asigna el indice del hilo en la traza en orden de aparicion, como el diario
+        int hilo = this.hiloActual;
+        if (this.indiceTraza[hilo] < 0) {
+            this.indiceTraza[hilo] = this.hilosEnTraza++;
+        }
+
+        try {
+            // Se escribe el disparo con el instante virtual desplazado al inicio de la simulacion
+            this.salida.escribir(this.origen + this.ahora, this.indiceTraza[hilo], this.nombres[hilo], transicion);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la traza de la simulacion", e);
+        }
+    }
+
+    /**
+     * Agrega un hilo al final de la cola de una transición.
+     *
+     * @param hilo hilo virtual
+     * @param transicion transición por la que espera
+     */
+    private void encolar(int hilo, int transicion) {
+        this.siguiente[hilo] = -1;
+        if (this.primero[transicion] < 0) {
+            this.primero[transicion] = hilo;
+            this.enEspera[transicion >>> 6] |= 1L << transicion;
+        }
+        else {
+            this.siguiente[this.ultimo[transicion]] = hilo;
+        }
+        this.ultimo[transicion] = hilo;
+    }
+
+    /**
+     * Quita el primer hilo de la cola de una transición.
+     *
+     * @param transicion transición con hilos esperando
+     * @return Hilo quitado
+     */
+    private int desencolar(int transicion) {
+        int hilo = this.primero[transicion];
+        this.primero[transicion] = this.siguiente[hilo];
+        if (this.primero[transicion] < 0) {
+            this.enEspera[transicion >>> 6] &= ~(1L << transicion);
+        }
+        return hilo;
+    }
+
+    /**
+     * Agrega un evento al heap, con un desempate pseudoaleatorio para los eventos del mismo instante.
+     *
+     * @param tiempo instante virtual del evento
+     * @param tipo tipo de evento
+     * @param indice hilo o transición del evento
+     */
+    private void programar(long tiempo, int tipo, int indice) {
+        // Se duplica la capacidad del heap si esta lleno
+        if (this.eventos == this.tiempos.length) {
+            this.tiempos = Arrays.copyOf(this.tiempos, 2 * this.eventos);
+            this.desempates = Arrays.copyOf(this.desempates, 2 * this.eventos);
+            this.datos = Arrays.copyOf(this.datos, 2 * this.eventos);
+        }
+
+        // Se sube el evento desde la ultima posicion
+        long desempate = this.azar.nextLong();
+        int posicion = this.eventos++;
+        while (posicion > 0) {
+            int padre = (posicion - 1) >>> 1;
+            if (!anterior(tiempo, desempate, this.tiempos[padre], this.desempates[padre])) {
+                break;
+            }
+            mover(padre, posicion);
+            posicion = padre;
+        }
+        this.tiempos[posicion] = tiempo;
+        this.desempates[posicion] = desempate;
+        this.datos[posicion] = (indice << BITSTIPO) | tipo;
+    }
+
+    /**
+     * Quita el primer evento del heap.
+     *
+     * @return Dato del evento, con el índice y el tipo
+     */
+    private int quitarEvento() {
+        int dato = this.datos[0];
+        int ultimoEvento = --this.eventos;
+        long tiempo = this.tiempos[ultimoEvento];
+        long desempate = this.desempates[ultimoEvento];
+        int datoUltimo = this.datos[ultimoEvento];
+
+        // Se hunde el ultimo evento desde la raiz
+        int posicion = 0;
+        while (true) {
+            int hijo = 2 * posicion + 1;
+            if (hijo >= ultimoEvento) {
+                break;
+            }
+            if (hijo + 1 < ultimoEvento && anterior(this.tiempos[hijo + 1], this.desempates[hijo + 1],
+                    this.tiempos[hijo], this.desempates[hijo])) {
+                hijo++;
+            }
+            if (!anterior(this.tiempos[hijo], this.desempates[hijo], tiempo, desempate)) {
+                break;
+            }
+            mover(hijo, posicion);
+            posicion = hijo;
+        }
+        this.tiempos[posicion] = tiempo;
+        this.desempates[posicion] = desempate;
+        this.datos[posicion] = datoUltimo;
+        return dato;
+    }
+
+    /**
+     * Indica si un evento va antes que otro: por instante y, a igual instante, por desempate.
+     *
+     * @param tiempo instante del evento
+     * @param desempate desempate del evento
+     * @param otroTiempo instante del otro evento
+     * @param otroDesempate desempate del otro evento
+     * @return true si el evento va antes
+     */
+    private static boolean anterior(long tiempo, long desempate, long otroTiempo, long otroDesempate) {
+        return tiempo < otroTiempo || tiempo == otroTiempo && desempate < otroDesempate;
+    }
+
+    /**
+     * Copia un evento del heap a otra posición.
+     *
+     * @param desde posición de origen
+     * @param hasta posición de destino
+     */
+    private void mover(int desde, int hasta) {
+        this.tiempos[hasta] = this.tiempos[desde];
+        this.desempates[hasta] = this.desempates[desde];
+        this.datos[hasta] = this.datos[desde];
+    }
+
+    /**
+     * Retorna el instante virtual en que terminó la simulación.
+     *
+     * @return Tiempo virtual en nanosegundos
+     */
+    public long getTiempoVirtual() {
+        return this.ahora;
+    }
+
+    /**
+     * Retorna el tiempo virtual medido, desde el fin del calentamiento hasta el final de la simulación.
+     *
+     * @return Tiempo virtual medido en nanosegundos, 0 si la medición no empezó
+     */
+    public long getTiempoMedido() {
+        return this.inicioMedicion < 0 ? 0 : this.ahora - this.inicioMedicion;
+    }
+
+    /**
+     * Retorna la cantidad de disparos simulados, incluidos los finales.
+     *
+     * @return Disparos
+     */
+    public long getDisparos() {
+        return this.disparos;
+    }
+
+    /**
+     * Indica si la simulación terminó porque la red se bloqueó antes de cumplirse la condición de parada.
+     *
+     * @return true si no quedaron eventos
+     */
+    public boolean isBloqueada() {
+        return this.bloqueada;
+    }
+
+    /**
+     * Imprime el resultado de la simulación.
+     *
+     * @param salida flujo de salida
+     */
+    public void imprimirResultado(PrintStream salida) {
+        // Se informan la semilla, el tiempo virtual y la velocidad de la simulacion
+        salida.printf("Simulacion de eventos con semilla %d: %d disparos en %.3f ms de tiempo virtual (%d ms reales, "
+                        + "%.0f disparos/s)\n", this.semilla, this.disparos, this.ahora / 1e6, this.milisegundos,
+                this.disparos * 1000.0 / Math.max(1, this.milisegundos));
+
+        // Se informan las transiciones con hilos esperando si la red se bloqueo
+        if (this.bloqueada) {
+            StringBuilder esperando = new StringBuilder();
+            for (int t = 0; t < this.primero.length; t++) {
+                if (this.primero[t] >= 0) {
+                    esperando.append(" T").append(t + 1);
+                }
+            }
+            salida.printf("La red se bloqueo a los %.3f ms de tiempo virtual, con hilos esperando en%s\n",
+                    this.ahora / 1e6, esperando);
+        }
+    }
+}
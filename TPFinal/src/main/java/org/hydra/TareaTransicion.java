@@ -0,0 +1,17 @@
+package org.hydra;
+
+/**
+ * Trabajo asociado al disparo de una transición, que se registra en {@link ProcesosModelados} y se ejecuta fuera del
+ * monitor con el {@link EjecutorTareas} elegido.
+ */
+@FunctionalInterface
+public interface TareaTransicion {
+
+    /**
+     * Realiza el trabajo de la transición.
+     *
+     * @param transicion transición disparada
+     * @throws Exception si el trabajo falla; el error se registra y no detiene al hilo que disparó
+     */
+    void realizar(int transicion) throws Exception;
+}
@@ -0,0 +1,99 @@
+package org.hydra;
+
+import java.util.Arrays;
+
+/**
+ * Vector entero disperso, como los invariantes mínimos y los sifones del análisis estructural: los índices no
+ * nulos en orden creciente y el valor de cada uno.
+ */
+public final class VectorDisperso {
+
+    private final int[] indices;
+    private final int[] valores;
+
+    /**
+     * Constructor de la clase.
+     *
+     * @param indices índices no nulos, en orden creciente
+     * @param valores valor de cada índice
+     */
+    public VectorDisperso(int[] indices, int[] valores) {
+        this.indices = indices;
+        this.valores = valores;
+    }
+
+    /**
+     * Retorna los índices no nulos, que forman el soporte del vector.
+     *
+     * @return Índices en orden creciente
+     */
+    public int[] getIndices() {
+        return this.indices.clone();
+    }
+
+    /**
+     * Retorna los valores de los índices no nulos.
+     *
+     * @return Valor de cada índice del soporte
+     */
+    public int[] getValores() {
+        return this.valores.clone();
+    }
+
+    /**
+     * Retorna la cantidad de índices no nulos.
+     *
+     * @return Tamaño del soporte
+     */
+    public int getTamanio() {
+        return this.indices.length;
+    }
+
+    /**
+     * Retorna el índice de una posición del soporte.
+     *
+     * @param posicion posición en el soporte
+     * @return Índice
+     */
+    public int getIndice(int posicion) {
+        return this.indices[posicion];
+    }
+
+    /**
+     * Retorna el valor de una posición del soporte.
+     *
+     * @param posicion posición en el soporte
+     * @return Valor
+     */
+    public int getValor(int posicion) {
+        return this.valores[posicion];
+    }
+
+    /**
+     * Arma el vector denso.
+     *
+     * @param tamanio largo del vector
+     * @return Vector con ceros fuera del soporte
+     */
+    public int[] denso(int tamanio) {
+        int[] vector = new int[tamanio];
+        for (int i = 0; i < this.indices.length; i++) {
+            vector[this.indices[i]] = this.valores[i];
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof VectorDisperso)) {
+            return false;
+        }
+        VectorDisperso vector = (VectorDisperso) otro;
+        return Arrays.equals(this.indices, vector.indices) && Arrays.equals(this.valores, vector.valores);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(this.indices) + Arrays.hashCode(this.valores);
+    }
+}
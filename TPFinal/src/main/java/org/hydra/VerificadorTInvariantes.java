@@ -0,0 +1,496 @@
+package org.hydra;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifica en una sola pasada que una secuencia de disparos se descomponga en instancias completas de los
+ * t-invariantes, cada una con sus transiciones en orden aunque se intercalen con las de otras instancias. Reemplaza
+ * al analizador con expresiones regulares: cada disparo se procesa en tiempo constante y la memoria es proporcional
+ * a las instancias en curso, no al largo de la traza.
+ * <p>
+ * Los t-invariantes se combinan en un autómata de prefijos, ya que pueden compartir transiciones iniciales (en la
+ * fábrica, T1 inicia los dos caminos de bloques y recién T2 o T3 determinan cuál). Cada estado del autómata guarda
+ * en orden de inicio las instancias que completaron ese prefijo; un disparo avanza la instancia más antigua que lo
+ * espera, o inicia una nueva si la transición comienza un t-invariante. Un disparo que ninguna instancia espera es
+ * un intercalado ilegal. Los hijos de cada estado se guardan de forma dispersa, agrupados por la transición que los
+ * alcanza, por lo que la memoria del autómata es proporcional al largo total de los t-invariantes y no a la cantidad
+ * de transiciones de la red.
+ * <p>
+ * La verificación puede hacerse en vivo, envolviendo la salida del {@link DiarioDisparos} con
+ * {@link #verificando(EscritorTraza)}, o sobre un archivo de traza binaria o de log de texto. No es segura para
+ * hilos: el diario la alimenta siempre desde su hilo escritor.
+ */
+public class VerificadorTInvariantes {
+
+    private static final int MAXIMO_EJEMPLOS = 10;
+    private static final int RAIZ = 0;
+    private static final int[] NINGUNO = new int[0];
+
+    private final List<List<Integer>> invariantes;
+    private final int[] hijosRaiz;
+    private final int[] invarianteCompleto;
+    private final boolean[] hojas;
+    private final int[] padres;
+    private final int[] transicionDeEstado;
+    private final int[][] estadosQueEsperan;
+    private final int[][] siguientesQueEsperan;
+    private final ColaInstancias[] instancias;
+    private final long[] completados;
+    private final List<String> ejemplosIlegales = new ArrayList<>();
+    private long ilegales;
+    private long disparos;
+
+    /**
+     * Constructor de la clase. Construye el autómata de prefijos de los t-invariantes.
+     *
+     * @param invariantes t-invariantes, cada uno como la secuencia ordenada de sus transiciones
+     * @param totalTransiciones cantidad de transiciones de la red
+     */
+    public VerificadorTInvariantes(List<List<Integer>> invariantes, int totalTransiciones) {
+        this.invariantes = invariantes;
+
+        // Se insertan los t-invariantes en el arbol de prefijos; los hijos de los estados no iniciales se buscan por
+        // el par (estado, transicion) solo durante la construccion
+        this.hijosRaiz = new int[totalTransiciones];
+        Arrays.fill(this.hijosRaiz, -1);
+        Map<Long, Integer> hijos = new HashMap<>();
+        List<Integer> padresPorEstado = new ArrayList<>();
+        List<Integer> transiciones = new ArrayList<>();
+        padresPorEstado.add(-1);
+        transiciones.add(-1);
+        List<Integer> finales = new ArrayList<>();
+        for (List<Integer> invariante : invariantes) {
+            int estado = RAIZ;
+            for (int transicion : invariante) {
+                int hijo = estado == RAIZ ? this.hijosRaiz[transicion]
+                        : hijos.getOrDefault(clave(estado, transicion), -1);
+                if (hijo < 0) {
+                    hijo = padresPorEstado.size();
+                    padresPorEstado.add(estado);
+                    transiciones.add(transicion);
+                    if (estado == RAIZ) {
+                        this.hijosRaiz[transicion] = hijo;
+                    }
+                    else {
+                        hijos.put(clave(estado, transicion), hijo);
+                    }
+                }
+                estado = hijo;
+            }
+            finales.add(estado);
+        }
+        int totalEstados = padresPorEstado.size();
+        this.padres = padresPorEstado.stream().mapToInt(Integer::intValue).toArray();
+        this.transicionDeEstado = transiciones.stream().mapToInt(Integer::intValue).toArray();
+
+        // Se marca el t-invariante que completa cada estado final; dos invariantes iguales comparten el estado
+        this.invarianteCompleto = new int[totalEstados];
+        Arrays.fill(this.invarianteCompleto, -1);
+        for (int i = finales.size() - 1; i >= 0; i--) {
+            this.invarianteCompleto[finales.get(i)] = i;
+        }
+
+        // Se marcan los estados sin continuaciones, que son los que no son padres de ningun otro; en uno final que
+        // si las tiene, la instancia queda a la espera de extenderse y se cuenta como completada mientras no lo haga
+        this.hojas = new boolean[totalEstados];
+        Arrays.fill(this.hojas, true);
+        for (int estado = 1; estado < totalEstados; estado++) {
+            this.hojas[this.padres[estado]] = false;
+        }
+
+        // Se calculan, por transicion, los estados no iniciales con instancias que pueden avanzar con ella y el
+        // estado al que avanzan, recorriendo cada estado una sola vez
+        int[] cantidad = new int[totalTransiciones];
+        for (int estado = 1; estado < totalEstados; estado++) {
+            if (this.padres[estado] != RAIZ) {
+                cantidad[this.transicionDeEstado[estado]]++;
+            }
+        }
+        this.estadosQueEsperan = new int[totalTransiciones][];
+        this.siguientesQueEsperan = new int[totalTransiciones][];
+        for (int t = 0; t < totalTransiciones; t++) {
+            this.estadosQueEsperan[t] = cantidad[t] == 0 ? NINGUNO : new int[cantidad[t]];
+            this.siguientesQueEsperan[t] = cantidad[t] == 0 ? NINGUNO : new int[cantidad[t]];
+            cantidad[t] = 0;
+        }
+        for (int estado = 1; estado < totalEstados; estado++) {
+            if (this.padres[estado] != RAIZ) {
+                int t = this.transicionDeEstado[estado];
+                this.estadosQueEsperan[t][cantidad[t]] = this.padres[estado];
+                this.siguientesQueEsperan[t][cantidad[t]++] = estado;
+            }
+        }
+
+        // Se crean las colas de instancias de cada estado y los contadores de completados
+        this.instancias = new ColaInstancias[totalEstados];
+        for (int estado = 0; estado < totalEstados; estado++) {
+            this.instancias[estado] = new ColaInstancias();
+        }
+        this.completados = new long[invariantes.size()];
+    }
+
+    /**
+     * Procesa un disparo de la traza.
+     *
+     * @param transicion índice de la transición disparada
+     */
+    public void disparo(int transicion) {
+        long numero = this.disparos++;
+
+        // Se busca, entre los estados que esperan la transicion, la instancia iniciada primero
+        int elegido = -1;
+        long inicioElegido = Long.MAX_VALUE;
+        boolean conocida = transicion >= 0 && transicion < this.estadosQueEsperan.length;
+        int[] candidatos = conocida ? this.estadosQueEsperan[transicion] : NINGUNO;
+        for (int i = 0; i < candidatos.length; i++) {
+            ColaInstancias cola = this.instancias[candidatos[i]];
+            if (!cola.estaVacia() && cola.primera() < inicioElegido) {
+                elegido = i;
+                inicioElegido = cola.primera();
+            }
+        }
+
+        // Se avanza la instancia elegida o se inicia una nueva
+        long inicio;
+        int siguiente;
+        if (elegido >= 0) {
+            inicio = this.instancias[candidatos[elegido]].quitar();
+            siguiente = this.siguientesQueEsperan[transicion][elegido];
+        }
+        else if (conocida && this.hijosRaiz[transicion] >= 0) {
+            inicio = numero;
+            siguiente = this.hijosRaiz[transicion];
+        }
+        else {
+            // Se registra el intercalado ilegal
+            this.ilegales++;
+            if (this.ejemplosIlegales.size() < MAXIMO_EJEMPLOS) {
+                this.ejemplosIlegales.add(String.format("disparo %d: T%d no continua ni inicia un t-invariante",
+                        numero + 1, transicion + 1));
+            }
+            return;
+        }
+
+        // Se cuenta el t-invariante completado o se deja la instancia en su nuevo estado
+        if (this.hojas[siguiente]) {
+            this.completados[this.invarianteCompleto[siguiente]]++;
+        }
+        else {
+            this.instancias[siguiente].agregar(inicio);
+        }
+    }
+
+    /**
+     * Devuelve una salida de traza que, además de escribir en la salida indicada, verifica cada disparo.
+     *
+     * @param salida salida de la traza a envolver
+     * @return salida que verifica los disparos
+     */
+    public EscritorTraza verificando(EscritorTraza salida) {
+        return new EscritorTraza() {
+            @Override
+            public void escribir(long nanosegundos, int hilo, String nombreHilo, int transicion) throws IOException {
+                // Se escribe el disparo y se lo verifica
+                salida.escribir(nanosegundos, hilo, nombreHilo, transicion);
+                disparo(transicion);
+            }
+
+            @Override
+            public void vaciar() throws IOException {
+                salida.vaciar();
+            }
+
+            @Override
+            public void cerrar() throws IOException {
+                salida.cerrar();
+            }
+        };
+    }
+
+    /**
+     * Verifica todos los disparos de una traza binaria.
+     *
+     * @param lector lector de la traza
+     * @throws IOException si no se puede leer la traza
+     */
+    public void verificar(LectorTraza lector) throws IOException {
+        // Se procesa cada disparo de la traza
+        while (lector.siguiente()) {
+            disparo(lector.getTransicion());
+        }
+    }
+
+    /**
+     * Verifica todos los disparos de un log de texto con una línea "... Tn" por disparo.
+     *
+     * @param log lector del log
+     * @throws IOException si no se puede leer el log o una línea no termina en una transición
+     */
+    public void verificar(BufferedReader log) throws IOException {
+        // Se interpreta el numero de transicion al final de cada linea
+        String linea;
+        while ((linea = log.readLine()) != null) {
+            int fin = linea.length();
+            while (fin > 0 && Character.isWhitespace(linea.charAt(fin - 1))) {
+                fin--;
+            }
+            if (fin == 0) {
+                continue;
+            }
+            int inicio = fin;
+            while (inicio > 0 && Character.isDigit(linea.charAt(inicio - 1))) {
+                inicio--;
+            }
+            if (inicio == fin || inicio == 0 || linea.charAt(inicio - 1) != 'T') {
+                throw new IOException("Linea de log sin transicion: " + linea);
+            }
+            disparo(Integer.parseInt(linea.substring(inicio, fin)) - 1);
+        }
+    }
+
+    /**
+     * Verifica un archivo de traza, binaria o de texto según su contenido.
+     *
+     * @param archivo archivo de traza binaria o log de texto
+     * @throws IOException si no se puede leer el archivo
+     */
+    public void verificar(Path archivo) throws IOException {
+        // Se determina el formato leyendo la magia de la traza binaria
+        byte[] magia = new byte[TrazaBinaria.MAGIA.length];
+        int leidos;
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            leidos = entrada.read(magia);
+        }
+
+        // Se verifica el archivo con el lector correspondiente
+        if (leidos == magia.length && Arrays.equals(magia, TrazaBinaria.MAGIA)) {
+            try (LectorTraza lector = new LectorTraza(archivo)) {
+                verificar(lector);
+            }
+        }
+        else {
+            try (BufferedReader log = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+                verificar(log);
+            }
+        }
+    }
+
+    /**
+     * Indica si la traza procesada se descompone exactamente en t-invariantes completos.
+     *
+     * @return true si no hubo intercalados ilegales ni quedaron instancias incompletas
+     */
+    public boolean esValida() {
+        return this.ilegales == 0 && getIncompletas() == 0;
+    }
+
+    /**
+     * Devuelve la cantidad de instancias completadas de un t-invariante.
+     *
+     * @param invariante índice del t-invariante
+     * @return instancias completadas
+     */
+    public long getCompletados(int invariante) {
+        // Se suman las instancias que esperan en un estado final con continuaciones
+        long total = this.completados[invariante];
+        for (int estado = 1; estado < this.instancias.length; estado++) {
+            if (this.invarianteCompleto[estado] == invariante && !this.hojas[estado]) {
+                total += this.instancias[estado].tamanio();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Devuelve la cantidad de instancias completadas de todos los t-invariantes.
+     *
+     * @return instancias completadas
+     */
+    public long getTotalCompletados() {
+        long total = 0;
+        for (int i = 0; i < this.completados.length; i++) {
+            total += getCompletados(i);
+        }
+        return total;
+    }
+
+    /**
+     * Devuelve la cantidad de instancias iniciadas que no completaron su t-invariante.
+     *
+     * @return instancias incompletas
+     */
+    public long getIncompletas() {
+        long total = 0;
+        for (int estado = 1; estado < this.instancias.length; estado++) {
+            if (this.invarianteCompleto[estado] < 0) {
+                total += this.instancias[estado].tamanio();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Devuelve la cantidad de disparos que no continuaron ni iniciaron un t-invariante.
+     *
+     * @return disparos ilegales
+     */
+    public long getIlegales() {
+        return this.ilegales;
+    }
+
+    /**
+     * Devuelve la cantidad de disparos procesados.
+     *
+     * @return disparos procesados
+     */
+    public long getDisparos() {
+        return this.disparos;
+    }
+
+    /**
+     * Imprime los t-invariantes completados y, si la traza no es válida, las instancias incompletas y los primeros
+     * intercalados ilegales.
+     *
+     * @param salida flujo de salida
+     */
+    public void imprimirResultado(PrintStream salida) {
+        // Se imprimen los completados de cada t-invariante
+        for (int i = 0; i < this.invariantes.size(); i++) {
+            salida.printf("T-invariante %s completado %d veces\n", nombrar(this.invariantes.get(i)), getCompletados(i));
+        }
+        salida.printf("Total de t-invariantes completados: %d (%d disparos)\n", getTotalCompletados(), this.disparos);
+
+        // Se imprimen las instancias incompletas agrupadas por prefijo
+        for (int estado = 1; estado < this.instancias.length; estado++) {
+            if (this.invarianteCompleto[estado] < 0 && !this.instancias[estado].estaVacia()) {
+                salida.printf("Instancias incompletas con prefijo %s: %d\n", prefijo(estado), this.instancias[estado].tamanio());
+            }
+        }
+
+        // Se imprimen los intercalados ilegales
+        if (this.ilegales > 0) {
+            salida.printf("Disparos ilegales: %d\n", this.ilegales);
+            for (String ejemplo : this.ejemplosIlegales) {
+                salida.println("  " + ejemplo);
+            }
+        }
+        salida.println(esValida() ? "La traza es valida" : "La traza NO es valida");
+    }
+
+    /**
+     * Devuelve las transiciones del prefijo que representa un estado, ej. "(T1 T2 T4)".
+     *
+     * @param estado estado del autómata
+     * @return prefijo del estado
+     */
+    private String prefijo(int estado) {
+        // Se recorre el camino desde el estado hasta la raiz y se lo nombra en orden
+        List<Integer> transiciones = new ArrayList<>();
+        for (int actual = estado; actual != RAIZ; actual = this.padres[actual]) {
+            transiciones.add(0, this.transicionDeEstado[actual]);
+        }
+        return nombrar(transiciones);
+    }
+
+    /**
+     * Devuelve el nombre de un t-invariante con sus transiciones numeradas desde 1, ej. "(T1 T2 T4 T6 T8)".
+     *
+     * @param invariante transiciones del t-invariante
+     * @return nombre del t-invariante
+     */
+    private static String nombrar(List<Integer> invariante) {
+        StringBuilder texto = new StringBuilder("(");
+        for (int i = 0; i < invariante.size(); i++) {
+            texto.append(i > 0 ? " T" : "T").append(invariante.get(i) + 1);
+        }
+        return texto.append(')').toString();
+    }
+
+    /**
+     * Combina un estado y una transición en la clave con la que se buscan los hijos durante la construcción.
+     *
+     * @param estado estado del autómata
+     * @param transicion transición que sale del estado
+     * @return clave del par
+     */
+    private static long clave(int estado, int transicion) {
+        return ((long) estado << 32) | transicion;
+    }
+
+    /**
+     * Verifica una traza de la fábrica e imprime el resultado.
+     *
+     * @param args archivo de traza binaria o log de texto (por defecto traza.bin)
+     * @throws IOException si no se puede leer el archivo
+     */
+    public static void main(String[] args) throws IOException {
+        // Se verifica el archivo indicado con los t-invariantes de la fabrica
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(Main.getTInvariantes(),
+                Main.crearRed().getTotaltransiciones());
+        verificador.verificar(Paths.get(args.length > 0 ? args[0] : "traza.bin"));
+        verificador.imprimirResultado(System.out);
+
+        // Se termina con codigo de error si la traza no es valida
+        if (!verificador.esValida()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Cola de los números de disparo con que se iniciaron las instancias de un estado, en orden de inicio. Crece
+     * duplicando su capacidad y no crea objetos por instancia.
+     */
+    private static final class ColaInstancias {
+
+        private long[] elementos = new long[8];
+        private int primero;
+        private int cantidad;
+
+        boolean estaVacia() {
+            return this.cantidad == 0;
+        }
+
+        int tamanio() {
+            return this.cantidad;
+        }
+
+        long primera() {
+            return this.elementos[this.primero];
+        }
+
+        long quitar() {
+            long valor = this.elementos[this.primero];
+            this.primero = (this.primero + 1) & (this.elementos.length - 1);
+            this.cantidad--;
+            return valor;
+        }
+
+        void agregar(long valor) {
+            // Se duplica la capacidad si la cola esta llena, conservando el orden
+            if (this.cantidad == this.elementos.length) {
+                long[] mayor = new long[2 * this.elementos.length];
+                for (int i = 0; i < this.cantidad; i++) {
+                    mayor[i] = this.elementos[(this.primero + i) & (this.elementos.length - 1)];
+                }
+                this.elementos = mayor;
+                this.primero = 0;
+            }
+            this.elementos[(this.primero + this.cantidad) & (this.elementos.length - 1)] = valor;
+            this.cantidad++;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.hydra.beans;
 
+import com.google.common.collect.Iterables;
+
+import java.util.Arrays;
 import java.util.Iterator;
 
 /**
@@ -12,6 +15,7 @@ public class Segmento {
     private final String nombre;
     private final int nroHilo;
     private final Iterator<Integer> transiciones;
+    private final int[] listaTransiciones;
 
     /**
      * Constructor de la clase.
@@ -29,6 +33,27 @@ public class Segmento {
 
         // Se almacena el parametro del nombre en su repsectiva variable global
         this.nombre = nombre;
+
+        // Se desconocen las transiciones que recorre el iterador
+        this.listaTransiciones = new int[0];
+    }
+
+    /**
+     * Constructor de la clase con un ciclo fijo de transiciones, que además quedan disponibles con
+     * {@link #getListaTransiciones()}.
+     *
+     * @param nroHilo Número máximo de hilos del segmento
+     * @param nombre Nombre del segmento, representado con una letra mayúscula, "A","B",...
+     * @param transiciones Transiciones que pertenecen al segmento, en el orden en que se disparan
+     */
+    public Segmento(int nroHilo, String nombre, int... transiciones) {
+        // Se almacenan los parametros en sus respectivas variables globales
+        this.nroHilo = nroHilo;
+        this.nombre = nombre;
+        this.listaTransiciones = transiciones.clone();
+
+        // Se crea el iterador que recorre las transiciones en ciclo
+        this.transiciones = Iterables.cycle(Arrays.stream(transiciones).boxed().toArray(Integer[]::new)).iterator();
     }
 
     /**
@@ -51,6 +76,16 @@ public class Segmento {
         return this.transiciones;
     }
 
+    /**
+     * Retorna las transiciones del segmento, si se lo creó con un ciclo fijo.
+     *
+     * @return Transiciones del segmento, vacío si solo se conoce su iterador
+     */
+    public int[] getListaTransiciones() {
+        // Se retorna una copia de las transiciones
+        return this.listaTransiciones.clone();
+    }
+
     /**
      * Retorna el nombre del segmento.
      *
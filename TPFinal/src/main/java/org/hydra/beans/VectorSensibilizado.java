@@ -1,44 +1,165 @@
 package org.hydra.beans;
 
-import org.hydra.AdminMonitor;
+import org.apache.log4j.Logger;
+
+import org.hydra.Monitor;
+import org.hydra.MotorDisparo;
+import org.hydra.PlanificadorTemporal;
+import org.hydra.PoliticaDisparo;
+import org.hydra.RDP;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
 
 /**
- * Vector de sensibilizados, utilizado para el manejo de la temporalidad de las transiciones temporizadas.
+ * Vector de sensibilizados, utilizado para el manejo de la temporalidad de las transiciones temporizadas. Los
+ * tiempos se miden con el reloj monótono {@link System#nanoTime()}, o con el reloj virtual de una simulación de
+ * eventos discretos, y los límites de la ventana se guardan en nanosegundos. Las aperturas y cierres de las ventanas se delegan en un {@link PlanificadorTemporal}: un hilo que
+ * llega antes de la ventana programa su apertura y se encola en la transición, en lugar de dormir, y al vencer el
+ * límite superior la transición queda deshabilitada hasta volver a sensibilizarse por tokens.
+ * <p>
+ * Cada nueva sensibilización reinicia la ventana, de modo que una transición solo se dispara tras permanecer
+ * sensibilizada alpha. Por eso una transición temporizada que comparte plazas de entrada con una inmediata pierde
+ * los tokens cada vez que la inmediata se dispara antes de alpha. Para evitarlo, el traspaso del monitor no
+ * despierta a las inmediatas que compiten con una temporizada que ya reunió sus tokens y tiene un hilo esperando
+ * su ventana, si la política prefiere a la temporizada. Con {@link #setMemoriaVentana(boolean)} se puede, en
+ * cambio, conservar el inicio de la ventana de esas transiciones entre sensibilizaciones.
  */
 public class VectorSensibilizado {
-    List<Integer> sensibilizado; //Transiciones sensibilizadas
-    private final long[] alpha = {0,10,10,10,10,10,10,10,0,10,10,10}; //Límite inferior de la ventana
-    private final long[] beta = new long[alpha.length]; //Límite superior de la ventana
-    private final long[] tiempoEspera = new long[alpha.length]; //Tiempo en el que se sensibilizó una transición (por tokens).
-    private final boolean[] esperandoPor = new boolean[alpha.length]; //Banderas de espera por transición.
-    AdminMonitor adminMonitor;
+    public static final long SIN_LIMITE = Long.MAX_VALUE; //Beta de las transiciones sin límite superior
+    private static final Logger LOG = Logger.getLogger(VectorSensibilizado.class);
+    private final long[] alpha; //Límite inferior de la ventana, en nanosegundos
+    private final long[] beta; //Límite superior de la ventana, en nanosegundos
+    private final long[] tiempoEspera; //Instante del reloj en el que se sensibilizó una transición (por tokens).
+    private final long[] temporizadas; //Bitset de transiciones con alpha o beta.
+    private final long[] vencidas; //Bitset de transiciones deshabilitadas por vencimiento de beta.
+    private final long[] esperandoVentana; //Bitset de transiciones con un hilo esperando que se abra su ventana.
+    private final long[][] competidoras; //Por transición temporizada, bitset de inmediatas que consumen de sus entradas.
+    private final long[] pendientes; //Bitset de temporizadas quitadas del último filtrado por no abrir su ventana.
+    private final long[] consulta; //Bitset con el que se consulta a la política en cada reserva.
+    private boolean memoriaVentana; //Conserva el inicio de la ventana de las transiciones con hilos esperando.
+    private int cantidadVencidas; //Cantidad de transiciones encendidas en el bitset de vencidas.
+    private final AtomicLongArray vencimientos; //Cantidad de vencimientos de beta por transición.
+    private final RDP rdp;
+    private final PlanificadorTemporal planificador;
+    private final LongSupplier reloj;
+
+
+    /**
+     * Constructor de la clase con los límites inferiores en milisegundos y sin límites superiores.
+     *
+     * @param monitor monitor de concurrencia de la RdP
+     * @param alpha límite inferior de la ventana de cada transición, en milisegundos (0 si no es temporizada)
+     */
+    public VectorSensibilizado(Monitor monitor, long[] alpha) {
+        // Se utilizan milisegundos y ningun limite superior
+        this(monitor, alpha, null, TimeUnit.MILLISECONDS);
+    }
 
+    /**
+     * Constructor de la clase. Si hay transiciones temporizadas se crea el planificador que notifica al monitor la
+     *  apertura y el cierre de cada ventana, y se programan los de las transiciones sensibilizadas en el marcado
+     *  inicial.
+     *
+     * @param monitor monitor de concurrencia de la RdP
+     * @param alpha límite inferior de la ventana de cada transición (0 si no tiene)
+     * @param beta límite superior de la ventana de cada transición ({@link #SIN_LIMITE} si no tiene), o null
+     * @param unidad unidad de alpha y beta
+     */
+    public VectorSensibilizado(Monitor monitor, long[] alpha, long[] beta, TimeUnit unidad) {
+        // Se usa el reloj monotono y el planificador que notifica al monitor
+        this(monitor.getRDP(), monitor, alpha, beta, unidad, System::nanoTime);
+    }
 
     /**
-     * Constructor de la clase
+     * Constructor de la clase para una simulación de eventos discretos: los tiempos se leen del reloj indicado y no
+     *  se crea planificador, por lo que quien avanza el reloj debe atender la apertura y el cierre de las ventanas
+     *  según {@link #getAlpha(int)}, {@link #getBeta(int)} y {@link #getTiempoEspera(int)}.
      *
-     * @param adminMonitor monitor de concurrencia de la RdP
+     * @param rdp RdP cuyas transiciones se temporizan
+     * @param alpha límite inferior de la ventana de cada transición (0 si no tiene)
+     * @param beta límite superior de la ventana de cada transición ({@link #SIN_LIMITE} si no tiene), o null
+     * @param unidad unidad de alpha y beta
+     * @param reloj reloj virtual en nanosegundos
      */
-    public VectorSensibilizado(AdminMonitor adminMonitor) {
-        // Se inicializa la lista de sensibilizado
-        this.sensibilizado = new ArrayList<>();
+    public VectorSensibilizado(RDP rdp, long[] alpha, long[] beta, TimeUnit unidad, LongSupplier reloj) {
+        // Se usa el reloj indicado sin planificador
+        this(rdp, null, alpha, beta, unidad, reloj);
+    }
+
+    /**
+     * Constructor común.
+     *
+     * @param rdp RdP cuyas transiciones se temporizan
+     * @param monitor monitor al que el planificador notifica las ventanas, o null para no crear planificador
+     * @param alpha límite inferior de la ventana de cada transición (0 si no tiene)
+     * @param beta límite superior de la ventana de cada transición ({@link #SIN_LIMITE} si no tiene), o null
+     * @param unidad unidad de alpha y beta
+     * @param reloj reloj en nanosegundos
+     * @throws IllegalArgumentException si no hay un alpha y un beta por transición, o si un alpha es negativo,
+     *         infinito o mayor que su beta
+     */
+    private VectorSensibilizado(RDP rdp, Monitor monitor, long[] alpha, long[] beta, TimeUnit unidad,
+                                LongSupplier reloj) {
+        // Se verifica que haya un alpha y un beta por transicion de la red
+        if (alpha.length != rdp.getTotaltransiciones()) {
+            throw new IllegalArgumentException("Se esperaban " + rdp.getTotaltransiciones() + " alphas, uno por "
+                    + "transicion, y se recibieron " + alpha.length);
+        }
+        if (beta != null && beta.length != alpha.length) {
+            throw new IllegalArgumentException("Se esperaban " + alpha.length + " betas y se recibieron " + beta.length);
+        }
+
+        // Se convierten los limites a nanosegundos y se reservan los arreglos por transicion
+        this.alpha = new long[alpha.length];
+        this.beta = new long[alpha.length];
+        this.tiempoEspera = new long[alpha.length];
+        this.temporizadas = new long[(alpha.length + 63) >>> 6];
+        this.vencidas = new long[(alpha.length + 63) >>> 6];
+        this.esperandoVentana = new long[(alpha.length + 63) >>> 6];
+        this.vencimientos = new AtomicLongArray(alpha.length);
+        for (int i = 0; i < alpha.length; i++) {
+            // Se rechazan los alpha negativos o infinitos, con los que la transicion nunca se dispararia
+            if (alpha[i] < 0 || alpha[i] == SIN_LIMITE) {
+                throw new IllegalArgumentException("El alpha de T" + (i + 1) + " debe ser un limite finito y no "
+                        + "negativo (\"-\" o \"inf\" solo se admiten en beta)");
+            }
+            this.alpha[i] = unidad.toNanos(alpha[i]);
+            this.beta[i] = beta == null || beta[i] == SIN_LIMITE ? SIN_LIMITE : unidad.toNanos(beta[i]);
+            if (this.alpha[i] > this.beta[i]) {
+                throw new IllegalArgumentException("El alpha de T" + (i + 1) + " supera a su beta");
+            }
+
+            // Se marcan las transiciones temporizadas
+            if (esTemporizada(i)) {
+                this.temporizadas[i >>> 6] |= 1L << i;
+            }
+        }
+
+        // Se completa el vector de tiempo de espera con el instante actual del reloj
+        this.reloj = reloj;
+        Arrays.fill(this.tiempoEspera, reloj.getAsLong());
 
-        // Se completa el vector de tiempo de espera con la hora actual del sistema
-        Arrays.fill(this.tiempoEspera, System.currentTimeMillis());
+        // Se almacena la RdP
+        this.rdp = rdp;
 
-        // Se setea en false cada elemento del array de esperandoPor
-        Arrays.fill(this.esperandoPor, false);
+        // Se calculan, para cada transicion temporizada, las inmediatas que consumen de alguna de sus plazas
+        this.competidoras = calcularCompetidoras();
+        this.pendientes = new long[this.temporizadas.length];
+        this.consulta = new long[this.temporizadas.length];
 
-        // Se setea en un valor alto el limite superior de la ventana de tiempo
-        Arrays.fill(this.beta,0xFFFFFFF);
+        // Se crea el planificador solo si hay un monitor y transiciones temporizadas
+        this.planificador = monitor != null && Arrays.stream(this.temporizadas).anyMatch(palabra -> palabra != 0)
+                ? new PlanificadorTemporal(alpha.length, monitor::ventanaAbierta, monitor::ventanaCerrada) : null;
 
-        // Se almacena el parametro del puntero de adminMonitor en la variable global
-        this.adminMonitor = adminMonitor;
+        // Se programan las ventanas de las transiciones temporizadas sensibilizadas inicialmente
+        for (int i = 0; i < alpha.length; i++) {
+            if (this.rdp.estaSensibilizada(i)) {
+                programarVentana(i);
+            }
+        }
     }
 
     /**
@@ -52,8 +173,8 @@ public class VectorSensibilizado {
         // Se inicializa la variable a retornar en false
         boolean retval = false;
 
-        // Se verifica si el vector de sensibilizado contiene la transicion
-        if(this.sensibilizado.contains(transicion)) {
+        // Se verifica si la transicion esta sensibilizada por tokens en la RdP
+        if(this.rdp.estaSensibilizada(transicion)) {
             // Se verifica si es el disparo final
             if(disparoFinal)
             {
@@ -66,87 +187,486 @@ public class VectorSensibilizado {
             }
         }
 
+        // Se borra la marca de espera de la ventana, ya que la transicion se va a disparar
+        if (retval) {
+            this.esperandoVentana[transicion >>> 6] &= ~(1L << transicion);
+        }
+
         // Se devuelve el resultado de verificar si esta sensibilizada
         return retval;
     }
 
     /**
      * Retorna un valor booleano que representa si la transición está temporizada temporalmente o no. A demás
-     *  maneja los diferentes casos de llegada del hilo a la ventana temporal.
+     *  maneja los diferentes casos de llegada del hilo a la ventana temporal: si llega antes, se programa la
+     *  apertura de la ventana y se retorna false para que el hilo se encole en la transición; si llega después,
+     *  la transición se deshabilita y se registra el vencimiento.
      *
      * @param transicion transición consultada
      * @return true si está sensibilizada temporalmente, false si no
-     * @throws RuntimeException si el hilo es interrumpido
      */
-    public boolean estaSensibilizadaPorTiempo(int transicion) throws RuntimeException {
-        if (this.alpha[transicion] == 0){ /*Alpha = 0 representa una transición no temporizada, por lo tanto sólo importan los tokens*/
-            System.out.printf("Hilo %s, transicion T%d sin temporizar\n",Thread.currentThread().getName(),transicion+1);
+    public boolean estaSensibilizadaPorTiempo(int transicion) {
+        if (!esTemporizada(transicion)){ /*Sin alpha ni beta representa una transición no temporizada, por lo tanto sólo importan los tokens*/
+            depurar(transicion, "sin temporizar");
             return true; /*Se dispara*/
         }
 
-        if (esperandoPor[transicion]){ /*Hay un hilo durmiendo a la espera de esta transición*/
-            System.out.printf("Hilo %s, transicion T%d hay un hilo esperando\n",Thread.currentThread().getName(),transicion+1);
-            return false; /*El hilo se coloca en la cola de la transición*/
+        if (estaVencida(transicion)){ /*La transición fue deshabilitada al vencer su beta*/
+            depurar(transicion, "deshabilitada por vencimiento");
+            return false; /*Se encola hasta que vuelva a sensibilizarse por tokens*/
         }
 
-        /*Cota inferior de la ventana = tiempo en que la transición fue sensibilizada por tokens + alpha*/
-        /*Cota superior de la ventana = tiempo en que la transición fue sensibilizada por tokens + beta*/
-        long tiempoActual = System.currentTimeMillis();
-        boolean enVentana = tiempoActual >= this.tiempoEspera[transicion] + this.alpha[transicion] && tiempoActual <= this.tiempoEspera[transicion] + this.beta[transicion];
-        if (enVentana){ /*Dentro de la ventana temporal*/
-            System.out.printf("Hilo %s, transicion T%d en la ventana\n",Thread.currentThread().getName(),transicion+1);
+        /*Ventana = [tiempo en que la transición fue sensibilizada por tokens + alpha, ... + beta]*/
+        long transcurrido = this.reloj.getAsLong() - this.tiempoEspera[transicion];
+        if (transcurrido > this.beta[transicion]){ /*Si no está antes de la ventana ni adentro, entonces se pasó*/
+            depurar(transicion, "despues de la ventana");
+            vencer(transicion);
+            return false;
+        }
+
+        if (transcurrido >= this.alpha[transicion]){ /*Dentro de la ventana temporal*/
+            depurar(transicion, "en la ventana");
             return true; /*Se dispara*/
         }
 
-        boolean preVentana = tiempoActual < this.tiempoEspera[transicion] + this.alpha[transicion];
-        if (!preVentana){ /*Si no está antes de la ventana ni adentro, entonces se pasó*/
-            System.out.printf("Hilo %s, transicion T%d despues de la ventana\n",Thread.currentThread().getName(),transicion+1);
-            return false; //Ver la posibilidad de lanzar excepción para que no entre a la cola
+        /*En este punto, el hilo está antes de la ventana temporal: se programa su apertura y el hilo se encola*/
+        depurar(transicion, "antes de la ventana, se programa su apertura");
+        marcarEspera(transicion);
+        programarApertura(transicion, this.alpha[transicion] - transcurrido);
+        return false;
+    }
+
+    /**
+     * Registra en el nivel debug el caso de llegada del hilo a la ventana de la transición. Se llama con el mutex del
+     *  monitor, por lo que solo se formatea el mensaje si ese nivel está habilitado.
+     *
+     * @param transicion transición consultada
+     * @param estado caso de llegada a la ventana
+     */
+    private static void depurar(int transicion, String estado) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Hilo %s, transicion T%d %s", Thread.currentThread().getName(), transicion + 1,
+                    estado));
+        }
+    }
+
+    /**
+     * Indica si la transición puede dispararse por tiempo, sin registrar el caso ni programar la apertura de su
+     *  ventana: no es temporizada, o no está vencida y el tiempo desde su sensibilización está entre alpha y beta.
+     *  Si superó su beta, la transición se deshabilita y se registra el vencimiento.
+     *
+     * @param transicion transición sensibilizada por tokens
+     * @return true si está dentro de su ventana
+     */
+    public boolean dentroDeVentana(int transicion) {
+        // Las transiciones sin alpha ni beta solo dependen de los tokens
+        if (!esTemporizada(transicion)) {
+            return true;
+        }
+        if (estaVencida(transicion)) {
+            return false;
+        }
+
+        // Se deshabilita la transicion si supero su beta
+        long transcurrido = this.reloj.getAsLong() - this.tiempoEspera[transicion];
+        if (transcurrido > this.beta[transicion]) {
+            vencer(transicion);
+            return false;
         }
 
-        /*En este punto, el hilo está antes de la ventana temporal*/
-        this.esperandoPor[transicion] = true; /*Actualiza el vector de espera*/
-        long tiempoDescanso = this.tiempoEspera[transicion] + this.alpha[transicion] - tiempoActual; /*Tiempo que le falta para llegar a la cota inferior*/
-        this.adminMonitor.getMutex().release(); /*Abandona el mutex*/
-        System.out.printf("Hilo %s, transicion T%d antes de la ventana, listo para dormir\n",Thread.currentThread().getName(),transicion+1);
+        // Se marca la espera si la ventana todavia no se abrio
+        if (transcurrido < this.alpha[transicion]) {
+            marcarEspera(transicion);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retorna cuánto falta para la apertura de la ventana de la transición, contado desde su última
+     *  sensibilización por tokens.
+     *
+     * @param transicion transición consultada
+     * @return nanosegundos hasta la cota inferior, 0 si ya se alcanzó o la transición no tiene alpha
+     */
+    public long tiempoHastaVentana(int transicion) {
+        // Las transiciones sin alpha no esperan
+        if (this.alpha[transicion] == 0) {
+            return 0;
+        }
+
+        // Se calcula el tiempo que falta para la cota inferior
+        return Math.max(0, this.alpha[transicion] - (this.reloj.getAsLong() - this.tiempoEspera[transicion]));
+    }
+
+    /**
+     * Programa en el planificador la apertura de la ventana de la transición.
+     *
+     * @param transicion transición temporizada
+     * @param demora nanosegundos hasta la apertura
+     */
+    public void programarApertura(int transicion, long demora) {
+        // Se programa el vencimiento si existe el planificador
+        if (this.planificador != null) {
+            this.planificador.programar(transicion, demora, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Atiende el cierre programado de la ventana de la transición: si sigue sensibilizada por tokens, no fue
+     *  disparada desde entonces y superó su beta, se la deshabilita y se registra el vencimiento. Debe llamarse
+     *  con la exclusión del monitor.
+     *
+     * @param transicion transición temporizada
+     */
+    public void cerrarVentana(int transicion) {
+        // Se verifica que el cierre corresponda a la sensibilizacion vigente
+        if (this.beta[transicion] != SIN_LIMITE && !estaVencida(transicion) && this.rdp.estaSensibilizada(transicion)
+                && this.reloj.getAsLong() - this.tiempoEspera[transicion] > this.beta[transicion]) {
+            vencer(transicion);
+        }
+    }
+
+    /**
+     * Registra el vencimiento de la ventana de una transición detectado por un monitor que lleva sus propias
+     *  ventanas. Es seguro entre hilos.
+     *
+     * @param transicion transición cuya ventana venció
+     */
+    public void registrarVencimiento(int transicion) {
+        // Se cuenta el vencimiento y se deja constancia en el log
+        this.vencimientos.incrementAndGet(transicion);
+        LOG.warn(String.format("%s. Transicion T%s deshabilitada: vencio su beta de %s ns", this.reloj.getAsLong(), transicion + 1, this.beta[transicion]));
+    }
+
+    /**
+     * Quita del bitset las transiciones temporizadas que no están dentro de su ventana, para no despertar hilos que
+     *  solo volverían a encolarse. Las que superaron su beta se deshabilitan y las que no llegaron a alpha quedan
+     *  marcadas con un hilo esperando su ventana, ya que el bitset reúne transiciones con hilos encolados. Solo se
+     *  evalúan las transiciones temporizadas presentes en el bitset.
+     * <p>
+     * Si se indica una política, además se reservan los tokens de cada transición que espera su ventana: se quitan
+     *  las inmediatas que consumen de sus plazas de entrada si la política la prefiere a ellas. Sin la reserva, una
+     *  inmediata con hilos esperando toma los tokens compartidos en cada traspaso y la temporizada vuelve a empezar
+     *  su ventana. La reserva solo afecta al traspaso: un hilo que entra al monitor dispara si la transición está
+     *  sensibilizada.
+     *
+     * @param transiciones bitset de transiciones, modificado en el lugar
+     * @param politica política que decide las reservas, o null para no reservar
+     * @return true si queda alguna transición en el bitset
+     */
+    public boolean filtrarFueraDeVentana(long[] transiciones, PoliticaDisparo politica) {
+        long ahora = this.reloj.getAsLong();
+        boolean hayPendientes = false;
+        for (int i = 0; i < transiciones.length; i++) {
+            // Se recorren las transiciones temporizadas de la palabra
+            long pendientesPalabra = 0;
+            long temporizadasPalabra = transiciones[i] & this.temporizadas[i];
+            while (temporizadasPalabra != 0) {
+                int bit = Long.numberOfTrailingZeros(temporizadasPalabra);
+                int transicion = (i << 6) + bit;
+                temporizadasPalabra &= temporizadasPalabra - 1;
+
+                // Se deshabilita la transicion si supero su beta
+                long transcurrido = ahora - this.tiempoEspera[transicion];
+                if (!estaVencida(transicion) && transcurrido > this.beta[transicion]) {
+                    vencer(transicion);
+                }
+
+                // Se quita la transicion si esta vencida o su ventana no se abrio, marcando la espera en este caso
+                if (estaVencida(transicion)) {
+                    transiciones[i] &= ~(1L << bit);
+                }
+                else if (transcurrido < this.alpha[transicion]) {
+                    transiciones[i] &= ~(1L << bit);
+                    marcarEspera(transicion);
+                    pendientesPalabra |= 1L << bit;
+                }
+            }
+            this.pendientes[i] = pendientesPalabra;
+            hayPendientes |= pendientesPalabra != 0;
+        }
+
+        // Se reservan los tokens de las transiciones que esperan su ventana
+        if (hayPendientes && politica != null) {
+            reservarTokens(transiciones, politica);
+        }
+
+        // Se indica si quedo alguna transicion
+        long hay = 0;
+        for (long palabra : transiciones) {
+            hay |= palabra;
+        }
+        return hay != 0;
+    }
+
+    /**
+     * Quita del bitset las transiciones inmediatas que compiten por los tokens de una transición pendiente de su
+     *  ventana, cuando la política elige a la pendiente frente a ellas.
+     *
+     * @param transiciones bitset de candidatas, modificado en el lugar
+     * @param politica política que decide entre la pendiente y sus competidoras
+     */
+    private void reservarTokens(long[] transiciones, PoliticaDisparo politica) {
+        for (int i = 0; i < this.pendientes.length; i++) {
+            for (long palabra = this.pendientes[i]; palabra != 0; palabra &= palabra - 1) {
+                // Se arma la consulta con la pendiente y sus competidoras candidatas
+                int transicion = (i << 6) + Long.numberOfTrailingZeros(palabra);
+                long[] competidorasTransicion = this.competidoras[transicion];
+                long hay = 0;
+                for (int j = 0; j < this.consulta.length; j++) {
+                    this.consulta[j] = competidorasTransicion[j] & transiciones[j];
+                    hay |= this.consulta[j];
+                }
+                if (hay == 0) {
+                    continue;
+                }
+                this.consulta[i] |= 1L << transicion;
+
+                // Se quitan las competidoras si la politica prefiere a la pendiente
+                if (politica.getDisparoPrioritario(this.consulta) == transicion) {
+                    for (int j = 0; j < transiciones.length; j++) {
+                        transiciones[j] &= ~competidorasTransicion[j];
+                    }
+                }
+            }
+        }
+    }
 
-        try {
-            TimeUnit.MILLISECONDS.sleep(tiempoDescanso); /*Duerme el tiempo que le falta para llegar*/
-            this.adminMonitor.getMutex().acquire();
-        } catch (InterruptedException e) {
-            throw new RuntimeException();
+    /**
+     * Detiene el hilo del planificador de las ventanas, si existe. Debe llamarse una vez que terminaron los hilos
+     * que disparan, ya que no quedan hilos que despertar.
+     */
+    public void detenerPlanificador() {
+        if (this.planificador != null) {
+            this.planificador.detener();
         }
-        /*En este punto ya tomó el mutex del monitor*/
-        this.esperandoPor[transicion] = false; /*Actualiza el vector de espera*/
-        setSensibilizar(this.adminMonitor.getRDP().getSensibilizadas()); /*Actualiza el vector de sensibilizadas, ya que pudo cambiar*/
-        System.out.printf("Hilo %s, transicion T%d despierto\n",Thread.currentThread().getName(),transicion+1);
-        return estaSensibilizada(transicion, false); /*Verifica si sigue estando sensibilizada*/
     }
 
     /**
-     * Actualiza el vector de tiempos de las transiciones. Solo actualiza el de las que no estaban sensibilizadas
-     *  anteriormente pero luego sí.
+     * Retorna el límite inferior de la ventana temporal de la transición.
+     *
+     * @param transicion transición consultada
+     * @return alpha de la transición en nanosegundos (0 si no tiene)
+     */
+    public long getAlpha(int transicion) {
+        // Se retorna el limite inferior de la ventana
+        return this.alpha[transicion];
+    }
+
+    /**
+     * Retorna el límite superior de la ventana temporal de la transición, relativo al instante de sensibilización.
+     *
+     * @param transicion transición consultada
+     * @return beta de la transición en nanosegundos, o {@link #SIN_LIMITE}
+     */
+    public long getBeta(int transicion) {
+        // Se retorna el limite superior de la ventana
+        return this.beta[transicion];
+    }
+
+    /**
+     * Retorna el instante en que la transición quedó sensibilizada por tokens por última vez.
+     *
+     * @param transicion transición consultada
+     * @return instante de sensibilización según el reloj del vector
+     */
+    public long getTiempoEspera(int transicion) {
+        // Se retorna el instante de sensibilizacion
+        return this.tiempoEspera[transicion];
+    }
+
+    /**
+     * Retorna la cantidad de veces que venció la ventana de la transición.
+     *
+     * @param transicion transición consultada
+     * @return cantidad de vencimientos de beta
+     */
+    public long getVencimientos(int transicion) {
+        // Se retorna el contador de vencimientos
+        return this.vencimientos.get(transicion);
+    }
+
+    /**
+     * Actualiza el vector de tiempos de las transiciones. Solo recibe las que no estaban sensibilizadas
+     *  anteriormente pero luego sí, calculadas por el motor de la RdP en el último disparo. Una nueva
+     *  sensibilización rehabilita a las transiciones vencidas y reinicia su ventana. Solo con la memoria de la
+     *  ventana activada se conserva su inicio si la transición tiene un hilo esperando la ventana anterior y esta no
+     *  superó beta.
      *
-     * @param nuevaSensibilizacion nuevas transiciones sensibilizadas
+     * @param nuevaSensibilizacion buffer con las transiciones recién sensibilizadas
+     * @param cantidad cantidad de posiciones válidas del buffer
      */
-    public void actualizarTiempoEspera(List<Integer> nuevaSensibilizacion) {
+    public void actualizarTiempoEspera(int[] nuevaSensibilizacion, int cantidad) {
+        // Se obtiene el instante actual una unica vez para todas las transiciones
+        long tiempoActual = this.reloj.getAsLong();
+
         // Se recorren las nuevas transiciones
-        for (Integer i : nuevaSensibilizacion) {
-            // Se verifica si el arreglo de sensibilizado contiene a la nueva transicion
-            if(!this.sensibilizado.contains(i)) {
-                // Se actualiza el tiempo de espera de la transicion
-                this.tiempoEspera[i] = System.currentTimeMillis();
+        for (int i = 0; i < cantidad; i++) {
+            // Se reinicia la ventana de la transicion, salvo que la memoria conserve la de un hilo que la espera, y se
+            // la rehabilita
+            int transicion = nuevaSensibilizacion[i];
+            if (!this.memoriaVentana || !esperaVentana(transicion)
+                    || tiempoActual - this.tiempoEspera[transicion] > this.beta[transicion]) {
+                this.tiempoEspera[transicion] = tiempoActual;
+            }
+            rehabilitar(transicion);
+
+            // Se programan la apertura y el cierre de la ventana
+            programarVentana(transicion);
+        }
+    }
+
+    /**
+     * Rehabilita, con una nueva ventana, las transiciones vencidas que siguen sensibilizadas por tokens luego de
+     *  un disparo que modificó el marcado de sus plazas de entrada, del mismo modo que los monitores paralelos
+     *  rehabilitan una transición vencida cuando un productor despierta a sus hilos.
+     *
+     * @param afectadas transiciones que consumen de las plazas modificadas por el disparo
+     */
+    public void rehabilitarVencidas(int[] afectadas) {
+        // No hay nada que hacer si ninguna transicion esta vencida
+        if (this.cantidadVencidas == 0) {
+            return;
+        }
+
+        // Se reinicia la ventana de las vencidas que siguen sensibilizadas
+        long tiempoActual = this.reloj.getAsLong();
+        for (int transicion : afectadas) {
+            if (estaVencida(transicion) && this.rdp.estaSensibilizada(transicion)) {
+                this.tiempoEspera[transicion] = tiempoActual;
+                rehabilitar(transicion);
+                programarVentana(transicion);
+            }
+        }
+    }
+
+    /**
+     * Programa la apertura y el cierre de la ventana de una transición recién sensibilizada, contados desde el
+     *  inicio de su ventana.
+     *
+     * @param transicion transición sensibilizada
+     */
+    private void programarVentana(int transicion) {
+        // Se programa la apertura si la transicion tiene alpha
+        if (this.alpha[transicion] != 0) {
+            programarApertura(transicion, tiempoHastaVentana(transicion));
+        }
+
+        // Se programa el cierre, apenas despues de beta, si la transicion tiene limite superior
+        if (this.beta[transicion] != SIN_LIMITE && this.planificador != null) {
+            long transcurrido = this.reloj.getAsLong() - this.tiempoEspera[transicion];
+            this.planificador.programarCierre(transicion, this.beta[transicion] + 1 - transcurrido,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Indica si la transición tiene alpha o beta.
+     *
+     * @param transicion transición consultada
+     * @return true si es temporizada
+     */
+    public boolean esTemporizada(int transicion) {
+        return this.alpha[transicion] != 0 || this.beta[transicion] != SIN_LIMITE;
+    }
+
+    /**
+     * Activa o desactiva la memoria de la ventana: con ella, una nueva sensibilización de una transición con un hilo
+     *  esperando su ventana conserva el inicio de la ventana anterior, salvo que haya superado beta, en lugar de
+     *  reiniciarlo. Relaja la semántica temporal, ya que la transición puede dispararse sin haber permanecido
+     *  sensibilizada alpha, por lo que está desactivada por defecto. Debe llamarse antes de disparar.
+     *
+     * @param memoriaVentana true para conservar el inicio de la ventana
+     */
+    public void setMemoriaVentana(boolean memoriaVentana) {
+        this.memoriaVentana = memoriaVentana;
+    }
+
+    /**
+     * Calcula, para cada transición temporizada, el bitset de transiciones inmediatas que consumen de alguna de sus
+     *  plazas de entrada. Se utiliza un índice plaza -> transiciones inmediatas consumidoras.
+     *
+     * @return bitset de competidoras de cada transición, vacío para las no temporizadas
+     */
+    private long[][] calcularCompetidoras() {
+        // Se marcan, por plaza, las transiciones inmediatas que consumen de ella
+        MotorDisparo motor = this.rdp.getMotor();
+        long[][] consumidoras = new long[motor.getTotalPlazas()][this.temporizadas.length];
+        for (int transicion = 0; transicion < this.alpha.length; transicion++) {
+            if (!esTemporizada(transicion)) {
+                for (int plaza : motor.getPlazasEntrada(transicion)) {
+                    consumidoras[plaza][transicion >>> 6] |= 1L << transicion;
+                }
             }
         }
+
+        // Se unen las consumidoras de las plazas de entrada de cada temporizada
+        long[][] competidoras = new long[this.alpha.length][this.temporizadas.length];
+        for (int transicion = 0; transicion < this.alpha.length; transicion++) {
+            if (esTemporizada(transicion)) {
+                for (int plaza : motor.getPlazasEntrada(transicion)) {
+                    for (int i = 0; i < this.temporizadas.length; i++) {
+                        competidoras[transicion][i] |= consumidoras[plaza][i];
+                    }
+                }
+            }
+        }
+        return competidoras;
+    }
+
+    /**
+     * Marca que la transición tiene un hilo esperando que se abra su ventana.
+     *
+     * @param transicion transición temporizada
+     */
+    private void marcarEspera(int transicion) {
+        this.esperandoVentana[transicion >>> 6] |= 1L << transicion;
+    }
+
+    /**
+     * Indica si la transición tiene un hilo esperando que se abra su ventana.
+     *
+     * @param transicion transición consultada
+     * @return true si hay un hilo esperando su ventana
+     */
+    private boolean esperaVentana(int transicion) {
+        return (this.esperandoVentana[transicion >>> 6] & (1L << transicion)) != 0;
     }
 
     /**
-     * Actualiza el listado de transiciones sensibilizadas.
+     * Indica si la transición está deshabilitada por vencimiento de su beta.
      *
-     * @param sensibilizado nuevas transiciones sensibilizadas
+     * @param transicion transición consultada
+     * @return true si está vencida
      */
-    public void setSensibilizar(List<Integer> sensibilizado) {
-        // Se almacena la parametro sensibilizado en la variable global
-        this.sensibilizado = sensibilizado;
+    private boolean estaVencida(int transicion) {
+        return (this.vencidas[transicion >>> 6] & (1L << transicion)) != 0;
+    }
+
+    /**
+     * Deshabilita la transición hasta su próxima sensibilización por tokens y registra el vencimiento.
+     *
+     * @param transicion transición cuya ventana venció
+     */
+    private void vencer(int transicion) {
+        // Se marca la transicion como vencida
+        this.vencidas[transicion >>> 6] |= 1L << transicion;
+        this.cantidadVencidas++;
+
+        // Se registra el evento
+        registrarVencimiento(transicion);
+    }
+
+    /**
+     * Quita la marca de vencida de la transición, si la tenía.
+     *
+     * @param transicion transición a rehabilitar
+     */
+    private void rehabilitar(int transicion) {
+        if (estaVencida(transicion)) {
+            this.vencidas[transicion >>> 6] &= ~(1L << transicion);
+            this.cantidadVencidas--;
+        }
     }
 }
@@ -0,0 +1,81 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica que la política balanceada reparta los disparos entre los tres t-invariantes de la fábrica, incluido el
+ * de las figuras de madera, aunque sus transiciones temporizadas compitan con las de los bloques por el monitor.
+ */
+public class BalanceInvariantesTest {
+
+    // Se declara la fraccion minima del total que debe completar cada t-invariante; balanceados es un tercio
+    private static final double FRACCIONMINIMA = 0.25;
+
+    /**
+     * Simula la fábrica con eventos discretos y una semilla fija, por lo que el resultado es reproducible.
+     */
+    @Test
+    public void laSimulacionRepartePorLosTresInvariantes() {
+        // Se arma la red de la fabrica con la politica balanceada por defecto
+        DefinicionRed red = Main.cargarRed(null);
+        ProcesosModelados procesoModelado = new ProcesosModelados(red.crearRed(), red.getTInvariantes());
+        SimuladorEventos simulador = new SimuladorEventos(procesoModelado, red.crearSegmentos(), red.getAlpha(),
+                red.getBeta(), TimeUnit.MICROSECONDS, 0, red.getTransicionesFinales(), 42, null);
+
+        // Se simula hasta completar 1000 t-invariantes
+        CondicionParada parada = new ParadaPorInvariantes(1000);
+        Estadistica estadistica = procesoModelado.getRDP().crearEstadistica(red.getTInvariantes(), 0, parada);
+        simulador.ejecutar(estadistica, parada);
+
+        verificarReparto(estadistica, red.getTInvariantes());
+    }
+
+    /**
+     * Ejecuta la fábrica con hilos en el monitor con semáforo global, con las ventanas acortadas a un milisegundo
+     * para que la prueba sea breve.
+     *
+     * @throws InterruptedException si se interrumpe la espera del objetivo
+     */
+    @Test(timeout = 60000)
+    public void losHilosRepartenPorLosTresInvariantes() throws InterruptedException {
+        // Se arma la red de la fabrica con el monitor con semaforo global y ventanas de a lo sumo un milisegundo
+        DefinicionRed red = Main.cargarRed(null);
+        RDP rdp = red.crearRed();
+        ProcesosModelados procesoModelado = new ProcesosModelados(rdp, red.getTInvariantes());
+        Monitor monitor = new AdminMonitor(procesoModelado);
+        long[] alpha = Arrays.stream(red.getAlpha()).map(a -> Math.min(a, 1000)).toArray();
+        rdp.setVectorSensibilizado(new VectorSensibilizado(monitor, alpha, red.getBeta(), TimeUnit.MICROSECONDS));
+        Inicializador inicializador = new Inicializador(monitor, red.crearSegmentos(), procesoModelado,
+                FabricaHilos.crear("plataforma"), red.getTransicionesFinales());
+
+        // Se ejecuta hasta completar 300 t-invariantes
+        Estadistica estadistica = rdp.crearEstadistica(red.getTInvariantes(), 0, new ParadaPorInvariantes(300));
+        inicializador.start();
+        estadistica.esperarFin();
+        inicializador.finish();
+
+        verificarReparto(estadistica, red.getTInvariantes());
+    }
+
+    /**
+     * Verifica que cada t-invariante haya completado al menos {@value #FRACCIONMINIMA} del total.
+     *
+     * @param estadistica estadística de la ejecución
+     * @param invariantes t-invariantes de la red
+     */
+    private static void verificarReparto(Estadistica estadistica, List<List<Integer>> invariantes) {
+        long total = estadistica.getTotalCompletados();
+        for (int i = 0; i < invariantes.size(); i++) {
+            long completados = estadistica.getCompletados(i);
+            assertTrue(String.format("El t-invariante %s completo %d de %d", invariantes.get(i), completados, total),
+                    completados >= FRACCIONMINIMA * total);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica el conjunto de marcados sin cerrojos con varios hilos que agregan los mismos marcados en distinto orden:
+ * cada marcado debe quedar una sola vez, con un único hilo que lo vea como nuevo, y al alcanzar el máximo de estados
+ * las reservas deshechas no deben dejar posiciones a medio escribir ni marcados perdidos.
+ */
+public class ConjuntoMarcadosTest {
+
+    // Se declaran plazas con campos de distinto ancho, que ocupan dos palabras por marcado
+    private static final int[] CAPACIDADES = {1, 7, 255, 65535, 65535, 65535, 65535, 3};
+    private static final int HILOS = 8;
+    private static final int MARCADOS = 20_000;
+
+    /**
+     * Los marcados se empaquetan y desempaquetan sin cambios y una plaza por encima de su capacidad se rechaza.
+     */
+    @Test
+    public void codificaYDecodificaLosCampos() {
+        ConjuntoMarcados conjunto = new ConjuntoMarcados(CAPACIDADES, 16);
+        assertEquals(2, conjunto.getPalabras());
+        assertEquals(2, ConjuntoMarcados.contarPalabras(CAPACIDADES));
+
+        // Se agrega un marcado con cada plaza en su capacidad y se lo lee
+        long[] codigo = new long[conjunto.getPalabras()];
+        assertTrue(conjunto.codificar(CAPACIDADES, codigo));
+        int id = conjunto.agregar(codigo, -1, -1);
+        int[] leido = new int[CAPACIDADES.length];
+        conjunto.decodificar(id, leido);
+        assertArrayEquals(CAPACIDADES, leido);
+
+        // Se reescribe un campo, se rechaza uno que no entra y se busca el marcado modificado
+        assertTrue(conjunto.escribir(codigo, 2, 17));
+        assertFalse(conjunto.escribir(codigo, 7, 4));
+        assertEquals(-1, conjunto.buscar(codigo));
+        int otro = conjunto.agregar(codigo, id, 3);
+        assertEquals(otro, conjunto.buscar(codigo));
+        assertEquals(id, conjunto.getPadre(otro));
+        assertEquals(3, conjunto.getTransicion(otro));
+
+        // Se rechaza un marcado que supera la capacidad de una plaza
+        int[] excedido = CAPACIDADES.clone();
+        excedido[7]++;
+        assertFalse(conjunto.codificar(excedido, codigo));
+    }
+
+    /**
+     * Con lugar para todos, cada marcado agregado por varios hilos a la vez queda una sola vez y exactamente un
+     * hilo lo recibe como nuevo; los demás reciben su mismo identificador como repetido.
+     *
+     * @throws Exception si falla un hilo
+     */
+    @Test(timeout = 60000)
+    public void cadaMarcadoSeAgregaUnaSolaVez() throws Exception {
+        ConjuntoMarcados conjunto = new ConjuntoMarcados(CAPACIDADES, MARCADOS);
+        AtomicIntegerArray nuevos = new AtomicIntegerArray(MARCADOS);
+        AtomicIntegerArray ids = agregarConcurrente(conjunto, nuevos);
+
+        // Se verifica que cada marcado sea nuevo para un solo hilo y que se lea igual desde su identificador
+        assertEquals(MARCADOS, conjunto.getEstados());
+        int[] leido = new int[CAPACIDADES.length];
+        long[] codigo = new long[conjunto.getPalabras()];
+        for (int i = 0; i < MARCADOS; i++) {
+            assertEquals("Marcado " + i, 1, nuevos.get(i));
+            conjunto.decodificar(ids.get(i), leido);
+            assertArrayEquals(marcado(i), leido);
+            conjunto.codificar(marcado(i), codigo);
+            assertEquals(ids.get(i), conjunto.buscar(codigo));
+        }
+        assertEquals(MARCADOS, contarOcupadas(conjunto));
+    }
+
+    /**
+     * Con lugar para menos marcados que los agregados, se guardan exactamente el máximo. Las reservas deshechas al
+     * llegar al máximo dejan la posición vacía, por lo que los marcados guardados se siguen encontrando y los
+     * rechazados no aparecen.
+     *
+     * @throws Exception si falla un hilo
+     */
+    @Test(timeout = 60000)
+    public void alLlenarseDeshaceLasReservas() throws Exception {
+        int maximo = MARCADOS / 3;
+        ConjuntoMarcados conjunto = new ConjuntoMarcados(CAPACIDADES, maximo);
+        AtomicIntegerArray nuevos = new AtomicIntegerArray(MARCADOS);
+        AtomicIntegerArray ids = agregarConcurrente(conjunto, nuevos);
+
+        // Se verifica que se hayan guardado exactamente el maximo, cada uno nuevo para un solo hilo
+        assertEquals(maximo, conjunto.getEstados());
+        assertEquals(maximo, contarOcupadas(conjunto));
+        int guardados = 0;
+        long[] codigo = new long[conjunto.getPalabras()];
+        for (int i = 0; i < MARCADOS; i++) {
+            conjunto.codificar(marcado(i), codigo);
+            int encontrado = conjunto.buscar(codigo);
+            if (nuevos.get(i) > 0) {
+                assertEquals("Marcado " + i, 1, nuevos.get(i));
+                assertEquals(ids.get(i), encontrado);
+                guardados++;
+            }
+            else {
+                assertEquals("Marcado rechazado " + i, -1, encontrado);
+            }
+        }
+        assertEquals(maximo, guardados);
+
+        // Se verifica que un marcado guardado se siga reconociendo como repetido y que uno nuevo, que no puede
+        // coincidir con ningun marcado agregado, se rechace
+        conjunto.codificar(marcado(primerGuardado(nuevos)), codigo);
+        int repetido = conjunto.agregar(codigo, -1, -1);
+        assertTrue(repetido < 0 && repetido != ConjuntoMarcados.LLENO);
+        assertEquals(conjunto.buscar(codigo), -repetido - 1);
+        conjunto.codificar(CAPACIDADES, codigo);
+        assertEquals(ConjuntoMarcados.LLENO, conjunto.agregar(codigo, -1, -1));
+    }
+
+    /**
+     * Agrega los marcados desde varios hilos, cada uno en un orden distinto, contando cuántas veces se recibe cada
+     * uno como nuevo y verificando que los repetidos devuelvan el identificador con que se guardó.
+     *
+     * @param conjunto conjunto de marcados
+     * @param nuevos veces que cada marcado se recibió como nuevo
+     * @return Identificador de cada marcado guardado
+     * @throws Exception si falla un hilo
+     */
+    private static AtomicIntegerArray agregarConcurrente(ConjuntoMarcados conjunto, AtomicIntegerArray nuevos)
+            throws Exception {
+        AtomicIntegerArray ids = new AtomicIntegerArray(MARCADOS);
+        for (int i = 0; i < MARCADOS; i++) {
+            ids.set(i, -1);
+        }
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                // Se mezcla el orden de los marcados de cada hilo con una semilla fija
+                List<Integer> orden = new ArrayList<>();
+                for (int i = 0; i < MARCADOS; i++) {
+                    orden.add(i);
+                }
+                Collections.shuffle(orden, new Random(h));
+                resultados.add(hilos.submit(() -> {
+                    largada.await();
+                    long[] codigo = new long[conjunto.getPalabras()];
+                    for (int i : orden) {
+                        conjunto.codificar(marcado(i), codigo);
+                        int resultado = conjunto.agregar(codigo, i, transicion(i));
+                        if (resultado >= 0) {
+                            nuevos.incrementAndGet(i);
+                            registrar(ids, i, resultado);
+                        }
+                        else if (resultado != ConjuntoMarcados.LLENO) {
+                            registrar(ids, i, -resultado - 1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        }
+        finally {
+            hilos.shutdownNow();
+        }
+        return ids;
+    }
+
+    /**
+     * Registra el identificador de un marcado y verifica que coincida con el que vieron los demás hilos.
+     *
+     * @param ids identificador de cada marcado
+     * @param marcado índice del marcado
+     * @param id identificador recibido
+     */
+    private static void registrar(AtomicIntegerArray ids, int marcado, int id) {
+        if (!ids.compareAndSet(marcado, -1, id)) {
+            assertEquals("Identificador del marcado " + marcado, ids.get(marcado), id);
+        }
+    }
+
+    /**
+     * Arma un marcado distinto para cada índice, repartiendo sus bits entre las plazas anchas.
+     *
+     * @param i índice del marcado
+     * @return Tokens de cada plaza
+     */
+    private static int[] marcado(int i) {
+        return new int[]{i & 1, (i >>> 1) & 7, (i * 37) & 255, i & 0xFFFF, (i >>> 16) & 0xFFFF, (i * 7919) & 0xFFFF,
+                (i * 31) & 0xFFFF, i & 3};
+    }
+
+    /**
+     * Elige una transición cualquiera, derivada del índice, para guardar junto al marcado.
+     *
+     * @param i índice del marcado
+     * @return Transición
+     */
+    private static int transicion(int i) {
+        return i % 12;
+    }
+
+    /**
+     * Cuenta las posiciones de la tabla con un marcado publicado.
+     *
+     * @param conjunto conjunto de marcados
+     * @return Posiciones ocupadas
+     */
+    private static int contarOcupadas(ConjuntoMarcados conjunto) {
+        int ocupadas = 0;
+        for (int posicion = 0; posicion < conjunto.getCapacidad(); posicion++) {
+            if (conjunto.ocupada(posicion)) {
+                ocupadas++;
+            }
+        }
+        return ocupadas;
+    }
+
+    /**
+     * Devuelve el primer marcado que se guardó.
+     *
+     * @param nuevos veces que cada marcado se recibió como nuevo
+     * @return Índice del marcado
+     */
+    private static int primerGuardado(AtomicIntegerArray nuevos) {
+        for (int i = 0; i < nuevos.length(); i++) {
+            if (nuevos.get(i) > 0) {
+                return i;
+            }
+        }
+        throw new AssertionError("No se guardo ningun marcado");
+    }
+}
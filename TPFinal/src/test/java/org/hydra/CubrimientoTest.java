@@ -0,0 +1,114 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifica las cotas del grafo de cubrimiento de {@link Cubrimiento}: en redes acotadas deben ser el máximo de
+ * tokens alcanzable en cada plaza, y en redes no acotadas las plazas que crecen sin límite deben valer ω, incluso
+ * las que solo crecen a partir de otra plaza ω.
+ */
+public class CubrimientoTest {
+
+    // Se declara un limite de nodos que las redes del test no alcanzan
+    private static final int LIMITE = 10_000;
+    private static final int OMEGA = Cubrimiento.OMEGA;
+
+    /**
+     * En la exclusión mutua entre dos procesos cada plaza tiene a lo sumo un token.
+     */
+    @Test
+    public void exclusionMutuaAcotada() {
+        int[][] incidencia = {
+                {-1, 1, 0, 0},
+                {1, -1, 0, 0},
+                {0, 0, -1, 1},
+                {0, 0, 1, -1},
+                {-1, 1, -1, 1}};
+        Cubrimiento.Resultado resultado = calcular(incidencia, new int[]{1, 0, 1, 0, 1}, LIMITE);
+
+        assertNull(resultado.motivo);
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1}, resultado.cotas);
+    }
+
+    /**
+     * Productor sin buffer acotado: T1 pasa el productor de P1 a P2 y deja un producto en P3, T2 lo devuelve a P1 y
+     * T3 mueve los productos de P3 a P4. El ciclo del productor hace crecer P3 sin límite y, desde un marcado con
+     * P3 en ω, T3 hace crecer P4; el productor sigue acotado a un token.
+     */
+    @Test
+    public void productorSinCota() {
+        int[][] incidencia = {
+                {-1, 1, 0},
+                {1, -1, 0},
+                {1, 0, -1},
+                {0, 0, 1}};
+        Cubrimiento.Resultado resultado = calcular(incidencia, new int[]{1, 0, 0, 0}, LIMITE);
+
+        assertNull(resultado.motivo);
+        assertArrayEquals(new int[]{1, 1, OMEGA, OMEGA}, resultado.cotas);
+    }
+
+    /**
+     * Una transición sin entradas hace crecer su plaza de salida sin límite desde el primer disparo, mientras que
+     * una plaza que solo se vacía queda acotada por su marcado inicial.
+     */
+    @Test
+    public void fuenteSinCota() {
+        int[][] incidencia = {
+                {1, -1, 0},
+                {0, 0, -1}};
+        Cubrimiento.Resultado resultado = calcular(incidencia, new int[]{0, 3}, LIMITE);
+
+        assertNull(resultado.motivo);
+        assertArrayEquals(new int[]{OMEGA, 3}, resultado.cotas);
+    }
+
+    /**
+     * Con arcos de peso 2, dos tokens en A se convierten en uno en B y vuelven: las cotas son 2 y 1.
+     */
+    @Test
+    public void respetaLosPesos() {
+        int[][] incidencia = {
+                {-2, 2},
+                {1, -1}};
+        Cubrimiento.Resultado resultado = calcular(incidencia, new int[]{2, 0}, LIMITE);
+
+        assertNull(resultado.motivo);
+        assertArrayEquals(new int[]{2, 1}, resultado.cotas);
+    }
+
+    /**
+     * Diez líneas independientes tienen 2^10 marcados: con un límite de 100 nodos el grafo se abandona con un motivo.
+     */
+    @Test
+    public void abandonaAlSuperarElLimite() {
+        int lineas = 10;
+        int[][] incidencia = new int[2 * lineas][2 * lineas];
+        int[] marcado = new int[2 * lineas];
+        for (int i = 0; i < lineas; i++) {
+            incidencia[2 * i][2 * i] = -1;
+            incidencia[2 * i + 1][2 * i] = 1;
+            incidencia[2 * i][2 * i + 1] = 1;
+            incidencia[2 * i + 1][2 * i + 1] = -1;
+            marcado[2 * i] = 1;
+        }
+
+        assertNotNull(calcular(incidencia, marcado, 100).motivo);
+    }
+
+    /**
+     * Construye el grafo de cubrimiento de una red.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param marcado marcado inicial
+     * @param limite cantidad máxima de nodos
+     * @return Resultado del grafo
+     */
+    private static Cubrimiento.Resultado calcular(int[][] incidencia, int[] marcado, int limite) {
+        return Cubrimiento.calcular(new MotorDisparo(incidencia, marcado), limite);
+    }
+}
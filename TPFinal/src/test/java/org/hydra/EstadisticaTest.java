@@ -0,0 +1,134 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica que {@link Estadistica} cuente exactamente los mismos t-invariantes completados cuando varios hilos
+ * disparan a la vez que cuando los mismos disparos llegan desde un solo hilo. Se usan los t-invariantes de la
+ * fábrica, numerados desde 0, cuyos dos caminos de bloques comparten T1 y T8 y forman un grupo, y otro que repite
+ * una transición para cubrir las multiplicidades.
+ */
+public class EstadisticaTest {
+
+    private static final List<List<Integer>> INVARIANTES = Arrays.asList(
+            Arrays.asList(0, 1, 3, 5, 7),
+            Arrays.asList(0, 2, 4, 6, 7),
+            Arrays.asList(8, 9, 10, 11),
+            Arrays.asList(12, 13, 12));
+    private static final int HILOS = 8;
+    private static final int INSTANCIAS = 20_000;
+    private static final long CALENTAMIENTO = 1_000;
+
+    /**
+     * Cada hilo dispara instancias completas de t-invariantes elegidos al azar, con sus transiciones mezcladas, y
+     * los hilos se intercalan libremente. Los completados de cada t-invariante deben coincidir con los de una
+     * ejecución secuencial de los mismos disparos.
+     *
+     * @throws Exception si falla un hilo disparador
+     */
+    @Test(timeout = 60000)
+    public void losHilosConcurrentesCuentanComoUnoSolo() throws Exception {
+        // Se generan los disparos de cada hilo con semillas fijas
+        List<int[]> disparosPorHilo = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            disparosPorHilo.add(generarDisparos(new Random(h)));
+        }
+
+        // Se cuentan los disparos desde un solo hilo
+        Estadistica secuencial = crearEstadistica();
+        for (int[] disparos : disparosPorHilo) {
+            for (int transicion : disparos) {
+                secuencial.incrementarContador(transicion);
+            }
+        }
+
+        // Se cuentan los mismos disparos desde varios hilos que arrancan a la vez
+        Estadistica concurrente = crearEstadistica();
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int[] disparos : disparosPorHilo) {
+                resultados.add(hilos.submit(() -> {
+                    largada.await();
+                    for (int transicion : disparos) {
+                        concurrente.incrementarContador(transicion);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        }
+        finally {
+            hilos.shutdownNow();
+        }
+
+        // Se verifica que cada t-invariante se haya completado la misma cantidad de veces, que es la disparada
+        for (int i = 0; i < INVARIANTES.size(); i++) {
+            assertEquals("T-invariante " + i, secuencial.getCompletados(i), concurrente.getCompletados(i));
+        }
+        assertEquals((long) HILOS * INSTANCIAS, secuencial.getTotalCompletados());
+        assertEquals(secuencial.getTotalCompletados(), concurrente.getTotalCompletados());
+
+        // Se verifica que la medicion haya empezado tras el calentamiento y alcanzado el objetivo
+        assertTrue(concurrente.isMedicionIniciada());
+        assertTrue(concurrente.isObjetivoAlcanzado());
+        assertTrue(concurrente.getCompletadosMedidos() <= (long) HILOS * INSTANCIAS - CALENTAMIENTO);
+    }
+
+    /**
+     * Los disparos de transiciones fuera de los t-invariantes se ignoran sin alterar los completados.
+     */
+    @Test
+    public void ignoraLasTransicionesFueraDeLosInvariantes() {
+        Estadistica estadistica = crearEstadistica();
+        for (int transicion : new int[]{8, 9, 14, 10, 100, 11}) {
+            estadistica.incrementarContador(transicion);
+        }
+        assertEquals(1, estadistica.getCompletados(2));
+        assertEquals(1, estadistica.getTotalCompletados());
+    }
+
+    /**
+     * Genera los disparos de un hilo: instancias completas de t-invariantes al azar, cada una con sus transiciones
+     * en orden aleatorio, ya que la estadística no tiene en cuenta el orden.
+     *
+     * @param aleatorio generador de números aleatorios
+     * @return Transiciones disparadas
+     */
+    private static int[] generarDisparos(Random aleatorio) {
+        List<Integer> disparos = new ArrayList<>();
+        for (int i = 0; i < INSTANCIAS; i++) {
+            List<Integer> instancia = new ArrayList<>(INVARIANTES.get(aleatorio.nextInt(INVARIANTES.size())));
+            Collections.shuffle(instancia, aleatorio);
+            disparos.addAll(instancia);
+        }
+        return disparos.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Crea una estadística con calentamiento cuyo objetivo se alcanza antes de terminar los disparos.
+     *
+     * @return Estadística creada
+     */
+    private static Estadistica crearEstadistica() {
+        return new Estadistica(INVARIANTES, CALENTAMIENTO, new ParadaPorInvariantes(HILOS * INSTANCIAS / 2));
+    }
+}
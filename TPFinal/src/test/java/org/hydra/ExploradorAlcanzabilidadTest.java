@@ -0,0 +1,191 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica la cantidad de marcados y arcos, los bloqueos y la vivacidad que informa {@link ExploradorAlcanzabilidad}
+ * sobre redes chicas cuyo grafo de alcanzabilidad se conoce: una exclusión mutua, dos procesos que toman dos
+ * recursos en distinto orden, líneas independientes cuyo espacio de estados es el producto de las líneas y una
+ * plaza sin cota.
+ */
+public class ExploradorAlcanzabilidadTest {
+
+    // Se declaran la cota de exploracion y los identificadores de la frontera en memoria
+    private static final int COTA = 5;
+    private static final int FRONTERA = 1024;
+
+    /**
+     * Exclusión mutua entre dos procesos: plazas I1, C1, I2, C2 y el mutex M; T1 y T3 entran a la sección crítica
+     * y T2 y T4 salen. Tiene 3 marcados y 4 arcos, sin bloqueos, y es viva y reversible.
+     */
+    @Test(timeout = 30000)
+    public void exclusionMutua() {
+        int[][] incidencia = {
+                {-1, 1, 0, 0},
+                {1, -1, 0, 0},
+                {0, 0, -1, 1},
+                {0, 0, 1, -1},
+                {-1, 1, -1, 1}};
+        ExploradorAlcanzabilidad.Resultado resultado = explorar(incidencia, new int[]{1, 0, 1, 0, 1}, 0, 1);
+
+        assertTrue(resultado.isCompleta());
+        assertEquals(3, resultado.getEstados());
+        assertEquals(4, resultado.getArcos());
+        assertEquals(0, resultado.getBloqueos());
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1}, resultado.getCotas());
+        assertArrayEquals(new int[0], resultado.getNuncaSensibilizadas());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, resultado.getVivas());
+        assertTrue(resultado.isReversible());
+    }
+
+    /**
+     * Dos procesos que toman los recursos RA y RB en distinto orden: el primero toma RA con T1 y RB con T2 y los
+     * libera con T3, y el segundo toma RB con T4 y RA con T5 y los libera con T6. Tiene 6 marcados y 8 arcos, y un
+     * único bloqueo, alcanzado al disparar T1 y T4 o T4 y T1, desde el que ya no se vuelve: no es reversible ni
+     * tiene transiciones vivas.
+     */
+    @Test(timeout = 30000)
+    public void bloqueoPorRecursosCruzados() {
+        // Se ordenan las plazas como P1 inactivo, P1 con RA, P1 con ambos, lo mismo para P2, RA y RB
+        int[][] incidencia = {
+                {-1, 0, 1, 0, 0, 0},
+                {1, -1, 0, 0, 0, 0},
+                {0, 1, -1, 0, 0, 0},
+                {0, 0, 0, -1, 0, 1},
+                {0, 0, 0, 1, -1, 0},
+                {0, 0, 0, 0, 1, -1},
+                {-1, 0, 1, 0, -1, 1},
+                {0, -1, 1, -1, 0, 1}};
+        ExploradorAlcanzabilidad.Resultado resultado = explorar(incidencia, new int[]{1, 0, 0, 1, 0, 0, 1, 1}, 0, 2);
+
+        assertTrue(resultado.isCompleta());
+        assertEquals(6, resultado.getEstados());
+        assertEquals(8, resultado.getArcos());
+        assertEquals(1, resultado.getBloqueos());
+
+        // Se verifica que el camino al bloqueo tome un recurso en cada proceso
+        assertEquals(1, resultado.getCaminosBloqueo().size());
+        int[] camino = resultado.getCaminosBloqueo().get(0);
+        assertEquals(2, camino.length);
+        assertEquals(3, camino[0] + camino[1]);
+        assertArrayEquals(new int[0], resultado.getVivas());
+        assertFalse(resultado.isReversible());
+    }
+
+    /**
+     * Diez líneas independientes de dos plazas, cada una con un token que va y vuelve: tiene 2^10 marcados, con
+     * las diez transiciones que mueven cada token sensibilizadas en todos ellos. Se explora con varios hilos y una
+     * frontera en memoria chica, que obliga a volcarla a disco.
+     */
+    @Test(timeout = 30000)
+    public void lineasIndependientes() {
+        int lineas = 10;
+        ExploradorAlcanzabilidad.Resultado resultado = explorar(lineas(lineas), marcadoLineas(lineas), 0, 4, 16);
+
+        assertTrue(resultado.isCompleta());
+        assertEquals(1 << lineas, resultado.getEstados());
+        assertEquals((long) lineas << lineas, resultado.getArcos());
+        assertEquals(0, resultado.getBloqueos());
+        assertEquals(2 * lineas, resultado.getVivas().length);
+        assertTrue(resultado.isReversible());
+    }
+
+    /**
+     * Con lugar para menos marcados que los alcanzables, la exploración se corta en el máximo, no es completa y no
+     * analiza la vivacidad.
+     */
+    @Test(timeout = 30000)
+    public void cortaEnElMaximoDeEstados() {
+        int lineas = 10;
+        ExploradorAlcanzabilidad.Resultado resultado = explorar(lineas(lineas), marcadoLineas(lineas), 100, 4);
+
+        assertFalse(resultado.isCompleta());
+        assertEquals(100, resultado.getEstados());
+        assertNull(resultado.getVivas());
+        assertNull(resultado.isReversible());
+    }
+
+    /**
+     * Una plaza alimentada por una transición sin entradas no está cubierta por ningún p-invariante: se explora
+     * hasta la cota y se informa como desbordada.
+     */
+    @Test(timeout = 30000)
+    public void informaLaPlazaSinCota() {
+        int[][] incidencia = {{1, -1}};
+        ExploradorAlcanzabilidad.Resultado resultado = explorar(incidencia, new int[]{0}, 0, 1);
+
+        assertFalse(resultado.isCompleta());
+        assertEquals(COTA + 1, resultado.getEstados());
+        assertArrayEquals(new int[]{0}, resultado.getDesbordadas());
+        assertArrayEquals(new int[]{COTA}, resultado.getCotas());
+        assertNull(resultado.getVivas());
+    }
+
+    /**
+     * Explora una red con la frontera por defecto del test.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param marcado marcado inicial
+     * @param maximoEstados máximo de marcados, o 0 para elegirlo según el marcado
+     * @param paralelismo hilos de la exploración
+     * @return Resultado de la exploración
+     */
+    private static ExploradorAlcanzabilidad.Resultado explorar(int[][] incidencia, int[] marcado, int maximoEstados,
+                                                               int paralelismo) {
+        return explorar(incidencia, marcado, maximoEstados, paralelismo, FRONTERA);
+    }
+
+    /**
+     * Explora una red.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param marcado marcado inicial
+     * @param maximoEstados máximo de marcados, o 0 para elegirlo según el marcado
+     * @param paralelismo hilos de la exploración
+     * @param frontera identificadores de la frontera en memoria
+     * @return Resultado de la exploración
+     */
+    private static ExploradorAlcanzabilidad.Resultado explorar(int[][] incidencia, int[] marcado, int maximoEstados,
+                                                               int paralelismo, int frontera) {
+        return new ExploradorAlcanzabilidad(new RDP(incidencia, marcado), COTA, maximoEstados, frontera, paralelismo)
+                .explorar();
+    }
+
+    /**
+     * Arma la incidencia de líneas independientes: la línea i tiene las plazas 2i y 2i+1 y las transiciones 2i,
+     * que mueve el token de la primera a la segunda, y 2i+1, que lo devuelve.
+     *
+     * @param lineas cantidad de líneas
+     * @return Matriz de incidencia
+     */
+    private static int[][] lineas(int lineas) {
+        int[][] incidencia = new int[2 * lineas][2 * lineas];
+        for (int i = 0; i < lineas; i++) {
+            incidencia[2 * i][2 * i] = -1;
+            incidencia[2 * i + 1][2 * i] = 1;
+            incidencia[2 * i][2 * i + 1] = 1;
+            incidencia[2 * i + 1][2 * i + 1] = -1;
+        }
+        return incidencia;
+    }
+
+    /**
+     * Arma el marcado inicial de las líneas, con el token en la primera plaza de cada una.
+     *
+     * @param lineas cantidad de líneas
+     * @return Marcado inicial
+     */
+    private static int[] marcadoLineas(int lineas) {
+        int[] marcado = new int[2 * lineas];
+        for (int i = 0; i < lineas; i++) {
+            marcado[2 * i] = 1;
+        }
+        return marcado;
+    }
+}
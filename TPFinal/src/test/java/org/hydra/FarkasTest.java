@@ -0,0 +1,177 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifica que {@link Farkas} encuentre exactamente los invariantes semipositivos de soporte mínimo de redes cuyos
+ * invariantes se conocen: la exclusión mutua, dos procesos que comparten dos recursos, una transición que une dos
+ * plazas en otras dos, cuyos soportes mínimos son más que la dimensión del espacio de p-invariantes, y una red con
+ * arcos de peso 2. Los p-invariantes se calculan sobre las filas de la incidencia y los t-invariantes sobre sus
+ * columnas, como en {@link AnalisisEstructural}.
+ */
+public class FarkasTest {
+
+    // Se declara un limite de filas que las redes del test no alcanzan
+    private static final int LIMITE = 10_000;
+
+    /**
+     * Exclusión mutua entre dos procesos, con plazas I1, C1, I2, C2 y el mutex M: los p-invariantes son I1 + C1,
+     * I2 + C2 y C1 + C2 + M, y los t-invariantes el ciclo de cada proceso.
+     */
+    @Test
+    public void exclusionMutua() {
+        int[][] incidencia = {
+                {-1, 1, 0, 0},
+                {1, -1, 0, 0},
+                {0, 0, -1, 1},
+                {0, 0, 1, -1},
+                {-1, 1, -1, 1}};
+
+        assertEquals(conjunto(new int[]{1, 1, 0, 0, 0}, new int[]{0, 0, 1, 1, 0}, new int[]{0, 1, 0, 1, 1}),
+                calcular(incidencia, false));
+        assertEquals(conjunto(new int[]{1, 1, 0, 0}, new int[]{0, 0, 1, 1}), calcular(incidencia, true));
+    }
+
+    /**
+     * Dos procesos que toman los recursos RA y RB en distinto orden y los liberan juntos: cada proceso conserva su
+     * token, y cada recurso está libre o tomado por uno de los procesos, lo que da un p-invariante por recurso que
+     * incluye los estados de ambos procesos que lo tienen.
+     */
+    @Test
+    public void recursosCompartidos() {
+        // Se ordenan las plazas como P1 inactivo, P1 con RA, P1 con ambos, P2 inactivo, P2 con RB, P2 con ambos, RA y RB
+        int[][] incidencia = {
+                {-1, 0, 1, 0, 0, 0},
+                {1, -1, 0, 0, 0, 0},
+                {0, 1, -1, 0, 0, 0},
+                {0, 0, 0, -1, 0, 1},
+                {0, 0, 0, 1, -1, 0},
+                {0, 0, 0, 0, 1, -1},
+                {-1, 0, 1, 0, -1, 1},
+                {0, -1, 1, -1, 0, 1}};
+
+        assertEquals(conjunto(
+                new int[]{1, 1, 1, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 1, 1, 1, 0, 0},
+                new int[]{0, 1, 1, 0, 0, 1, 1, 0},
+                new int[]{0, 0, 1, 0, 1, 1, 0, 1}), calcular(incidencia, false));
+        assertEquals(conjunto(new int[]{1, 1, 1, 0, 0, 0}, new int[]{0, 0, 0, 1, 1, 1}), calcular(incidencia, true));
+    }
+
+    /**
+     * Una transición que consume de P1 y P2 y produce en P3 y P4, y otra que la deshace: cada par de una entrada y
+     * una salida es un p-invariante mínimo, cuatro en total, aunque el espacio de p-invariantes tiene dimensión 3.
+     */
+    @Test
+    public void soportesMinimosMasQueLaDimension() {
+        int[][] incidencia = {
+                {-1, 1},
+                {-1, 1},
+                {1, -1},
+                {1, -1}};
+
+        assertEquals(conjunto(new int[]{1, 0, 1, 0}, new int[]{1, 0, 0, 1}, new int[]{0, 1, 1, 0},
+                new int[]{0, 1, 0, 1}), calcular(incidencia, false));
+        assertEquals(conjunto(new int[]{1, 1}), calcular(incidencia, true));
+    }
+
+    /**
+     * Una transición que consume dos tokens de A y produce uno en B, y otra que la deshace: el p-invariante es
+     * A + 2B, sin factores comunes.
+     */
+    @Test
+    public void respetaLosPesos() {
+        int[][] incidencia = {
+                {-2, 2},
+                {1, -1}};
+
+        assertEquals(conjunto(new int[]{1, 2}), calcular(incidencia, false));
+        assertEquals(conjunto(new int[]{1, 1}), calcular(incidencia, true));
+    }
+
+    /**
+     * Al superar el límite de filas el cálculo se abandona con un motivo y sin invariantes.
+     */
+    @Test
+    public void abandonaAlSuperarElLimite() {
+        int[][] incidencia = {
+                {-1, 1},
+                {-1, 1},
+                {1, -1},
+                {1, -1}};
+        int[][][] filas = filas(incidencia, false);
+        Farkas.Resultado resultado = Farkas.calcular(filas[0], filas[1], 3);
+
+        assertNull(resultado.invariantes);
+        assertNotNull(resultado.motivo);
+    }
+
+    /**
+     * Calcula los invariantes mínimos de una red y los devuelve como vectores densos.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param porTransicion true para los t-invariantes, false para los p-invariantes
+     * @return Invariantes como texto, para compararlos sin importar el orden
+     */
+    private static Set<String> calcular(int[][] incidencia, boolean porTransicion) {
+        int[][][] filas = filas(incidencia, porTransicion);
+        Farkas.Resultado resultado = Farkas.calcular(filas[0], filas[1], LIMITE);
+        assertNull(resultado.motivo);
+        Set<String> invariantes = new TreeSet<>();
+        for (VectorDisperso invariante : resultado.invariantes) {
+            invariantes.add(Arrays.toString(invariante.denso(filas[0].length)));
+        }
+        return invariantes;
+    }
+
+    /**
+     * Arma las filas dispersas de la incidencia o de su traspuesta.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param traspuesta true para tomar una fila por transición
+     * @return Columnas no nulas y valores de cada fila
+     */
+    private static int[][][] filas(int[][] incidencia, boolean traspuesta) {
+        int cantidad = traspuesta ? incidencia[0].length : incidencia.length;
+        int largo = traspuesta ? incidencia.length : incidencia[0].length;
+        int[][] columnas = new int[cantidad][];
+        int[][] valores = new int[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            List<Integer> indices = new ArrayList<>();
+            for (int j = 0; j < largo; j++) {
+                if ((traspuesta ? incidencia[j][i] : incidencia[i][j]) != 0) {
+                    indices.add(j);
+                }
+            }
+            int fila = i;
+            columnas[i] = indices.stream().mapToInt(Integer::intValue).toArray();
+            valores[i] = indices.stream().mapToInt(j -> traspuesta ? incidencia[j][fila] : incidencia[fila][j])
+                    .toArray();
+        }
+        return new int[][][]{columnas, valores};
+    }
+
+    /**
+     * Arma el conjunto de invariantes esperados.
+     *
+     * @param invariantes invariantes densos
+     * @return Invariantes como texto
+     */
+    private static Set<String> conjunto(int[]... invariantes) {
+        Set<String> conjunto = new TreeSet<>();
+        for (int[] invariante : invariantes) {
+            conjunto.add(Arrays.toString(invariante));
+        }
+        return conjunto;
+    }
+}
@@ -0,0 +1,61 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica la resolución de {@link HistogramaLatencia} en el borde superior de su rango y la cubeta de desborde.
+ */
+public class HistogramaLatenciaTest {
+
+    // Se declara el error relativo maximo de un percentil con 32 subcubetas por potencia de dos
+    private static final double ERRORRELATIVO = 1.0 / 32;
+
+    /**
+     * Los valores de la última subcubeta de 2^40 conservan su resolución, aunque haya valores en el desborde.
+     */
+    @Test
+    public void laUltimaSubcubetaNoSeConfundeConElDesborde() {
+        long[] valores = {63L << 35, (1L << 41) - 1};
+        for (long valor : valores) {
+            // Se registra el valor junto con otro en el desborde, mayor, que fija el maximo
+            HistogramaLatencia histograma = new HistogramaLatencia();
+            histograma.registrar(valor);
+            histograma.registrar(1L << 50);
+
+            long percentil = histograma.getPercentil(50);
+            assertTrue("Percentil 50 de " + valor + ": " + percentil,
+                    percentil >= valor && percentil <= valor * (1 + ERRORRELATIVO));
+        }
+    }
+
+    /**
+     * Los valores desde 2^41 ns se cuentan en el desborde y su percentil es el máximo registrado.
+     */
+    @Test
+    public void losValoresFueraDeRangoVanAlDesborde() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        histograma.registrar(1L << 41);
+        histograma.registrar(1L << 50);
+        histograma.registrar(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histograma.getPercentil(1));
+        assertEquals(3, histograma.getCantidad());
+    }
+
+    /**
+     * Las copias y las sumas incluyen la fila de desborde.
+     */
+    @Test
+    public void laCopiaConservaElDesborde() {
+        HistogramaLatencia histograma = new HistogramaLatencia();
+        histograma.registrar(10);
+        histograma.registrar(1L << 45);
+
+        HistogramaLatencia copia = histograma.copiar();
+        assertEquals(10, copia.getPercentil(50));
+        assertEquals(1L << 45, copia.getPercentil(100));
+    }
+}
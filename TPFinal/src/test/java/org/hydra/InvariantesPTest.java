@@ -0,0 +1,170 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica la base de p-invariantes de {@link InvariantesP}: cada vector debe anular la incidencia y la base debe
+ * tener tantos vectores independientes como la dimensión del espacio de p-invariantes, la cantidad de plazas menos el
+ * rango de la incidencia. También verifica las cotas que se deducen de los p-invariantes semipositivos.
+ */
+public class InvariantesPTest {
+
+    // Se declaran la exclusion mutua entre dos procesos, con plazas I1, C1, I2, C2 y el mutex M, y dos procesos que
+    // toman los recursos RA y RB en distinto orden
+    private static final int[][] EXCLUSION = {
+            {-1, 1, 0, 0},
+            {1, -1, 0, 0},
+            {0, 0, -1, 1},
+            {0, 0, 1, -1},
+            {-1, 1, -1, 1}};
+    private static final int[][] RECURSOS = {
+            {-1, 0, 1, 0, 0, 0},
+            {1, -1, 0, 0, 0, 0},
+            {0, 1, -1, 0, 0, 0},
+            {0, 0, 0, -1, 0, 1},
+            {0, 0, 0, 1, -1, 0},
+            {0, 0, 0, 0, 1, -1},
+            {-1, 0, 1, 0, -1, 1},
+            {0, -1, 1, -1, 0, 1}};
+
+    /**
+     * La exclusión mutua tiene 3 p-invariantes independientes, los dos procesos con recursos 4, y una transición que
+     * une dos plazas en otras dos, con su inversa, 3 aunque tenga cuatro soportes mínimos.
+     */
+    @Test
+    public void baseDelEspacioDeInvariantes() {
+        verificarBase(EXCLUSION, 3);
+        verificarBase(RECURSOS, 4);
+        verificarBase(new int[][]{{-1, 1}, {-1, 1}, {1, -1}, {1, -1}}, 3);
+        verificarBase(new int[][]{{-2, 2}, {1, -1}}, 1);
+    }
+
+    /**
+     * Una red sin p-invariantes, con una fuente que alimenta una plaza, da una base vacía.
+     */
+    @Test
+    public void redSinInvariantes() {
+        assertEquals(0, InvariantesP.calcular(new int[][]{{1, -1}}).length);
+    }
+
+    /**
+     * Con los p-invariantes semipositivos mínimos, cada plaza de la exclusión mutua y de los procesos con recursos
+     * está acotada a un token, y con pesos la cota se divide por el peso de la plaza.
+     */
+    @Test
+    public void cotasDeLosInvariantesSemipositivos() {
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1}, cotas(new int[][]{{1, 1, 0, 0, 0}, {0, 0, 1, 1, 0},
+                {0, 1, 0, 1, 1}}, new int[]{1, 0, 1, 0, 1}));
+        assertArrayEquals(new int[]{3, 1}, cotas(new int[][]{{1, 2}}, new int[]{3, 0}));
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 1, 1}, cotas(new int[][]{{1, 1, 1, 0, 0, 0, 0, 0},
+                {0, 0, 0, 1, 1, 1, 0, 0}, {0, 1, 1, 0, 0, 1, 1, 0}, {0, 0, 1, 0, 1, 1, 0, 1}},
+                new int[]{1, 0, 0, 1, 0, 0, 1, 1}));
+    }
+
+    /**
+     * Una transición que consume de A y de B solo tiene el p-invariante A - B, que no es semipositivo, y una plaza
+     * alimentada por una fuente no aparece en ningún p-invariante: ninguna de las dos queda acotada.
+     */
+    @Test
+    public void sinCotaSinInvarianteSemipositivo() {
+        int[][] invariantes = InvariantesP.calcular(new int[][]{{-1}, {-1}});
+        assertEquals(1, invariantes.length);
+        assertEquals(0, invariantes[0][0] + invariantes[0][1]);
+        assertArrayEquals(new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE}, cotas(invariantes, new int[]{2, 2}));
+        assertArrayEquals(new int[]{Integer.MAX_VALUE}, cotas(InvariantesP.calcular(new int[][]{{1, -1}}),
+                new int[]{0}));
+    }
+
+    /**
+     * La suma ponderada de los tokens se conserva al disparar cualquier transición de los procesos con recursos.
+     */
+    @Test
+    public void evaluarSeConservaAlDisparar() {
+        int[] marcado = {1, 0, 0, 1, 0, 0, 1, 1};
+        for (int[] invariante : InvariantesP.calcular(RECURSOS)) {
+            long constante = InvariantesP.evaluar(invariante, marcado);
+            for (int t = 0; t < RECURSOS[0].length; t++) {
+                int[] siguiente = marcado.clone();
+                for (int p = 0; p < marcado.length; p++) {
+                    siguiente[p] += RECURSOS[p][t];
+                }
+                assertEquals(constante, InvariantesP.evaluar(invariante, siguiente));
+            }
+        }
+    }
+
+    /**
+     * Verifica que la base anule la incidencia y tenga la dimensión esperada de vectores independientes.
+     *
+     * @param incidencia matriz de incidencia, por plaza y transición
+     * @param dimension dimensión del espacio de p-invariantes
+     */
+    private static void verificarBase(int[][] incidencia, int dimension) {
+        int[][] invariantes = InvariantesP.calcular(incidencia);
+        assertEquals(dimension, invariantes.length);
+        for (int[] invariante : invariantes) {
+            assertTrue(Arrays.stream(invariante).anyMatch(peso -> peso != 0));
+            for (int t = 0; t < incidencia[0].length; t++) {
+                long suma = 0;
+                for (int p = 0; p < incidencia.length; p++) {
+                    suma += (long) invariante[p] * incidencia[p][t];
+                }
+                assertEquals("Transicion " + t, 0, suma);
+            }
+        }
+        assertEquals(dimension, rango(invariantes));
+    }
+
+    /**
+     * Calcula el rango de una matriz entera por eliminación con fracciones enteras.
+     *
+     * @param matriz filas de la matriz
+     * @return Rango
+     */
+    private static int rango(int[][] matriz) {
+        long[][] filas = new long[matriz.length][];
+        for (int i = 0; i < matriz.length; i++) {
+            filas[i] = Arrays.stream(matriz[i]).asLongStream().toArray();
+        }
+        int rango = 0;
+        int columnas = filas.length == 0 ? 0 : filas[0].length;
+        for (int c = 0; c < columnas && rango < filas.length; c++) {
+            // Se busca un pivote en la columna y se anula la columna en las filas siguientes
+            int pivote = rango;
+            while (pivote < filas.length && filas[pivote][c] == 0) {
+                pivote++;
+            }
+            if (pivote == filas.length) {
+                continue;
+            }
+            long[] auxiliar = filas[rango];
+            filas[rango] = filas[pivote];
+            filas[pivote] = auxiliar;
+            for (int i = rango + 1; i < filas.length; i++) {
+                long factor = filas[i][c];
+                for (int j = 0; j < columnas; j++) {
+                    filas[i][j] = filas[rango][c] * filas[i][j] - factor * filas[rango][j];
+                }
+            }
+            rango++;
+        }
+        return rango;
+    }
+
+    /**
+     * Calcula las cotas de las plazas.
+     *
+     * @param invariantes p-invariantes de la red
+     * @param marcado marcado inicial
+     * @return Cota de cada plaza
+     */
+    private static int[] cotas(int[][] invariantes, int[] marcado) {
+        return InvariantesP.calcularCotas(invariantes, marcado);
+    }
+}
@@ -0,0 +1,150 @@
+package org.hydra;
+
+import org.hydra.beans.VectorSensibilizado;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica las tareas con transición de salida: la salida se dispara en el monitor al terminar cada tarea y, si
+ * tiene que esperar tokens, no detiene a los hilos del ejecutor pero sí retiene el lugar de la tarea.
+ */
+public class ProcesosModeladosTest {
+
+    // Se declaran los indices de las transiciones de la red de prueba
+    private static final int INICIO = 0;
+    private static final int SALIDA = 1;
+    private static final int RECURSO = 2;
+
+    private Monitor monitor;
+
+    /**
+     * Con un pool de un solo hilo, la salida de la primera tarea espera un recurso que todavía no existe. La segunda
+     * tarea igual debe realizarse, y al agregar los recursos deben dispararse las dos salidas.
+     *
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    @Test(timeout = 30000)
+    public void laSalidaBloqueadaNoDetieneAlPool() throws InterruptedException {
+        ProcesosModelados procesoModelado = armar("pool:1");
+        Monitor monitor = this.monitor;
+        RDP rdp = procesoModelado.getRDP();
+        CountDownLatch realizadas = new CountDownLatch(2);
+        procesoModelado.registrarTarea(INICIO, transicion -> realizadas.countDown(), 0, SALIDA);
+
+        // Se disparan las dos tareas; la salida de la primera queda esperando el recurso
+        monitor.disparoTransicion(INICIO);
+        procesoModelado.realizarTarea(INICIO);
+        monitor.disparoTransicion(INICIO);
+        procesoModelado.realizarTarea(INICIO);
+        assertTrue("La segunda tarea no se realizo con la salida de la primera bloqueada",
+                realizadas.await(10, TimeUnit.SECONDS));
+
+        // Se agregan los recursos y se espera a que las salidas se disparen
+        monitor.disparoTransicion(RECURSO);
+        procesoModelado.realizarTarea(RECURSO);
+        monitor.disparoTransicion(RECURSO);
+        procesoModelado.realizarTarea(RECURSO);
+        procesoModelado.cerrarTareas();
+
+        // Se verifica que las dos salidas se hayan disparado y devuelto los tokens
+        assertEquals(0, procesoModelado.getEjecutorTareas().getEnCurso());
+        assertEquals(2, procesoModelado.getContadorDisparoTransiciones()[SALIDA]);
+        assertArrayEquals(new int[]{2, 0, 0}, rdp.getTokens());
+        rdp.getVectorSensibilizado().detenerPlanificador();
+    }
+
+    /**
+     * Con capacidad para una sola tarea, la salida de la primera espera un recurso y retiene su lugar. El hilo que
+     * entrega la segunda tarea debe quedar esperando hasta que la salida se dispare, en lugar de acumular tareas.
+     *
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    @Test(timeout = 30000)
+    public void laSalidaBloqueadaFrenaALosDisparadores() throws InterruptedException {
+        ProcesosModelados procesoModelado = armar("pool:1,0");
+        Monitor monitor = this.monitor;
+        RDP rdp = procesoModelado.getRDP();
+        CountDownLatch realizadas = new CountDownLatch(2);
+        procesoModelado.registrarTarea(INICIO, transicion -> realizadas.countDown(), 0, SALIDA);
+
+        // Se dispara la primera tarea, cuya salida queda esperando el recurso
+        monitor.disparoTransicion(INICIO);
+        procesoModelado.realizarTarea(INICIO);
+        monitor.disparoTransicion(INICIO);
+
+        // Se entrega la segunda tarea desde otro hilo, que debe quedar esperando lugar
+        CountDownLatch entregada = new CountDownLatch(1);
+        Thread disparador = new Thread(() -> {
+            procesoModelado.realizarTarea(INICIO);
+            entregada.countDown();
+        }, "Disparador");
+        disparador.start();
+        assertFalse("La segunda tarea se entrego con la salida de la primera bloqueada",
+                entregada.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, realizadas.getCount());
+
+        // Se agrega un recurso: la primera salida libera su lugar y la segunda tarea se realiza
+        monitor.disparoTransicion(RECURSO);
+        procesoModelado.realizarTarea(RECURSO);
+        assertTrue("La segunda tarea no se entrego al dispararse la primera salida",
+                entregada.await(10, TimeUnit.SECONDS));
+        assertTrue(realizadas.await(10, TimeUnit.SECONDS));
+        disparador.join();
+
+        // Se agrega el recurso de la segunda salida y se espera a que termine
+        monitor.disparoTransicion(RECURSO);
+        procesoModelado.realizarTarea(RECURSO);
+        procesoModelado.cerrarTareas();
+
+        // Se verifica que las dos salidas se hayan disparado y devuelto los tokens
+        assertEquals(0, procesoModelado.getEjecutorTareas().getEnCurso());
+        assertEquals(2, procesoModelado.getContadorDisparoTransiciones()[SALIDA]);
+        assertArrayEquals(new int[]{2, 0, 0}, rdp.getTokens());
+        rdp.getVectorSensibilizado().detenerPlanificador();
+    }
+
+    /**
+     * Arma la red de prueba con su monitor y el ejecutor de tareas indicado. INICIO pasa un token de P0 a P1 y
+     * SALIDA lo devuelve consumiendo un token de Q, que solo produce RECURSO.
+     *
+     * @param ejecutor modo del ejecutor de tareas
+     * @return Procesos de la red, con el monitor asignado
+     */
+    private ProcesosModelados armar(String ejecutor) {
+        DefinicionRed.Armado armado = new DefinicionRed.Armado("salida");
+        armado.agregarPlaza("P0", 2);
+        armado.agregarPlaza("P1", 0);
+        armado.agregarPlaza("Q", 0);
+        armado.agregarTransicion("INICIO", 0, VectorSensibilizado.SIN_LIMITE);
+        armado.agregarTransicion("SALIDA", 0, VectorSensibilizado.SIN_LIMITE);
+        armado.agregarTransicion("RECURSO", 0, VectorSensibilizado.SIN_LIMITE);
+        armado.agregarArco("P0", "INICIO", 1);
+        armado.agregarArco("INICIO", "P1", 1);
+        armado.agregarArco("P1", "SALIDA", 1);
+        armado.agregarArco("Q", "SALIDA", 1);
+        armado.agregarArco("SALIDA", "P0", 1);
+        armado.agregarArco("RECURSO", "Q", 1);
+        armado.agregarTInvariante(Arrays.asList("INICIO", "SALIDA", "RECURSO"));
+        DefinicionRed red = armado.construir();
+
+        // Se crean la red, el monitor y el ejecutor de tareas
+        RDP rdp = red.crearRed();
+        ProcesosModelados procesoModelado = new ProcesosModelados(rdp, red.getTInvariantes());
+        Monitor monitor = new AdminMonitor(procesoModelado);
+        rdp.setVectorSensibilizado(new VectorSensibilizado(monitor, red.getAlpha(), red.getBeta(),
+                TimeUnit.MICROSECONDS));
+        rdp.crearEstadistica(Collections.singletonList(Arrays.asList(INICIO, SALIDA, RECURSO)));
+        procesoModelado.setEjecutorTareas(EjecutorTareas.crear(ejecutor), monitor);
+        this.monitor = monitor;
+        return procesoModelado;
+    }
+}
@@ -0,0 +1,152 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica que {@link Sifones} enumere exactamente los sifones mínimos de redes cuyos sifones se conocen y calcule la
+ * trampa máxima de cada uno. En la exclusión mutua los sifones mínimos son los soportes de los p-invariantes, que
+ * también son trampas; con dos procesos que toman dos recursos en distinto orden aparece además el sifón de los
+ * recursos y los estados que los tienen a ambos, que no contiene ninguna trampa y se vacía en el bloqueo.
+ */
+public class SifonesTest {
+
+    // Se declaran limites que las redes del test no alcanzan
+    private static final int LIMITERAMAS = 10_000;
+    private static final int LIMITESIFONES = 1_000;
+
+    // Se declara la red de los dos procesos, con las plazas P1 inactivo, P1 con RA, P1 con ambos, P2 inactivo,
+    // P2 con RB, P2 con ambos, RA y RB
+    private static final int[][] RECURSOS = {
+            {-1, 0, 1, 0, 0, 0},
+            {1, -1, 0, 0, 0, 0},
+            {0, 1, -1, 0, 0, 0},
+            {0, 0, 0, -1, 0, 1},
+            {0, 0, 0, 1, -1, 0},
+            {0, 0, 0, 0, 1, -1},
+            {-1, 0, 1, 0, -1, 1},
+            {0, -1, 1, -1, 0, 1}};
+    private static final int[] MARCADO_RECURSOS = {1, 0, 0, 1, 0, 0, 1, 1};
+
+    /**
+     * Exclusión mutua con plazas I1, C1, I2, C2 y el mutex M: los sifones mínimos son {I1, C1}, {I2, C2} y
+     * {C1, C2, M}, y cada uno es su propia trampa máxima.
+     */
+    @Test
+    public void exclusionMutua() {
+        int[][] incidencia = {
+                {-1, 1, 0, 0},
+                {1, -1, 0, 0},
+                {0, 0, -1, 1},
+                {0, 0, 1, -1},
+                {-1, 1, -1, 1}};
+        Sifones sifones = new Sifones(new MotorDisparo(incidencia, new int[]{1, 0, 1, 0, 1}));
+        Sifones.Resultado resultado = sifones.enumerar(LIMITERAMAS, LIMITESIFONES);
+
+        assertNull(resultado.motivo);
+        assertEquals(conjunto(new int[]{0, 1}, new int[]{2, 3}, new int[]{1, 3, 4}), textos(resultado));
+        for (int[] sifon : resultado.sifones) {
+            assertEquals(bits(sifon), sifones.trampaMaxima(sifon));
+        }
+    }
+
+    /**
+     * Con los recursos tomados en distinto orden, los sifones mínimos son los cuatro soportes de p-invariantes y
+     * {P1 con ambos, P2 con ambos, RA, RB}, cuya trampa máxima es vacía: aunque empieza marcado, puede vaciarse.
+     */
+    @Test
+    public void sifonSinTrampaDelBloqueo() {
+        Sifones sifones = new Sifones(new MotorDisparo(RECURSOS, MARCADO_RECURSOS));
+        Sifones.Resultado resultado = sifones.enumerar(LIMITERAMAS, LIMITESIFONES);
+
+        assertNull(resultado.motivo);
+        int[] bloqueo = {2, 5, 6, 7};
+        assertEquals(conjunto(new int[]{0, 1, 2}, new int[]{3, 4, 5}, new int[]{1, 2, 5, 6}, new int[]{2, 4, 5, 7},
+                bloqueo), textos(resultado));
+
+        // Se verifica que solo el sifon del bloqueo no contenga una trampa, y que los demas sean trampas
+        for (int[] sifon : resultado.sifones) {
+            BitSet trampa = sifones.trampaMaxima(sifon);
+            assertEquals(Arrays.equals(sifon, bloqueo) ? new BitSet() : bits(sifon), trampa);
+        }
+    }
+
+    /**
+     * La trampa máxima de un conjunto que no es sifón quita solo las plazas cuyas salidas no vuelven al conjunto.
+     */
+    @Test
+    public void trampaMaximaDeUnConjunto() {
+        Sifones sifones = new Sifones(new MotorDisparo(RECURSOS, MARCADO_RECURSOS));
+
+        // Se parte del ciclo de P1 con RB: RB sale hacia P2 con RB, fuera del conjunto, y el ciclo queda
+        assertEquals(bits(new int[]{0, 1, 2}), sifones.trampaMaxima(new int[]{0, 1, 2, 7}));
+        assertTrue(sifones.trampaMaxima(new int[]{6, 7}).isEmpty());
+    }
+
+    /**
+     * Al alcanzar el límite de sifones o de ramas la enumeración se corta con un motivo y los sifones hallados.
+     */
+    @Test
+    public void cortaEnLosLimites() {
+        Sifones sifones = new Sifones(new MotorDisparo(RECURSOS, MARCADO_RECURSOS));
+
+        Sifones.Resultado resultado = sifones.enumerar(LIMITERAMAS, 2);
+        assertNotNull(resultado.motivo);
+        assertEquals(2, resultado.sifones.size());
+
+        resultado = sifones.enumerar(1, LIMITESIFONES);
+        assertNotNull(resultado.motivo);
+        assertTrue(resultado.sifones.size() <= 1);
+    }
+
+    /**
+     * Convierte los sifones encontrados en texto, para compararlos sin importar el orden.
+     *
+     * @param resultado resultado de la enumeración
+     * @return Sifones como texto
+     */
+    private static Set<String> textos(Sifones.Resultado resultado) {
+        Set<String> textos = new TreeSet<>();
+        for (int[] sifon : resultado.sifones) {
+            textos.add(Arrays.toString(sifon));
+        }
+        return textos;
+    }
+
+    /**
+     * Arma el conjunto de sifones esperados.
+     *
+     * @param sifones plazas de cada sifón, en orden creciente
+     * @return Sifones como texto
+     */
+    private static Set<String> conjunto(int[]... sifones) {
+        Set<String> conjunto = new TreeSet<>();
+        for (int[] sifon : sifones) {
+            conjunto.add(Arrays.toString(sifon));
+        }
+        return conjunto;
+    }
+
+    /**
+     * Arma el conjunto de bits de unas plazas.
+     *
+     * @param plazas plazas del conjunto
+     * @return Conjunto de bits
+     */
+    private static BitSet bits(int[] plazas) {
+        BitSet bits = new BitSet();
+        for (int plaza : plazas) {
+            bits.set(plaza);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,243 @@
+package org.hydra;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifica que una traza escrita por {@link EscritorTrazaBinaria} se lea igual con {@link LectorTraza}, incluso con
+ * diferencias de tiempo negativas, índices que ocupan varios bytes y disparos repartidos en varias regiones
+ * mapeadas, y que una traza truncada o corrupta se rechace con una {@link IOException}.
+ */
+public class TrazaBinariaTest {
+
+    // Se declaran dimensiones de red con indices de transicion que ocupan dos bytes
+    private static final int PLAZAS = 3;
+    private static final int TRANSICIONES = 1000;
+    private static final int HILOS = 300;
+
+    // Se declara la posicion de la cantidad de disparos en la cabecera
+    private static final int POSICION_CANTIDAD = 40;
+
+    @Rule
+    public final TemporaryFolder carpeta = new TemporaryFolder();
+
+    /**
+     * Los instantes anteriores al disparo previo y los índices de hilo y transición desde 128 se leen sin cambios.
+     *
+     * @throws IOException si no se puede escribir o leer la traza
+     */
+    @Test
+    public void conservaDiferenciasNegativasEIndicesGrandes() throws IOException {
+        long base = System.nanoTime();
+        long[] tiempos = {base - 5_000, base + 1, base - 3, base + 1_000_000_000L, base + 999_999_000L};
+        int[] hilos = {0, 127, 128, 299, 1};
+        int[] transiciones = {5, 128, 999, 0, 300};
+        Path archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 1024, tiempos, hilos, transiciones);
+
+        try (LectorTraza lector = new LectorTraza(archivo)) {
+            assertEquals(PLAZAS, lector.getPlazas());
+            assertEquals(TRANSICIONES, lector.getTransiciones());
+            assertEquals(HILOS, lector.getCantidadHilos());
+            assertEquals(tiempos.length, lector.getCantidadDisparos());
+            assertEquals("Hilo 299", lector.getNombreHilo(299));
+            leerIgual(lector, tiempos, hilos, transiciones);
+        }
+    }
+
+    /**
+     * Con regiones de pocos bytes, los disparos se reparten en muchas regiones del escritor y del lector, con
+     * bordes distintos en cada uno, y se leen sin cambios.
+     *
+     * @throws IOException si no se puede escribir o leer la traza
+     */
+    @Test
+    public void cruzaLosBordesDeLasRegiones() throws IOException {
+        // Se generan disparos de tamanios variados con una semilla fija
+        int cantidad = 2_000;
+        Random aleatorio = new Random(7);
+        long[] tiempos = new long[cantidad];
+        int[] hilos = new int[cantidad];
+        int[] transiciones = new int[cantidad];
+        long instante = System.nanoTime();
+        for (int i = 0; i < cantidad; i++) {
+            instante += aleatorio.nextInt(1 << (1 + aleatorio.nextInt(30))) - 1_000;
+            tiempos[i] = instante;
+            hilos[i] = aleatorio.nextInt(HILOS);
+            transiciones[i] = aleatorio.nextInt(TRANSICIONES);
+        }
+        Path archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 3 * TrazaBinaria.MAXIMO_DISPARO, tiempos, hilos,
+                transiciones);
+
+        try (LectorTraza lector = new LectorTraza(archivo, 2 * TrazaBinaria.MAXIMO_DISPARO + 7)) {
+            leerIgual(lector, tiempos, hilos, transiciones);
+        }
+    }
+
+    /**
+     * Una traza cortada antes del fin de la cabecera o de la tabla de nombres se rechaza al abrirla.
+     *
+     * @throws IOException si no se puede escribir la traza
+     */
+    @Test
+    public void rechazaUnaTrazaTruncada() throws IOException {
+        long[] tiempos = {System.nanoTime()};
+        for (long tamanio : new long[]{0, TrazaBinaria.TAMANIO_CABECERA / 2, TrazaBinaria.TAMANIO_CABECERA + 1}) {
+            Path archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 1024, tiempos, new int[]{0}, new int[]{0});
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(tamanio);
+            }
+            abrirCorrupta(archivo);
+        }
+    }
+
+    /**
+     * Una cabecera con otra magia o con una cantidad de disparos que no coincide con los bytes de disparos, o un
+     * disparo de un hilo sin nombre, se rechazan sin excepciones de buffer.
+     *
+     * @throws IOException si no se puede escribir la traza
+     */
+    @Test
+    public void rechazaUnaTrazaCorrupta() throws IOException {
+        long[] tiempos = {System.nanoTime(), System.nanoTime() + 10};
+        int[] hilos = {0, 1};
+        int[] transiciones = {1, 2};
+
+        // Se cambia la magia
+        Path archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 1024, tiempos, hilos, transiciones);
+        sobrescribir(archivo, 0, ByteBuffer.wrap(new byte[]{'X'}));
+        abrirCorrupta(archivo);
+
+        // Se declaran mas y menos disparos que los escritos
+        for (long cantidad : new long[]{tiempos.length + 1, tiempos.length - 1}) {
+            archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 1024, tiempos, hilos, transiciones);
+            sobrescribir(archivo, POSICION_CANTIDAD, (ByteBuffer) ByteBuffer.allocate(8).putLong(cantidad).flip());
+            leerCorrupta(archivo);
+        }
+
+        // Se cambia el hilo del primer disparo, que sigue a su diferencia de tiempo, por uno sin nombre
+        archivo = escribir(TrazaBinaria.TAMANIO_CABECERA + 1024, tiempos, hilos, transiciones);
+        int tamanioDiferencia = 0;
+        for (long valor = TrazaBinaria.zigzag(tiempos[0] - base(archivo)); valor != 0; valor >>>= 7) {
+            tamanioDiferencia++;
+        }
+        sobrescribir(archivo, TrazaBinaria.TAMANIO_CABECERA + Math.max(tamanioDiferencia, 1),
+                ByteBuffer.wrap(new byte[]{0x7F}));
+        leerCorrupta(archivo);
+    }
+
+    /**
+     * Escribe una traza con regiones del tamaño indicado y el nombre "Hilo i" para cada hilo.
+     *
+     * @param tamanioRegion tamaño de las regiones del escritor
+     * @param tiempos instantes de los disparos
+     * @param hilos hilos de los disparos
+     * @param transiciones transiciones de los disparos
+     * @return Archivo de la traza
+     * @throws IOException si no se puede escribir la traza
+     */
+    private Path escribir(int tamanioRegion, long[] tiempos, int[] hilos, int[] transiciones) throws IOException {
+        Path archivo = this.carpeta.newFile().toPath();
+        EscritorTrazaBinaria escritor = new EscritorTrazaBinaria(archivo, PLAZAS, TRANSICIONES, tamanioRegion);
+        for (int i = 0; i < tiempos.length; i++) {
+            escritor.escribir(tiempos[i], hilos[i], "Hilo " + hilos[i], transiciones[i]);
+        }
+        escritor.cerrar();
+        return archivo;
+    }
+
+    /**
+     * Lee todos los disparos y verifica que coincidan con los escritos.
+     *
+     * @param lector lector de la traza
+     * @param tiempos instantes esperados
+     * @param hilos hilos esperados
+     * @param transiciones transiciones esperadas
+     * @throws IOException si no se puede leer la traza
+     */
+    private static void leerIgual(LectorTraza lector, long[] tiempos, int[] hilos, int[] transiciones)
+            throws IOException {
+        for (int i = 0; i < tiempos.length; i++) {
+            assertTrue(lector.siguiente());
+            assertEquals("Instante del disparo " + i, tiempos[i], lector.getNanosegundos());
+            assertEquals("Hilo del disparo " + i, hilos[i], lector.getHilo());
+            assertEquals("Transicion del disparo " + i, transiciones[i], lector.getTransicion());
+        }
+        assertFalse(lector.siguiente());
+    }
+
+    /**
+     * Devuelve el instante base de una traza, desde el que se cuenta la diferencia del primer disparo.
+     *
+     * @param archivo archivo de la traza
+     * @return instante base según la cabecera
+     * @throws IOException si no se puede leer la traza
+     */
+    private static long base(Path archivo) throws IOException {
+        ByteBuffer base = ByteBuffer.allocate(8);
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            canal.read(base, 32);
+        }
+        base.flip();
+        return base.getLong();
+    }
+
+    /**
+     * Sobrescribe bytes de una traza en la posición indicada.
+     *
+     * @param archivo archivo de la traza
+     * @param posicion posición del archivo
+     * @param datos bytes a escribir
+     * @throws IOException si no se puede escribir el archivo
+     */
+    private static void sobrescribir(Path archivo, long posicion, ByteBuffer datos) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            while (datos.hasRemaining()) {
+                posicion += canal.write(datos, posicion);
+            }
+        }
+    }
+
+    /**
+     * Verifica que abrir la traza falle con una {@link IOException}.
+     *
+     * @param archivo archivo de la traza
+     */
+    private static void abrirCorrupta(Path archivo) {
+        try (LectorTraza lector = new LectorTraza(archivo)) {
+            fail("Se abrio una traza invalida con " + lector.getCantidadDisparos() + " disparos");
+        }
+        catch (IOException e) {
+            // Se espera el rechazo de la traza
+        }
+    }
+
+    /**
+     * Verifica que leer todos los disparos de la traza falle con una {@link IOException}.
+     *
+     * @param archivo archivo de la traza
+     */
+    private static void leerCorrupta(Path archivo) {
+        try (LectorTraza lector = new LectorTraza(archivo)) {
+            while (lector.siguiente()) {
+                lector.getTransicion();
+            }
+            fail("Se leyo una traza corrupta");
+        }
+        catch (IOException e) {
+            // Se espera el rechazo de la traza
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.hydra;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica la descomposición de trazas en t-invariantes con los de la fábrica, numerados desde 0: los dos caminos
+ * de bloques comparten T1 y se separan en T2 o T3, y el de figuras de madera es independiente.
+ */
+public class VerificadorTInvariantesTest {
+
+    private static final List<List<Integer>> FABRICA = Arrays.asList(
+            Arrays.asList(0, 1, 3, 5, 7),
+            Arrays.asList(0, 2, 4, 6, 7),
+            Arrays.asList(8, 9, 10, 11));
+    private static final int TRANSICIONES = 12;
+
+    /**
+     * Instancias de los tres t-invariantes intercaladas entre sí se cuentan completas y la traza es válida.
+     */
+    @Test
+    public void aceptaIntercaladosValidos() {
+        VerificadorTInvariantes verificador = verificar(
+                0, 8, 1, 0, 9, 3, 2, 10, 5, 4, 6, 11, 7, 7);
+
+        assertTrue(verificador.esValida());
+        assertEquals(1, verificador.getCompletados(0));
+        assertEquals(1, verificador.getCompletados(1));
+        assertEquals(1, verificador.getCompletados(2));
+        assertEquals(3, verificador.getTotalCompletados());
+        assertEquals(14, verificador.getDisparos());
+    }
+
+    /**
+     * Un disparo que ninguna instancia espera ni inicia un t-invariante es ilegal, aunque el resto de la traza
+     * se complete.
+     */
+    @Test
+    public void rechazaUnDisparoIlegal() {
+        // T2 sin un T1 previo que la espere
+        VerificadorTInvariantes verificador = verificar(1, 8, 9, 10, 11);
+
+        assertFalse(verificador.esValida());
+        assertEquals(1, verificador.getIlegales());
+        assertEquals(0, verificador.getIncompletas());
+        assertEquals(1, verificador.getCompletados(2));
+    }
+
+    /**
+     * Una transición fuera de la red se cuenta como ilegal en lugar de fallar.
+     */
+    @Test
+    public void rechazaUnaTransicionInexistente() {
+        VerificadorTInvariantes verificador = verificar(TRANSICIONES, -1);
+
+        assertEquals(2, verificador.getIlegales());
+        assertFalse(verificador.esValida());
+    }
+
+    /**
+     * Una instancia iniciada que no llega a completarse al final de la traza la invalida.
+     */
+    @Test
+    public void rechazaUnaInstanciaIncompletaAlFinal() {
+        VerificadorTInvariantes verificador = verificar(8, 9, 10, 11, 0, 1, 3);
+
+        assertFalse(verificador.esValida());
+        assertEquals(0, verificador.getIlegales());
+        assertEquals(1, verificador.getIncompletas());
+        assertEquals(1, verificador.getTotalCompletados());
+    }
+
+    /**
+     * Con el prefijo T1 compartido, T2 y T3 avanzan a las instancias en orden de inicio sin importar qué camino
+     * tomen, incluso con más instancias abiertas que la capacidad inicial de las colas.
+     */
+    @Test
+    public void separaLosCaminosConPrefijoCompartido() {
+        // Se inician 20 instancias con T1 y se alternan T2 y T3 para elegir su camino
+        int instancias = 20;
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(FABRICA, TRANSICIONES);
+        for (int i = 0; i < instancias; i++) {
+            verificador.disparo(0);
+        }
+        for (int i = 0; i < instancias; i++) {
+            verificador.disparo(i % 2 == 0 ? 1 : 2);
+        }
+        assertEquals(instancias, verificador.getIncompletas());
+
+        // Se completa cada camino y se cierran las instancias con T8
+        for (int i = 0; i < instancias / 2; i++) {
+            verificador.disparo(3);
+            verificador.disparo(4);
+            verificador.disparo(5);
+            verificador.disparo(6);
+        }
+        for (int i = 0; i < instancias; i++) {
+            verificador.disparo(7);
+        }
+
+        assertTrue(verificador.esValida());
+        assertEquals(instancias / 2, verificador.getCompletados(0));
+        assertEquals(instancias / 2, verificador.getCompletados(1));
+    }
+
+    /**
+     * Si un t-invariante es prefijo de otro, la instancia se cuenta completa mientras espera y pasa al más largo si
+     * se extiende.
+     */
+    @Test
+    public void cuentaElInvarianteQueEsPrefijoDeOtro() {
+        List<List<Integer>> invariantes = Arrays.asList(Arrays.asList(0, 1), Arrays.asList(0, 1, 2));
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(invariantes, 3);
+        verificador.disparo(0);
+        verificador.disparo(1);
+        assertTrue(verificador.esValida());
+        assertEquals(1, verificador.getCompletados(0));
+
+        verificador.disparo(2);
+        assertTrue(verificador.esValida());
+        assertEquals(0, verificador.getCompletados(0));
+        assertEquals(1, verificador.getCompletados(1));
+    }
+
+    /**
+     * El log de texto se interpreta por la transición al final de cada línea, ignorando las líneas vacías.
+     *
+     * @throws IOException si no se puede leer el log
+     */
+    @Test
+    public void verificaUnLogDeTexto() throws IOException {
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(FABRICA, TRANSICIONES);
+        verificador.verificar(new BufferedReader(new StringReader(
+                "Hilo 1 T9\nHilo 2 T10\n\nHilo 1 T11  \nHilo 3 T12\n")));
+
+        assertTrue(verificador.esValida());
+        assertEquals(1, verificador.getCompletados(2));
+    }
+
+    /**
+     * Una línea de log que no termina en una transición se rechaza.
+     *
+     * @throws IOException esperada
+     */
+    @Test(expected = IOException.class)
+    public void rechazaUnaLineaSinTransicion() throws IOException {
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(FABRICA, TRANSICIONES);
+        verificador.verificar(new BufferedReader(new StringReader("Hilo 1 T9\nHilo 2 dispara\n")));
+    }
+
+    /**
+     * Crea un verificador de la fábrica y le pasa los disparos indicados.
+     *
+     * @param disparos transiciones disparadas, numeradas desde 0
+     * @return Verificador con los disparos procesados
+     */
+    private static VerificadorTInvariantes verificar(int... disparos) {
+        VerificadorTInvariantes verificador = new VerificadorTInvariantes(FABRICA, TRANSICIONES);
+        for (int transicion : disparos) {
+            verificador.disparo(transicion);
+        }
+        return verificador;
+    }
+}
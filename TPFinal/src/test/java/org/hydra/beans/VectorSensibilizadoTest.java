@@ -0,0 +1,134 @@
+package org.hydra.beans;
+
+import org.hydra.RDP;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifica que cada nueva sensibilización reinicie la ventana de una transición temporizada, salvo que se active la
+ * memoria de la ventana. La red tiene una plaza P1 con un token de la que consumen T1, con alpha de 10 ns, y T2,
+ * inmediata; T3 devuelve el token de T2 a P1, por lo que T1 pierde y recupera sus tokens sin dispararse.
+ */
+public class VectorSensibilizadoTest {
+
+    private static final int T1 = 0;
+    private static final int T2 = 1;
+    private static final int T3 = 2;
+
+    private final long[] ahora = new long[1];
+    private RDP rdp;
+    private VectorSensibilizado vector;
+
+    /**
+     * Arma la red con el reloj virtual en 0.
+     */
+    @Before
+    public void armar() {
+        // Se arma la matriz de incidencia: P1 -> T1, P1 -> T2 -> P2 -> T3 -> P1
+        int[][] matriz = {
+                {-1, -1, 1},
+                {0, 1, -1}
+        };
+        this.rdp = new RDP(matriz, new int[]{1, 0});
+        this.rdp.crearEstadistica(Collections.singletonList(Arrays.asList(T2, T3)));
+        this.vector = new VectorSensibilizado(this.rdp, new long[]{10, 0, 0}, null, TimeUnit.NANOSECONDS,
+                () -> this.ahora[0]);
+        this.rdp.setVectorSensibilizado(this.vector);
+    }
+
+    /**
+     * Sin memoria, la ventana de T1 se cuenta desde su última sensibilización.
+     */
+    @Test
+    public void laResensibilizacionReiniciaLaVentana() {
+        perderYRecuperarTokens();
+
+        // A los 12 ns T1 lleva 4 ns sensibilizada: no puede dispararse hasta los 18 ns
+        this.ahora[0] = 12;
+        assertFalse(this.vector.dentroDeVentana(T1));
+        this.ahora[0] = 18;
+        assertTrue(this.vector.dentroDeVentana(T1));
+    }
+
+    /**
+     * Con la memoria activada, la ventana de T1 conserva el inicio de la espera de su hilo.
+     */
+    @Test
+    public void laMemoriaConservaLaVentana() {
+        this.vector.setMemoriaVentana(true);
+        perderYRecuperarTokens();
+
+        // A los 12 ns se cuentan los 12 ns desde la primera sensibilizacion
+        this.ahora[0] = 12;
+        assertTrue(this.vector.dentroDeVentana(T1));
+    }
+
+    /**
+     * En el traspaso, T2 no toma el token que espera T1 si la política prefiere a T1, y sí lo toma si la política
+     * la prefiere a ella.
+     */
+    @Test
+    public void elTraspasoReservaLosTokensSegunLaPolitica() {
+        // T1 y T2 tienen hilos esperando y T1 no abrio su ventana
+        this.ahora[0] = 5;
+        long[] candidatas = {(1L << T1) | (1L << T2)};
+        assertFalse(this.vector.filtrarFueraDeVentana(candidatas, disponibles -> T1));
+        assertEquals(0, candidatas[0]);
+
+        // Si la politica elige a T2, se la despierta
+        candidatas[0] = (1L << T1) | (1L << T2);
+        assertTrue(this.vector.filtrarFueraDeVentana(candidatas, disponibles -> T2));
+        assertEquals(1L << T2, candidatas[0]);
+
+        // Sin politica no se reserva
+        candidatas[0] = (1L << T1) | (1L << T2);
+        assertTrue(this.vector.filtrarFueraDeVentana(candidatas, null));
+        assertEquals(1L << T2, candidatas[0]);
+    }
+
+    /**
+     * Una lista de alphas más corta que las transiciones de la red se rechaza en lugar de fallar al disparar.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaMenosAlphasQueTransiciones() {
+        new VectorSensibilizado(this.rdp, new long[]{10, 0}, null, TimeUnit.NANOSECONDS, () -> 0);
+    }
+
+    /**
+     * Una lista de alphas más larga que las transiciones de la red se rechaza en lugar de crear transiciones
+     * inexistentes.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaMasAlphasQueTransiciones() {
+        new VectorSensibilizado(this.rdp, new long[]{10, 0, 0, 0}, null, TimeUnit.NANOSECONDS, () -> 0);
+    }
+
+    /**
+     * Un alpha infinito se rechaza, ya que la transición nunca se dispararía.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaAlphaInfinito() {
+        new VectorSensibilizado(this.rdp, new long[]{VectorSensibilizado.SIN_LIMITE, 0, 0}, null,
+                TimeUnit.NANOSECONDS, () -> 0);
+    }
+
+    /**
+     * Un hilo llega a T1 antes de su ventana, a los 5 ns, y T2 y T3 le quitan y le devuelven el token a los 8 ns.
+     */
+    private void perderYRecuperarTokens() {
+        this.ahora[0] = 5;
+        assertFalse(this.vector.dentroDeVentana(T1));
+        this.ahora[0] = 8;
+        assertTrue(this.rdp.disparo(T2, false));
+        assertTrue(this.rdp.disparo(T3, false));
+        assertTrue(this.rdp.estaSensibilizada(T1));
+    }
+}